@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
+import org.opendaylight.sfc.util.openflow.writer.FlowDetails;
+import org.opendaylight.sfc.util.openflow.writer.SfcOfFlowWriterInterface;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.TableKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.groups.GroupBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.NodeId;
+
+/**
+ * Flow writer keeping the flows in memory instead of writing them to the data
+ * store, so that only the flow creation is measured.
+ */
+public class CapturingFlowWriter implements SfcOfFlowWriterInterface {
+
+    // All guarded by this
+    private final List<FlowBuilder> pendingFlows = new ArrayList<>();
+    private FlowBuilder flowBuilder;
+    private int flushedFlowCount;
+
+    /**
+     * Get the number of flows flushed by the last flush.
+     *
+     * @return the number of flows
+     */
+    public synchronized int getFlushedFlowCount() {
+        return flushedFlowCount;
+    }
+
+    @Override
+    public void injectTransaction(WriteTransaction theTx) {
+    }
+
+    @Override
+    public void updateTransactionObject() {
+    }
+
+    @Override
+    public void registerTransactionListener(Object interestedParty) {
+    }
+
+    @Override
+    public void deregisterTransactionListener(Object interestedParty) {
+    }
+
+    @Override
+    public synchronized void writeFlow(Long rspId, String sffNodeName, FlowBuilder flow) {
+        flowBuilder = flow;
+        pendingFlows.add(flow);
+    }
+
+    @Override
+    public synchronized void writeFlow(FlowDetails theFlowData) {
+        pendingFlows.add(new FlowBuilder(theFlowData.getFlow()));
+    }
+
+    @Override
+    public boolean writeFlows(Collection<FlowDetails> theFlows) {
+        theFlows.forEach(this::writeFlow);
+        return true;
+    }
+
+    @Override
+    public void removeFlow(String sffNodeName, FlowKey flowKey, TableKey tableKey) {
+    }
+
+    @Override
+    public void removeFlow(FlowDetails theFlowData) {
+    }
+
+    @Override
+    public boolean removeFlows(Collection<FlowDetails> theFlows) {
+        return true;
+    }
+
+    @Override
+    public void writeGroupToDataStore(String sffNodeName, GroupBuilder gb, boolean isAdd) {
+    }
+
+    @Override
+    public void deleteRspFlows(Long rspId) {
+    }
+
+    @Override
+    public void updateRspFlows(Long rspId) {
+    }
+
+    @Override
+    public Set<NodeId> clearSffsIfNoRspExists() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public synchronized FlowBuilder getFlowBuilder() {
+        return flowBuilder;
+    }
+
+    @Override
+    public synchronized void flushFlows() {
+        flushedFlowCount = pendingFlows.size();
+        pendingFlows.clear();
+    }
+
+    @Override
+    public void deleteFlowSet() {
+    }
+
+    @Override
+    public synchronized void purgeFlows() {
+        pendingFlows.clear();
+    }
+
+    @Override
+    public synchronized void purgeFlows(Long rspId) {
+        pendingFlows.clear();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
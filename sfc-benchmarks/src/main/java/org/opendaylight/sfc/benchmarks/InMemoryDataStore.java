@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.benchmarks;
+
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.sfc.provider.AbstractDataStoreManager;
+import org.opendaylight.sfc.provider.api.SfcAsyncDataStoreAPI;
+
+/**
+ * In-memory data broker with the SFC models loaded, set as the data broker of
+ * the SFC data store APIs. To be started from the trial setup of the
+ * benchmarks needing a data store.
+ */
+public class InMemoryDataStore extends AbstractDataStoreManager {
+
+    public DataBroker start() throws Exception {
+        setup();
+        setupSfc();
+        return dataBroker;
+    }
+
+    public void stop() throws Exception {
+        SfcAsyncDataStoreAPI.flush().get();
+        close();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.pot.netconf.renderer.provider.api;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation of the proof of transit configuration of an RSP, which is
+ * dominated by the search of the prime and the evaluation of the polynomials
+ * at every hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SfcPotConfigGeneratorBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int hops;
+
+    @Benchmark
+    public Long generateScvConfig() {
+        SfcPotConfigGenerator configGenerator = new SfcPotConfigGenerator(hops);
+        configGenerator.generateScvConfig();
+        return configGenerator.getPrime();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.benchmarks.InMemoryDataStore;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfDataPlaneLocatorName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctionsBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChainBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChainKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunctionKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.ServiceFunctionForwardersBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarderBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarderKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ConnectedSffDictionary;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ConnectedSffDictionaryBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ConnectedSffDictionaryKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionary;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionaryBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionaryKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPathKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.VxlanGpe;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scheduling of the SFs of a chain by each of the schedulers, reading the
+ * SFs, their types and the SFF topology from an in-memory data store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SfcServiceFunctionSchedulerBenchmark {
+
+    private static final int SFF_COUNT = 10;
+
+    @Param({"random", "round-robin", "load-balance", "shortest-path", "load-path-aware"})
+    private String scheduler;
+
+    // Number of SFs of the chain, each of a different type
+    @Param({"3", "10"})
+    private int chainLength;
+
+    // Number of SFs of each type to choose from
+    @Param({"10", "100"})
+    private int sfsPerType;
+
+    private final InMemoryDataStore dataStore = new InMemoryDataStore();
+    private SfcServiceFunctionSchedulerAPI schedulerAPI;
+    private ServiceFunctionChain serviceFunctionChain;
+    private ServiceFunctionPath serviceFunctionPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataStore.start();
+        schedulerAPI = createScheduler(scheduler);
+
+        List<ServiceFunction> serviceFunctions = new ArrayList<>();
+        List<List<ServiceFunctionDictionary>> sffDictionaries = new ArrayList<>();
+        for (int sff = 0; sff < SFF_COUNT; sff++) {
+            sffDictionaries.add(new ArrayList<>());
+        }
+        List<SfcServiceFunction> sfcServiceFunctions = new ArrayList<>();
+        int sfIndex = 0;
+        for (int type = 0; type < chainLength; type++) {
+            SftTypeName sfType = new SftTypeName("type-" + type);
+            sfcServiceFunctions.add(new SfcServiceFunctionBuilder().withKey(new SfcServiceFunctionKey("sf-" + type))
+                    .setName("sf-" + type).setType(sfType).setOrder((short) type).build());
+            for (int i = 0; i < sfsPerType; i++, sfIndex++) {
+                SfName sfName = new SfName("sf-" + type + "-" + i);
+                SffName sffName = sffName(sfIndex % SFF_COUNT);
+                serviceFunctions.add(SimpleTestEntityBuilder.buildServiceFunction(sfName, sfType,
+                        new IpAddress(new Ipv4Address("10.0." + sfIndex / 250 + "." + (sfIndex % 250 + 1))),
+                        SimpleTestEntityBuilder.buildSfDataPlaneLocator(
+                                new SfDataPlaneLocatorName(sfName.getValue() + "-dpl"),
+                                SimpleTestEntityBuilder.buildLocatorTypeIp(
+                                        new IpAddress(new Ipv4Address("192.168.0." + (sfIndex % SFF_COUNT + 1))),
+                                        6633),
+                                sffName, VxlanGpe.class),
+                        Boolean.TRUE));
+                sffDictionaries.get(sfIndex % SFF_COUNT).add(new ServiceFunctionDictionaryBuilder()
+                        .withKey(new ServiceFunctionDictionaryKey(sfName)).setName(sfName).build());
+            }
+        }
+
+        // The SFFs are connected in a ring
+        List<ServiceFunctionForwarder> serviceFunctionForwarders = new ArrayList<>();
+        for (int sff = 0; sff < SFF_COUNT; sff++) {
+            List<ConnectedSffDictionary> connectedSffs = new ArrayList<>();
+            for (SffName connectedSff : new SffName[] {sffName((sff + 1) % SFF_COUNT),
+                    sffName((sff + SFF_COUNT - 1) % SFF_COUNT)}) {
+                connectedSffs.add(new ConnectedSffDictionaryBuilder()
+                        .withKey(new ConnectedSffDictionaryKey(connectedSff)).setName(connectedSff).build());
+            }
+            serviceFunctionForwarders.add(new ServiceFunctionForwarderBuilder()
+                    .withKey(new ServiceFunctionForwarderKey(sffName(sff))).setName(sffName(sff))
+                    .setServiceFunctionDictionary(sffDictionaries.get(sff)).setConnectedSffDictionary(connectedSffs)
+                    .build());
+        }
+
+        SfcDataStoreAPI.writePutTransactionAPI(SfcInstanceIdentifiers.SF_IID,
+                new ServiceFunctionsBuilder().setServiceFunction(serviceFunctions).build(),
+                LogicalDatastoreType.CONFIGURATION);
+        SfcDataStoreAPI.writePutTransactionAPI(SfcInstanceIdentifiers.SFF_IID,
+                new ServiceFunctionForwardersBuilder().setServiceFunctionForwarder(serviceFunctionForwarders).build(),
+                LogicalDatastoreType.CONFIGURATION);
+        for (ServiceFunction serviceFunction : serviceFunctions) {
+            SfcProviderServiceTypeAPI.createServiceFunctionTypeEntry(serviceFunction);
+        }
+
+        SfcName sfcName = new SfcName("benchmark-chain");
+        serviceFunctionChain = new ServiceFunctionChainBuilder().withKey(new ServiceFunctionChainKey(sfcName))
+                .setName(sfcName).setSfcServiceFunction(sfcServiceFunctions).build();
+        SfcProviderServiceChainAPI.putServiceFunctionChain(serviceFunctionChain);
+        serviceFunctionPath = new ServiceFunctionPathBuilder()
+                .withKey(new ServiceFunctionPathKey(new SfpName("benchmark-path"))).setPathId(1L)
+                .setServiceChainName(sfcName).setServicePathHop(Collections.emptyList()).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        dataStore.stop();
+    }
+
+    @Benchmark
+    public List<SfName> scheduleServiceFunctions() {
+        return schedulerAPI.scheduleServiceFunctions(serviceFunctionChain, 255, serviceFunctionPath);
+    }
+
+    private static SfcServiceFunctionSchedulerAPI createScheduler(String name) {
+        switch (name) {
+            case "random":
+                return new SfcServiceFunctionRandomSchedulerAPI();
+            case "round-robin":
+                return new SfcServiceFunctionRoundRobinSchedulerAPI();
+            case "load-balance":
+                return new SfcServiceFunctionLoadBalanceSchedulerAPI();
+            case "shortest-path":
+                return new SfcServiceFunctionShortestPathSchedulerAPI();
+            case "load-path-aware":
+                return new SfcServiceFunctionLoadPathAwareSchedulerAPI();
+            default:
+                throw new IllegalArgumentException("Unknown scheduler " + name);
+        }
+    }
+
+    private static SffName sffName(int index) {
+        return new SffName("sff-" + index);
+    }
+}
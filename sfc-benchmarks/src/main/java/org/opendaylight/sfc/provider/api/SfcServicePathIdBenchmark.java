@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.sfc.benchmarks.InMemoryDataStore;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.GenerationAlgorithmEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocation and release of path-ids, with part of the path-id space already
+ * in use. The allocations are written back to an in-memory data store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SfcServicePathIdBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    @Param({"Random", "Sequential"})
+    private String generationAlgorithm;
+
+    // Number of path-ids allocated before measuring
+    @Param({"0", "2048"})
+    private int allocated;
+
+    private final InMemoryDataStore dataStore = new InMemoryDataStore();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataStore.start();
+        SfcServicePathId.reload();
+        SfcServicePathId.setGenerationAlgorithm(GenerationAlgorithmEnum.valueOf(generationAlgorithm));
+        for (int i = 0; i < allocated; i++) {
+            SfcServicePathId.checkAndAllocatePathId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        dataStore.stop();
+        SfcServicePathId.reload();
+    }
+
+    @Benchmark
+    public boolean allocateAndFree() {
+        return SfcServicePathId.freePathId(SfcServicePathId.checkAndAllocatePathId());
+    }
+
+    @Benchmark
+    public boolean allocateAndFreeSymmetricPair() {
+        long[] pathIds = SfcServicePathId.checkAndAllocatePathIdPair(null, true);
+        return SfcServicePathId.freePathId(pathIds[0]) && SfcServicePathId.freePathId(pathIds[1]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public boolean allocateAndFreeBulk() {
+        List<Long> pathIds = SfcServicePathId.checkAndAllocatePathIds(BULK_SIZE);
+        return SfcServicePathId.freePathIds(pathIds);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.topology;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shortest path searches between SFs attached to a ring of SFFs, both with the
+ * breadth-first search of {@link SfcProviderGraph} and the cached distances of
+ * {@link SfcHopDistanceIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SfcProviderGraphBenchmark {
+
+    private static final int SFS_PER_SFF = 10;
+    private static final int PAIR_COUNT = 1024;
+
+    @Param({"10", "100", "1000"})
+    private int sffCount;
+
+    private SfcProviderGraph graph;
+    private SfcHopDistanceIndex hopDistanceIndex;
+    private final List<String> fromNodes = new ArrayList<>();
+    private final List<String> toNodes = new ArrayList<>();
+    private int nextPair;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new SfcProviderGraph();
+        hopDistanceIndex = new SfcHopDistanceIndex();
+        List<String> sfNames = new ArrayList<>();
+        for (int sff = 0; sff < sffCount; sff++) {
+            String sffName = "sff-" + sff;
+            List<String> linkedNodeNames = new ArrayList<>();
+            linkedNodeNames.add("sff-" + (sff + 1) % sffCount);
+            graph.addEdge(sffName, "sff-" + (sff + 1) % sffCount);
+            for (int sf = 0; sf < SFS_PER_SFF; sf++) {
+                String sfName = "sf-" + sff + "-" + sf;
+                graph.addEdge(sffName, sfName);
+                hopDistanceIndex.updateServiceFunction(sfName);
+                linkedNodeNames.add(sfName);
+                sfNames.add(sfName);
+            }
+            hopDistanceIndex.updateServiceFunctionForwarder(sffName, linkedNodeNames);
+        }
+
+        Random random = new Random(0);
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            fromNodes.add(sfNames.get(random.nextInt(sfNames.size())));
+            toNodes.add(sfNames.get(random.nextInt(sfNames.size())));
+        }
+    }
+
+    @Benchmark
+    public List<SfcProviderTopologyNode> shortestPath() {
+        int pair = nextPair++ % PAIR_COUNT;
+        return graph.getShortestPath(fromNodes.get(pair), toNodes.get(pair));
+    }
+
+    @Benchmark
+    public int hopCount() {
+        int pair = nextPair++ % PAIR_COUNT;
+        return hopDistanceIndex.getHopCount(fromNodes.get(pair), toNodes.get(pair));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.renderers.openflow.processors;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opendaylight.mdsal.binding.api.RpcConsumerRegistry;
+import org.opendaylight.sfc.benchmarks.CapturingFlowWriter;
+import org.opendaylight.sfc.renderers.openflow.RspBuilder;
+import org.opendaylight.sfc.renderers.openflow.openflow.SfcOfFlowProgrammerImpl;
+import org.opendaylight.sfc.renderers.openflow.utils.SfcOfProviderUtilsTestMock;
+import org.opendaylight.sfc.renderers.openflow.utils.SfcSynchronizer;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Mac;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.MacChaining;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Mpls;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Nsh;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Transport;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.VxlanGpe;
+import org.opendaylight.yangtools.yang.binding.RpcService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of an RSP into OpenFlow flows, captured in memory instead of being
+ * written to the data store. The SFFs are initialized by the first rendering,
+ * so the flows common to all the RSPs of an SFF are not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SfcOfRspProcessorBenchmark {
+
+    @Param({"nsh", "mpls", "vlan", "mac-chaining"})
+    private String encapsulation;
+
+    @Param({"2", "8"})
+    private int hops;
+
+    private final CapturingFlowWriter flowWriter = new CapturingFlowWriter();
+    private SfcOfRspProcessor rspProcessor;
+    private RenderedServicePath rsp;
+    private AtomicInteger lastVlanId;
+    private AtomicLong lastMplsLabel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        SfcOfProviderUtilsTestMock providerUtils = new SfcOfProviderUtilsTestMock();
+        rspProcessor = new SfcOfRspProcessor(new SfcOfFlowProgrammerImpl(flowWriter), providerUtils,
+                new SfcSynchronizer(), new RpcConsumerRegistry() {
+                    @Override
+                    public <T extends RpcService> T getRpcService(Class<T> serviceInterface) {
+                        return null;
+                    }
+                }, null);
+
+        RspBuilder rspBuilder = new RspBuilder(providerUtils);
+        List<SftTypeName> sfTypes = new ArrayList<>();
+        for (int hop = 0; hop < hops; hop++) {
+            sfTypes.add(new SftTypeName("type-" + hop));
+        }
+        switch (encapsulation) {
+            case "nsh":
+                rsp = rspBuilder.createRspFromSfTypes(sfTypes, VxlanGpe.class, Nsh.class);
+                break;
+            case "mpls":
+                rsp = rspBuilder.createRspFromSfTypes(sfTypes, Mpls.class, Transport.class);
+                break;
+            case "vlan":
+                rsp = rspBuilder.createRspFromSfTypes(sfTypes, Mac.class, Transport.class);
+                break;
+            case "mac-chaining":
+                // MAC chaining is rendered on a single SFF
+                SffName sffName = new SffName("SFF_0");
+                List<ServiceFunction> sfList = new ArrayList<>();
+                for (SftTypeName sfType : sfTypes) {
+                    sfList.add(rspBuilder.createServiceFunction(new SfName("SF-" + sfType.getValue()), sffName,
+                            sfType, Mac.class));
+                }
+                rsp = rspBuilder.createRspFromSfList(sfList, sffName, Mac.class, MacChaining.class);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown encapsulation " + encapsulation);
+        }
+
+        lastVlanId = (AtomicInteger) getStaticField(SfcRspProcessorVlan.class, "LAST_VLAN_ID");
+        lastMplsLabel = (AtomicLong) getStaticField(SfcRspProcessorMpls.class, "LAST_MPLS_LABEL");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rspProcessor.close();
+    }
+
+    @Benchmark
+    public int processRenderedServicePath() {
+        // Every rendering takes new VLAN ids and MPLS labels, which are never
+        // released. Start over so that they stay in range.
+        lastVlanId.set(0);
+        lastMplsLabel.set(0);
+        rspProcessor.processRenderedServicePath(rsp);
+        return flowWriter.getFlushedFlowCount();
+    }
+
+    private static Object getStaticField(Class<?> clazz, String name) throws ReflectiveOperationException {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.sbrest.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfDataPlaneLocatorName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffDataPlaneLocatorName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHopBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.function.base.SfDataPlaneLocatorBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarder.base.SffDataPlaneLocatorBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarderBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionary;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionaryBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.service.function.dictionary.SffSfDataPlaneLocatorBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.data.plane.locator.locator.type.IpBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Uri;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON export of the SFs, SFFs and RSPs sent to the REST southbound, for RSPs
+ * with a growing number of hops and SFFs with as many SFs in their dictionary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExporterBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int hops;
+
+    private final Exporter sfExporter = new SfExporterFactory().getExporter();
+    private final Exporter sffExporter = new SffExporterFactory().getExporter();
+    private final Exporter rspExporter = new RspExporterFactory().getExporter();
+    private ServiceFunction sf;
+    private ServiceFunctionForwarder sff;
+    private RenderedServicePath rsp;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sf = new ServiceFunctionBuilder().setName(new SfName("SF1")).setType(new SftTypeName("dpi"))
+                .setRestUri(new Uri("http://localhost:5000/"))
+                .setIpMgmtAddress(new IpAddress(new Ipv4Address("127.0.0.1")))
+                .setSfDataPlaneLocator(Collections.singletonList(new SfDataPlaneLocatorBuilder()
+                        .setName(new SfDataPlaneLocatorName("SF1-DP1")).setServiceFunctionForwarder(new SffName("SFF1"))
+                        .setLocatorType(new IpBuilder().setIp(new IpAddress(new Ipv4Address("192.168.10.5")))
+                                .setPort(new PortNumber(6640)).build())
+                        .build()))
+                .build();
+
+        List<ServiceFunctionDictionary> dictionary = new ArrayList<>();
+        List<RenderedServicePathHop> rspHops = new ArrayList<>();
+        for (int hop = 0; hop < hops; hop++) {
+            SfName sfName = new SfName("SF" + hop);
+            dictionary.add(new ServiceFunctionDictionaryBuilder().setName(sfName)
+                    .setSffSfDataPlaneLocator(new SffSfDataPlaneLocatorBuilder()
+                            .setSfDplName(new SfDataPlaneLocatorName(sfName.getValue() + "_DP1"))
+                            .setSffDplName(new SffDataPlaneLocatorName("SFF1_DP1")).build())
+                    .build());
+            rspHops.add(new RenderedServicePathHopBuilder().setHopNumber((short) hop).setServiceFunctionName(sfName)
+                    .setServiceFunctionForwarder(new SffName("SFF1")).setServiceIndex((short) (255 - hop)).build());
+        }
+        sff = new ServiceFunctionForwarderBuilder().setName(new SffName("SFF1"))
+                .setRestUri(new Uri("http://localhost:5000/"))
+                .setIpMgmtAddress(new IpAddress(new Ipv4Address("10.0.0.1")))
+                .setSffDataPlaneLocator(Collections.singletonList(new SffDataPlaneLocatorBuilder()
+                        .setName(new SffDataPlaneLocatorName("SFF1_DP1")).build()))
+                .setServiceFunctionDictionary(dictionary).build();
+        rsp = new RenderedServicePathBuilder().setName(new RspName("RSP1")).setContextMetadata("CM1")
+                .setParentServiceFunctionPath(new SfpName("SFP1")).setPathId(1L)
+                .setServiceChainName(new SfcName("SFC1")).setStartingIndex((short) 255)
+                .setRenderedServicePathHop(rspHops).build();
+    }
+
+    @Benchmark
+    public String exportServiceFunction() {
+        return sfExporter.exportJson(sf);
+    }
+
+    @Benchmark
+    public String exportServiceFunctionForwarder() {
+        return sffExporter.exportJson(sff);
+    }
+
+    @Benchmark
+    public String exportRenderedServicePath() {
+        return rspExporter.exportJson(rsp);
+    }
+}
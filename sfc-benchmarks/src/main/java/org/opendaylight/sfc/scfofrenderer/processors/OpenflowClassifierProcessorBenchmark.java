@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.scfofrenderer.processors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.benchmarks.InMemoryDataStore;
+import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
+import org.opendaylight.sfc.provider.api.SfcInstanceIdentifiers;
+import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
+import org.opendaylight.sfc.scfofrenderer.flowgenerators.BareClassifier;
+import org.opendaylight.sfc.scfofrenderer.utils.ClassifierHandler;
+import org.opendaylight.sfc.scfofrenderer.utils.SfcRspInfo;
+import org.opendaylight.sfc.scfofrenderer.utils.SfcScfOfUtils;
+import org.opendaylight.sfc.util.openflow.SfcOpenflowUtils;
+import org.opendaylight.sfc.util.openflow.writer.FlowDetails;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.acl.rev151001.Actions1;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.acl.rev151001.Actions1Builder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.acl.rev151001.access.lists.acl.access.list.entries.ace.actions.sfc.action.AclRenderedServicePathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffDataPlaneLocatorName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.RenderedServicePaths;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePathKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHopBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHopKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.scf.rev140701.attachment.point.attachment.point.type.InterfaceBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.scf.rev140701.service.function.classifiers.service.function.classifier.SclServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.scf.rev140701.service.function.classifiers.service.function.classifier.SclServiceFunctionForwarderBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarder.base.SffDataPlaneLocatorBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarder.base.SffDataPlaneLocatorKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarder.base.sff.data.plane.locator.DataPlaneLocatorBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarderBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarderKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.VxlanGpe;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.data.plane.locator.locator.type.IpBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.Ipv4Acl;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.Acl;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.AclBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.AclKey;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.AccessListEntriesBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.access.list.entries.Ace;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.access.list.entries.AceBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.access.list.entries.ace.ActionsBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.access.list.entries.ace.MatchesBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.access.list.entries.ace.matches.ace.type.AceIpBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.access.control.list.rev160218.access.lists.acl.access.list.entries.ace.matches.ace.type.ace.ip.ace.ip.version.AceIpv4Builder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Prefix;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.packet.fields.rev160218.acl.transport.header.fields.DestinationPortRangeBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.packet.fields.rev160218.acl.transport.header.fields.SourcePortRangeBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.types.rev131026.flow.Match;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of the classifier flows of an ACL on a bare (non logical) SFF,
+ * reading the SFF and the RSPs the ACEs steer to from an in-memory data store.
+ * The OVSDB lookups of the ports of the classifier node are stubbed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OpenflowClassifierProcessorBenchmark {
+
+    private static final int RSP_COUNT = 10;
+    private static final String NODE_NAME = "openflow:1";
+    private static final SffName SFF_NAME = new SffName("sff-classifier");
+    private static final SffDataPlaneLocatorName SFF_DPL_NAME = new SffDataPlaneLocatorName("sff-classifier-dpl");
+
+    @Param({"10", "100", "1000"})
+    private int aceCount;
+
+    private final InMemoryDataStore dataStore = new InMemoryDataStore();
+    private OpenflowClassifierProcessor classifierProcessor;
+    private SclServiceFunctionForwarder classifier;
+    private Acl acl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataStore.start();
+
+        ServiceFunctionForwarder sff = new ServiceFunctionForwarderBuilder()
+                .withKey(new ServiceFunctionForwarderKey(SFF_NAME)).setName(SFF_NAME)
+                .setSffDataPlaneLocator(Collections.singletonList(new SffDataPlaneLocatorBuilder()
+                        .withKey(new SffDataPlaneLocatorKey(SFF_DPL_NAME)).setName(SFF_DPL_NAME)
+                        .setDataPlaneLocator(new DataPlaneLocatorBuilder().setTransport(VxlanGpe.class)
+                                .setLocatorType(new IpBuilder().setIp(new IpAddress(new Ipv4Address("192.168.0.1")))
+                                        .setPort(new PortNumber(4790)).build())
+                                .build())
+                        .build()))
+                .build();
+        SfcDataStoreAPI.writePutTransactionAPI(
+                SfcInstanceIdentifiers.SFF_IID.child(ServiceFunctionForwarder.class, sff.key()), sff,
+                LogicalDatastoreType.CONFIGURATION);
+
+        for (int i = 0; i < RSP_COUNT; i++) {
+            RspName rspName = rspName(i);
+            writeRenderedServicePath(rspName, 100L + i);
+            writeRenderedServicePath(SfcProviderRenderedPathAPI.generateReversedPathName(rspName), 200L + i);
+        }
+
+        List<Ace> aces = new ArrayList<>();
+        for (int i = 0; i < aceCount; i++) {
+            aces.add(buildAce(i));
+        }
+        acl = new AclBuilder().withKey(new AclKey("acl", Ipv4Acl.class)).setAclName("acl").setAclType(Ipv4Acl.class)
+                .setAccessListEntries(new AccessListEntriesBuilder().setAce(aces).build()).build();
+        classifier = new SclServiceFunctionForwarderBuilder().setName(SFF_NAME.getValue())
+                .setAttachmentPointType(new InterfaceBuilder().setInterface("tap-classifier").build()).build();
+        classifierProcessor = new OpenflowClassifierProcessor(null, null, new StubbedOvsClassifier());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        dataStore.stop();
+    }
+
+    @Benchmark
+    public List<FlowDetails> processClassifier() {
+        return classifierProcessor.processClassifier(classifier, acl, true);
+    }
+
+    private static RspName rspName(int index) {
+        return new RspName("RSP_" + index);
+    }
+
+    private static void writeRenderedServicePath(RspName rspName, long pathId) {
+        // A single hop on the classifier SFF, so that no relay flow is needed
+        // for the reverse RSP
+        RenderedServicePath rsp = new RenderedServicePathBuilder().withKey(new RenderedServicePathKey(rspName))
+                .setName(rspName).setPathId(pathId).setStartingIndex((short) 255)
+                .setRenderedServicePathHop(Collections.singletonList(new RenderedServicePathHopBuilder()
+                        .withKey(new RenderedServicePathHopKey((short) 0)).setHopNumber((short) 0)
+                        .setServiceIndex((short) 255).setServiceFunctionName(new SfName("sf-" + rspName.getValue()))
+                        .setServiceFunctionForwarder(SFF_NAME).setServiceFunctionForwarderLocator(SFF_DPL_NAME)
+                        .build()))
+                .build();
+        SfcDataStoreAPI.writePutTransactionAPI(InstanceIdentifier.builder(RenderedServicePaths.class)
+                .child(RenderedServicePath.class, new RenderedServicePathKey(rspName)).build(), rsp,
+                LogicalDatastoreType.OPERATIONAL);
+    }
+
+    private static Ace buildAce(int index) {
+        return new AceBuilder().setRuleName("ACE" + index)
+                .setMatches(new MatchesBuilder().setAceType(new AceIpBuilder()
+                        .setAceIpVersion(new AceIpv4Builder()
+                                .setSourceIpv4Network(new Ipv4Prefix("10." + index / 256 % 256 + "." + index % 256
+                                        + ".0/24"))
+                                .setDestinationIpv4Network(new Ipv4Prefix("192.168.2.0/24")).build())
+                        .setProtocol(SfcOpenflowUtils.IP_PROTOCOL_TCP)
+                        .setSourcePortRange(new SourcePortRangeBuilder().setLowerPort(new PortNumber(1024)).build())
+                        .setDestinationPortRange(new DestinationPortRangeBuilder()
+                                .setLowerPort(new PortNumber(1 + index % 65535)).build())
+                        .build()).build())
+                .setActions(new ActionsBuilder().addAugmentation(Actions1.class, new Actions1Builder()
+                        .setSfcAction(new AclRenderedServicePathBuilder()
+                                .setRenderedServicePath(rspName(index % RSP_COUNT).getValue()).build())
+                        .build()).build())
+                .build();
+    }
+
+    /**
+     * Bare classifier with fixed OpenFlow node and ports, instead of looking
+     * them up in the OVSDB topology.
+     */
+    private static class StubbedOvsClassifier extends BareClassifier {
+        private static final long IN_PORT = 1L;
+        private static final long VXLAN_PORT = 2L;
+
+        private final ClassifierHandler classifierHandler = new ClassifierHandler();
+
+        @Override
+        public FlowDetails createClassifierOutFlow(String nodeId, String flowKey, Match match,
+                SfcRspInfo sfcRspInfo) {
+            return classifierHandler.addRspRelatedFlowIntoNode(nodeId,
+                    SfcScfOfUtils.createClassifierOutFlow(flowKey, match, sfcRspInfo, VXLAN_PORT),
+                    sfcRspInfo.getNshNsp());
+        }
+
+        @Override
+        public List<FlowDetails> createDpdkFlows(String nodeId, SfcRspInfo sfcRspInfo) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Optional<String> getNodeName(String interfaceName) {
+            return Optional.of(NODE_NAME);
+        }
+
+        @Override
+        public Optional<Long> getInPort(String nodeId, String interfaceName) {
+            return Optional.of(IN_PORT);
+        }
+    }
+}
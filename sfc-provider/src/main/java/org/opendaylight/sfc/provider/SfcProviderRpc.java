@@ -26,15 +26,21 @@ import org.opendaylight.infrautils.utils.concurrent.Executors;
 import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
 import org.opendaylight.sfc.provider.api.SfcInstanceIdentifiers;
 import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
+import org.opendaylight.sfc.provider.api.SfcRenderedPathTracer;
 import org.opendaylight.sfc.provider.api.SfcServicePathId;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.AllocatePathIdInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.AllocatePathIdOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.AllocatePathIdOutputBuilder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.DeletePathIdInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.DeletePathIdOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.DeletePathIdOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.PathIdState;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReadPathIdInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReadPathIdOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReadPathIdOutputBuilder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReservePathIdRangeInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReservePathIdRangeOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReservePathIdRangeOutputBuilder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ServicePathIdService;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.SetGenerationAlgorithmInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.SetGenerationAlgorithmOutput;
@@ -48,6 +54,7 @@ import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev1407
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.TraceRenderedServicePathInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.TraceRenderedServicePathOutput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.path.first.hop.info.RenderedServicePathFirstHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.DeleteAllServiceFunctionInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.DeleteAllServiceFunctionOutput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.DeleteServiceFunctionInput;
@@ -254,30 +261,115 @@ public class SfcProviderRpc implements ServiceFunctionService, ServiceFunctionCh
         return Futures.immediateFuture(rpcResultBuilder.build());
     }
 
+    /**
+     * Trace a packet through a rendered service path. For each hop, the flows
+     * that would match the packet on the SFF are resolved from the flows
+     * installed by the renderer.
+     *
+     * <p>
+     * @param input
+     *            RPC input including the RSP name or path-id, and the
+     *            service index and labels of the packet
+     * @return RPC output including the flows matched on each hop.
+     */
     @Override
     public ListenableFuture<RpcResult<TraceRenderedServicePathOutput>> traceRenderedServicePath(
             TraceRenderedServicePathInput input) {
-        return null;
+        RenderedServicePath rsp;
+        if (input.getName() != null) {
+            rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(new RspName(input.getName()));
+        } else if (input.getPathId() != null) {
+            rsp = SfcRenderedPathTracer.readRenderedServicePath(input.getPathId().toJava());
+        } else {
+            return RpcResultBuilder.<TraceRenderedServicePathOutput>failed()
+                    .withError(ErrorType.APPLICATION, "RSP name or path-id is mandatory").buildFuture();
+        }
+
+        if (rsp == null) {
+            String message = "Error Reading RSP from DataStore: "
+                    + (input.getName() != null ? input.getName() : input.getPathId());
+            return RpcResultBuilder.<TraceRenderedServicePathOutput>failed()
+                    .withError(ErrorType.APPLICATION, message).buildFuture();
+        }
+
+        TraceRenderedServicePathOutput output = SfcRenderedPathTracer.trace(rsp,
+                input.getServiceIndex() == null ? null : input.getServiceIndex().toJava(),
+                input.getMplsLabel() == null ? null : input.getMplsLabel().toJava(),
+                input.getVlanId() == null ? null : input.getVlanId().toJava());
+        return RpcResultBuilder.success(output).buildFuture();
     }
 
+    /**
+     * Reserve a range of path-ids. Reserved path-ids are not used by the
+     * path-id generation algorithms, but can be explicitly allocated, for
+     * instance by SFPs configured with a path-id. The whole range is reserved
+     * at once, and only if none of its path-ids is allocated or reserved.
+     *
+     * <p>
+     * @param input
+     *            RPC input including the first and last path-id of the range
+     * @return RPC output including the result of the reservation.
+     */
     @Override
     public ListenableFuture<RpcResult<ReservePathIdRangeOutput>> reservePathIdRange(ReservePathIdRangeInput input) {
-        return null;
+        if (input.getPathIdStart() == null || input.getPathIdEnd() == null) {
+            return RpcResultBuilder.<ReservePathIdRangeOutput>failed()
+                    .withError(ErrorType.APPLICATION, "Path-id range start and end are mandatory").buildFuture();
+        }
+
+        boolean result = SfcServicePathId.reservePathIdRange(input.getPathIdStart().toJava(),
+                input.getPathIdEnd().toJava());
+        if (!result) {
+            LOG.warn("reservePathIdRange: could not reserve path-ids {} to {}", input.getPathIdStart(),
+                    input.getPathIdEnd());
+        }
+
+        return RpcResultBuilder.success(new ReservePathIdRangeOutputBuilder().setResult(result).build())
+                .buildFuture();
     }
 
     @Override
     public ListenableFuture<RpcResult<ReadPathIdOutput>> readPathId(ReadPathIdInput input) {
-        return null;
+        PathIdState state = input.getPathId() == null ? null
+                : SfcServicePathId.readPathIdState(input.getPathId().toJava());
+        if (state == null) {
+            return RpcResultBuilder.<ReadPathIdOutput>failed()
+                    .withError(ErrorType.APPLICATION, "Invalid path-id: " + input.getPathId()).buildFuture();
+        }
+
+        return RpcResultBuilder.success(new ReadPathIdOutputBuilder().setState(state).build()).buildFuture();
     }
 
     @Override
     public ListenableFuture<RpcResult<AllocatePathIdOutput>> allocatePathId(AllocatePathIdInput input) {
-        return null;
+        if (input.getPathId() == null) {
+            return RpcResultBuilder.<AllocatePathIdOutput>failed()
+                    .withError(ErrorType.APPLICATION, "Path-id is mandatory").buildFuture();
+        }
+
+        boolean result = SfcServicePathId.chechAndAllocatePathId(input.getPathId().toJava()) != -1;
+
+        return RpcResultBuilder.success(new AllocatePathIdOutputBuilder().setResult(result).build()).buildFuture();
     }
 
+    /**
+     * Delete a path-id, freeing it and dropping its reservation, if any.
+     *
+     * <p>
+     * @param input
+     *            RPC input including the path-id
+     * @return RPC output including the result of the deletion.
+     */
     @Override
     public ListenableFuture<RpcResult<DeletePathIdOutput>> deletePathId(DeletePathIdInput input) {
-        return null;
+        if (input.getPathId() == null) {
+            return RpcResultBuilder.<DeletePathIdOutput>failed()
+                    .withError(ErrorType.APPLICATION, "Path-id is mandatory").buildFuture();
+        }
+
+        boolean result = SfcServicePathId.releasePathId(input.getPathId().toJava());
+
+        return RpcResultBuilder.success(new DeletePathIdOutputBuilder().setResult(result).build()).buildFuture();
     }
 
     @Override
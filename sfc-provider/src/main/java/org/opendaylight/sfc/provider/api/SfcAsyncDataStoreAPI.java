@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.opendaylight.controller.md.sal.binding.api.BindingTransactionChain;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
+import org.opendaylight.controller.md.sal.common.api.data.AsyncTransaction;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.controller.md.sal.common.api.data.TransactionChain;
+import org.opendaylight.controller.md.sal.common.api.data.TransactionChainListener;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking counterpart of {@link SfcDataStoreAPI}, returning futures
+ * instead of waiting for the commits.
+ *
+ * <p>
+ * Each submitted write is committed in its own transaction, so that the
+ * writes of different logical operations succeed or fail independently. The
+ * transactions are allocated from a transaction chain, so that each one
+ * builds on the previous ones without waiting for their commit. When the
+ * chain fails, the writes submitted after the failed one are written again
+ * on a new chain. Reads are done once the writes submitted before them are
+ * committed, so that a logical operation reads its own writes.
+ *
+ * <p>
+ * Uses the data broker of {@link SfcDataStoreAPI}.
+ */
+public final class SfcAsyncDataStoreAPI implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcAsyncDataStoreAPI.class);
+
+    // Guarded by SfcAsyncDataStoreAPI.class
+    private static ChainWriter writer;
+
+    // blueprint destroy method
+    @Override
+    public void close() {
+        synchronized (SfcAsyncDataStoreAPI.class) {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+
+    public static <U extends DataObject> ListenableFuture<Void> mergeAsync(InstanceIdentifier<U> addIID, U data,
+            LogicalDatastoreType logicalDatastoreType) {
+        return submit(writeTx -> writeTx.merge(logicalDatastoreType, addIID, data, true));
+    }
+
+    public static <U extends DataObject> ListenableFuture<Void> putAsync(InstanceIdentifier<U> addIID, U data,
+            LogicalDatastoreType logicalDatastoreType) {
+        return submit(writeTx -> writeTx.put(logicalDatastoreType, addIID, data, true));
+    }
+
+    public static <U extends DataObject> ListenableFuture<Void> deleteAsync(InstanceIdentifier<U> deleteIID,
+            LogicalDatastoreType logicalDatastoreType) {
+        return submit(writeTx -> writeTx.delete(logicalDatastoreType, deleteIID));
+    }
+
+    /**
+     * Submit several writes to be committed at once, in a transaction of
+     * their own.
+     *
+     * @param writes
+     *            the writes, applied to a transaction of the chain. Must not
+     *            block nor read from the data store, and may be applied again
+     *            to another transaction if the chain fails.
+     * @return a future completed once the writes are committed
+     */
+    public static ListenableFuture<Void> submit(Consumer<WriteTransaction> writes) {
+        ChainWriter chainWriter = getWriter();
+        if (chainWriter == null) {
+            return Futures.immediateFailedFuture(new IllegalStateException("dataBroker not initialized"));
+        }
+        return chainWriter.submit(writes);
+    }
+
+    /**
+     * Read from the data store once the writes submitted so far are
+     * committed.
+     *
+     * @param readIID
+     *            the object to read
+     * @param logicalDatastoreType
+     *            the data store to read from
+     * @return a future of the object, absent if it does not exist
+     */
+    public static <U extends DataObject> ListenableFuture<Optional<U>> readAsync(InstanceIdentifier<U> readIID,
+            LogicalDatastoreType logicalDatastoreType) {
+        ChainWriter chainWriter = getWriter();
+        if (chainWriter == null) {
+            return Futures.immediateFailedFuture(new IllegalStateException("dataBroker not initialized"));
+        }
+        return Futures.transformAsync(chainWriter.flush(),
+                ignored -> SfcDataStoreAPI.readTransactionAsyncAPI(readIID, logicalDatastoreType),
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Get a future completed once the writes submitted so far are done,
+     * whether they succeeded or not.
+     *
+     * @return the future
+     */
+    public static ListenableFuture<Void> flush() {
+        ChainWriter chainWriter = getWriter();
+        return chainWriter == null ? Futures.immediateFuture(null) : chainWriter.flush();
+    }
+
+    private static synchronized ChainWriter getWriter() {
+        DataBroker dataBroker = SfcDataStoreAPI.getDataProvider();
+        if (dataBroker == null) {
+            LOG.error("getWriter: dataBroker not initialized!");
+            return null;
+        }
+        if (writer == null || writer.dataBroker != dataBroker) {
+            if (writer != null) {
+                writer.close();
+            }
+            writer = new ChainWriter(dataBroker);
+        }
+        return writer;
+    }
+
+    /**
+     * Writer of the submitted writes, one transaction each, on a transaction
+     * chain of a data broker.
+     */
+    private static final class ChainWriter implements TransactionChainListener {
+        private final DataBroker dataBroker;
+
+        // All guarded by this
+        private BindingTransactionChain transactionChain;
+        // The writes not committed yet, in submission order
+        private final Set<PendingWrite> pendingWrites = new LinkedHashSet<>();
+        private ListenableFuture<Void> lastWrite = Futures.immediateFuture(null);
+        private boolean closed;
+
+        ChainWriter(DataBroker dataBroker) {
+            this.dataBroker = dataBroker;
+            this.transactionChain = dataBroker.createTransactionChain(this);
+        }
+
+        ListenableFuture<Void> submit(Consumer<WriteTransaction> writes) {
+            PendingWrite pendingWrite = new PendingWrite(writes);
+            synchronized (this) {
+                if (closed) {
+                    return Futures.immediateFailedFuture(new IllegalStateException("data store writer closed"));
+                }
+                pendingWrites.add(pendingWrite);
+                lastWrite = pendingWrite.future;
+                write(pendingWrite);
+            }
+            return pendingWrite.future;
+        }
+
+        synchronized ListenableFuture<Void> flush() {
+            // the transactions of the chain are committed in order
+            return Futures.catching(lastWrite, Exception.class, e -> null, MoreExecutors.directExecutor());
+        }
+
+        // Called with this locked
+        @SuppressWarnings("checkstyle:IllegalCatch")
+        private void write(PendingWrite pendingWrite) {
+            pendingWrite.transactionChain = transactionChain;
+            pendingWrite.transaction = null;
+            WriteTransaction writeTx;
+            try {
+                writeTx = transactionChain.newWriteOnlyTransaction();
+            } catch (RuntimeException e) {
+                // The chain failed, written again on the next chain
+                LOG.debug("write: Failed to allocate a transaction", e);
+                return;
+            }
+            try {
+                pendingWrite.writes.accept(writeTx);
+            } catch (RuntimeException e) {
+                LOG.error("write: Failed to write", e);
+                writeTx.cancel();
+                pendingWrites.remove(pendingWrite);
+                pendingWrite.future.setException(e);
+                return;
+            }
+            pendingWrite.transaction = writeTx;
+            Futures.addCallback(writeTx.commit(), new FutureCallback<CommitInfo>() {
+                @Override
+                public void onSuccess(CommitInfo result) {
+                    synchronized (ChainWriter.this) {
+                        pendingWrites.remove(pendingWrite);
+                    }
+                    pendingWrite.future.set(null);
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    // Failed, or written again, once the chain failure is
+                    // notified
+                    LOG.debug("write: Transaction {} failed", writeTx.getIdentifier(), throwable);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        @Override
+        public void onTransactionChainFailed(TransactionChain<?, ?> chain, AsyncTransaction<?, ?> transaction,
+                Throwable cause) {
+            LOG.warn("onTransactionChainFailed: Transaction {} failed, replacing the chain",
+                    transaction.getIdentifier(), cause);
+            PendingWrite failedWrite = null;
+            synchronized (this) {
+                if (chain != transactionChain || closed) {
+                    return;
+                }
+                transactionChain.close();
+                transactionChain = dataBroker.createTransactionChain(this);
+
+                // The transactions of the chain are committed in order: the
+                // ones before the failed one are committed, the ones after it
+                // are dropped along with the chain
+                List<PendingWrite> chainWrites = new ArrayList<>();
+                List<PendingWrite> droppedWrites = new ArrayList<>();
+                for (PendingWrite pendingWrite : pendingWrites) {
+                    if (pendingWrite.transactionChain != chain) {
+                        continue;
+                    }
+                    chainWrites.add(pendingWrite);
+                    if (pendingWrite.transaction == transaction) {
+                        failedWrite = pendingWrite;
+                    } else if (failedWrite != null || pendingWrite.transaction == null) {
+                        droppedWrites.add(pendingWrite);
+                    }
+                }
+                if (failedWrite != null) {
+                    pendingWrites.remove(failedWrite);
+                } else {
+                    // Not one of ours, none of the writes is known to be
+                    // committed
+                    droppedWrites = chainWrites;
+                }
+                LOG.info("onTransactionChainFailed: writing {} dropped writes again", droppedWrites.size());
+                droppedWrites.forEach(this::write);
+            }
+            if (failedWrite != null) {
+                failedWrite.future.setException(cause);
+            }
+        }
+
+        @Override
+        public void onTransactionChainSuccessful(TransactionChain<?, ?> chain) {
+            LOG.debug("onTransactionChainSuccessful: {} closed", chain);
+        }
+
+        void close() {
+            List<PendingWrite> droppedWrites = new ArrayList<>();
+            synchronized (this) {
+                closed = true;
+                transactionChain.close();
+                // The writes waiting for a new chain will not be written
+                pendingWrites.stream().filter(pendingWrite -> pendingWrite.transaction == null)
+                        .forEach(droppedWrites::add);
+                pendingWrites.removeAll(droppedWrites);
+            }
+            droppedWrites.forEach(pendingWrite -> pendingWrite.future.setException(
+                    new IllegalStateException("data store writer closed")));
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Consumer<WriteTransaction> writes;
+        private final SettableFuture<Void> future = SettableFuture.create();
+
+        // Guarded by the chain writer
+        private BindingTransactionChain transactionChain;
+        private WriteTransaction transaction;
+
+        PendingWrite(Consumer<WriteTransaction> writes) {
+            this.writes = writes;
+        }
+    }
+}
@@ -8,58 +8,200 @@
 
 package org.opendaylight.sfc.provider.api;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This class holds SFC Concurrency high level APIs.
  *
+ * <p>
+ * Locks are taken per resource (SFP, RSP or SFF, identified by name or by
+ * path id) instead of through a single process wide lock, so that operations
+ * on unrelated resources can proceed in parallel. Each kind of resource is
+ * mapped onto its own fixed set of lock stripes. Operations that need several
+ * resources of the same kind lock the corresponding stripes in ascending
+ * stripe order. When locks of different kinds are nested, they have to be
+ * acquired in the declaration order of {@link Resource} (SFP, then RSP, then
+ * SFF). Together, both rules make concurrent multi resource acquisitions
+ * deadlock free.
+ *
  * @author Reinaldo Penno (rapenno@gmail.com)
  * @version 0.1
  * @since 2015-06-23
  */
 
 public final class SfcConcurrencyAPI {
-    private static final Lock SFC_LOCK = new ReentrantLock();
-    private static final Lock SFC_PATHID_LOCK = new ReentrantLock();
+
+    /**
+     * The kind of resource being locked, in lock acquisition order.
+     */
+    public enum Resource {
+        SFP, RSP, SFF
+    }
 
     private static final Logger LOG = LoggerFactory.getLogger(SfcConcurrencyAPI.class);
 
+    // Must be a power of two
+    private static final int NUM_STRIPES = 256;
+    private static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 2000;
+
+    private static final ReentrantLock[][] STRIPES = new ReentrantLock[Resource.values().length][NUM_STRIPES];
+
+    private static final LongAdder ACQUISITIONS = new LongAdder();
+    private static final LongAdder CONTENDED_ACQUISITIONS = new LongAdder();
+    private static final LongAdder TIMEOUTS = new LongAdder();
+    private static final LongAdder WAIT_NANOS = new LongAdder();
+    private static final AtomicLong MAX_WAIT_NANOS = new AtomicLong();
+
+    private static volatile long lockTimeoutMillis = DEFAULT_LOCK_TIMEOUT_MILLIS;
+
+    static {
+        for (ReentrantLock[] stripes : STRIPES) {
+            for (int i = 0; i < NUM_STRIPES; i++) {
+                stripes[i] = new ReentrantLock();
+            }
+        }
+    }
+
     private SfcConcurrencyAPI() {
     }
 
-    public static boolean getLock() {
-        try {
-            if (SFC_LOCK.tryLock(2000, TimeUnit.MILLISECONDS)) {
-                return true;
+    /**
+     * A set of held resource locks. Closing it releases all of them, so it is
+     * meant to be used in a try-with-resources block.
+     */
+    public static final class ResourceLock implements AutoCloseable {
+        private final ReentrantLock[] locks;
+        private int held;
+
+        private ResourceLock(ReentrantLock[] locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            while (held > 0) {
+                held--;
+                locks[held].unlock();
             }
-        } catch (InterruptedException e) {
-            LOG.error("Failed to Acquire Lock");
-            Thread.currentThread().interrupt();
         }
-        return false;
     }
 
-    public static void releaseLock() {
-        SFC_LOCK.unlock();
+    /**
+     * Lock a single resource.
+     *
+     * @param resource
+     *            the kind of resource
+     * @param id
+     *            the resource identifier
+     * @return the held lock, or null if it could not be acquired within the
+     *         lock timeout
+     */
+    public static ResourceLock lock(Resource resource, Object id) {
+        return lock(resource, Collections.singleton(id));
+    }
+
+    /**
+     * Lock several resources of the same kind, in a deadlock free order.
+     * Either all of the resources are locked or none of them is.
+     *
+     * @param resource
+     *            the kind of resource
+     * @param ids
+     *            the resource identifiers
+     * @return the held lock, or null if it could not be acquired within the
+     *         lock timeout
+     */
+    public static ResourceLock lock(Resource resource, Collection<?> ids) {
+        ReentrantLock[] stripes = STRIPES[resource.ordinal()];
+        ReentrantLock[] locks = ids.stream().mapToInt(SfcConcurrencyAPI::stripeOf).sorted().distinct()
+                .mapToObj(stripe -> stripes[stripe]).toArray(ReentrantLock[]::new);
+        return lockStripes(locks, resource, ids);
     }
 
-    public static boolean getPathIdLock() {
+    private static ResourceLock lockStripes(ReentrantLock[] locks, Resource resource, Collection<?> ids) {
+        ResourceLock resourceLock = new ResourceLock(locks);
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+        boolean contended = false;
         try {
-            if (SFC_PATHID_LOCK.tryLock(2000, TimeUnit.MILLISECONDS)) {
-                return true;
+            for (ReentrantLock lock : locks) {
+                if (!lock.tryLock()) {
+                    contended = true;
+                    if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                }
+                resourceLock.held++;
             }
         } catch (InterruptedException e) {
-            LOG.error("Failed to Acquire Lock");
+            LOG.error("Interrupted while acquiring lock on {} {}", resource, ids);
             Thread.currentThread().interrupt();
         }
-        return false;
+
+        long waited = System.nanoTime() - start;
+        ACQUISITIONS.increment();
+        if (contended) {
+            CONTENDED_ACQUISITIONS.increment();
+            WAIT_NANOS.add(waited);
+            MAX_WAIT_NANOS.accumulateAndGet(waited, Math::max);
+            SfcRenderingMetrics.record(Stage.LOCK_WAIT, waited);
+        }
+
+        if (resourceLock.held < locks.length) {
+            resourceLock.close();
+            TIMEOUTS.increment();
+            LOG.warn("Failed to acquire lock on {} {} after {} ms", resource, ids,
+                    TimeUnit.NANOSECONDS.toMillis(waited));
+            return null;
+        }
+        return resourceLock;
+    }
+
+    private static int stripeOf(Object id) {
+        int hash = id.hashCode();
+        // spread the higher bits, as done by HashMap
+        hash ^= hash >>> 16;
+        return hash & (NUM_STRIPES - 1);
+    }
+
+    public static void setLockTimeout(long timeout, TimeUnit unit) {
+        lockTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    public static long getLockAcquisitions() {
+        return ACQUISITIONS.sum();
+    }
+
+    public static long getContendedLockAcquisitions() {
+        return CONTENDED_ACQUISITIONS.sum();
+    }
+
+    public static long getLockTimeouts() {
+        return TIMEOUTS.sum();
+    }
+
+    public static long getLockWaitNanos() {
+        return WAIT_NANOS.sum();
+    }
+
+    public static long getMaxLockWaitNanos() {
+        return MAX_WAIT_NANOS.get();
     }
 
-    public static void releasePathIdLock() {
-        SFC_PATHID_LOCK.unlock();
+    public static void resetLockStatistics() {
+        ACQUISITIONS.reset();
+        CONTENDED_ACQUISITIONS.reset();
+        TIMEOUTS.reset();
+        WAIT_NANOS.reset();
+        MAX_WAIT_NANOS.set(0);
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfg.rev150214.service.function.groups.ServiceFunctionGroup;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
+
+/**
+ * Process-wide read-through cache of configuration objects, shared by the
+ * provider, the renderers and the classifiers through the read methods of the
+ * provider APIs.
+ *
+ * <p>
+ * The cache is only used while enabled, that is, while a listener keeps it up
+ * to date with the changes in the data store. Objects not found in the cache
+ * are read from the data store and stored, unless the cache was changed while
+ * they were being read, in which case the object read may already be stale.
+ * Objects not found in the data store are not cached.
+ *
+ * @param <K>
+ *            the type of the object keys
+ * @param <V>
+ *            the type of the objects
+ */
+public final class SfcConfigCache<K, V> {
+
+    public static final SfcConfigCache<SfName, ServiceFunction> SERVICE_FUNCTIONS =
+            new SfcConfigCache<>("service-functions");
+    public static final SfcConfigCache<SffName, ServiceFunctionForwarder> SERVICE_FUNCTION_FORWARDERS =
+            new SfcConfigCache<>("service-function-forwarders");
+    public static final SfcConfigCache<String, ServiceFunctionGroup> SERVICE_FUNCTION_GROUPS =
+            new SfcConfigCache<>("service-function-groups");
+    public static final SfcConfigCache<SftTypeName, ServiceFunctionType> SERVICE_FUNCTION_TYPES =
+            new SfcConfigCache<>("service-function-types");
+    public static final SfcConfigCache<Long, RspName> RENDERED_SERVICE_PATH_NAMES =
+            new SfcConfigCache<>("rendered-service-path-names");
+
+    private final String name;
+    private final ConcurrentMap<K, V> objects = new ConcurrentHashMap<>();
+    // Changed on every update, so that loads racing with updates are dropped
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean enabled;
+
+    private SfcConfigCache(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get an object, reading it with the given loader if it is not cached.
+     *
+     * @param key
+     *            the key of the object
+     * @param loader
+     *            reads the object from the data store
+     * @return the object, or null if it does not exist
+     */
+    public V get(K key, Function<K, V> loader) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+
+        V object = objects.get(key);
+        if (object != null) {
+            return object;
+        }
+
+        long loadVersion = version.get();
+        object = loader.apply(key);
+        if (object != null) {
+            objects.put(key, object);
+            if (version.get() != loadVersion) {
+                objects.remove(key, object);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Store the current version of an object.
+     *
+     * @param key
+     *            the key of the object
+     * @param object
+     *            the object
+     */
+    public void update(K key, V object) {
+        version.incrementAndGet();
+        if (enabled) {
+            objects.put(key, object);
+        }
+    }
+
+    /**
+     * Forget about an object, which will be read again from the data store.
+     *
+     * @param key
+     *            the key of the object
+     */
+    public void invalidate(K key) {
+        version.incrementAndGet();
+        objects.remove(key);
+    }
+
+    /**
+     * Start caching objects. Only to be called once the cache is kept up to
+     * date with the data store.
+     */
+    public void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stop caching objects, forgetting about the cached ones.
+     */
+    public void disable() {
+        enabled = false;
+        version.incrementAndGet();
+        objects.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return objects.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SfcConfigCache [" + name + ", " + objects.size() + " objects, version " + version.get() + "]";
+    }
+}
@@ -14,6 +14,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
@@ -52,6 +53,10 @@ public final class SfcDataStoreAPI {
         SfcDataStoreAPI.dataBroker = broker;
     }
 
+    public static DataBroker getDataProvider() {
+        return dataBroker;
+    }
+
     public static <U extends org.opendaylight.yangtools.yang.binding.DataObject> boolean deleteTransactionAPI(
             InstanceIdentifier<U> deleteIID, LogicalDatastoreType logicalDatastoreType) {
         if (dataBroker == null) {
@@ -106,6 +111,15 @@ public final class SfcDataStoreAPI {
         return writeTx.commit();
     }
 
+    public static <U extends org.opendaylight.yangtools.yang.binding.DataObject>
+        FluentFuture<? extends CommitInfo> writeMergeTransactionAsyncAPI(
+            Map<InstanceIdentifier<U>, U> data, LogicalDatastoreType logicalDatastoreType) {
+        WriteTransaction writeTx = dataBroker.newWriteOnlyTransaction();
+        data.forEach((addIID, dataObject) -> writeTx.merge(logicalDatastoreType, addIID, dataObject, true));
+
+        return writeTx.commit();
+    }
+
     public static <U extends org.opendaylight.yangtools.yang.binding.DataObject> boolean writePutTransactionAPI(
             InstanceIdentifier<U> addIID, U data, LogicalDatastoreType logicalDatastoreType) {
         if (dataBroker == null) {
@@ -134,6 +148,30 @@ public final class SfcDataStoreAPI {
         return writeTx.commit();
     }
 
+    /**
+     * Create a transaction to collect several writes, to be committed at once
+     * with {@link #commitTransactionAPI(WriteTransaction)}.
+     *
+     * @return the transaction, or null if the data broker is not initialized
+     */
+    public static WriteTransaction newWriteTransactionAPI() {
+        if (dataBroker == null) {
+            LOG.error("newWriteTransactionAPI: dataBroker not initialized!");
+            return null;
+        }
+        return dataBroker.newWriteOnlyTransaction();
+    }
+
+    public static boolean commitTransactionAPI(WriteTransaction writeTx) {
+        try {
+            writeTx.commit().get();
+            return true;
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.error("commitTransactionAPI: Transaction failed", e);
+            return false;
+        }
+    }
+
     public static <U extends org.opendaylight.yangtools.yang.binding.DataObject> U readTransactionAPI(
             InstanceIdentifier<U> readIID, LogicalDatastoreType logicalDatastoreType) {
         U ret = null;
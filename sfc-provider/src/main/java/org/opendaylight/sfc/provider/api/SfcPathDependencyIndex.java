@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SnName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
+
+/**
+ * Reverse index of the dependencies of the rendered service paths, used to
+ * find the paths affected by a change of an SF or SFF without reading the SF
+ * and SFF operational states, and the SFF of a service node without reading
+ * all the SFFs.
+ *
+ * <p>
+ * The index is kept up to date by the RSP and SFF listeners while enabled.
+ * It is only enabled once the RSPs existing when the RSP listener registered
+ * are indexed, so an SF or SFF with no path in the enabled index has none.
+ * The SFFs are replayed by their listener in the background, so a service
+ * node not found in the index may just not be indexed yet: the users of the
+ * index read the data store instead.
+ */
+public final class SfcPathDependencyIndex {
+
+    private static final SfcPathDependencyIndex SHARED = new SfcPathDependencyIndex();
+
+    // All guarded by this
+    private final Map<RspName, Dependencies> dependenciesByRsp = new HashMap<>();
+    private final Map<SfName, Set<RspName>> rspsBySf = new HashMap<>();
+    private final Map<SffName, Set<RspName>> rspsBySff = new HashMap<>();
+    private final Map<SfpName, Set<RspName>> rspsBySfp = new HashMap<>();
+    private final Map<SnName, SffName> sffByServiceNode = new HashMap<>();
+    private final Map<SffName, SnName> serviceNodeBySff = new HashMap<>();
+    // RSPs removed before the index was enabled, not to be indexed again
+    private final Set<RspName> removedBeforeEnabled = new HashSet<>();
+
+    private volatile boolean enabled;
+
+    /**
+     * Get the index shared by the whole process, kept up to date by the
+     * listeners while enabled.
+     *
+     * @return the shared index
+     */
+    public static SfcPathDependencyIndex getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Index the SFs and SFFs traversed by an RSP, replacing those it was
+     * indexed with.
+     *
+     * @param renderedServicePath
+     *            the RSP
+     */
+    public synchronized void updateRenderedServicePath(RenderedServicePath renderedServicePath) {
+        RspName rspName = renderedServicePath.getName();
+        unindexRenderedServicePath(rspName);
+
+        Dependencies dependencies = new Dependencies(renderedServicePath.getParentServiceFunctionPath());
+        if (renderedServicePath.getRenderedServicePathHop() != null) {
+            for (RenderedServicePathHop hop : renderedServicePath.getRenderedServicePathHop()) {
+                if (hop.getServiceFunctionName() != null) {
+                    dependencies.sfNames.add(hop.getServiceFunctionName());
+                }
+                if (hop.getServiceFunctionForwarder() != null) {
+                    dependencies.sffNames.add(hop.getServiceFunctionForwarder());
+                }
+            }
+        }
+        dependenciesByRsp.put(rspName, dependencies);
+        dependencies.sfNames.forEach(sfName -> add(rspsBySf, sfName, rspName));
+        dependencies.sffNames.forEach(sffName -> add(rspsBySff, sffName, rspName));
+        if (dependencies.sfpName != null) {
+            add(rspsBySfp, dependencies.sfpName, rspName);
+        }
+    }
+
+    public synchronized void removeRenderedServicePath(RspName rspName) {
+        if (!enabled) {
+            removedBeforeEnabled.add(rspName);
+        }
+        unindexRenderedServicePath(rspName);
+    }
+
+    /**
+     * Index the service node of an SFF, replacing the one it was indexed
+     * with.
+     *
+     * @param sffName
+     *            the name of the SFF
+     * @param serviceNode
+     *            the service node of the SFF, null if it has none
+     */
+    public synchronized void updateServiceFunctionForwarder(SffName sffName, @Nullable SnName serviceNode) {
+        removeServiceFunctionForwarder(sffName);
+        if (serviceNode != null) {
+            serviceNodeBySff.put(sffName, serviceNode);
+            sffByServiceNode.put(serviceNode, sffName);
+        }
+    }
+
+    public synchronized void removeServiceFunctionForwarder(SffName sffName) {
+        SnName serviceNode = serviceNodeBySff.remove(sffName);
+        if (serviceNode != null) {
+            sffByServiceNode.remove(serviceNode, sffName);
+        }
+    }
+
+    public synchronized Set<RspName> getRenderedServicePathsOfServiceFunction(SfName sfName) {
+        return copy(rspsBySf.get(sfName));
+    }
+
+    public synchronized Set<RspName> getRenderedServicePathsOfServiceFunctionForwarder(SffName sffName) {
+        return copy(rspsBySff.get(sffName));
+    }
+
+    public synchronized Set<RspName> getRenderedServicePathsOfServiceFunctionPath(SfpName sfpName) {
+        return copy(rspsBySfp.get(sfpName));
+    }
+
+    /**
+     * Get the SFPs whose RSPs traverse an SF.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @return the names of the SFPs
+     */
+    public synchronized Set<SfpName> getServiceFunctionPathsOfServiceFunction(SfName sfName) {
+        return getServiceFunctionPaths(rspsBySf.get(sfName));
+    }
+
+    /**
+     * Get the SFPs whose RSPs traverse an SFF.
+     *
+     * @param sffName
+     *            the name of the SFF
+     * @return the names of the SFPs
+     */
+    public synchronized Set<SfpName> getServiceFunctionPathsOfServiceFunctionForwarder(SffName sffName) {
+        return getServiceFunctionPaths(rspsBySff.get(sffName));
+    }
+
+    /**
+     * Get the SFP an RSP was rendered from.
+     *
+     * @param rspName
+     *            the name of the RSP
+     * @return the name of the SFP, or null if the RSP is not indexed
+     */
+    public synchronized @Nullable SfpName getServiceFunctionPath(RspName rspName) {
+        Dependencies dependencies = dependenciesByRsp.get(rspName);
+        return dependencies == null ? null : dependencies.sfpName;
+    }
+
+    /**
+     * Get the SFF of a service node.
+     *
+     * @param serviceNode
+     *            the service node
+     * @return the name of the SFF, or null if no SFF is on the node
+     */
+    public synchronized @Nullable SffName getServiceFunctionForwarder(SnName serviceNode) {
+        return sffByServiceNode.get(serviceNode);
+    }
+
+    public synchronized void clear() {
+        dependenciesByRsp.clear();
+        rspsBySf.clear();
+        rspsBySff.clear();
+        rspsBySfp.clear();
+        sffByServiceNode.clear();
+        serviceNodeBySff.clear();
+        removedBeforeEnabled.clear();
+    }
+
+    /**
+     * Index the RSPs read from the data store and start using the index to
+     * find the dependencies. Only to be called once the RSP listener keeps the
+     * index up to date, with the RSPs read after registering it: the RSPs the
+     * listener already indexed or removed are left as they are, the listener
+     * having seen a more recent state of them.
+     *
+     * @param renderedServicePaths
+     *            the RSPs in the data store
+     */
+    public synchronized void enable(Collection<RenderedServicePath> renderedServicePaths) {
+        for (RenderedServicePath renderedServicePath : renderedServicePaths) {
+            RspName rspName = renderedServicePath.getName();
+            if (!dependenciesByRsp.containsKey(rspName) && !removedBeforeEnabled.contains(rspName)) {
+                updateRenderedServicePath(renderedServicePath);
+            }
+        }
+        removedBeforeEnabled.clear();
+        enabled = true;
+    }
+
+    public synchronized void disable() {
+        enabled = false;
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void unindexRenderedServicePath(RspName rspName) {
+        Dependencies dependencies = dependenciesByRsp.remove(rspName);
+        if (dependencies == null) {
+            return;
+        }
+        dependencies.sfNames.forEach(sfName -> remove(rspsBySf, sfName, rspName));
+        dependencies.sffNames.forEach(sffName -> remove(rspsBySff, sffName, rspName));
+        if (dependencies.sfpName != null) {
+            remove(rspsBySfp, dependencies.sfpName, rspName);
+        }
+    }
+
+    private Set<SfpName> getServiceFunctionPaths(@Nullable Set<RspName> rspNames) {
+        if (rspNames == null) {
+            return Collections.emptySet();
+        }
+        Set<SfpName> sfpNames = new LinkedHashSet<>();
+        for (RspName rspName : rspNames) {
+            SfpName sfpName = dependenciesByRsp.get(rspName).sfpName;
+            if (sfpName != null) {
+                sfpNames.add(sfpName);
+            }
+        }
+        return sfpNames;
+    }
+
+    private static <K> void add(Map<K, Set<RspName>> index, K key, RspName rspName) {
+        index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(rspName);
+    }
+
+    private static <K> void remove(Map<K, Set<RspName>> index, K key, RspName rspName) {
+        Set<RspName> rspNames = index.get(key);
+        if (rspNames != null && rspNames.remove(rspName) && rspNames.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static <T> Set<T> copy(@Nullable Set<T> set) {
+        return set == null ? Collections.emptySet() : new LinkedHashSet<>(set);
+    }
+
+    private static final class Dependencies {
+        private final @Nullable SfpName sfpName;
+        private final Set<SfName> sfNames = new LinkedHashSet<>();
+        private final Set<SffName> sffNames = new LinkedHashSet<>();
+
+        Dependencies(@Nullable SfpName sfpName) {
+            this.sfpName = sfpName;
+        }
+    }
+}
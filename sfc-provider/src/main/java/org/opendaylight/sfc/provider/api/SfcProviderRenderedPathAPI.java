@@ -13,18 +13,36 @@ import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStop;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.Resource;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.ResourceLock;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffDataPlaneLocatorName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.RenderedServicePaths;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.path.first.hop.info.RenderedServicePathFirstHop;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.path.first.hop.info.RenderedServicePathFirstHopBuilder;
@@ -46,6 +64,7 @@ import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev14070
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Transport;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.VxlanGpe;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.data.plane.locator.locator.type.Ip;
+import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.yang.sfc.sfst.rev150312.CapacityAware;
 import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.yang.sfc.sfst.rev150312.LoadBalance;
 import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.yang.sfc.sfst.rev150312.LoadPathAware;
 import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.yang.sfc.sfst.rev150312.Random;
@@ -77,6 +96,7 @@ public final class SfcProviderRenderedPathAPI {
     private static final String MPLS = "mpls";
     private static final int MAX_STARTING_INDEX = 255;
     private static final String REVERSED_PATH_SUFFIX = "-Reverse";
+    private static final int MAX_RSPS_PER_TRANSACTION = 500;
 
     private static final Logger LOG = LoggerFactory.getLogger(SfcProviderRenderedPathAPI.class);
 
@@ -100,6 +120,8 @@ public final class SfcProviderRenderedPathAPI {
             scheduler = new SfcServiceFunctionShortestPathSchedulerAPI();
         } else if (serviceFunctionSchedulerType == LoadPathAware.class) {
             scheduler = new SfcServiceFunctionLoadPathAwareSchedulerAPI();
+        } else if (serviceFunctionSchedulerType == CapacityAware.class) {
+            scheduler = new SfcServiceFunctionCapacityAwareSchedulerAPI();
         } else {
             scheduler = new SfcServiceFunctionRandomSchedulerAPI();
         }
@@ -137,32 +159,331 @@ public final class SfcProviderRenderedPathAPI {
 
     public static RenderedServicePath createRenderedServicePathInConfig(ServiceFunctionPath serviceFunctionPath,
                                                                         String rspName) {
-        // Create the RSP
-        RenderedServicePath renderedServicePath = SfcProviderRenderedPathAPI.createRenderedServicePathEntry(
-                serviceFunctionPath, rspName, DEFAULT_SCHEDULER_SUPPLIER.get());
-
-        if (renderedServicePath == null) {
-            LOG.error("Could not create RSP for SFP {}", serviceFunctionPath.getName().getValue());
-            return null;
+        try {
+            return createRenderedServicePathInConfigAsync(serviceFunctionPath, rspName).get();
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted while creating the RSP of SFP {}", serviceFunctionPath.getName().getValue(), e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Failed to create the RSP of SFP {}", serviceFunctionPath.getName().getValue(), e);
         }
+        return null;
+    }
 
-        // Optionally create the Symmetric RSP
-        if (SfcProviderRenderedPathAPI.isChainSymmetric(serviceFunctionPath, renderedServicePath)) {
-            RenderedServicePath revRenderedServicePath = SfcProviderRenderedPathAPI
-                    .createSymmetricRenderedServicePathInConfig(renderedServicePath);
-            if (revRenderedServicePath == null) {
+    /**
+     * Creates an RSP in the configuration data store, and optionally
+     * create the symmetric RSP, without waiting for them to be written.
+     *
+     * @param serviceFunctionPath
+     *            The SFP used to create this RSP
+     * @param rspName
+     *            The name of the RSP, or null to name it after the SFP
+     * @return a future of the RSP, or of null if it could not be created
+     */
+    public static ListenableFuture<RenderedServicePath> createRenderedServicePathInConfigAsync(
+            ServiceFunctionPath serviceFunctionPath, String rspName) {
+        final long startNanos = SfcRenderingMetrics.startTimer();
+        try (ResourceLock sfpLock = SfcConcurrencyAPI.lock(Resource.SFP, serviceFunctionPath.getName())) {
+            if (sfpLock == null) {
+                LOG.error("Could not lock SFP {} to create its RSP", serviceFunctionPath.getName().getValue());
+                return Futures.immediateFuture(null);
+            }
+            SfcServiceFunctionSchedulerAPI scheduler = DEFAULT_SCHEDULER_SUPPLIER.get();
+            List<RenderedServicePathHop> hopList = scheduleRenderedServicePathHops(serviceFunctionPath, scheduler);
+            if (hopList == null) {
+                LOG.error("Could not create RSP for SFP {}", serviceFunctionPath.getName().getValue());
+                return Futures.immediateFuture(null);
+            }
+
+            // Allocate the path id of the RSP and, if symmetric, of its
+            // reverse RSP at once
+            boolean symmetric = isChainSymmetric(serviceFunctionPath, hopList);
+            final long allocationStartNanos = SfcRenderingMetrics.startTimer();
+            long[] pathIds = SfcServicePathId.checkAndAllocatePathIdPair(
+                    serviceFunctionPath.getPathId() == null ? null : serviceFunctionPath.getPathId().toJava(),
+                    symmetric);
+            SfcRenderingMetrics.stopTimer(Stage.PATH_ID_ALLOCATION, allocationStartNanos);
+            if (pathIds == null) {
+                LOG.error("Failed to allocate path-id for SFP {}", serviceFunctionPath.getName().getValue());
+                releaseServiceFunctions(serviceFunctionPath, hopList, scheduler);
+                return Futures.immediateFuture(null);
+            }
+            if (symmetric && pathIds[1] == -1) {
                 LOG.error("Failed to create symmetric Rendered Service Path for input SFP: {}",
                         serviceFunctionPath.getName().getValue());
-            } else {
-                renderedServicePath = SfcProviderRenderedPathAPI.setSymmetricPathId(renderedServicePath,
-                        revRenderedServicePath.getPathId().toJava(), null);
             }
+
+            // Build the RSP and its reverse RSP in a single pass, and write
+            // them at once, without waiting for the commit
+            RenderedServicePath renderedServicePath = buildRenderedServicePath(serviceFunctionPath, rspName,
+                    hopList, pathIds[0], pathIds[1]);
+            RenderedServicePath revRenderedServicePath = pathIds[1] == -1 ? null
+                    : buildReverseRenderedServicePath(renderedServicePath, pathIds[1]);
+            if (revRenderedServicePath != null) {
+                assignReverseServiceFunctions(hopList, scheduler);
+            }
+            trackRenderedServicePaths(pathIds, startNanos);
+            ListenableFuture<Void> writeFuture = SfcAsyncDataStoreAPI.submit(writeTx -> {
+                if (revRenderedServicePath != null) {
+                    writeRenderedServicePath(writeTx, revRenderedServicePath, LogicalDatastoreType.CONFIGURATION);
+                }
+                writeRenderedServicePath(writeTx, renderedServicePath, LogicalDatastoreType.CONFIGURATION);
+            });
+            return Futures.catching(Futures.transform(writeFuture, written -> renderedServicePath,
+                    MoreExecutors.directExecutor()), Exception.class, e -> {
+                        LOG.error("Failed to create Rendered Service Path {} in the configuration data store",
+                                renderedServicePath.getName().getValue(), e);
+                        freePathIds(pathIds);
+                        releaseServiceFunctions(serviceFunctionPath, hopList, scheduler);
+                        if (revRenderedServicePath != null) {
+                            releaseReverseServiceFunctions(hopList, scheduler);
+                        }
+                        return null;
+                    }, MoreExecutors.directExecutor());
         }
+    }
 
-        // Write the RSP to the configuration data store
-        writeRenderedServicePath(renderedServicePath, LogicalDatastoreType.CONFIGURATION);
+    private static void trackRenderedServicePaths(long[] pathIds, long startNanos) {
+        for (long pathId : pathIds) {
+            if (pathId != -1) {
+                SfcRenderingMetrics.rspStarted(pathId, startNanos);
+            }
+        }
+    }
 
-        return renderedServicePath;
+    private static void freePathIds(long[] pathIds) {
+        for (long pathId : pathIds) {
+            if (pathId != -1) {
+                SfcServicePathId.freePathId(pathId);
+            }
+        }
+    }
+
+    /**
+     * Release the SFs scheduled for an RSP that could not be created.
+     */
+    private static void releaseServiceFunctions(ServiceFunctionPath serviceFunctionPath,
+            List<RenderedServicePathHop> hopList, SfcServiceFunctionSchedulerAPI scheduler) {
+        List<SfName> sfNames = getServiceFunctionNames(hopList);
+        // The SFs scheduled for the RSPs of SFGs are released at once
+        if (!sfNames.contains(null)) {
+            scheduler.releaseServiceFunctions(serviceFunctionPath, sfNames);
+        }
+    }
+
+    /**
+     * Account the SFs of the reverse RSP of an RSP, traversing the same SFs.
+     */
+    private static void assignReverseServiceFunctions(List<RenderedServicePathHop> hopList,
+            SfcServiceFunctionSchedulerAPI scheduler) {
+        List<SfName> sfNames = getServiceFunctionNames(hopList);
+        if (!sfNames.contains(null)) {
+            scheduler.assignReverseServiceFunctions(sfNames);
+        }
+    }
+
+    /**
+     * Release the SFs accounted for the reverse RSP of an RSP that could not
+     * be created.
+     */
+    private static void releaseReverseServiceFunctions(List<RenderedServicePathHop> hopList,
+            SfcServiceFunctionSchedulerAPI scheduler) {
+        List<SfName> sfNames = getServiceFunctionNames(hopList);
+        if (!sfNames.contains(null)) {
+            scheduler.releaseReverseServiceFunctions(sfNames);
+        }
+    }
+
+    private static List<SfName> getServiceFunctionNames(List<RenderedServicePathHop> hopList) {
+        return hopList.stream().map(RenderedServicePathHop::getServiceFunctionName).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the RSPs of several SFPs in the configuration data store, and
+     * optionally their symmetric RSPs. This will be called when several SFPs
+     * have been created at once.
+     *
+     * <p>
+     * The SFs of the different SFPs are scheduled in parallel with the given
+     * executor, the generated path ids are allocated at once, and the RSPs are
+     * written in as few transactions as possible.
+     *
+     * @param serviceFunctionPaths
+     *            The SFPs used to create the RSPs
+     * @param executor
+     *            Executor used to schedule the SFPs in parallel
+     * @return the RSPs created, by the name of their SFP. The SFPs whose RSP
+     *         could not be created are not included.
+     */
+    public static Map<SfpName, RenderedServicePath> createRenderedServicePathsInConfig(
+            List<ServiceFunctionPath> serviceFunctionPaths, ExecutorService executor) {
+        final long startNanos = SfcRenderingMetrics.startTimer();
+        Map<SfpName, RenderedServicePath> createdRsps = new LinkedHashMap<>();
+        List<SfpName> sfpNames = serviceFunctionPaths.stream().map(ServiceFunctionPath::getName)
+                .collect(Collectors.toList());
+        try (ResourceLock sfpLock = SfcConcurrencyAPI.lock(Resource.SFP, sfpNames)) {
+            if (sfpLock == null) {
+                LOG.error("Could not lock SFPs {} to create their RSPs", sfpNames);
+                return createdRsps;
+            }
+
+            SfcServiceFunctionSchedulerAPI scheduler = DEFAULT_SCHEDULER_SUPPLIER.get();
+            List<List<RenderedServicePathHop>> hopLists = scheduleRenderedServicePathHops(serviceFunctionPaths,
+                    scheduler, executor);
+
+            // Allocate the path ids to be generated at once
+            final long allocationStartNanos = SfcRenderingMetrics.startTimer();
+            int generatedPathIdCount = 0;
+            for (int i = 0; i < serviceFunctionPaths.size(); i++) {
+                if (hopLists.get(i) != null && serviceFunctionPaths.get(i).getPathId() == null) {
+                    generatedPathIdCount++;
+                }
+            }
+            Iterator<Long> generatedPathIds = SfcServicePathId.checkAndAllocatePathIds(generatedPathIdCount)
+                    .iterator();
+
+            List<ServiceFunctionPath> allocatedSfps = new ArrayList<>();
+            List<List<RenderedServicePathHop>> allocatedHopLists = new ArrayList<>();
+            List<Long> pathIds = new ArrayList<>();
+            List<Long> symmetricPathIds = new ArrayList<>();
+            for (int i = 0; i < serviceFunctionPaths.size(); i++) {
+                ServiceFunctionPath serviceFunctionPath = serviceFunctionPaths.get(i);
+                List<RenderedServicePathHop> hopList = hopLists.get(i);
+                if (hopList == null) {
+                    LOG.error("Could not create RSP for SFP {}", serviceFunctionPath.getName().getValue());
+                    continue;
+                }
+
+                long pathId;
+                if (serviceFunctionPath.getPathId() == null) {
+                    pathId = generatedPathIds.hasNext() ? generatedPathIds.next() : -1;
+                } else {
+                    pathId = SfcServicePathId.chechAndAllocatePathId(serviceFunctionPath.getPathId().toJava());
+                }
+                if (pathId == -1) {
+                    LOG.error("Failed to allocate path-id for SFP {}", serviceFunctionPath.getName().getValue());
+                    releaseServiceFunctions(serviceFunctionPath, hopList, scheduler);
+                    continue;
+                }
+                allocatedSfps.add(serviceFunctionPath);
+                allocatedHopLists.add(hopList);
+                pathIds.add(pathId);
+                if (isChainSymmetric(serviceFunctionPath, hopList)) {
+                    symmetricPathIds.add(pathId);
+                }
+            }
+
+            // Allocate the path ids of the reverse RSPs at once
+            Map<Long, Long> reversePathIds = new HashMap<>();
+            Iterator<Long> allocatedSymmetricPathIds = SfcServicePathId.checkAndAllocateSymmetricPathIds(
+                    symmetricPathIds).iterator();
+            symmetricPathIds.forEach(pathId -> reversePathIds.put(pathId, allocatedSymmetricPathIds.next()));
+            SfcRenderingMetrics.stopTimer(Stage.PATH_ID_ALLOCATION, allocationStartNanos);
+
+            // Build each RSP along with its reverse RSP in a single pass
+            List<RenderedServicePath> rsps = new ArrayList<>();
+            List<RenderedServicePath> reverseRsps = new ArrayList<>();
+            for (int i = 0; i < allocatedSfps.size(); i++) {
+                ServiceFunctionPath serviceFunctionPath = allocatedSfps.get(i);
+                long pathId = pathIds.get(i);
+                long reversePathId = reversePathIds.getOrDefault(pathId, -1L);
+                if (reversePathIds.containsKey(pathId) && reversePathId == -1) {
+                    LOG.error("Failed to create symmetric Rendered Service Path for input SFP: {}",
+                            serviceFunctionPath.getName().getValue());
+                }
+                RenderedServicePath rsp = buildRenderedServicePath(serviceFunctionPath, null,
+                        allocatedHopLists.get(i), pathId, reversePathId);
+                rsps.add(rsp);
+                reverseRsps.add(reversePathId == -1 ? null : buildReverseRenderedServicePath(rsp, reversePathId));
+                if (reversePathId != -1) {
+                    assignReverseServiceFunctions(allocatedHopLists.get(i), scheduler);
+                }
+                trackRenderedServicePaths(new long[] {pathId, reversePathId}, startNanos);
+            }
+
+            // Write the RSPs, along with their reverse RSPs, in large
+            // transactions
+            for (int from = 0; from < rsps.size(); from += MAX_RSPS_PER_TRANSACTION) {
+                int to = Math.min(from + MAX_RSPS_PER_TRANSACTION, rsps.size());
+                createdRsps.putAll(writeRenderedServicePaths(rsps.subList(from, to), reverseRsps.subList(from, to)));
+            }
+            for (int i = 0; i < allocatedSfps.size(); i++) {
+                if (!createdRsps.containsKey(allocatedSfps.get(i).getName())) {
+                    releaseServiceFunctions(allocatedSfps.get(i), allocatedHopLists.get(i), scheduler);
+                    if (reverseRsps.get(i) != null) {
+                        releaseReverseServiceFunctions(allocatedHopLists.get(i), scheduler);
+                    }
+                }
+            }
+        }
+        return createdRsps;
+    }
+
+    private static List<List<RenderedServicePathHop>> scheduleRenderedServicePathHops(
+            List<ServiceFunctionPath> serviceFunctionPaths, SfcServiceFunctionSchedulerAPI scheduler,
+            ExecutorService executor) {
+        List<List<RenderedServicePathHop>> hopLists = new ArrayList<>();
+        if (serviceFunctionPaths.size() == 1) {
+            // Not worth handing over a single SFP to the executor
+            hopLists.add(scheduleRenderedServicePathHops(serviceFunctionPaths.get(0), scheduler));
+            return hopLists;
+        }
+
+        List<Future<List<RenderedServicePathHop>>> schedulingJobs = serviceFunctionPaths.stream()
+                .map(sfp -> executor.submit(() -> scheduleRenderedServicePathHops(sfp, scheduler)))
+                .collect(Collectors.toList());
+        for (Future<List<RenderedServicePathHop>> schedulingJob : schedulingJobs) {
+            List<RenderedServicePathHop> hopList = null;
+            try {
+                hopList = schedulingJob.get();
+            } catch (InterruptedException e) {
+                LOG.error("Interrupted while scheduling SFPs", e);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LOG.error("Unexpected failure scheduling SFP", e);
+            }
+            hopLists.add(hopList);
+        }
+        return hopLists;
+    }
+
+    /**
+     * Write several RSPs, and their reverse RSPs, to the configuration data
+     * store in a single transaction. The path ids of the RSPs are freed if the
+     * transaction fails.
+     */
+    private static Map<SfpName, RenderedServicePath> writeRenderedServicePaths(List<RenderedServicePath> rsps,
+            List<RenderedServicePath> reverseRsps) {
+        Map<SfpName, RenderedServicePath> writtenRsps = new LinkedHashMap<>();
+        List<Long> pathIds = new ArrayList<>();
+        for (int i = 0; i < rsps.size(); i++) {
+            pathIds.add(rsps.get(i).getPathId().toJava());
+            if (reverseRsps.get(i) != null) {
+                pathIds.add(reverseRsps.get(i).getPathId().toJava());
+            }
+        }
+        WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+        if (writeTx == null) {
+            SfcServicePathId.freePathIds(pathIds);
+            return writtenRsps;
+        }
+
+        for (int i = 0; i < rsps.size(); i++) {
+            RenderedServicePath renderedServicePath = rsps.get(i);
+            if (reverseRsps.get(i) != null) {
+                writeRenderedServicePath(writeTx, reverseRsps.get(i), LogicalDatastoreType.CONFIGURATION);
+            }
+            writeRenderedServicePath(writeTx, renderedServicePath, LogicalDatastoreType.CONFIGURATION);
+            writtenRsps.put(renderedServicePath.getParentServiceFunctionPath(), renderedServicePath);
+        }
+
+        if (!SfcDataStoreAPI.commitTransactionAPI(writeTx)) {
+            LOG.error("Failed to create Rendered Service Paths {} in the configuration data store",
+                    writtenRsps.keySet());
+            SfcServicePathId.freePathIds(pathIds);
+            writtenRsps.clear();
+        }
+        return writtenRsps;
     }
 
     /**
@@ -179,36 +500,50 @@ public final class SfcProviderRenderedPathAPI {
      */
     public static boolean createRenderedServicePathState(ServiceFunctionPath createdServiceFunctionPath,
             RenderedServicePath renderedServicePath) {
-
-        // Add Path name to SFF operational state
-        if (!SfcProviderServiceForwarderAPI.addPathToServiceForwarderState(renderedServicePath)) {
-            LOG.error("Failed to add RSP to SFF state {}", renderedServicePath.getName());
-            SfcProviderRenderedPathAPI.deleteRenderedServicePath(renderedServicePath.getName());
-
-            return false;
-        }
-
-        // Add Path to SF operational state
-        if (!SfcProviderServiceFunctionAPI.addPathToServiceFunctionState(renderedServicePath)) {
-            LOG.error("Failed to add RSP to SF state {}", renderedServicePath.getName());
-            SfcProviderServiceForwarderAPI.deletePathFromServiceForwarderState(createdServiceFunctionPath);
+        if (!writeRenderedServicePathState(createdServiceFunctionPath, renderedServicePath, false)) {
             SfcProviderRenderedPathAPI.deleteRenderedServicePath(renderedServicePath.getName());
-
             return false;
         }
+        return true;
+    }
 
-        // Add RSP to SFP operational state
-        if (!SfcProviderServicePathAPI.addRenderedPathToServicePathState(
-                createdServiceFunctionPath.getName(), renderedServicePath.getName())) {
-            LOG.error("Failed to add RSP to SFP state {}", renderedServicePath.getName());
-            SfcProviderServiceFunctionAPI
-                    .deleteServicePathFromServiceFunctionState(createdServiceFunctionPath.getName());
-            SfcProviderServiceForwarderAPI.deletePathFromServiceForwarderState(createdServiceFunctionPath);
-            SfcProviderRenderedPathAPI.deleteRenderedServicePath(renderedServicePath.getName());
+    /**
+     * Write the RSP operational state, that is, the RSP in the SFF, SF and SFP
+     * states, and optionally the operational RSP itself, in a single
+     * transaction. Nothing is written if any of it fails.
+     */
+    private static boolean writeRenderedServicePathState(ServiceFunctionPath serviceFunctionPath,
+            RenderedServicePath renderedServicePath, boolean withRenderedServicePath) {
+        Set<SffName> sffNameSet = SfcProviderServiceForwarderAPI.getServiceFunctionForwarders(renderedServicePath);
+        try (ResourceLock sffLock = SfcConcurrencyAPI.lock(Resource.SFF, sffNameSet)) {
+            if (sffLock == null) {
+                LOG.error("Failed to lock SFFs {} to add RSP {}", sffNameSet, renderedServicePath.getName());
+                return false;
+            }
+            WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+            if (writeTx == null) {
+                return false;
+            }
+            if (withRenderedServicePath) {
+                writeRenderedServicePath(writeTx, renderedServicePath, LogicalDatastoreType.OPERATIONAL);
+            }
+            SfcProviderServiceForwarderAPI.addPathToServiceForwarderState(writeTx, renderedServicePath);
+            if (!SfcProviderServiceFunctionAPI.addPathToServiceFunctionState(writeTx, renderedServicePath)) {
+                LOG.error("Failed to add RSP to SF state {}", renderedServicePath.getName());
+                writeTx.cancel();
+                return false;
+            }
+            SfcProviderServicePathAPI.addRenderedPathToServicePathState(writeTx, serviceFunctionPath.getName(),
+                    renderedServicePath.getName());
 
-            return false;
+            if (!SfcDataStoreAPI.commitTransactionAPI(writeTx)) {
+                LOG.error("Failed to create Rendered Service Path {} state", renderedServicePath.getName());
+                return false;
+            }
         }
 
+        LOG.info("Create RSP [{}] state in {} data store successfully", renderedServicePath.getName().getValue(),
+                LogicalDatastoreType.OPERATIONAL);
         return true;
     }
 
@@ -244,43 +579,15 @@ public final class SfcProviderRenderedPathAPI {
             return null;
         }
 
-        if (!writeRenderedServicePath(renderedServicePath, LogicalDatastoreType.OPERATIONAL)) {
-            return null;
-        }
-
-        if (!createRenderedServicePathState(createdServiceFunctionPath, renderedServicePath)) {
-            // If createRenderedServicePathState() returns false, the RSP was deleted therein
+        // The operational RSP and all its state are written at once
+        if (!writeRenderedServicePathState(createdServiceFunctionPath, renderedServicePath, true)) {
+            SfcServicePathId.freePathId(renderedServicePath.getPathId().toJava());
             return null;
         }
 
         return renderedServicePath;
     }
 
-    /**
-     * Creates a symmetric RSP in the configuration data store. This
-     * will be called when an SFP has been created.
-     *
-     * <p>
-     *
-     * @param renderedServicePath
-     *            The original RSP used to create this symmetric RSP
-     * @return RenderedServicePath
-     *            The symmetric RSP or null
-     */
-    public static RenderedServicePath createSymmetricRenderedServicePathInConfig(
-            RenderedServicePath renderedServicePath) {
-        final RenderedServicePath revRenderedServicePath = SfcProviderRenderedPathAPI
-                .createReverseRenderedServicePathEntry(renderedServicePath);
-        if (revRenderedServicePath == null) {
-            LOG.error("Could not create Reverse RSP {}", renderedServicePath.getName());
-            return null;
-        }
-
-        writeRenderedServicePath(revRenderedServicePath, LogicalDatastoreType.CONFIGURATION);
-
-        return revRenderedServicePath;
-    }
-
     /**
      * Create a Symmetric Path and all the associated operational state based on
      * the given rendered service path.
@@ -427,6 +734,44 @@ public final class SfcProviderRenderedPathAPI {
 
         long pathId;
 
+        List<RenderedServicePathHop> renderedServicePathHopArrayList = scheduleRenderedServicePathHops(
+                serviceFunctionPath, scheduler);
+        if (renderedServicePathHopArrayList == null) {
+            return null;
+        }
+
+        // Build the service function path so it can be committed to datastore
+        /*
+         * pathId = (serviceFunctionPath.getPathId() != null) ?
+         * serviceFunctionPath.getPathId() : numCreatedPathIncrementGet();
+         */
+
+        if (serviceFunctionPath.getPathId() == null) {
+            pathId = SfcServicePathId.checkAndAllocatePathId();
+        } else {
+            pathId = SfcServicePathId.chechAndAllocatePathId(serviceFunctionPath.getPathId().toJava());
+        }
+
+        if (pathId == -1) {
+            LOG.error("{}: Failed to allocate path-id: {}", Thread.currentThread().getStackTrace()[1], pathId);
+            releaseServiceFunctions(serviceFunctionPath, renderedServicePathHopArrayList, scheduler);
+            return null;
+        }
+
+        return buildRenderedServicePath(serviceFunctionPath, rspName, renderedServicePathHopArrayList, pathId, -1);
+    }
+
+    /**
+     * Schedule the SFs of an SFP and create the hop list of its RSP.
+     *
+     * @param serviceFunctionPath
+     *            the SFP
+     * @param scheduler
+     *            SfcServiceFunctionSchedulerAPI object
+     * @return the hop list, or null if it could not be created
+     */
+    private static List<RenderedServicePathHop> scheduleRenderedServicePathHops(
+            ServiceFunctionPath serviceFunctionPath, SfcServiceFunctionSchedulerAPI scheduler) {
         ServiceFunctionChain serviceFunctionChain;
         SfcName serviceFunctionChainName = serviceFunctionPath.getServiceChainName();
         serviceFunctionChain = serviceFunctionChainName != null
@@ -440,12 +785,18 @@ public final class SfcProviderRenderedPathAPI {
         int serviceIndex = MAX_STARTING_INDEX;
 
         List<String> sfgNameList = SfcProviderServiceFunctionGroupAPI.getSfgNameList(serviceFunctionChain);
+        final long schedulingStartNanos = SfcRenderingMetrics.startTimer();
         List<SfName> sfNameList = scheduler.scheduleServiceFunctions(serviceFunctionChain, serviceIndex,
                 serviceFunctionPath);
+        SfcRenderingMetrics.stopTimer(Stage.SCHEDULING, schedulingStartNanos);
         if (sfNameList == null && sfgNameList == null) {
             LOG.warn("createRenderedServicePathEntry scheduler.scheduleServiceFunctions() returned null list");
             return null;
         }
+        if (sfNameList != null && sfgNameList != null) {
+            // The hops are SFGs, the SFs scheduled are not used
+            scheduler.releaseServiceFunctions(serviceFunctionPath, sfNameList);
+        }
 
         // Before trying to create the RSP, iterate the SFs checking for one-chain-only
         if (sfNameList != null) {
@@ -456,6 +807,9 @@ public final class SfcProviderRenderedPathAPI {
                         && !sfServicePathList.isEmpty()) {
                     LOG.error("createRenderedServicePathEntry SF [{}] is-one-chain-only is TRUE and the SF "
                             + "is already in use", sfName);
+                    if (sfgNameList == null) {
+                        scheduler.releaseServiceFunctions(serviceFunctionPath, sfNameList);
+                    }
                     return null;
                 }
             }
@@ -466,26 +820,23 @@ public final class SfcProviderRenderedPathAPI {
 
         if (renderedServicePathHopArrayList == null) {
             LOG.warn("createRenderedServicePathEntry createRenderedServicePathHopList returned null list");
+            if (sfgNameList == null) {
+                scheduler.releaseServiceFunctions(serviceFunctionPath, sfNameList);
+            }
             return null;
         }
+        return renderedServicePathHopArrayList;
+    }
 
-        // Build the service function path so it can be committed to datastore
-        /*
-         * pathId = (serviceFunctionPath.getPathId() != null) ?
-         * serviceFunctionPath.getPathId() : numCreatedPathIncrementGet();
-         */
-
-        if (serviceFunctionPath.getPathId() == null) {
-            pathId = SfcServicePathId.checkAndAllocatePathId();
-        } else {
-            pathId = SfcServicePathId.chechAndAllocatePathId(serviceFunctionPath.getPathId().toJava());
-        }
-
-        if (pathId == -1) {
-            LOG.error("{}: Failed to allocate path-id: {}", Thread.currentThread().getStackTrace()[1], pathId);
-            return null;
-        }
-
+    /**
+     * Build an RSP from its hop list.
+     *
+     * @param symmetricPathId
+     *            the path id of the reverse RSP, -1 if it has none
+     */
+    private static RenderedServicePath buildRenderedServicePath(ServiceFunctionPath serviceFunctionPath,
+            String rspName, List<RenderedServicePathHop> renderedServicePathHopArrayList, long pathId,
+            long symmetricPathId) {
         RenderedServicePathBuilder renderedServicePathBuilder = new RenderedServicePathBuilder();
         renderedServicePathBuilder.setRenderedServicePathHop(renderedServicePathHopArrayList);
         // TODO Bug 4495 - RPCs hiding heuristics using Strings - alagalah
@@ -497,11 +848,14 @@ public final class SfcProviderRenderedPathAPI {
         }
 
         renderedServicePathBuilder.setPathId(pathId);
+        if (symmetricPathId != -1) {
+            renderedServicePathBuilder.setSymmetricPathId(symmetricPathId);
+        }
         // TODO: Find out the exact rules for service index generation
         // renderedServicePathBuilder.setStartingIndex((short)
         // renderedServicePathHopArrayList.size());
         renderedServicePathBuilder.setStartingIndex((short) MAX_STARTING_INDEX);
-        renderedServicePathBuilder.setServiceChainName(serviceFunctionChainName);
+        renderedServicePathBuilder.setServiceChainName(serviceFunctionPath.getServiceChainName());
         renderedServicePathBuilder.setParentServiceFunctionPath(serviceFunctionPath.getName());
         renderedServicePathBuilder.setReversePath(false);
 
@@ -535,8 +889,6 @@ public final class SfcProviderRenderedPathAPI {
      * @return Nothing
      */
     public static RenderedServicePath createReverseRenderedServicePathEntry(RenderedServicePath renderedServicePath) {
-        RenderedServicePath ret = null;
-
         long pathId = SfcServicePathId.checkAndAllocateSymmetricPathId(renderedServicePath.getPathId().toJava());
         printTraceStart(LOG);
 
@@ -545,32 +897,39 @@ public final class SfcProviderRenderedPathAPI {
                     Thread.currentThread().getStackTrace()[1], renderedServicePath.getPathId());
         }
 
+        return buildReverseRenderedServicePath(renderedServicePath, pathId);
+    }
+
+    /**
+     * Build the mirror image of an RSP, reversing its hop list in a single
+     * pass.
+     *
+     * @param renderedServicePath
+     *            RSP object
+     * @param pathId
+     *            the path id of the reverse RSP
+     * @return the reverse RSP
+     */
+    private static RenderedServicePath buildReverseRenderedServicePath(RenderedServicePath renderedServicePath,
+            long pathId) {
         RenderedServicePathBuilder revRenderedServicePathBuilder = new RenderedServicePathBuilder(renderedServicePath);
         revRenderedServicePathBuilder.setPathId(pathId);
         RspName revPathName = generateReversedPathName(renderedServicePath.getName());
         revRenderedServicePathBuilder.setName(revPathName);
-        RenderedServicePathKey revRenderedServicePathKey = new RenderedServicePathKey(revPathName);
-        revRenderedServicePathBuilder.withKey(revRenderedServicePathKey);
+        revRenderedServicePathBuilder.withKey(new RenderedServicePathKey(revPathName));
 
         List<RenderedServicePathHop> renderedServicePathHopList = renderedServicePath.getRenderedServicePathHop();
-        // Populate new array with elements from existing service path.
-        // They will be replaced as we go along.
-        List<RenderedServicePathHop> revRenderedServicePathHopArrayList = new ArrayList<>();
-        revRenderedServicePathHopArrayList.addAll(renderedServicePathHopList);
-
+        List<RenderedServicePathHop> revRenderedServicePathHopArrayList = new ArrayList<>(
+                renderedServicePathHopList.size());
         ListIterator<RenderedServicePathHop> iter = renderedServicePathHopList
                 .listIterator(renderedServicePathHopList.size());
         short revServiceHop = 0;
         while (iter.hasPrevious()) {
-
-            RenderedServicePathHop renderedServicePathHop = iter.previous();
-            RenderedServicePathHopKey revRenderedServicePathHopKey = new RenderedServicePathHopKey(revServiceHop);
-            RenderedServicePathHopBuilder revRenderedServicePathHopBuilder = new RenderedServicePathHopBuilder(
-                    renderedServicePathHop);
-            revRenderedServicePathHopBuilder.setHopNumber(revServiceHop);
-            revRenderedServicePathHopBuilder.setServiceIndex((short) (MAX_STARTING_INDEX - revServiceHop));
-            revRenderedServicePathHopBuilder.withKey(revRenderedServicePathHopKey);
-            revRenderedServicePathHopArrayList.set(revServiceHop, revRenderedServicePathHopBuilder.build());
+            revRenderedServicePathHopArrayList.add(new RenderedServicePathHopBuilder(iter.previous())
+                    .setHopNumber(revServiceHop)
+                    .setServiceIndex((short) (MAX_STARTING_INDEX - revServiceHop))
+                    .withKey(new RenderedServicePathHopKey(revServiceHop))
+                    .build());
             revServiceHop++;
         }
 
@@ -594,22 +953,14 @@ public final class SfcProviderRenderedPathAPI {
                 : new RspName(rspName.getValue() + REVERSED_PATH_SUFFIX);
     }
 
-    private static boolean writeRenderedServicePath(RenderedServicePath renderedServicePath,
-                                                    LogicalDatastoreType type) {
+    private static void writeRenderedServicePath(WriteTransaction writeTx, RenderedServicePath renderedServicePath,
+                                                 LogicalDatastoreType type) {
         RenderedServicePathKey renderedServicePathKey = new RenderedServicePathKey(
                 renderedServicePath.getName());
         InstanceIdentifier<RenderedServicePath> rspIID = InstanceIdentifier.builder(RenderedServicePaths.class)
                 .child(RenderedServicePath.class, renderedServicePathKey).build();
 
-        if (!SfcDataStoreAPI.writeMergeTransactionAPI(rspIID, renderedServicePath, type)) {
-            LOG.error("{}: Failed to create Rendered Service Path: {}", Thread.currentThread().getStackTrace()[1],
-                    renderedServicePath.getName());
-            return false;
-        }
-
-        LOG.info("Create RSP [{}] in {} data store successfully", renderedServicePath.getName().getValue(), type);
-
-        return true;
+        writeTx.merge(type, rspIID, renderedServicePath, true);
     }
 
     /**
@@ -872,11 +1223,14 @@ public final class SfcProviderRenderedPathAPI {
      * @return True is there the RSP is symmetric, false otherwise.
      */
     public static boolean isChainSymmetric(ServiceFunctionPath sfp, RenderedServicePath rsp) {
+        return isChainSymmetric(sfp, rsp.getRenderedServicePathHop());
+    }
+
+    private static boolean isChainSymmetric(ServiceFunctionPath sfp, List<RenderedServicePathHop> rspHops) {
         if (sfp.isSymmetric() != null) {
             return sfp.isSymmetric();
         }
 
-        List<RenderedServicePathHop> rspHops = rsp.getRenderedServicePathHop();
         for (RenderedServicePathHop hop : rspHops) {
             ServiceFunction sf = SfcProviderServiceFunctionAPI.readServiceFunction(hop.getServiceFunctionName());
             ServiceFunctionType sfType = SfcProviderServiceTypeAPI.readServiceFunctionType(sf.getType());
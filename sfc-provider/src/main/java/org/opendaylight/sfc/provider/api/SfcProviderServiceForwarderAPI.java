@@ -13,16 +13,20 @@ import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStop;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.Resource;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.ResourceLock;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffDataPlaneLocatorName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SnName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.ServiceFunctionForwarders;
@@ -79,6 +83,7 @@ public final class SfcProviderServiceForwarderAPI {
                 .builder(ServiceFunctionForwarders.class).child(ServiceFunctionForwarder.class, sff.key()).build();
 
         ret = SfcDataStoreAPI.writePutTransactionAPI(sffEntryIID, sff, LogicalDatastoreType.CONFIGURATION);
+        SfcConfigCache.SERVICE_FUNCTION_FORWARDERS.invalidate(sff.getName());
 
         printTraceStop(LOG);
         return ret;
@@ -122,6 +127,12 @@ public final class SfcProviderServiceForwarderAPI {
      * @return SF object or null if not found
      */
     public static ServiceFunctionForwarder readServiceFunctionForwarder(SffName serviceFunctionForwarderName) {
+        return SfcConfigCache.SERVICE_FUNCTION_FORWARDERS.get(serviceFunctionForwarderName,
+                SfcProviderServiceForwarderAPI::readServiceFunctionForwarderFromDatastore);
+    }
+
+    private static ServiceFunctionForwarder readServiceFunctionForwarderFromDatastore(
+            SffName serviceFunctionForwarderName) {
         printTraceStart(LOG);
         ServiceFunctionForwarder sff;
         InstanceIdentifier<ServiceFunctionForwarder> sffIID;
@@ -158,6 +169,7 @@ public final class SfcProviderServiceForwarderAPI {
         } else {
             LOG.error("Could not delete SFF: {}", serviceFunctionForwarderName);
         }
+        SfcConfigCache.SERVICE_FUNCTION_FORWARDERS.invalidate(serviceFunctionForwarderName);
         printTraceStop(LOG);
         return ret;
     }
@@ -193,8 +205,41 @@ public final class SfcProviderServiceForwarderAPI {
     public static boolean addPathToServiceForwarderState(RenderedServicePath renderedServicePath) {
         printTraceStart(LOG);
 
-        boolean ret = true;
+        boolean ret;
+        Set<SffName> sffNameSet = getServiceFunctionForwarders(renderedServicePath);
+        try (ResourceLock sffLock = SfcConcurrencyAPI.lock(Resource.SFF, sffNameSet)) {
+            if (sffLock == null) {
+                LOG.error("Failed to lock SFFs {} to add path {}", sffNameSet, renderedServicePath.getName());
+                printTraceStop(LOG);
+                return false;
+            }
+            WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+            if (writeTx == null) {
+                printTraceStop(LOG);
+                return false;
+            }
+            addPathToServiceForwarderState(writeTx, renderedServicePath);
+            ret = SfcDataStoreAPI.commitTransactionAPI(writeTx);
+            if (!ret) {
+                LOG.error("Failed to add path {} to SFFs {} state.", renderedServicePath.getName(), sffNameSet);
+            }
+        }
+        printTraceStop(LOG);
+        return ret;
+    }
 
+    /**
+     * Add the path name to the operational store of each SFF of the RSP as
+     * part of the given transaction. The caller is expected to hold the
+     * locks of the SFFs until the transaction is committed.
+     *
+     * @param writeTx
+     *            the transaction to write in
+     * @param renderedServicePath
+     *            RSP Object
+     */
+    public static void addPathToServiceForwarderState(WriteTransaction writeTx,
+            RenderedServicePath renderedServicePath) {
         // TODO another example of strings being used to interchange types. Note
         // the constructor of
         // a new SfpName. See prior TODO on RPC
@@ -203,25 +248,17 @@ public final class SfcProviderServiceForwarderAPI {
         SffServicePathBuilder sffServicePathBuilder = new SffServicePathBuilder();
         sffServicePathBuilder.withKey(sffServicePathKey);
         sffServicePathBuilder.setName(new SfpName(renderedServicePath.getName().getValue()));
+        SffServicePath sffServicePath = sffServicePathBuilder.build();
 
-        List<RenderedServicePathHop> renderedServicePathHopList = renderedServicePath.getRenderedServicePathHop();
-        for (RenderedServicePathHop renderedServicePathHop : renderedServicePathHopList) {
+        for (SffName sffName : getServiceFunctionForwarders(renderedServicePath)) {
             ServiceFunctionForwarderStateKey serviceFunctionForwarderStateKey =
-                    new ServiceFunctionForwarderStateKey(renderedServicePathHop.getServiceFunctionForwarder());
+                    new ServiceFunctionForwarderStateKey(sffName);
             InstanceIdentifier<SffServicePath> sfStateIID =
                     InstanceIdentifier.builder(ServiceFunctionForwardersState.class)
                             .child(ServiceFunctionForwarderState.class, serviceFunctionForwarderStateKey)
                             .child(SffServicePath.class, sffServicePathKey).build();
-
-            if (!SfcDataStoreAPI.writePutTransactionAPI(sfStateIID, sffServicePathBuilder.build(),
-                    LogicalDatastoreType.OPERATIONAL)) {
-                ret = false;
-                LOG.error("Failed to add path {} to SFF {} state.", renderedServicePath.getName(),
-                        renderedServicePathHop.getServiceFunctionForwarder());
-            }
+            writeTx.put(LogicalDatastoreType.OPERATIONAL, sfStateIID, sffServicePath, true);
         }
-        printTraceStop(LOG);
-        return ret;
     }
 
     /**
@@ -235,49 +272,8 @@ public final class SfcProviderServiceForwarderAPI {
      * @return true if all paths were deleted, false otherwise.
      */
     public static boolean deletePathFromServiceForwarderState(ServiceFunctionPath serviceFunctionPath) {
-        printTraceStart(LOG);
-
-        boolean ret = true;
-
         // TODO Bug 4495 - RPCs hiding heuristics using Strings
-        RspName rspName = new RspName(serviceFunctionPath.getName().getValue());
-        RenderedServicePath renderedServicePath = SfcProviderRenderedPathAPI
-                .readRenderedServicePath(new RspName(serviceFunctionPath.getName().getValue()));
-
-        if (renderedServicePath != null) {
-            Set<SffName> sffNameSet = new HashSet<>();
-            List<RenderedServicePathHop> renderedServicePathHopList = renderedServicePath.getRenderedServicePathHop();
-            for (RenderedServicePathHop renderedServicePathHop : renderedServicePathHopList) {
-
-                SffName sffName = renderedServicePathHop.getServiceFunctionForwarder();
-                if (sffNameSet.add(sffName)) {
-                    // TODO Bug 4495 - RPCs hiding heuristics using Strings -
-                    SffServicePathKey sffServicePathKey = new SffServicePathKey(new SfpName(rspName.getValue()));
-                    ServiceFunctionForwarderStateKey serviceFunctionForwarderStateKey =
-                            new ServiceFunctionForwarderStateKey(sffName);
-                    InstanceIdentifier<SffServicePath> sfStateIID =
-                            InstanceIdentifier.builder(ServiceFunctionForwardersState.class)
-                                    .child(ServiceFunctionForwarderState.class, serviceFunctionForwarderStateKey)
-                                    .child(SffServicePath.class, sffServicePathKey).build();
-                    if (SfcDataStoreAPI.deleteTransactionAPI(sfStateIID, LogicalDatastoreType.OPERATIONAL)) {
-                        ret = true;
-                    } else {
-                        ret = false;
-                        LOG.error("Could not delete Service Path {} from SFF {}", rspName, sffName);
-                    }
-                    List<SffServicePath> sffServicePathList = readSffState(sffName);
-                    if (sffServicePathList != null && sffServicePathList.isEmpty()
-                            && !deleteServiceFunctionForwarderState(sffName)) {
-                        ret = false;
-                    }
-                }
-            }
-        } else {
-            LOG.error("{}: Rendered Service Path {} does not exist", Thread.currentThread().getStackTrace()[1],
-                    serviceFunctionPath.getName());
-        }
-        printTraceStop(LOG);
-        return ret;
+        return deletePathFromServiceForwarderState(new RspName(serviceFunctionPath.getName().getValue()));
     }
 
     /**
@@ -324,12 +320,16 @@ public final class SfcProviderServiceForwarderAPI {
         RenderedServicePath renderedServicePath = SfcProviderRenderedPathAPI.readRenderedServicePath(rspName);
 
         if (renderedServicePath != null) {
-            Set<SffName> sffNameSet = new HashSet<>();
-            List<RenderedServicePathHop> renderedServicePathHopList = renderedServicePath.getRenderedServicePathHop();
-            for (RenderedServicePathHop renderedServicePathHop : renderedServicePathHopList) {
-
-                SffName sffname = renderedServicePathHop.getServiceFunctionForwarder();
-                if (sffNameSet.add(sffname)) {
+            // The SFF state is read back and deleted if left empty, so lock
+            // the SFFs to not race with paths being added to them
+            Set<SffName> sffNameSet = getServiceFunctionForwarders(renderedServicePath);
+            try (ResourceLock sffLock = SfcConcurrencyAPI.lock(Resource.SFF, sffNameSet)) {
+                if (sffLock == null) {
+                    LOG.error("Failed to lock SFFs {} to delete path {}", sffNameSet, rspName);
+                    printTraceStop(LOG);
+                    return false;
+                }
+                for (SffName sffname : sffNameSet) {
                     // TODO Bug 4495 - RPCs hiding heuristics using Strings -
                     SffServicePathKey sffServicePathKey = new SffServicePathKey(new SfpName(rspName.getValue()));
                     ServiceFunctionForwarderStateKey serviceFunctionForwarderStateKey =
@@ -359,6 +359,14 @@ public final class SfcProviderServiceForwarderAPI {
         return ret;
     }
 
+    static Set<SffName> getServiceFunctionForwarders(RenderedServicePath renderedServicePath) {
+        Set<SffName> sffNameSet = new LinkedHashSet<>();
+        for (RenderedServicePathHop renderedServicePathHop : renderedServicePath.getRenderedServicePathHop()) {
+            sffNameSet.add(renderedServicePathHop.getServiceFunctionForwarder());
+        }
+        return sffNameSet;
+    }
+
     /**
      * This method deletes the operational state for a service function.
      *
@@ -497,12 +505,30 @@ public final class SfcProviderServiceForwarderAPI {
         return foundSffDict;
     }
 
+    /**
+     * Get the SFF of a service node, from the path dependency index when
+     * enabled and the service node is indexed.
+     *
+     * @param nodeName
+     *            the name of the service node
+     * @return the name of the SFF, or null if no SFF is on the node
+     */
     public static SffName getSffName(String nodeName) {
+        SfcPathDependencyIndex dependencyIndex = SfcPathDependencyIndex.getShared();
+        if (dependencyIndex.isEnabled()) {
+            SffName sffName = dependencyIndex.getServiceFunctionForwarder(new SnName(nodeName));
+            if (sffName != null) {
+                return sffName;
+            }
+        }
 
         ServiceFunctionForwarders sffs =  readAllServiceFunctionForwarders();
+        if (sffs == null || sffs.getServiceFunctionForwarder() == null) {
+            return null;
+        }
 
         for (ServiceFunctionForwarder sff : sffs.getServiceFunctionForwarder()) {
-            if (nodeName.equals(sff.getServiceNode().getValue())) {
+            if (sff.getServiceNode() != null && nodeName.equals(sff.getServiceNode().getValue())) {
                 return sff.getName();
             }
         }
@@ -11,8 +11,14 @@ package org.opendaylight.sfc.provider.api;
 import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStart;
 import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStop;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
@@ -169,6 +175,7 @@ public final class SfcProviderServiceFunctionAPI {
                 .child(ServiceFunctionState.class, serviceFunctionStateKey).build();
 
         if (SfcDataStoreAPI.deleteTransactionAPI(sfStateIID, LogicalDatastoreType.OPERATIONAL)) {
+            SfcServiceFunctionCapacityAwareSchedulerAPI.forgetServiceFunction(serviceFunctionName);
             ret = true;
         } else {
             LOG.error("{}: Could not delete operational state for SF: {}", Thread.currentThread().getStackTrace()[1],
@@ -177,6 +184,84 @@ public final class SfcProviderServiceFunctionAPI {
         return ret;
     }
 
+    /**
+     * Delete the operational state of an SF and the SFPs using it, in a single
+     * transaction.
+     *
+     * @param serviceFunctionName
+     *            SF name
+     * @param sfpNames
+     *            the names of the SFPs using the SF
+     * @return true if everything was deleted, false otherwise
+     */
+    public static boolean deleteServiceFunctionStateAndPaths(SfName serviceFunctionName,
+            Collection<SfpName> sfpNames) {
+        printTraceStart(LOG);
+        WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+        if (writeTx == null) {
+            printTraceStop(LOG);
+            return false;
+        }
+        deleteServiceFunctionStateAndPaths(writeTx, serviceFunctionName, sfpNames);
+
+        boolean ret = SfcDataStoreAPI.commitTransactionAPI(writeTx);
+        if (ret) {
+            SfcServiceFunctionCapacityAwareSchedulerAPI.forgetServiceFunction(serviceFunctionName);
+        } else {
+            LOG.error("Could not delete operational state and SFPs {} of SF {}", sfpNames, serviceFunctionName);
+        }
+        printTraceStop(LOG);
+        return ret;
+    }
+
+    /**
+     * Delete the operational state of an SF and the SFPs using it, in a single
+     * transaction, without waiting for the deletion to be committed.
+     *
+     * @param serviceFunctionName
+     *            SF name
+     * @param sfpNames
+     *            the names of the SFPs using the SF
+     * @return a future completed once everything is deleted
+     */
+    public static ListenableFuture<Void> deleteServiceFunctionStateAndPathsAsync(SfName serviceFunctionName,
+            Collection<SfpName> sfpNames) {
+        ListenableFuture<Void> future = SfcAsyncDataStoreAPI.submit(
+                writeTx -> deleteServiceFunctionStateAndPaths(writeTx, serviceFunctionName, sfpNames));
+        Futures.addCallback(future, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                SfcServiceFunctionCapacityAwareSchedulerAPI.forgetServiceFunction(serviceFunctionName);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                LOG.error("Could not delete operational state and SFPs {} of SF {}", sfpNames, serviceFunctionName,
+                        throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Delete the operational state of an SF and the SFPs using it as part of
+     * the given transaction.
+     *
+     * @param writeTx
+     *            the transaction to delete in
+     * @param serviceFunctionName
+     *            SF name
+     * @param sfpNames
+     *            the names of the SFPs using the SF
+     */
+    public static void deleteServiceFunctionStateAndPaths(WriteTransaction writeTx, SfName serviceFunctionName,
+            Collection<SfpName> sfpNames) {
+        InstanceIdentifier<ServiceFunctionState> sfStateIID = InstanceIdentifier.builder(ServiceFunctionsState.class)
+                .child(ServiceFunctionState.class, new ServiceFunctionStateKey(serviceFunctionName)).build();
+        writeTx.delete(LogicalDatastoreType.OPERATIONAL, sfStateIID);
+        SfcProviderServicePathAPI.deleteServiceFunctionPaths(writeTx, sfpNames);
+    }
+
     /**
      * This method adds a RSP name to the corresponding SF operational state.
      *
@@ -187,15 +272,41 @@ public final class SfcProviderServiceFunctionAPI {
      * @return true if SFP was added, false otherwise
      */
     public static boolean addPathToServiceFunctionState(RenderedServicePath renderedServicePath) {
-        boolean ret = false;
         printTraceStart(LOG);
 
+        WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+        boolean ret = writeTx != null && addPathToServiceFunctionState(writeTx, renderedServicePath)
+                && SfcDataStoreAPI.commitTransactionAPI(writeTx);
+        if (!ret) {
+            LOG.error("Could not add SFP {} to operational state of its SFs", renderedServicePath.getName());
+        }
+        printTraceStop(LOG);
+        return ret;
+    }
+
+    /**
+     * This method adds a RSP name to the corresponding SF operational state as
+     * part of the given transaction.
+     *
+     * <p>
+     *
+     * @param writeTx
+     *            the transaction to write in
+     * @param renderedServicePath
+     *            RSP object
+     * @return true if the RSP has any SF or SFG hop, false otherwise
+     */
+    public static boolean addPathToServiceFunctionState(WriteTransaction writeTx,
+            RenderedServicePath renderedServicePath) {
+        boolean ret = false;
+
         // TODO Bug 4495 - RPCs hiding heuristics using Strings - alagalah
         SfpName sfpName = new SfpName(renderedServicePath.getParentServiceFunctionPath().getValue());
         SfServicePathKey sfServicePathKey = new SfServicePathKey(sfpName);
         SfServicePathBuilder sfServicePathBuilder = new SfServicePathBuilder();
         sfServicePathBuilder.withKey(sfServicePathKey);
         sfServicePathBuilder.setName(sfpName);
+        SfServicePath sfServicePath = sfServicePathBuilder.build();
         List<RenderedServicePathHop> renderedServicePathHopList = renderedServicePath.getRenderedServicePathHop();
         for (RenderedServicePathHop renderedServicePathHop : renderedServicePathHopList) {
             SfName serviceFunctionName = renderedServicePathHop.getServiceFunctionName();
@@ -203,21 +314,14 @@ public final class SfcProviderServiceFunctionAPI {
             LOG.debug("handling hop index: {}, sf: {}, sfg: {}", renderedServicePathHop.getHopNumber(),
                     serviceFunctionName, serviceFunctionGroupName);
             if (serviceFunctionName != null) {
-                ServiceFunctionStateKey serviceFunctionStateKey = new ServiceFunctionStateKey(
-                        renderedServicePathHop.getServiceFunctionName());
+                ServiceFunctionStateKey serviceFunctionStateKey = new ServiceFunctionStateKey(serviceFunctionName);
 
                 InstanceIdentifier<SfServicePath> sfStateIID = InstanceIdentifier.builder(ServiceFunctionsState.class)
                         .child(ServiceFunctionState.class, serviceFunctionStateKey)
                         .child(SfServicePath.class, sfServicePathKey).build();
 
-                if (SfcDataStoreAPI.writePutTransactionAPI(sfStateIID, sfServicePathBuilder.build(),
-                        LogicalDatastoreType.OPERATIONAL)) {
-                    ret = true;
-                } else {
-                    LOG.error("{}: Could not add SFP {} to operational state of SF: {}",
-                            Thread.currentThread().getStackTrace()[1], renderedServicePath.getName(),
-                            renderedServicePathHop.getServiceFunctionName());
-                }
+                writeTx.put(LogicalDatastoreType.OPERATIONAL, sfStateIID, sfServicePath, true);
+                ret = true;
             } else if (serviceFunctionGroupName != null) {
                 LOG.info("{}: Could not add SFP {} to operational state of SFG: {}",
                         Thread.currentThread().getStackTrace()[1], renderedServicePath.getName(),
@@ -225,7 +329,6 @@ public final class SfcProviderServiceFunctionAPI {
                 ret = true;
             }
         }
-        printTraceStop(LOG);
         return ret;
     }
 
@@ -246,6 +349,7 @@ public final class SfcProviderServiceFunctionAPI {
                 .child(ServiceFunction.class, sf.key()).build();
 
         ret = SfcDataStoreAPI.writeMergeTransactionAPI(sfEntryIID, sf, LogicalDatastoreType.CONFIGURATION);
+        SfcConfigCache.SERVICE_FUNCTIONS.invalidate(sf.getName());
 
         printTraceStop(LOG);
         return ret;
@@ -297,6 +401,11 @@ public final class SfcProviderServiceFunctionAPI {
      * @return SF object or null if not found
      */
     public static ServiceFunction readServiceFunction(SfName serviceFunctionName) {
+        return SfcConfigCache.SERVICE_FUNCTIONS.get(serviceFunctionName,
+                SfcProviderServiceFunctionAPI::readServiceFunctionFromDatastore);
+    }
+
+    private static ServiceFunction readServiceFunctionFromDatastore(SfName serviceFunctionName) {
         printTraceStart(LOG);
         ServiceFunction sf;
         InstanceIdentifier<ServiceFunction> sfIID;
@@ -356,6 +465,7 @@ public final class SfcProviderServiceFunctionAPI {
                         .child(ServiceFunctionState.class, serviceFunctionStateKey)
                         .child(SfServicePath.class, sfServicePathKey).build();
                 if (SfcDataStoreAPI.deleteTransactionAPI(sfStateIID, LogicalDatastoreType.OPERATIONAL)) {
+                    SfcServiceFunctionCapacityAwareSchedulerAPI.releaseServiceFunction(sfName);
                     ret = true;
                 } else {
                     ret = false;
@@ -414,6 +524,7 @@ public final class SfcProviderServiceFunctionAPI {
                         .child(ServiceFunctionState.class, serviceFunctionStateKey)
                         .child(SfServicePath.class, sfServicePathKey).build();
                 if (SfcDataStoreAPI.deleteTransactionAPI(sfStateIID, LogicalDatastoreType.OPERATIONAL)) {
+                    SfcServiceFunctionCapacityAwareSchedulerAPI.releaseServiceFunction(sfName);
                     ret = true;
                 } else {
                     ret = false;
@@ -74,6 +74,11 @@ public final class SfcProviderServiceFunctionGroupAPI {
      * @return ServiceFunctionGroup object or null if not found
      */
     public static ServiceFunctionGroup readServiceFunctionGroup(String serviceFunctionGroupName) {
+        return SfcConfigCache.SERVICE_FUNCTION_GROUPS.get(serviceFunctionGroupName,
+                SfcProviderServiceFunctionGroupAPI::readServiceFunctionGroupFromDatastore);
+    }
+
+    private static ServiceFunctionGroup readServiceFunctionGroupFromDatastore(String serviceFunctionGroupName) {
         printTraceStart(LOG);
         ServiceFunctionGroup sfg;
         InstanceIdentifier<ServiceFunctionGroup> sfgIID;
@@ -135,6 +140,7 @@ public final class SfcProviderServiceFunctionGroupAPI {
                 .child(ServiceFunctionGroup.class, sfg.key()).build();
 
         ret = SfcDataStoreAPI.writePutTransactionAPI(sfgEntryIID, sfg, LogicalDatastoreType.CONFIGURATION);
+        SfcConfigCache.SERVICE_FUNCTION_GROUPS.invalidate(sfg.getName());
 
         printTraceStop(LOG);
         return ret;
@@ -162,6 +168,7 @@ public final class SfcProviderServiceFunctionGroupAPI {
             LOG.error("{}: Could not delete SFG: {}", Thread.currentThread().getStackTrace()[1],
                     serviceFunctionGroupName);
         }
+        SfcConfigCache.SERVICE_FUNCTION_GROUPS.invalidate(serviceFunctionGroupName);
         printTraceStop(LOG);
         return ret;
     }
@@ -11,8 +11,14 @@ package org.opendaylight.sfc.provider.api;
 import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStart;
 import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStop;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
@@ -82,6 +88,33 @@ public final class SfcProviderServicePathAPI {
     public static boolean addRenderedPathToServicePathState(SfpName servicePathName, RspName renderedPathName) {
         printTraceStart(LOG);
 
+        WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+        if (writeTx != null) {
+            addRenderedPathToServicePathState(writeTx, servicePathName, renderedPathName);
+            if (SfcDataStoreAPI.commitTransactionAPI(writeTx)) {
+                printTraceStop(LOG);
+                return true;
+            }
+        }
+        LOG.error("{}: Failed to create Service Function Path {} state. Rendered Service Path: {}",
+                Thread.currentThread().getStackTrace()[1], servicePathName, renderedPathName);
+        printTraceStop(LOG);
+        return false;
+    }
+
+    /**
+     * Add a rendered path to the operational state of its service path as part
+     * of the given transaction.
+     *
+     * @param writeTx
+     *            the transaction to write in
+     * @param servicePathName
+     *            Service Function Path name
+     * @param renderedPathName
+     *            Rendered Path name
+     */
+    public static void addRenderedPathToServicePathState(WriteTransaction writeTx, SfpName servicePathName,
+            RspName renderedPathName) {
         SfpRenderedServicePathKey sfpRenderedServicePathKey = new SfpRenderedServicePathKey(renderedPathName);
         SfpRenderedServicePathBuilder sfpRenderedServicePathBuilder = new SfpRenderedServicePathBuilder();
         sfpRenderedServicePathBuilder.withKey(sfpRenderedServicePathKey).setName(renderedPathName);
@@ -91,15 +124,7 @@ public final class SfcProviderServicePathAPI {
                         .child(ServiceFunctionPathState.class, new ServiceFunctionPathStateKey(servicePathName))
                         .child(SfpRenderedServicePath.class, sfpRenderedServicePathKey).build();
 
-        if (SfcDataStoreAPI.writeMergeTransactionAPI(rspIID, sfpRenderedServicePathBuilder.build(),
-                LogicalDatastoreType.OPERATIONAL)) {
-            return true;
-        } else {
-            LOG.error("{}: Failed to create Service Function Path {} state. Rendered Service Path: {}",
-                    Thread.currentThread().getStackTrace()[1], servicePathName, renderedPathName);
-        }
-        printTraceStop(LOG);
-        return false;
+        writeTx.merge(LogicalDatastoreType.OPERATIONAL, rspIID, sfpRenderedServicePathBuilder.build(), true);
     }
 
     public static boolean deleteRenderedPathFromServicePathState(SfpName sfpName, RspName rspName) {
@@ -184,6 +209,74 @@ public final class SfcProviderServicePathAPI {
         return false;
     }
 
+    /**
+     * Delete SFPs in a single transaction. Their RSPs are in-turn deleted from
+     * config and oper by the SFP listener.
+     *
+     * @param sfpNames
+     *            the names of the SFPs
+     * @return true if the SFPs were deleted, false otherwise
+     */
+    public static boolean deleteServiceFunctionPaths(Collection<SfpName> sfpNames) {
+        printTraceStart(LOG);
+        WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+        if (writeTx == null) {
+            printTraceStop(LOG);
+            return false;
+        }
+        deleteServiceFunctionPaths(writeTx, sfpNames);
+        boolean ret = SfcDataStoreAPI.commitTransactionAPI(writeTx);
+        if (ret) {
+            LOG.info("Deleted Service Function Paths: {}", sfpNames);
+        } else {
+            LOG.error("Failed to delete Service Function Paths: {}", sfpNames);
+        }
+        printTraceStop(LOG);
+        return ret;
+    }
+
+    /**
+     * Delete SFPs in a single transaction, without waiting for the deletion to
+     * be committed.
+     *
+     * @param sfpNames
+     *            the names of the SFPs
+     * @return a future completed once the SFPs are deleted
+     */
+    public static ListenableFuture<Void> deleteServiceFunctionPathsAsync(Collection<SfpName> sfpNames) {
+        ListenableFuture<Void> future = SfcAsyncDataStoreAPI.submit(
+                writeTx -> deleteServiceFunctionPaths(writeTx, sfpNames));
+        Futures.addCallback(future, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                LOG.info("Deleted Service Function Paths: {}", sfpNames);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                LOG.error("Failed to delete Service Function Paths: {}", sfpNames, throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Delete SFPs as part of the given transaction.
+     *
+     * @param writeTx
+     *            the transaction to delete in
+     * @param sfpNames
+     *            the names of the SFPs
+     */
+    public static void deleteServiceFunctionPaths(WriteTransaction writeTx, Collection<SfpName> sfpNames) {
+        for (SfpName sfpName : sfpNames) {
+            InstanceIdentifier<ServiceFunctionPath> sfpEntryIID = InstanceIdentifier
+                    .builder(ServiceFunctionPaths.class)
+                    .child(ServiceFunctionPath.class, new ServiceFunctionPathKey(sfpName)).build();
+            writeTx.delete(LogicalDatastoreType.CONFIGURATION, sfpEntryIID);
+        }
+    }
+
     /**
      * This method deletes the operational state for a service function.
      *
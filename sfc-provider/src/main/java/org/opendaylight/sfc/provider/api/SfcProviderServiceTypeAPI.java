@@ -12,6 +12,8 @@ import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStart;
 import static org.opendaylight.sfc.provider.SfcProviderDebug.printTraceStop;
 
 import java.util.List;
+import java.util.Map;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
@@ -82,6 +84,7 @@ public final class SfcProviderServiceTypeAPI {
         } else {
             LOG.error("Failed to create Service Function Type for Service Function: {}", serviceFunction.getName());
         }
+        SfcConfigCache.SERVICE_FUNCTION_TYPES.invalidate(serviceFunction.getType());
         printTraceStop(LOG);
         return ret;
     }
@@ -94,6 +97,7 @@ public final class SfcProviderServiceTypeAPI {
                 .child(ServiceFunctionType.class, sft.key()).build();
 
         ret = SfcDataStoreAPI.writePutTransactionAPI(sftEntryIID, sft, LogicalDatastoreType.CONFIGURATION);
+        SfcConfigCache.SERVICE_FUNCTION_TYPES.invalidate(sft.getType());
 
         printTraceStop(LOG);
         return ret;
@@ -101,12 +105,31 @@ public final class SfcProviderServiceTypeAPI {
 
     /**
      * This method is used to retrieve a Service Function Type from the
-     * DataStore.
+     * SF type index, or from the DataStore until the index is enabled or
+     * when the type is unknown to the index.
      *
      * @param serviceFunctionType Service Function Type abstract class
      * @return Service Function Type which contains a list of SF of this type
      */
     public static ServiceFunctionType readServiceFunctionType(SftTypeName serviceFunctionType) {
+        SfcServiceFunctionTypeIndex typeIndex = SfcServiceFunctionTypeIndex.getShared();
+        if (typeIndex.isEnabled()) {
+            ServiceFunctionType sft = typeIndex.getServiceFunctionType(serviceFunctionType);
+            if (sft != null) {
+                // Without SFs when all the SFs of the type are gone
+                return sft;
+            }
+            // The SFs may be in the data store but not indexed yet
+        }
+        return readConfiguredServiceFunctionType(serviceFunctionType);
+    }
+
+    private static ServiceFunctionType readConfiguredServiceFunctionType(SftTypeName serviceFunctionType) {
+        return SfcConfigCache.SERVICE_FUNCTION_TYPES.get(serviceFunctionType,
+                SfcProviderServiceTypeAPI::readServiceFunctionTypeFromDatastore);
+    }
+
+    private static ServiceFunctionType readServiceFunctionTypeFromDatastore(SftTypeName serviceFunctionType) {
         printTraceStart(LOG);
         ServiceFunctionType sft;
         InstanceIdentifier<ServiceFunctionType> sftIID;
@@ -154,7 +177,8 @@ public final class SfcProviderServiceTypeAPI {
             LOG.error("Failed to delete Service Function Type: {}, for Service Function: {}", serviceFunction.getType(),
                     serviceFunction.getName());
         }
-        ServiceFunctionType serviceFunctionType = readServiceFunctionType(serviceFunction.getType());
+        SfcConfigCache.SERVICE_FUNCTION_TYPES.invalidate(serviceFunction.getType());
+        ServiceFunctionType serviceFunctionType = readConfiguredServiceFunctionType(serviceFunction.getType());
         List<SftServiceFunctionName> sftServiceFunctionNameList = serviceFunctionType == null
                 ? null
                 : serviceFunctionType.getSftServiceFunctionName();
@@ -176,7 +200,7 @@ public final class SfcProviderServiceTypeAPI {
      * @return Status of delete stf operation
      */
     public static boolean deleteServiceFunctionType(SftTypeName sftType) {
-        ServiceFunctionType serviceFunctionType = readServiceFunctionType(sftType);
+        ServiceFunctionType serviceFunctionType = readConfiguredServiceFunctionType(sftType);
         if (serviceFunctionType != null) {
             return deleteServiceFunctionType(serviceFunctionType);
         }
@@ -205,6 +229,42 @@ public final class SfcProviderServiceTypeAPI {
         } else {
             LOG.error("Failed to delete Service Type: {}", serviceFunctionType);
         }
+        SfcConfigCache.SERVICE_FUNCTION_TYPES.invalidate(serviceFunctionType.getType());
+        printTraceStop(LOG);
+        return ret;
+    }
+
+    /**
+     * This method writes the SFs of several Service Function Types in a single
+     * transaction, replacing the SFs previously written for these types.
+     *
+     * @param serviceFunctionTypes the SFs of each type, the types without SF
+     *                             are deleted
+     * @return true if the types were written, false otherwise
+     */
+    public static boolean putServiceFunctionTypes(Map<SftTypeName, List<SfName>> serviceFunctionTypes) {
+        printTraceStart(LOG);
+        WriteTransaction writeTx = SfcDataStoreAPI.newWriteTransactionAPI();
+        if (writeTx == null) {
+            printTraceStop(LOG);
+            return false;
+        }
+        serviceFunctionTypes.forEach((sftType, sfNames) -> {
+            InstanceIdentifier<ServiceFunctionType> sftEntryIID = InstanceIdentifier
+                    .builder(ServiceFunctionTypes.class)
+                    .child(ServiceFunctionType.class, new ServiceFunctionTypeKey(sftType)).build();
+            if (sfNames.isEmpty()) {
+                writeTx.delete(LogicalDatastoreType.CONFIGURATION, sftEntryIID);
+            } else {
+                writeTx.put(LogicalDatastoreType.CONFIGURATION, sftEntryIID,
+                        SfcServiceFunctionTypeIndex.buildServiceFunctionType(sftType, sfNames), true);
+            }
+        });
+        boolean ret = SfcDataStoreAPI.commitTransactionAPI(writeTx);
+        if (!ret) {
+            LOG.error("Failed to write Service Function Types: {}", serviceFunctionTypes.keySet());
+        }
+        serviceFunctionTypes.keySet().forEach(SfcConfigCache.SERVICE_FUNCTION_TYPES::invalidate);
         printTraceStop(LOG);
         return ret;
     }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.RenderedServicePaths;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.TraceRenderedServicePathOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.TraceRenderedServicePathOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.TraceHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.TraceHopBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.trace.hop.MatchedFlow;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Traces a packet through a Rendered Service Path, hop by hop.
+ *
+ * <p>
+ * The flows that would match the packet on each SFF are resolved by the
+ * renderer that installed them, which registers a {@link FlowResolver} for
+ * that purpose. Renderers are expected to resolve the flows from an index of
+ * the flows they installed, rather than by reading the SFF tables, so that a
+ * trace stays cheap whatever the number of flows on the SFFs.
+ */
+public final class SfcRenderedPathTracer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcRenderedPathTracer.class);
+
+    /**
+     * Resolves the flows that would match a packet on an SFF.
+     */
+    @FunctionalInterface
+    public interface FlowResolver {
+
+        /**
+         * Resolve the flows that would match a packet on an SFF.
+         *
+         * @param sffName
+         *            the SFF the packet goes through
+         * @param pathId
+         *            the path id of the packet
+         * @param serviceIndex
+         *            the service index of the packet
+         * @param mplsLabel
+         *            the MPLS label of the packet, or null if the labels of
+         *            the path are to be assumed
+         * @param vlanId
+         *            the VLAN id of the packet, or null if the VLAN ids of
+         *            the path are to be assumed
+         * @return the flows that would match the packet, at most one per
+         *         table, in table order
+         */
+        List<MatchedFlow> resolveFlows(SffName sffName, long pathId, short serviceIndex, Long mplsLabel,
+                Integer vlanId);
+    }
+
+    private static volatile FlowResolver flowResolver;
+
+    private SfcRenderedPathTracer() {
+    }
+
+    /**
+     * Set the resolver of the flows installed on the SFFs.
+     *
+     * @param resolver
+     *            the resolver, or null if no flows can be resolved
+     */
+    public static void setFlowResolver(FlowResolver resolver) {
+        flowResolver = resolver;
+    }
+
+    /**
+     * Find an operational RSP by path id. The name of the RSP is looked up in
+     * the configuration cache of RSP names by path id, the configuration RSPs
+     * only being searched if it is not cached, and the RSP is then read by
+     * name.
+     *
+     * @param pathId
+     *            the path id
+     * @return the RSP, or null if there is no RSP with that path id
+     */
+    public static RenderedServicePath readRenderedServicePath(long pathId) {
+        RspName rspName = SfcConfigCache.RENDERED_SERVICE_PATH_NAMES.get(pathId,
+                SfcRenderedPathTracer::findRenderedServicePathName);
+        if (rspName == null) {
+            return null;
+        }
+        RenderedServicePath rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(rspName);
+        if (rsp == null || rsp.getPathId() == null || rsp.getPathId().toJava() != pathId) {
+            return null;
+        }
+        return rsp;
+    }
+
+    private static RspName findRenderedServicePathName(long pathId) {
+        RenderedServicePaths rsps = SfcDataStoreAPI.readTransactionAPI(
+                InstanceIdentifier.create(RenderedServicePaths.class), LogicalDatastoreType.CONFIGURATION);
+        if (rsps == null || rsps.getRenderedServicePath() == null) {
+            return null;
+        }
+        return rsps.getRenderedServicePath().stream()
+                .filter(rsp -> rsp.getPathId() != null && rsp.getPathId().toJava() == pathId).findFirst()
+                .map(RenderedServicePath::getName).orElse(null);
+    }
+
+    /**
+     * Trace a packet through an RSP. The packet enters the RSP at the hop
+     * matching its service index, the hops before that one are left out.
+     *
+     * @param rsp
+     *            the RSP
+     * @param serviceIndex
+     *            the service index of the packet, or null to trace the packet
+     *            from the first hop
+     * @param mplsLabel
+     *            the MPLS label of the packet at the first hop traced, or
+     *            null if unknown
+     * @param vlanId
+     *            the VLAN id of the packet at the first hop traced, or null
+     *            if unknown
+     * @return the hops of the trace, along with the flows matched on each of
+     *         them
+     */
+    public static TraceRenderedServicePathOutput trace(RenderedServicePath rsp, Short serviceIndex, Long mplsLabel,
+            Integer vlanId) {
+        final FlowResolver resolver = flowResolver;
+        final long pathId = rsp.getPathId().toJava();
+        final short startingIndex = serviceIndex != null ? serviceIndex : rsp.getStartingIndex().toJava();
+
+        List<RenderedServicePathHop> rspHops = rsp.getRenderedServicePathHop() == null ? Collections.emptyList()
+                : new ArrayList<>(rsp.getRenderedServicePathHop());
+        rspHops.sort(Comparator.comparing(hop -> hop.getHopNumber().toJava()));
+
+        List<TraceHop> traceHops = new ArrayList<>();
+        boolean allMatched = resolver != null;
+        Long label = mplsLabel;
+        Integer vlan = vlanId;
+        for (RenderedServicePathHop rspHop : rspHops) {
+            short hopIndex = rspHop.getServiceIndex().toJava();
+            if (hopIndex > startingIndex) {
+                continue;
+            }
+
+            List<MatchedFlow> matchedFlows = resolver == null ? Collections.emptyList()
+                    : resolver.resolveFlows(rspHop.getServiceFunctionForwarder(), pathId, hopIndex, label, vlan);
+            if (matchedFlows.isEmpty()) {
+                LOG.debug("trace: no flow of RSP {} matched on SFF {} at index {}", rsp.getName(),
+                        rspHop.getServiceFunctionForwarder(), hopIndex);
+                allMatched = false;
+            }
+            traceHops.add(new TraceHopBuilder().setHopNumber(rspHop.getHopNumber()).setServiceIndex(hopIndex)
+                    .setServiceFunctionForwarder(rspHop.getServiceFunctionForwarder())
+                    .setServiceFunctionName(rspHop.getServiceFunctionName()).setMatchedFlow(matchedFlows).build());
+
+            // The packet labels are only known at the first hop traced
+            label = null;
+            vlan = null;
+        }
+
+        return new TraceRenderedServicePathOutputBuilder().setResult(allMatched && !traceHops.isEmpty())
+                .setTraceHop(traceHops).build();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.state.service.function.state.SfServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.state.service.function.path.state.SfpRenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionName;
+import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.yang.sfc.sfst.rev150312.CapacityAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class implements capacity aware scheduling mode. For each hop, the SF
+ * of the hop type with the most remaining capacity is selected, that is, its
+ * configured capacity minus the number of RSPs it already carries.
+ *
+ * <p>
+ * The number of RSPs of each SF is counted in memory, one per RSP hop on the
+ * SF, including the hops set in the SFP and the hops of the reverse RSPs. The
+ * counter of an SF is seeded the first time the SF is scheduled, counting the
+ * same hops in the RSPs of the SF operational state, and decremented, never
+ * below zero, for each hop of an RSP removed from it. The counters are
+ * updated without locking, so that the SFPs created at once, scheduled
+ * concurrently, are spread across the SFs. An SF is counted as soon as it is
+ * scheduled, and released if the RSP can not be created after all.
+ */
+public final class SfcServiceFunctionCapacityAwareSchedulerAPI extends SfcServiceFunctionSchedulerAPI {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcServiceFunctionCapacityAwareSchedulerAPI.class);
+
+    // Capacity of the SFs without configured capacity
+    private static final long DEFAULT_CAPACITY = 100;
+
+    // Selections retried when a concurrent selection takes the same SF
+    private static final int MAX_SELECTION_ATTEMPTS = 8;
+
+    private static final ConcurrentMap<SfName, AtomicLong> ASSIGNED_PATHS = new ConcurrentHashMap<>();
+
+    protected SfcServiceFunctionCapacityAwareSchedulerAPI() {
+        super.setSfcServiceFunctionSchedulerType(CapacityAware.class);
+    }
+
+    /**
+     * Account an RSP removed from the operational state of an SF.
+     *
+     * @param sfName
+     *            the name of the SF
+     */
+    static void releaseServiceFunction(SfName sfName) {
+        if (sfName == null) {
+            // A hop of an SFG
+            return;
+        }
+        AtomicLong assignedPaths = ASSIGNED_PATHS.get(sfName);
+        if (assignedPaths != null) {
+            assignedPaths.updateAndGet(paths -> paths > 0 ? paths - 1 : 0);
+        }
+    }
+
+    /**
+     * Forget the RSPs of an SF whose operational state was removed.
+     *
+     * @param sfName
+     *            the name of the SF
+     */
+    static void forgetServiceFunction(SfName sfName) {
+        ASSIGNED_PATHS.remove(sfName);
+    }
+
+    // Package-private for unit tests
+    static AtomicLong getAssignedPaths(SfName sfName) {
+        AtomicLong assignedPaths = ASSIGNED_PATHS.get(sfName);
+        if (assignedPaths == null) {
+            AtomicLong seededPaths = new AtomicLong(countRenderedServicePathHops(sfName));
+            assignedPaths = ASSIGNED_PATHS.putIfAbsent(sfName, seededPaths);
+            if (assignedPaths == null) {
+                assignedPaths = seededPaths;
+            }
+        }
+        return assignedPaths;
+    }
+
+    /**
+     * Count the hops on an SF of the RSPs, forward and reverse, of the SFPs in
+     * the SF operational state.
+     */
+    private static long countRenderedServicePathHops(SfName sfName) {
+        List<SfServicePath> sfServicePaths = SfcProviderServiceFunctionAPI.readServiceFunctionState(sfName);
+        if (sfServicePaths == null) {
+            return 0;
+        }
+        long hops = 0;
+        for (SfServicePath sfServicePath : sfServicePaths) {
+            List<SfpRenderedServicePath> sfpRsps = SfcProviderServicePathAPI.readServicePathState(
+                    sfServicePath.getName());
+            if (sfpRsps == null) {
+                continue;
+            }
+            for (SfpRenderedServicePath sfpRsp : sfpRsps) {
+                RenderedServicePath rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(sfpRsp.getName());
+                if (rsp != null && rsp.getRenderedServicePathHop() != null) {
+                    hops += rsp.getRenderedServicePathHop().stream()
+                            .filter(hop -> sfName.equals(hop.getServiceFunctionName())).count();
+                }
+            }
+        }
+        return hops;
+    }
+
+    private static long getCapacity(ServiceFunction serviceFunction) {
+        return serviceFunction.getCapacity() == null ? DEFAULT_CAPACITY : serviceFunction.getCapacity().toJava();
+    }
+
+    private SfName getServiceFunctionByType(ServiceFunctionType serviceFunctionType) {
+        List<SftServiceFunctionName> sftServiceFunctionNameList = serviceFunctionType.getSftServiceFunctionName();
+        for (int attempt = 0; attempt < MAX_SELECTION_ATTEMPTS; attempt++) {
+            SfName selectedSfName = null;
+            AtomicLong selectedAssignedPaths = null;
+            long selectedPaths = 0;
+            long maxRemainingCapacity = Long.MIN_VALUE;
+
+            for (SftServiceFunctionName sftServiceFunctionName : sftServiceFunctionNameList) {
+                SfName sfName = new SfName(sftServiceFunctionName.getName());
+                ServiceFunction serviceFunction = SfcProviderServiceFunctionAPI.readServiceFunction(sfName);
+                if (serviceFunction == null) {
+                    LOG.debug("ServiceFunction {} doesn't exist", sfName);
+                    continue;
+                }
+                AtomicLong assignedPaths = getAssignedPaths(sfName);
+                long paths = assignedPaths.get();
+                long remainingCapacity = getCapacity(serviceFunction) - paths;
+                if (remainingCapacity > maxRemainingCapacity) {
+                    maxRemainingCapacity = remainingCapacity;
+                    selectedSfName = sfName;
+                    selectedAssignedPaths = assignedPaths;
+                    selectedPaths = paths;
+                }
+            }
+
+            if (selectedSfName == null) {
+                LOG.error("Could not find an existing ServiceFunction for {}", serviceFunctionType.getType());
+                return null;
+            }
+            if (attempt == MAX_SELECTION_ATTEMPTS - 1) {
+                selectedAssignedPaths.incrementAndGet();
+            } else if (!selectedAssignedPaths.compareAndSet(selectedPaths, selectedPaths + 1)) {
+                // Select again, a concurrent selection took the SF meanwhile
+                continue;
+            }
+            if (maxRemainingCapacity <= 0) {
+                LOG.warn("ServiceFunction {} is over capacity", selectedSfName);
+            }
+            return selectedSfName;
+        }
+        return null;
+    }
+
+    @Override
+    public List<SfName> scheduleServiceFunctions(ServiceFunctionChain chain, int serviceIndex,
+            ServiceFunctionPath sfp) {
+        List<SfName> sfNameList = new ArrayList<>();
+        List<SfcServiceFunction> sfcServiceFunctionList = new ArrayList<>();
+        sfcServiceFunctionList.addAll(chain.getSfcServiceFunction());
+        short index = 0;
+        Map<Short, SfName> sfpMapping = getSFPHopSfMapping(sfp);
+
+        /*
+         * For each ServiceFunction type in the list of ServiceFunctions we
+         * select the service function of that type with the most remaining
+         * capacity.
+         */
+        for (SfcServiceFunction sfcServiceFunction : sfcServiceFunctionList) {
+            LOG.debug("ServiceFunction name: {}", sfcServiceFunction.getName());
+            SfName hopSf = sfpMapping.get(index++);
+            if (hopSf != null) {
+                // Not scheduled, but carrying the RSP all the same
+                getAssignedPaths(hopSf).incrementAndGet();
+                sfNameList.add(hopSf);
+                continue;
+            }
+
+            ServiceFunctionType serviceFunctionType = SfcProviderServiceTypeAPI
+                    .readServiceFunctionType(sfcServiceFunction.getType());
+            if (serviceFunctionType == null || serviceFunctionType.getSftServiceFunctionName().isEmpty()) {
+                LOG.error("Could not create path because there are no configured SFs of type: {}",
+                        sfcServiceFunction.getType());
+                releaseServiceFunctions(sfp, sfNameList);
+                return null;
+            }
+            SfName sfName = getServiceFunctionByType(serviceFunctionType);
+            if (sfName == null) {
+                releaseServiceFunctions(sfp, sfNameList);
+                return null;
+            }
+            sfNameList.add(sfName);
+        }
+
+        return sfNameList;
+    }
+
+    @Override
+    public void releaseServiceFunctions(ServiceFunctionPath sfp, List<SfName> sfNames) {
+        // The SFs of the hops set in the SFP were counted too
+        sfNames.forEach(SfcServiceFunctionCapacityAwareSchedulerAPI::releaseServiceFunction);
+    }
+
+    @Override
+    public void assignReverseServiceFunctions(List<SfName> sfNames) {
+        sfNames.forEach(sfName -> getAssignedPaths(sfName).incrementAndGet());
+    }
+
+    @Override
+    public void releaseReverseServiceFunctions(List<SfName> sfNames) {
+        sfNames.forEach(SfcServiceFunctionCapacityAwareSchedulerAPI::releaseServiceFunction);
+    }
+}
@@ -12,13 +12,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionName;
-import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.sf.desc.mon.rev141201.service.functions.state.service.function.state.SfcSfDescMon;
 import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.yang.sfc.sfst.rev150312.LoadBalance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,52 +38,13 @@ public final class SfcServiceFunctionLoadBalanceSchedulerAPI extends SfcServiceF
     }
 
     /*
-     * TODO suggest renaming this method since getServiceFunctionByType is at
-     * odds with the relationship. A Type can have many instances of
-     * ServiceFunctions, hence one would expect this to return a list of
-     * SfNames. What it appears to actually be doing is finding the first
-     * instance of an SF within a Type that meets the CPUUtilization criteria.
-     * Since it appears to be returning an SfName, will make that change here
-     * rather than casting the return from where it was called. Since these
-     * methods appear to be common, perhaps consider making
-     * SfcServiceFunctionSchedulerAPI and Interface?
+     * Returns the SF of the given type with the lowest CPU utilization, taking
+     * into account the paths it was assigned since its last report.
      */
-    private SfName getServiceFunctionByType(ServiceFunctionType serviceFunctionType) {
-        List<SftServiceFunctionName> sftServiceFunctionNameList = serviceFunctionType.getSftServiceFunctionName();
-        SfName sfName;
-        SfName sftServiceFunctionName = null;
-        java.lang.Long preCPUUtilization = java.lang.Long.MAX_VALUE;
-
-        // TODO As part of typedef refactor not message with SFTs
-        for (SftServiceFunctionName curSftServiceFunctionName : sftServiceFunctionNameList) {
-            sfName = new SfName(curSftServiceFunctionName.getName());
-
-            /* Check next one if curSftServiceFunctionName doesn't exist */
-            ServiceFunction serviceFunction = SfcProviderServiceFunctionAPI.readServiceFunction(sfName);
-            if (serviceFunction == null) {
-                LOG.error("ServiceFunction {} doesn't exist", sfName);
-                continue;
-            }
-
-            /* Read ServiceFunctionMonitor information */
-            SfcSfDescMon sfcSfDescMon = SfcProviderServiceFunctionAPI.readServiceFunctionDescriptionMonitor(sfName);
-            if (sfcSfDescMon == null) {
-                // TODO As part of typedef refactor not message with SFTs
-                sftServiceFunctionName = sfName;
-                LOG.error("Read monitor information from Data Store failed! serviceFunction: {}", sfName);
-                // Use sfName if no sfcSfDescMon is available
-                break;
-            }
-
-            java.lang.Long curCPUUtilization = sfcSfDescMon.getMonitoringInfo().getResourceUtilization()
-                    .getCPUUtilization().toJava();
-
-            if (preCPUUtilization > curCPUUtilization) {
-                preCPUUtilization = curCPUUtilization;
-                sftServiceFunctionName = sfName;
-            }
-        }
-
+    private SfName getServiceFunctionByType(ServiceFunctionType serviceFunctionType,
+            SfcServiceFunctionLoadTable loadTable) {
+        loadServiceFunctions(loadTable, serviceFunctionType);
+        SfName sftServiceFunctionName = loadTable.assignLeastLoaded(serviceFunctionType.getType());
         if (sftServiceFunctionName == null) {
             LOG.error("Failed to get one available ServiceFunction for {}", serviceFunctionType.getType());
         }
@@ -100,6 +59,7 @@ public final class SfcServiceFunctionLoadBalanceSchedulerAPI extends SfcServiceF
         List<SfcServiceFunction> sfcServiceFunctionList = new ArrayList<>();
         sfcServiceFunctionList.addAll(chain.getSfcServiceFunction());
         Map<Short, SfName> sfpMapping = getSFPHopSfMapping(sfp);
+        SfcServiceFunctionLoadTable loadTable = getLoadTable();
 
         /*
          * For each ServiceFunction type in the list of ServiceFunctions we
@@ -129,20 +89,27 @@ public final class SfcServiceFunctionLoadBalanceSchedulerAPI extends SfcServiceF
                         .getSftServiceFunctionName();
                 if (!sftServiceFunctionNameList.isEmpty()) {
                     // TODO As part of typedef refactor not message with SFTs
-                    SfName sfName = getServiceFunctionByType(serviceFunctionType);
+                    SfName sfName = getServiceFunctionByType(serviceFunctionType, loadTable);
                     sfNameList.add(sfName);
                 } else {
                     LOG.error("Could not create path because there are no configured SFs of type: {}",
                             sfcServiceFunction.getType());
+                    releaseLoad(sfp, sfNameList);
                     return null;
                 }
             } else {
                 LOG.error("Could not create path because there are no configured SFs of type: {}",
                         sfcServiceFunction.getType());
+                releaseLoad(sfp, sfNameList);
                 return null;
             }
         }
 
         return sfNameList;
     }
+
+    @Override
+    public void releaseServiceFunctions(ServiceFunctionPath sfp, List<SfName> sfNames) {
+        releaseLoad(sfp, sfNames);
+    }
 }
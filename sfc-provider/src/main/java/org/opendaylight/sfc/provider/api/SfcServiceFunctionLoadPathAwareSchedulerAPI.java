@@ -11,22 +11,13 @@ package org.opendaylight.sfc.provider.api;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import org.opendaylight.sfc.provider.topology.SfcProviderGraph;
-import org.opendaylight.sfc.provider.topology.SfcProviderTopologyNode;
+import org.opendaylight.sfc.provider.topology.SfcHopDistanceIndex;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.ServiceFunctionForwarders;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ConnectedSffDictionary;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionary;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionName;
-import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.sf.desc.mon.rev141201.service.functions.state.service.function.state.SfcSfDescMon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,12 +51,14 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
      *            Type of Service Function to find
      * @param preSfName
      *            Name of previous Service Function in Service Function Path
-     * @param sfcProviderGraph
-     *            Topology graph comprised of all the SFs and SFFs
+     * @param hopDistanceIndex
+     *            Hop distances between all the SFs and SFFs
+     * @param loadTable
+     *            Load of the SFs
      * @return String Name of the Service Function with type serviceFunctionType
      */
     private SfName getServiceFunctionByType(ServiceFunctionType serviceFunctionType, SfName preSfName,
-            SfcProviderGraph sfcProviderGraph) {
+            SfcHopDistanceIndex hopDistanceIndex, SfcServiceFunctionLoadTable loadTable) {
         SfName sfcProviderTopologyNodeName;
 
         List<SftServiceFunctionName> sftServiceFunctionNameList = serviceFunctionType.getSftServiceFunctionName();
@@ -84,48 +77,15 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
          * null), find a SF instance with the lowest CPU utilization and return
          * its name
          */
+        loadServiceFunctions(loadTable, serviceFunctionType);
         if (preSfName == null) {
-            SfName sfName;
-            SfName sftServiceFunctionName = null;
-            java.lang.Long preCPUUtilization = java.lang.Long.MAX_VALUE;
-
-            for (SftServiceFunctionName curSftServiceFunctionName : sftServiceFunctionNameList) {
-                sfName = new SfName(curSftServiceFunctionName.getName());
-
-                /* Read sfName of the curSftServiceFunctionName */
-                ServiceFunction serviceFunction = SfcProviderServiceFunctionAPI.readServiceFunction(sfName);
-                if (serviceFunction == null) {
-                    LOG.error("ServiceFunction {} doesn't exist", sfName);
-                    continue;
-                }
-
-                /*
-                 * Read service function description monitor information (e.g.,
-                 * CPU utilization) of the sfName
-                 */
-                SfcSfDescMon sfcSfDescMon = SfcProviderServiceFunctionAPI.readServiceFunctionDescriptionMonitor(sfName);
-                if (sfcSfDescMon == null) {
-                    sftServiceFunctionName = sfName;
-                    LOG.error("Read monitor information from Data Store failed! serviceFunction: {}", sfName);
-                    break;
-                }
-
-                java.lang.Long curCPUUtilization = sfcSfDescMon.getMonitoringInfo().getResourceUtilization()
-                        .getCPUUtilization().toJava();
-
-                if (preCPUUtilization > curCPUUtilization) {
-                    preCPUUtilization = curCPUUtilization;
-                    sftServiceFunctionName = sfName;
-                }
-            }
-
-            if (sftServiceFunctionName == null) {
+            sfcProviderTopologyNodeName = loadTable.assignLeastLoaded(serviceFunctionType.getType());
+            if (sfcProviderTopologyNodeName == null) {
                 LOG.error("Failed to get one available ServiceFunction for {}", serviceFunctionType.getType());
             }
 
-            sfcProviderTopologyNodeName = sftServiceFunctionName;
             /*
-             * XXX noticed that SfcProviderGraph sometimes refers to SFFs as
+             * XXX noticed that the topology sometimes refers to SFFs as
              * well so leaving that alone for now until a general discussion
              * about Schedulers can be had.
              */
@@ -133,10 +93,8 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
             return sfcProviderTopologyNodeName;
         }
 
-        SfcProviderTopologyNode preSfcProviderTopologyNode = sfcProviderGraph.getNode(preSfName.getValue());
-
-        /* return null if preSfName doesn't exist in sfcProviderGraph */
-        if (preSfcProviderTopologyNode == null) {
+        /* return null if preSfName doesn't exist in the topology */
+        if (!hopDistanceIndex.hasNode(preSfName.getValue())) {
             LOG.debug("Node {} doesn't exist", preSfName);
             return null;
         }
@@ -152,44 +110,31 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
         int pathThreshold = 3;
         sfcProviderTopologyNodeName = null;
         SfName sfcProviderTopologyNodeNameBackup = null;
-        Long preCPUUtilization = java.lang.Long.MAX_VALUE;
-        Long preCPUUtilizationBackup = java.lang.Long.MAX_VALUE;
+        long preCPUUtilization = Long.MAX_VALUE;
+        long preCPUUtilizationBackup = Long.MAX_VALUE;
         int preLength = Integer.MAX_VALUE;
 
         for (SftServiceFunctionName sftServiceFunctionName : sftServiceFunctionNameList) {
             SfName curSfName = new SfName(sftServiceFunctionName.getName());
-            SfcProviderTopologyNode curSfcProviderTopologyNode = sfcProviderGraph.getNode(curSfName.getValue());
-            if (curSfcProviderTopologyNode == null) {
-                // curSfName doesn't exist in sfcProviderGraph, so skip it
-                continue;
-            }
 
-            /* Get shotestpath length from the preSfName to curSfName */
-            List<SfcProviderTopologyNode> sfcProviderTopologyNodeList = sfcProviderGraph
-                    .getShortestPath(preSfName.getValue(), curSfName.getValue());
-            pathLength = sfcProviderTopologyNodeList.size() - 1;
+            /* Get shortest path length from the preSfName to curSfName */
+            pathLength = hopDistanceIndex.getHopCount(preSfName.getValue(), curSfName.getValue());
             LOG.debug("Shortest path length between {} and {} : {}", preSfName, curSfName, pathLength);
 
             if (pathLength <= 1) {
                 LOG.debug("No path from {} to {}", preSfName, curSfName);
                 continue;
             }
-            ServiceFunction serviceFunction = SfcProviderServiceFunctionAPI.readServiceFunction(curSfName);
-            if (serviceFunction == null) {
+            /*
+             * Load of curSfName, SFs without monitor information are ranked
+             * after all the others
+             */
+            long curCPUUtilization = loadTable.getLoad(curSfName);
+            if (curCPUUtilization == SfcServiceFunctionLoadTable.NO_SERVICE_FUNCTION) {
                 LOG.error("ServiceFunction {} doesn't exist", curSfName);
                 continue;
             }
 
-            /* Read ServiceFunctionMonitor information of curSFName */
-            SfcSfDescMon sfcSfDescMon = SfcProviderServiceFunctionAPI.readServiceFunctionDescriptionMonitor(curSfName);
-            if (sfcSfDescMon == null) {
-                LOG.error("Read monitor information from Data Store failed! serviceFunction: {}", curSfName);
-                // Use sfName if no sfcSfDescMon is available
-                break;
-            }
-
-            java.lang.Long curCPUUtilization = sfcSfDescMon.getMonitoringInfo().getResourceUtilization()
-                    .getCPUUtilization().toJava();
             LOG.debug("CPU Utilization of {} is {}", curSfName, curCPUUtilization);
             if (preCPUUtilization > curCPUUtilization && pathLength <= pathThreshold) {
                 preCPUUtilization = curCPUUtilization;
@@ -217,71 +162,12 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
          */
         if (sfcProviderTopologyNodeName == null) {
             LOG.debug("Next hop of {} doesn't exist", preSfName);
+        } else {
+            loadTable.assign(sfcProviderTopologyNodeName);
         }
         return sfcProviderTopologyNodeName;
     }
 
-    /**
-     * This method builds a SfcProviderGraph comprised of all the SFs and SFFs.
-     * sfcProviderGraph will store all the info about vertex/node and edge.
-     *
-     * <p>
-     *
-     * @param sfcProviderGraph
-     *            input and output of this method
-     */
-    private void buildTopologyGraph(SfcProviderGraph sfcProviderGraph) {
-        SfName sfName;
-        SffName sffName;
-        SffName toSffName;
-
-        /* Add all the ServiceFunction nodes */
-        ServiceFunctions sfs = SfcProviderServiceFunctionAPI.readAllServiceFunctions();
-        List<ServiceFunction> serviceFunctionList = sfs.getServiceFunction();
-        for (ServiceFunction serviceFunction : serviceFunctionList) {
-            sfName = serviceFunction.getName();
-            sfcProviderGraph.addNode(sfName.getValue());
-            LOG.debug("Add ServiceFunction: {}", sfName);
-        }
-
-        ServiceFunctionForwarders sffs = SfcProviderServiceForwarderAPI.readAllServiceFunctionForwarders();
-        List<ServiceFunctionForwarder> serviceFunctionForwarderList = sffs.getServiceFunctionForwarder();
-
-        /* Add edges and node for every ServiceFunctionForwarder */
-        for (ServiceFunctionForwarder serviceFunctionForwarder : serviceFunctionForwarderList) {
-            /* Add ServiceFunctionForwarder node */
-            sffName = serviceFunctionForwarder.getName();
-            sfcProviderGraph.addNode(sffName.getValue());
-            LOG.debug("Add ServiceFunctionForwarder: {}", sffName);
-
-            List<ServiceFunctionDictionary> serviceFunctionDictionaryList = serviceFunctionForwarder
-                    .getServiceFunctionDictionary();
-
-            /*
-             * Add edge for every ServiceFunction attached to
-             * serviceFunctionForwarder
-             */
-            for (ServiceFunctionDictionary serviceFunctionDictionary : serviceFunctionDictionaryList) {
-                sfName = serviceFunctionDictionary.getName();
-                sfcProviderGraph.addEdge(sfName.getValue(), sffName.getValue());
-                LOG.debug("Add SF-to-SFF edge: {} => {}", sfName, sffName);
-            }
-
-            List<ConnectedSffDictionary> connectedSffDictionaryList = serviceFunctionForwarder
-                    .getConnectedSffDictionary();
-
-            /*
-             * Add edge for every ServiceFunctionForwarder connected to
-             * serviceFunctionForwarder
-             */
-            for (ConnectedSffDictionary connectedSffDictionary : connectedSffDictionaryList) {
-                toSffName = connectedSffDictionary.getName();
-                sfcProviderGraph.addEdge(sffName.getValue(), toSffName.getValue());
-                LOG.debug("Add SFF-to-SFF edge: {} => {}", sffName, toSffName);
-            }
-        }
-    }
-
     /**
      * This method finds out the load and path-aware Service Function Path for
      * the given Service Function Chain. For each SF type in the given chain,
@@ -311,15 +197,15 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
         List<SfName> sfNameList = new ArrayList<>();
         List<SfcServiceFunction> sfcServiceFunctionList = new ArrayList<>();
         sfcServiceFunctionList.addAll(chain.getSfcServiceFunction());
-        SfcProviderGraph sfcProviderGraph = new SfcProviderGraph();
         short index = 0;
         Map<Short, SfName> sfpMapping = getSFPHopSfMapping(sfp);
 
         /*
-         * Build topology graph for all the nodes, including every
+         * Hop distances between all the nodes, including every
          * ServiceFunction and ServiceFunctionForwarder
          */
-        buildTopologyGraph(sfcProviderGraph);
+        SfcHopDistanceIndex hopDistanceIndex = getHopDistanceIndex();
+        SfcServiceFunctionLoadTable loadTable = getLoadTable();
 
         /*
          * Select a SF instance closest to previous hop in SFP for each
@@ -339,7 +225,7 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
                 List<SftServiceFunctionName> sftServiceFunctionNameList = serviceFunctionType
                         .getSftServiceFunctionName();
                 if (!sftServiceFunctionNameList.isEmpty()) {
-                    sfName = getServiceFunctionByType(serviceFunctionType, preSfName, sfcProviderGraph);
+                    sfName = getServiceFunctionByType(serviceFunctionType, preSfName, hopDistanceIndex, loadTable);
                     if (sfName != null) {
                         sfNameList.add(sfName);
                         preSfName = sfName;
@@ -347,17 +233,25 @@ public final class SfcServiceFunctionLoadPathAwareSchedulerAPI extends SfcServic
                     } else {
                         LOG.error("Couldn't find a reachable SF for ServiceFunctionType: {}",
                                 sfcServiceFunction.getType());
+                        releaseLoad(sfp, sfNameList);
                         return null;
                     }
                 } else {
                     LOG.debug("No {} Service Function instance", sfcServiceFunction.getName());
+                    releaseLoad(sfp, sfNameList);
                     return null;
                 }
             } else {
                 LOG.debug("No {} Service Function type", sfcServiceFunction.getName());
+                releaseLoad(sfp, sfNameList);
                 return null;
             }
         }
         return sfNameList;
     }
+
+    @Override
+    public void releaseServiceFunctions(ServiceFunctionPath sfp, List<SfName> sfNames) {
+        releaseLoad(sfp, sfNames);
+    }
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.sf.desc.mon.rev141201.service.functions.state.service.function.state.SfcSfDescMon;
+import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.sf.desc.mon.rev141201.service.functions.state.service.function.state.sfc.sf.desc.mon.MonitoringInfo;
+import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.sf.desc.mon.rpt.rev141105.sf.monitoring.info.ResourceUtilization;
+
+/**
+ * Load of the SFs, as the CPU utilization last reported by their monitor,
+ * used by the load aware schedulers.
+ *
+ * <p>
+ * The SFs of each type are kept ordered by load, so the least loaded SF of a
+ * type is found in O(log n). The SFs assigned to a path since their last
+ * report are accounted as in-flight load, so a burst of paths scheduled
+ * before the next report is spread over the SFs instead of piling onto the
+ * same one, and released if the path cannot be created. SFs without a
+ * report are ranked after all the reported ones.
+ */
+public final class SfcServiceFunctionLoadTable {
+
+    public static final long NO_SERVICE_FUNCTION = -1;
+
+    // Load of an SF without report, above any CPU utilization percentage
+    private static final long UNKNOWN_CPU_UTILIZATION = 1L << 40;
+
+    // Load added by each path assigned to an SF since its last report
+    private static final long IN_FLIGHT_CPU_UTILIZATION = 1;
+
+    private static final Comparator<SfLoad> LEAST_LOADED_FIRST = Comparator.comparingLong(SfLoad::getLoad)
+            .thenComparing(sfLoad -> sfLoad.sfName.getValue());
+
+    private static final SfcServiceFunctionLoadTable SHARED = new SfcServiceFunctionLoadTable();
+
+    // All guarded by this
+    private final Map<SfName, SfLoad> loads = new HashMap<>();
+    private final Map<SftTypeName, NavigableSet<SfLoad>> loadsByType = new HashMap<>();
+
+    private volatile boolean enabled;
+
+    /**
+     * Get the table shared by the whole process, kept up to date by a listener
+     * while enabled.
+     *
+     * @return the shared table
+     */
+    public static SfcServiceFunctionLoadTable getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the CPU utilization reported by an SF monitor.
+     *
+     * @param sfcSfDescMon
+     *            the SF description and monitoring information
+     * @return the CPU utilization, or null if not reported
+     */
+    public static @Nullable Long getCpuUtilization(@Nullable SfcSfDescMon sfcSfDescMon) {
+        MonitoringInfo monitoringInfo = sfcSfDescMon == null ? null : sfcSfDescMon.getMonitoringInfo();
+        ResourceUtilization resourceUtilization = monitoringInfo == null ? null
+                : monitoringInfo.getResourceUtilization();
+        if (resourceUtilization == null || resourceUtilization.getCPUUtilization() == null) {
+            return null;
+        }
+        return resourceUtilization.getCPUUtilization().toJava();
+    }
+
+    /**
+     * Add an SF to the table, or change its type.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @param sfType
+     *            the type of the SF
+     */
+    public synchronized void updateServiceFunction(SfName sfName, SftTypeName sfType) {
+        SfLoad sfLoad = loads.computeIfAbsent(sfName, SfLoad::new);
+        if (sfType.equals(sfLoad.sfType)) {
+            return;
+        }
+        unindex(sfLoad);
+        sfLoad.sfType = sfType;
+        index(sfLoad);
+    }
+
+    public synchronized void removeServiceFunction(SfName sfName) {
+        SfLoad sfLoad = loads.get(sfName);
+        if (sfLoad != null) {
+            unindex(sfLoad);
+            sfLoad.sfType = null;
+            removeIfUnused(sfLoad);
+        }
+    }
+
+    /**
+     * Set the CPU utilization last reported for an SF. It accounts for the
+     * paths assigned to the SF until then, which are no longer in-flight.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @param cpuUtilization
+     *            the CPU utilization, or null if no longer reported
+     */
+    public synchronized void updateCpuUtilization(SfName sfName, @Nullable Long cpuUtilization) {
+        // Reports may come before the SF is configured
+        SfLoad sfLoad = loads.computeIfAbsent(sfName, SfLoad::new);
+        unindex(sfLoad);
+        sfLoad.cpuUtilization = cpuUtilization;
+        sfLoad.inFlight = 0;
+        index(sfLoad);
+        removeIfUnused(sfLoad);
+    }
+
+    /**
+     * Assign the least loaded SF of a type to a path.
+     *
+     * @param sfType
+     *            the type of the SF
+     * @return the name of the SF, or null if there is no SF of the type
+     */
+    public synchronized @Nullable SfName assignLeastLoaded(SftTypeName sfType) {
+        NavigableSet<SfLoad> typeLoads = loadsByType.get(sfType);
+        if (typeLoads == null || typeLoads.isEmpty()) {
+            return null;
+        }
+        SfLoad sfLoad = typeLoads.pollFirst();
+        sfLoad.inFlight++;
+        typeLoads.add(sfLoad);
+        return sfLoad.sfName;
+    }
+
+    /**
+     * Assign an SF to a path.
+     *
+     * @param sfName
+     *            the name of the SF
+     */
+    public synchronized void assign(SfName sfName) {
+        SfLoad sfLoad = loads.get(sfName);
+        if (sfLoad != null) {
+            unindex(sfLoad);
+            sfLoad.inFlight++;
+            index(sfLoad);
+        }
+    }
+
+    /**
+     * Release an SF assigned to a path that could not be created. Nothing is
+     * released if the SF reported its load since it was assigned.
+     *
+     * @param sfName
+     *            the name of the SF
+     */
+    public synchronized void release(SfName sfName) {
+        SfLoad sfLoad = loads.get(sfName);
+        if (sfLoad != null && sfLoad.inFlight > 0) {
+            unindex(sfLoad);
+            sfLoad.inFlight--;
+            index(sfLoad);
+        }
+    }
+
+    /**
+     * Get the load of an SF, to be compared with the load of other SFs.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @return the load, or {@link #NO_SERVICE_FUNCTION} if the SF is not
+     *         configured
+     */
+    public synchronized long getLoad(SfName sfName) {
+        SfLoad sfLoad = loads.get(sfName);
+        return sfLoad == null || sfLoad.sfType == null ? NO_SERVICE_FUNCTION : sfLoad.getLoad();
+    }
+
+    public synchronized void clear() {
+        loads.clear();
+        loadsByType.clear();
+    }
+
+    /**
+     * Start using the table to schedule. Only to be called once the table is
+     * kept up to date with the data store.
+     */
+    public void enable() {
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void index(SfLoad sfLoad) {
+        if (sfLoad.sfType != null) {
+            loadsByType.computeIfAbsent(sfLoad.sfType, type -> new TreeSet<>(LEAST_LOADED_FIRST)).add(sfLoad);
+        }
+    }
+
+    private void unindex(SfLoad sfLoad) {
+        NavigableSet<SfLoad> typeLoads = sfLoad.sfType == null ? null : loadsByType.get(sfLoad.sfType);
+        if (typeLoads != null) {
+            typeLoads.remove(sfLoad);
+            if (typeLoads.isEmpty()) {
+                loadsByType.remove(sfLoad.sfType);
+            }
+        }
+    }
+
+    private void removeIfUnused(SfLoad sfLoad) {
+        if (sfLoad.sfType == null && sfLoad.cpuUtilization == null) {
+            loads.remove(sfLoad.sfName);
+        }
+    }
+
+    /**
+     * Load of an SF. Only modified while not indexed, since the load is the
+     * ordering key.
+     */
+    private static final class SfLoad {
+        private final SfName sfName;
+        private SftTypeName sfType;
+        private Long cpuUtilization;
+        private long inFlight;
+
+        SfLoad(SfName sfName) {
+            this.sfName = sfName;
+        }
+
+        long getLoad() {
+            long reported = cpuUtilization == null ? UNKNOWN_CPU_UTILIZATION : cpuUtilization;
+            return reported + inFlight * IN_FLIGHT_CPU_UTILIZATION;
+        }
+    }
+}
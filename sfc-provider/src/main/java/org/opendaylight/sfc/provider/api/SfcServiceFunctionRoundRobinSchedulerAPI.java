@@ -9,10 +9,11 @@
 package org.opendaylight.sfc.provider.api;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
@@ -37,7 +38,8 @@ public final class SfcServiceFunctionRoundRobinSchedulerAPI extends SfcServiceFu
 
     private static final Logger LOG = LoggerFactory.getLogger(SfcServiceFunctionRoundRobinSchedulerAPI.class);
 
-    private static Map<SftTypeName, Integer> MAP_COUNT_ROUND_ROBIN = new HashMap<>();
+    // SFPs may be scheduled concurrently
+    private static final ConcurrentMap<SftTypeName, AtomicInteger> MAP_COUNT_ROUND_ROBIN = new ConcurrentHashMap<>();
 
     protected SfcServiceFunctionRoundRobinSchedulerAPI() {
         super.setSfcServiceFunctionSchedulerType(RoundRobin.class);
@@ -45,23 +47,12 @@ public final class SfcServiceFunctionRoundRobinSchedulerAPI extends SfcServiceFu
 
     private SfName getServiceFunctionByType(ServiceFunctionType serviceFunctionType) {
         List<SftServiceFunctionName> sftServiceFunctionNameList = serviceFunctionType.getSftServiceFunctionName();
-        int countRoundRobin = 0;
-
-        if (!MAP_COUNT_ROUND_ROBIN.isEmpty()) {
-            for (Entry<SftTypeName, Integer> entry : MAP_COUNT_ROUND_ROBIN.entrySet()) {
-                SftTypeName sfType = entry.getKey();
-                if (sfType.equals(serviceFunctionType.getType())) {
-                    countRoundRobin = entry.getValue();
-                    LOG.debug("countRoundRobin: {}", countRoundRobin);
-                    break;
-                }
-            }
-        }
-
-        SftServiceFunctionName sftServiceFunctionName = sftServiceFunctionNameList.get(countRoundRobin);
-        countRoundRobin = (countRoundRobin + 1) % sftServiceFunctionNameList.size();
-        MAP_COUNT_ROUND_ROBIN.put(serviceFunctionType.getType(), countRoundRobin);
-        return new SfName(sftServiceFunctionName.getName());
+        AtomicInteger countRoundRobin = MAP_COUNT_ROUND_ROBIN.computeIfAbsent(serviceFunctionType.getType(),
+                sfType -> new AtomicInteger());
+        // The SFs of the type may have changed since the last selection
+        int index = Math.floorMod(countRoundRobin.getAndIncrement(), sftServiceFunctionNameList.size());
+        LOG.debug("countRoundRobin: {}", index);
+        return new SfName(sftServiceFunctionNameList.get(index).getName());
     }
 
     @Override
@@ -11,10 +11,19 @@ package org.opendaylight.sfc.provider.api;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.opendaylight.sfc.provider.topology.SfcHopDistanceIndex;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.ServiceFunctionForwarders;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.service.function.path.ServicePathHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class defines the Generic API for SF scheduling.
@@ -26,6 +35,8 @@ import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev1407
  * @since 2015-03-04
  */
 public abstract class SfcServiceFunctionSchedulerAPI {
+    private static final Logger LOG = LoggerFactory.getLogger(SfcServiceFunctionSchedulerAPI.class);
+
     private java.lang.Class<? extends org.opendaylight.yang.gen.v1.urn.intel
             .params.xml.ns.yang.sfc.sfst
             .rev150312.ServiceFunctionSchedulerTypeIdentity> sfcServiceFunctionSchedulerType;
@@ -46,6 +57,60 @@ public abstract class SfcServiceFunctionSchedulerAPI {
     public abstract List<SfName> scheduleServiceFunctions(ServiceFunctionChain chain, int serviceIndex,
             ServiceFunctionPath sfp);
 
+    /**
+     * Release the SFs scheduled for an RSP that could not be created. Only
+     * the schedulers accounting the RSPs of each SF have anything to release.
+     *
+     * @param sfp
+     *            the SFP the SFs were scheduled for
+     * @param sfNames
+     *            the SFs returned by {@link #scheduleServiceFunctions}
+     */
+    public void releaseServiceFunctions(ServiceFunctionPath sfp, List<SfName> sfNames) {
+    }
+
+    /**
+     * Account the SFs of the reverse RSP of an RSP scheduled by this
+     * scheduler, which traverses the same SFs. Only the schedulers accounting
+     * the RSPs of each SF have anything to account.
+     *
+     * @param sfNames
+     *            the SFs of the reverse RSP
+     */
+    public void assignReverseServiceFunctions(List<SfName> sfNames) {
+    }
+
+    /**
+     * Release the SFs accounted for the reverse RSP of an RSP that could not
+     * be created.
+     *
+     * @param sfNames
+     *            the SFs of the reverse RSP
+     */
+    public void releaseReverseServiceFunctions(List<SfName> sfNames) {
+    }
+
+    /**
+     * Release the in-flight load of the SFs scheduled for an RSP that could
+     * not be created, for the load aware schedulers.
+     *
+     * @param sfp
+     *            the SFP the SFs were scheduled for
+     * @param sfNames
+     *            the SFs scheduled so far
+     */
+    protected void releaseLoad(ServiceFunctionPath sfp, List<SfName> sfNames) {
+        // The SFs of the hops set in the SFP were not scheduled
+        Map<Short, SfName> sfpMapping = getSFPHopSfMapping(sfp);
+        SfcServiceFunctionLoadTable loadTable = getLoadTable();
+        for (short index = 0; index < sfNames.size(); index++) {
+            SfName sfName = sfNames.get(index);
+            if (sfName != null && sfpMapping.get(index) == null) {
+                loadTable.release(sfName);
+            }
+        }
+    }
+
     protected Map<Short, SfName> getSFPHopSfMapping(ServiceFunctionPath sfp) {
         Map<Short, SfName> ret = new HashMap<>();
         List<ServicePathHop> hops = sfp.getServicePathHop();
@@ -56,4 +121,78 @@ public abstract class SfcServiceFunctionSchedulerAPI {
         }
         return ret;
     }
+
+    /**
+     * Get the hop distances between all the SFs and SFFs. The shared index is
+     * used when kept up to date by its listener, otherwise the index is built
+     * from the data store.
+     *
+     * @return the hop distance index
+     */
+    protected SfcHopDistanceIndex getHopDistanceIndex() {
+        SfcHopDistanceIndex sharedIndex = SfcHopDistanceIndex.getShared();
+        if (sharedIndex.isEnabled()) {
+            return sharedIndex;
+        }
+
+        SfcHopDistanceIndex index = new SfcHopDistanceIndex();
+        ServiceFunctions sfs = SfcProviderServiceFunctionAPI.readAllServiceFunctions();
+        if (sfs != null && sfs.getServiceFunction() != null) {
+            for (ServiceFunction serviceFunction : sfs.getServiceFunction()) {
+                index.updateServiceFunction(serviceFunction.getName().getValue());
+            }
+        }
+        ServiceFunctionForwarders sffs = SfcProviderServiceForwarderAPI.readAllServiceFunctionForwarders();
+        if (sffs != null && sffs.getServiceFunctionForwarder() != null) {
+            for (ServiceFunctionForwarder serviceFunctionForwarder : sffs.getServiceFunctionForwarder()) {
+                index.updateServiceFunctionForwarder(serviceFunctionForwarder);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the load of the SFs. The shared table is used when kept up to date
+     * by its listener, otherwise an empty table is returned, to be loaded
+     * from the data store with {@link #loadServiceFunctions}.
+     *
+     * @return the SF load table
+     */
+    protected SfcServiceFunctionLoadTable getLoadTable() {
+        SfcServiceFunctionLoadTable sharedTable = SfcServiceFunctionLoadTable.getShared();
+        return sharedTable.isEnabled() ? sharedTable : new SfcServiceFunctionLoadTable();
+    }
+
+    /**
+     * Load the SFs of a type, and their CPU utilization, from the data store
+     * into a table not kept up to date by its listener.
+     *
+     * @param loadTable
+     *            the SF load table
+     * @param serviceFunctionType
+     *            the type of the SFs
+     */
+    protected static void loadServiceFunctions(SfcServiceFunctionLoadTable loadTable,
+            ServiceFunctionType serviceFunctionType) {
+        if (loadTable.isEnabled()) {
+            return;
+        }
+        for (SftServiceFunctionName sftServiceFunctionName : serviceFunctionType.getSftServiceFunctionName()) {
+            SfName sfName = new SfName(sftServiceFunctionName.getName());
+            if (loadTable.getLoad(sfName) != SfcServiceFunctionLoadTable.NO_SERVICE_FUNCTION) {
+                continue;
+            }
+            if (SfcProviderServiceFunctionAPI.readServiceFunction(sfName) == null) {
+                LOG.error("ServiceFunction {} doesn't exist", sfName);
+                continue;
+            }
+            loadTable.updateServiceFunction(sfName, serviceFunctionType.getType());
+            Long cpuUtilization = SfcServiceFunctionLoadTable.getCpuUtilization(
+                    SfcProviderServiceFunctionAPI.readServiceFunctionDescriptionMonitor(sfName));
+            if (cpuUtilization == null) {
+                LOG.warn("No monitor information for ServiceFunction {}, ranked last", sfName);
+            }
+            loadTable.updateCpuUtilization(sfName, cpuUtilization);
+        }
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionTypeBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionTypeKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionNameBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.service.function.type.SftServiceFunctionNameKey;
+
+/**
+ * Index of the SFs of each type, used by the schedulers and validators
+ * instead of reading the service function types from the data store.
+ *
+ * <p>
+ * The index is updated as the SFs are configured. An SF removed, or moved to
+ * another type, is kept in the index of its type flagged as no longer live
+ * until its type is exported to the data store, so that the export knows the
+ * types to rewrite. Only the live SFs are returned to the schedulers. A type
+ * stays known to the index once all its SFs are gone, so that it is not read
+ * from the data store again.
+ */
+public final class SfcServiceFunctionTypeIndex {
+
+    private static final SfcServiceFunctionTypeIndex SHARED = new SfcServiceFunctionTypeIndex();
+
+    // All guarded by this. The SFs of each type, in configuration order,
+    // mapped to whether they are live.
+    private final Map<SftTypeName, Map<SfName, Boolean>> sfsByType = new HashMap<>();
+    private final Map<SfName, SftTypeName> typeBySf = new HashMap<>();
+    private final Set<SftTypeName> dirtyTypes = new LinkedHashSet<>();
+
+    private volatile boolean enabled;
+
+    /**
+     * Get the index shared by the whole process, kept up to date by the SF
+     * listener while enabled.
+     *
+     * @return the shared index
+     */
+    public static SfcServiceFunctionTypeIndex getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Add an SF to the index of its type, or move it to another type.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @param sfType
+     *            the type of the SF
+     */
+    public synchronized void updateServiceFunction(SfName sfName, SftTypeName sfType) {
+        SftTypeName previousType = typeBySf.put(sfName, sfType);
+        if (sfType.equals(previousType)) {
+            return;
+        }
+        if (previousType != null) {
+            markNotLive(sfName, previousType);
+        }
+        sfsByType.computeIfAbsent(sfType, type -> new LinkedHashMap<>()).put(sfName, Boolean.TRUE);
+        dirtyTypes.add(sfType);
+    }
+
+    public synchronized void removeServiceFunction(SfName sfName) {
+        SftTypeName sfType = typeBySf.remove(sfName);
+        if (sfType != null) {
+            markNotLive(sfName, sfType);
+        }
+    }
+
+    /**
+     * Get the type of a live SF.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @return the type, or null if the SF is not configured
+     */
+    public synchronized @Nullable SftTypeName getType(SfName sfName) {
+        return typeBySf.get(sfName);
+    }
+
+    /**
+     * Get the live SFs of a type.
+     *
+     * @param sfType
+     *            the type of the SF
+     * @return the names of the SFs, in configuration order
+     */
+    public synchronized List<SfName> getServiceFunctions(SftTypeName sfType) {
+        Map<SfName, Boolean> sfs = sfsByType.get(sfType);
+        if (sfs == null) {
+            return Collections.emptyList();
+        }
+        List<SfName> liveSfs = new ArrayList<>(sfs.size());
+        sfs.forEach((sfName, live) -> {
+            if (live) {
+                liveSfs.add(sfName);
+            }
+        });
+        return liveSfs;
+    }
+
+    /**
+     * Get a type with its live SFs, as it would be read from the data store.
+     *
+     * @param sfType
+     *            the type of the SF
+     * @return the type, without SFs if it has no live SF, or null if no SF
+     *         of the type was ever indexed
+     */
+    public synchronized @Nullable ServiceFunctionType getServiceFunctionType(SftTypeName sfType) {
+        return sfsByType.containsKey(sfType) ? buildServiceFunctionType(sfType, getServiceFunctions(sfType)) : null;
+    }
+
+    /**
+     * Take the types changed since the last call, to be exported to the data
+     * store. The SFs no longer live in these types are dropped.
+     *
+     * @return the changed types mapped to their live SFs, empty if the type
+     *         has to be removed from the data store
+     */
+    public synchronized Map<SftTypeName, List<SfName>> takeChangedTypes() {
+        Map<SftTypeName, List<SfName>> changedTypes = new LinkedHashMap<>();
+        for (SftTypeName sfType : dirtyTypes) {
+            Map<SfName, Boolean> sfs = sfsByType.get(sfType);
+            if (sfs != null) {
+                sfs.values().removeIf(live -> !live);
+            }
+            changedTypes.put(sfType, getServiceFunctions(sfType));
+        }
+        dirtyTypes.clear();
+        return changedTypes;
+    }
+
+    /**
+     * Mark types as changed again, when their export failed.
+     *
+     * @param sfTypes
+     *            the types to export again
+     */
+    public synchronized void markChanged(Collection<SftTypeName> sfTypes) {
+        dirtyTypes.addAll(sfTypes);
+    }
+
+    public synchronized boolean hasChangedTypes() {
+        return !dirtyTypes.isEmpty();
+    }
+
+    public synchronized void clear() {
+        sfsByType.clear();
+        typeBySf.clear();
+        dirtyTypes.clear();
+    }
+
+    /**
+     * Start using the index to schedule and validate. Only to be called once
+     * the index is kept up to date with the data store.
+     */
+    public void enable() {
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Build a service function type as stored in the data store.
+     *
+     * @param sfType
+     *            the type of the SF
+     * @param sfNames
+     *            the SFs of the type
+     * @return the service function type
+     */
+    public static ServiceFunctionType buildServiceFunctionType(SftTypeName sfType, List<SfName> sfNames) {
+        List<SftServiceFunctionName> sftServiceFunctionNames = new ArrayList<>(sfNames.size());
+        for (SfName sfName : sfNames) {
+            sftServiceFunctionNames.add(new SftServiceFunctionNameBuilder().setName(sfName)
+                    .withKey(new SftServiceFunctionNameKey(sfName)).build());
+        }
+        return new ServiceFunctionTypeBuilder().setType(sfType).withKey(new ServiceFunctionTypeKey(sfType))
+                .setSftServiceFunctionName(sftServiceFunctionNames).build();
+    }
+
+    private void markNotLive(SfName sfName, SftTypeName sfType) {
+        Map<SfName, Boolean> sfs = sfsByType.get(sfType);
+        if (sfs != null && sfs.replace(sfName, Boolean.FALSE) != null) {
+            dirtyTypes.add(sfType);
+        }
+    }
+}
@@ -8,15 +8,15 @@
 
 package org.opendaylight.sfc.provider.api;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Random;
-import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import java.util.Set;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.GenerationAlgorithmEnum;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ServicePathIds;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ServicePathIdsBuilder;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathId;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathIdBuilder;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathIdKey;
-import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.PathIdState;
 
 /**
  * This class has the APIs to operate on the Service PathIds.
@@ -42,6 +42,12 @@ public final class SfcServicePathId {
     /* Determines the trade-off */
     private static final int N = 64;
 
+    /*
+     * In-memory service-path-ids bit array. The operations made of several
+     * steps run atomically through it.
+     */
+    private static final SfcServicePathIdBitmap BITMAP = SfcServicePathIdBitmap.getInstance();
+
     private SfcServicePathId() {
     }
 
@@ -51,25 +57,27 @@ public final class SfcServicePathId {
      * algorithm
      *
      * <p>
+     * If the randomly chosen candidate is in use, the next free path-id is
+     * searched for in the bit array, a whole word at a time.
      *
      * @return Pathid or error if none available
      */
     public static int generatePathIdRandomIncrements() {
-        int pathid;
-        int count = NUM_PATH_ID;
-
-        do {
-            nextPathId = nextPathId + RANDOM_GENERATOR.nextInt(NUM_PATH_ID) % N + 1;
-            pathid = MIN_PATH_ID + nextPathId % NUM_PATH_ID;
+        return BITMAP.atomically(() -> {
+            nextPathId = (nextPathId + RANDOM_GENERATOR.nextInt(NUM_PATH_ID) % N + 1) % NUM_PATH_ID;
+            int candidate = MIN_PATH_ID + nextPathId;
 
-            if (checkSuitablePathId(pathid)) {
-                return pathid;
+            long pathid = BITMAP.findFree(candidate, MAX_PATH_ID);
+            if (pathid < 0) {
+                pathid = BITMAP.findFree(MIN_PATH_ID, candidate - 1);
+            }
+            if (pathid < 0) {
+                return -1;
             }
-            count--;
-        }
-        while (count > 0);
 
-        return -1;
+            nextPathId = (int) pathid - MIN_PATH_ID;
+            return (int) pathid;
+        }, -1);
     }
 
     /**
@@ -80,22 +88,15 @@ public final class SfcServicePathId {
      * @return Pathid or error if none available
      */
     private static int generatePathIdSequentialIncrements() {
-        int pathid;
-        int count = NUM_PATH_ID;
-
-        do {
-            nextPathId = nextPathId + 1;
-            pathid = MIN_PATH_ID + nextPathId;
-
-            if (checkSuitablePathId(pathid) && allocatePathId(pathid)) {
-                return pathid;
+        return BITMAP.atomically(() -> {
+            long pathid = BITMAP.findFree(MIN_PATH_ID + nextPathId + 1L, MIN_PATH_ID + (long) nextPathId + NUM_PATH_ID);
+            if (pathid < 0) {
+                return -1;
             }
 
-            count--;
-        }
-        while (count > 0);
-
-        return -1;
+            nextPathId = (int) pathid - MIN_PATH_ID;
+            return (int) pathid;
+        }, -1);
     }
 
     /**
@@ -108,19 +109,7 @@ public final class SfcServicePathId {
      * @return True if allocated, otherwise false.
      */
     public static long chechAndAllocatePathId(long pathid) {
-        if (SfcConcurrencyAPI.getPathIdLock()) {
-            try {
-                if (checkSuitablePathId(pathid) && allocatePathId(pathid)) {
-                    return pathid;
-                } else {
-                    return -1;
-                }
-            } finally {
-                SfcConcurrencyAPI.releasePathIdLock();
-            }
-        } else {
-            return -1;
-        }
+        return BITMAP.atomically(() -> BITMAP.setIfNotAllocated(pathid), false) ? pathid : -1;
     }
 
     /**
@@ -133,30 +122,69 @@ public final class SfcServicePathId {
      * @return True if allocated, otherwise false.
      */
     public static long checkAndAllocateSymmetricPathId(long pathid) {
-        if (SfcConcurrencyAPI.getPathIdLock()) {
-            try {
-                long symmetricId = -1;
-                GenerationAlgorithmEnum genAlg = getGenerationAlgorithm();
-                if (genAlg == GenerationAlgorithmEnum.Random) {
-                    symmetricId = pathid ^ 1 << 23;
-                    if (!checkSuitablePathId(symmetricId)) {
-                        symmetricId = -1;
-                    }
-                } else if (genAlg == GenerationAlgorithmEnum.Sequential) {
-                    symmetricId = generatePathIdSequentialIncrements();
+        return BITMAP.atomically(() -> {
+            long symmetricId = -1;
+            GenerationAlgorithmEnum genAlg = getGenerationAlgorithm();
+            if (genAlg == GenerationAlgorithmEnum.Random) {
+                symmetricId = pathid ^ 1 << 23;
+                if (!checkSuitablePathId(symmetricId)) {
+                    symmetricId = -1;
                 }
+            } else if (genAlg == GenerationAlgorithmEnum.Sequential) {
+                symmetricId = generatePathIdSequentialIncrements();
+            }
 
-                if (symmetricId >= MIN_PATH_ID && allocatePathId(symmetricId)) {
-                    return symmetricId;
-                } else {
-                    return -1;
-                }
-            } finally {
-                SfcConcurrencyAPI.releasePathIdLock();
+            if (symmetricId >= MIN_PATH_ID && allocatePathId(symmetricId)) {
+                return symmetricId;
+            } else {
+                return -1L;
             }
-        } else {
-            return -1;
-        }
+        }, -1L);
+    }
+
+    /**
+     * Check and allocate a Pathid, generated if not given, and optionally the
+     * Pathid of its symmetric path, under a single allocation lock.
+     *
+     * <p>
+     *
+     * @param pathid
+     *            Candidate Path Id, null to generate one
+     * @param symmetric
+     *            Whether to allocate a symmetric Path Id too
+     * @return the Path Id followed by the symmetric Path Id, -1 when not
+     *         allocated or not requested; null if the Path Id could not be
+     *         allocated.
+     */
+    public static long[] checkAndAllocatePathIdPair(Long pathid, boolean symmetric) {
+        return BITMAP.atomically(() -> {
+            long pathId = pathid == null ? checkAndAllocatePathId() : chechAndAllocatePathId(pathid);
+            if (pathId == -1) {
+                return null;
+            }
+            return new long[] {pathId, symmetric ? checkAndAllocateSymmetricPathId(pathId) : -1};
+        }, null);
+    }
+
+    /**
+     * Check and allocate the symmetric Pathids of several Pathids under a
+     * single allocation lock.
+     *
+     * <p>
+     *
+     * @param pathids
+     *            Path Ids of the paths to be made symmetric
+     * @return the symmetric Path Ids, in the same order, -1 for those not
+     *         allocated.
+     */
+    public static List<Long> checkAndAllocateSymmetricPathIds(List<Long> pathids) {
+        return BITMAP.atomically(() -> {
+            List<Long> symmetricIds = new ArrayList<>(pathids.size());
+            for (Long pathid : pathids) {
+                symmetricIds.add(checkAndAllocateSymmetricPathId(pathid));
+            }
+            return symmetricIds;
+        }, new ArrayList<>(Collections.nCopies(pathids.size(), -1L)));
     }
 
     /**
@@ -167,27 +195,58 @@ public final class SfcServicePathId {
      * @return True if allocated, otherwise false.
      */
     public static long checkAndAllocatePathId() {
-        if (SfcConcurrencyAPI.getPathIdLock()) {
-            try {
+        return BITMAP.atomically(() -> {
+            long pathId = -1;
+            GenerationAlgorithmEnum genAlg = getGenerationAlgorithm();
+            if (genAlg == GenerationAlgorithmEnum.Random) {
+                pathId = generatePathIdRandomIncrements();
+            } else if (genAlg == GenerationAlgorithmEnum.Sequential) {
+                pathId = generatePathIdSequentialIncrements();
+            }
+
+            if (pathId >= MIN_PATH_ID && allocatePathId(pathId)) {
+                return pathId;
+            } else {
+                return -1L;
+            }
+        }, -1L);
+    }
+
+    /**
+     * Generate several pathids and allocate them at once.
+     *
+     * <p>
+     * Fewer pathids than requested are returned when the pathid space is
+     * exhausted.
+     *
+     * @param count
+     *            Number of Path Ids to allocate
+     * @return the allocated Path Ids, in generation order.
+     */
+    public static List<Long> checkAndAllocatePathIds(int count) {
+        return BITMAP.atomically(() -> {
+            Set<Long> pathIds = new LinkedHashSet<>();
+            GenerationAlgorithmEnum genAlg = getGenerationAlgorithm();
+            // generated pathids are only allocated at the end, so a
+            // candidate may be generated twice when wrapping around
+            for (int attempt = 0; pathIds.size() < count && attempt < NUM_PATH_ID; attempt++) {
                 long pathId = -1;
-                GenerationAlgorithmEnum genAlg = getGenerationAlgorithm();
                 if (genAlg == GenerationAlgorithmEnum.Random) {
                     pathId = generatePathIdRandomIncrements();
                 } else if (genAlg == GenerationAlgorithmEnum.Sequential) {
                     pathId = generatePathIdSequentialIncrements();
                 }
-
-                if (pathId >= MIN_PATH_ID && allocatePathId(pathId)) {
-                    return pathId;
-                } else {
-                    return -1;
+                if (pathId < MIN_PATH_ID) {
+                    break;
                 }
-            } finally {
-                SfcConcurrencyAPI.releasePathIdLock();
+                pathIds.add(pathId);
             }
-        } else {
-            return -1;
-        }
+
+            if (pathIds.isEmpty() || !allocatePathIds(pathIds)) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(pathIds);
+        }, new ArrayList<>());
     }
 
     /**
@@ -200,16 +259,7 @@ public final class SfcServicePathId {
      * @return True if available, otherwise false.
      */
     public static boolean checkSuitablePathId(long pathid) {
-        ServicePathIdKey servicePathIdKey = new ServicePathIdKey(pathid / Long.SIZE);
-
-        /* Entry into the bitarray */
-        long bitEntry = pathid % Long.SIZE;
-
-        InstanceIdentifier<ServicePathId> spIID;
-        spIID = InstanceIdentifier.builder(ServicePathIds.class).child(ServicePathId.class, servicePathIdKey).build();
-        ServicePathId servicePathId = SfcDataStoreAPI.readTransactionAPI(spIID, LogicalDatastoreType.OPERATIONAL);
-
-        return servicePathId == null || (1L << 64 - bitEntry & servicePathId.getPathIdBitarray()) == 0;
+        return BITMAP.atomically(() -> BITMAP.isFree(pathid), false);
     }
 
     /**
@@ -222,28 +272,7 @@ public final class SfcServicePathId {
      * @return True if allocated, otherwise false.
      */
     public static boolean allocatePathId(long pathid) {
-        ServicePathIdKey servicePathIdKey = new ServicePathIdKey(pathid / Long.SIZE);
-
-        /* Entry into the bitarray */
-        long bitEntry = pathid % Long.SIZE;
-
-        long pathIdBitArray = 0;
-
-        InstanceIdentifier<ServicePathId> spIID;
-        spIID = InstanceIdentifier.builder(ServicePathIds.class).child(ServicePathId.class, servicePathIdKey).build();
-        ServicePathId servicePathId = SfcDataStoreAPI.readTransactionAPI(spIID, LogicalDatastoreType.OPERATIONAL);
-
-        if (servicePathId != null) {
-            pathIdBitArray = servicePathId.getPathIdBitarray() != null ? servicePathId.getPathIdBitarray() : 0;
-        }
-
-        ServicePathIdBuilder servicePathIdBuilder = new ServicePathIdBuilder();
-
-        servicePathIdBuilder.setPathIdBitarray(pathIdBitArray | 1L << Long.SIZE - bitEntry);
-        servicePathIdBuilder.withKey(servicePathIdKey);
-
-        return SfcDataStoreAPI.writeMergeTransactionAPI(spIID, servicePathIdBuilder.build(),
-                LogicalDatastoreType.OPERATIONAL);
+        return BITMAP.atomically(() -> BITMAP.set(pathid), false);
     }
 
     /**
@@ -256,73 +285,122 @@ public final class SfcServicePathId {
      * @return True if freed, otherwise false.
      */
     public static boolean freePathId(long pathid) {
-        if (SfcConcurrencyAPI.getPathIdLock()) {
-            try {
-                ServicePathIdKey servicePathIdKey = new ServicePathIdKey(pathid / Long.SIZE);
-
-                /* Entry into the bitarray */
-                long bitEntry = pathid % Long.SIZE;
-
-                InstanceIdentifier<ServicePathId> spIID;
-                spIID = InstanceIdentifier.builder(ServicePathIds.class).child(ServicePathId.class, servicePathIdKey)
-                        .build();
-                ServicePathId servicePathId = SfcDataStoreAPI.readTransactionAPI(spIID,
-                        LogicalDatastoreType.OPERATIONAL);
-
-                ServicePathIdBuilder servicePathIdBuilder = new ServicePathIdBuilder(servicePathId);
-                servicePathIdBuilder.withKey(servicePathIdKey);
-                servicePathIdBuilder
-                        .setPathIdBitarray(servicePathId.getPathIdBitarray() & ~(1L << Long.SIZE - bitEntry));
-
-                return SfcDataStoreAPI.writeMergeTransactionAPI(spIID, servicePathIdBuilder.build(),
-                        LogicalDatastoreType.OPERATIONAL);
-            } finally {
-                SfcConcurrencyAPI.releasePathIdLock();
-            }
-        }
-        return false;
+        return BITMAP.atomically(() -> BITMAP.clear(pathid), false);
     }
 
     /**
-     * Get the Path-Id Generation-algorithm from the data-store.
+     * Allocate several Pathids, updating each bit array entry only once.
      *
      * <p>
-     * If its not present, create it with the default value.
+     *
+     * @param pathids
+     *            Path Ids to be allocated
+     * @return True if all allocated, otherwise false and none is allocated.
+     */
+    public static boolean allocatePathIds(Collection<Long> pathids) {
+        return BITMAP.atomically(() -> BITMAP.set(pathids), false);
+    }
+
+    /**
+     * Free several Pathids, updating each bit array entry only once.
      *
      * <p>
      *
-     * @return generation-algorithm enum value
+     * @param pathids
+     *            Path Ids to be freed
+     * @return True if all freed, otherwise false and none is freed.
      */
-    private static GenerationAlgorithmEnum getGenerationAlgorithm() {
-        InstanceIdentifier<ServicePathIds> spIID = InstanceIdentifier.builder(ServicePathIds.class).build();
-        ServicePathIds servicePathIds = SfcDataStoreAPI.readTransactionAPI(spIID, LogicalDatastoreType.OPERATIONAL);
+    public static boolean freePathIds(Collection<Long> pathids) {
+        return BITMAP.atomically(() -> BITMAP.clear(pathids), false);
+    }
 
-        if (servicePathIds == null) {
-            setGenerationAlgorithm(DEFAULT_GENERATION_ALGORITHM);
-            return GenerationAlgorithmEnum.forValue(DEFAULT_GENERATION_ALGORITHM);
-        }
+    /**
+     * Reserve a range of Pathids, so that they are only used when explicitly
+     * requested. The range is reserved only if all of its Pathids are free.
+     *
+     * <p>
+     *
+     * @param startPathid
+     *            First Path Id of the range
+     * @param endPathid
+     *            Last Path Id of the range, inclusive
+     * @return True if reserved, otherwise false.
+     */
+    public static boolean reservePathIdRange(long startPathid, long endPathid) {
+        return BITMAP.atomically(() -> BITMAP.reserve(startPathid, endPathid), false);
+    }
 
-        GenerationAlgorithmEnum genAlgorithm = servicePathIds.getGenerationAlgorithm();
+    /**
+     * Free a Pathid and drop its reservation, if any.
+     *
+     * <p>
+     *
+     * @param pathid
+     *            Path Id to be released
+     * @return True if released, otherwise false.
+     */
+    public static boolean releasePathId(long pathid) {
+        return BITMAP.atomically(() -> BITMAP.release(pathid), false);
+    }
 
-        if (genAlgorithm == null) {
-            setGenerationAlgorithm(DEFAULT_GENERATION_ALGORITHM);
-            return GenerationAlgorithmEnum.forValue(DEFAULT_GENERATION_ALGORITHM);
-        } else {
-            return genAlgorithm;
+    /**
+     * Get the state of a Pathid.
+     *
+     * <p>
+     *
+     * @param pathid
+     *            Path Id
+     * @return the Path Id state, or null if out of range.
+     */
+    public static PathIdState readPathIdState(long pathid) {
+        if (pathid < MIN_PATH_ID || pathid > SfcServicePathIdBitmap.MAX_ALLOWED_PATH_ID) {
+            return null;
         }
+        return BITMAP.atomically(() -> {
+            if (BITMAP.isAllocated(pathid)) {
+                return PathIdState.Allocated;
+            } else if (BITMAP.isReserved(pathid)) {
+                return PathIdState.Reserved;
+            } else {
+                return PathIdState.Available;
+            }
+        }, null);
     }
 
     /**
-     * Set the PathId Generate-algorithm in the data-store.
+     * Discard the in-memory path-id bit array, forcing it to be read again
+     * from the operational data store on the next allocation. To be called
+     * when path-id allocation moves to this controller instance.
+     */
+    public static void reload() {
+        BITMAP.reload();
+    }
+
+    /**
+     * Set whether this controller instance owns path-id allocation. The owner
+     * keeps the path-id bit array in memory. The other instances read it from
+     * the operational data store for every operation, and only write their
+     * changes back if no other instance changed it meanwhile.
+     *
+     * @param owner
+     *            whether this controller instance is the owner
+     */
+    public static void setAllocationOwner(boolean owner) {
+        BITMAP.setOwner(owner);
+    }
+
+    /**
+     * Get the Path-Id Generation-algorithm.
      *
      * <p>
+     * If its not present, create it with the default value.
      *
-     * @param genAlgorithm
-     *            integer value as taken from service-path-id.yang
-     * @return True if successful, otherwise false
+     * <p>
+     *
+     * @return generation-algorithm enum value
      */
-    private static boolean setGenerationAlgorithm(int genAlgorithm) {
-        return setGenerationAlgorithm(GenerationAlgorithmEnum.forValue(genAlgorithm));
+    private static GenerationAlgorithmEnum getGenerationAlgorithm() {
+        return BITMAP.getGenerationAlgorithm(GenerationAlgorithmEnum.forValue(DEFAULT_GENERATION_ALGORITHM));
     }
 
     /**
@@ -335,12 +413,6 @@ public final class SfcServicePathId {
      * @return True if successful, otherwise false
      */
     public static boolean setGenerationAlgorithm(GenerationAlgorithmEnum genAlgorithm) {
-        InstanceIdentifier<ServicePathIds> spIID = InstanceIdentifier.builder(ServicePathIds.class).build();
-
-        ServicePathIdsBuilder servicePathIdsBuilder = new ServicePathIdsBuilder();
-        servicePathIdsBuilder.setGenerationAlgorithm(genAlgorithm);
-
-        return SfcDataStoreAPI.writeMergeTransactionAPI(spIID, servicePathIdsBuilder.build(),
-                LogicalDatastoreType.OPERATIONAL);
+        return BITMAP.setGenerationAlgorithm(genAlgorithm);
     }
 }
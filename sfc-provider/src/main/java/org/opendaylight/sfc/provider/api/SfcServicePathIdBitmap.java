@@ -0,0 +1,700 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.GuardedBy;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.ReadWriteTransaction;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.controller.md.sal.common.api.data.OptimisticLockFailedException;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.GenerationAlgorithmEnum;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ServicePathIds;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ServicePathIdsBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathId;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathIdBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathIdKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory copy of the operational service-path-ids bit array.
+ *
+ * <p>
+ * The bit array is read once from the operational data store, the first time
+ * it is needed after a data broker has been set, and is then only kept
+ * up to date in memory. Every modified {@link ServicePathId} word is marked
+ * dirty and written back asynchronously; dirty words that accumulate while a
+ * write is in flight are coalesced into a single transaction. The words of a
+ * failed write are kept dirty and written again, a bounded number of times in
+ * a row, then on the next change.
+ *
+ * <p>
+ * Only the controller instance owning path-id allocation keeps the bit array
+ * in memory. The other instances run every operation in a read-write
+ * transaction: the bit array is read again, and the words changed are
+ * written back only if no other instance changed them meanwhile, retrying
+ * the operation otherwise.
+ *
+ * <p>
+ * In memory, bit N of a word represents path-id (key * 64 + N). The data
+ * store keeps the historical layout, where path-id (key * 64 + N) is stored
+ * in bit (64 - N) mod 64, and the conversion happens on load and write back.
+ *
+ * <p>
+ * Reserved path-ids are never handed out by the generation algorithms but
+ * can still be allocated explicitly. They are kept in a separate bit array
+ * of each word in the data store, so that a reservation survives a reload
+ * and is seen by the other instances.
+ */
+final class SfcServicePathIdBitmap {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcServicePathIdBitmap.class);
+
+    /* Upper bound of the path-id leaf range in service-path-id.yang */
+    static final long MAX_ALLOWED_PATH_ID = 1L << 24;
+
+    private static final int NUM_WORDS = (int) (MAX_ALLOWED_PATH_ID / Long.SIZE) + 1;
+
+    private static final int MAX_FLUSH_RETRIES = 3;
+
+    private static final int MAX_CONFLICT_RETRIES = 5;
+
+    private static final InstanceIdentifier<ServicePathIds> SPIDS_IID =
+            InstanceIdentifier.builder(ServicePathIds.class).build();
+
+    private static final SfcServicePathIdBitmap INSTANCE = new SfcServicePathIdBitmap();
+
+    @GuardedBy("this")
+    private long[] words;
+
+    /* Sparse, reservations are expected to cover few words */
+    @GuardedBy("this")
+    private final Map<Integer, Long> reservedWords = new HashMap<>();
+
+    @GuardedBy("this")
+    private GenerationAlgorithmEnum generationAlgorithm;
+
+    @GuardedBy("this")
+    private DataBroker loadedFrom;
+
+    @GuardedBy("this")
+    private final TreeSet<Integer> dirtyWords = new TreeSet<>();
+
+    @GuardedBy("this")
+    private boolean flushInProgress;
+
+    @GuardedBy("this")
+    private int failedFlushes;
+
+    /* Incremented on every load, so that writes of a previous copy are not chained */
+    @GuardedBy("this")
+    private long generation;
+
+    /* Standalone instances own path-id allocation until told otherwise */
+    @GuardedBy("this")
+    private boolean owner = true;
+
+    /* Transaction of the operation run by a non-owner, if any */
+    @GuardedBy("this")
+    private ReadWriteTransaction operationTx;
+
+    private SfcServicePathIdBitmap() {
+    }
+
+    static SfcServicePathIdBitmap getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Discard the in-memory copy, so that the next access reloads it from the
+     * operational data store. Used when the data broker changes, or when this
+     * controller instance takes over path-id allocation from another one.
+     */
+    synchronized void reload() {
+        words = null;
+        generationAlgorithm = null;
+        loadedFrom = null;
+        reservedWords.clear();
+        dirtyWords.clear();
+        flushInProgress = false;
+        failedFlushes = 0;
+    }
+
+    /**
+     * Set whether this controller instance owns path-id allocation. The
+     * in-memory copy is discarded, after writing its pending changes back if
+     * ownership is lost.
+     *
+     * @param isOwner
+     *            whether this controller instance is the owner
+     */
+    synchronized void setOwner(boolean isOwner) {
+        if (owner && !isOwner && words != null && !dirtyWords.isEmpty()) {
+            try {
+                SfcDataStoreAPI.writeMergeTransactionAsyncAPI(dirtyWrites(), LogicalDatastoreType.OPERATIONAL).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.error("Interrupted writing service path id bit array", e);
+            } catch (ExecutionException e) {
+                LOG.error("Failed to write service path id bit array", e);
+            }
+        }
+        owner = isOwner;
+        reload();
+    }
+
+    /**
+     * Run an operation made of several steps atomically. On the owner, the
+     * operation runs on the in-memory copy. Elsewhere, it runs on a copy read
+     * from the operational data store, to which its changes are written back
+     * in the same transaction, and it is run again if another instance
+     * changed the words it wrote meanwhile.
+     *
+     * @param operation
+     *            the operation
+     * @param failed
+     *            the result when the changes could not be written back
+     * @return the result of the operation
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    synchronized <T> T atomically(Supplier<T> operation, T failed) {
+        DataBroker dataBroker = SfcDataStoreAPI.getDataProvider();
+        if (owner || operationTx != null || dataBroker == null) {
+            return operation.get();
+        }
+
+        for (int attempt = 1; attempt <= MAX_CONFLICT_RETRIES; attempt++) {
+            ReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+            T result;
+            operationTx = tx;
+            try {
+                words = null;
+                result = operation.get();
+                if (dirtyWords.isEmpty()) {
+                    tx.cancel();
+                    return result;
+                }
+                dirtyWrites().forEach((spIID, spid) -> tx.put(LogicalDatastoreType.OPERATIONAL, spIID, spid, true));
+            } catch (RuntimeException e) {
+                tx.cancel();
+                LOG.error("Failed to run service path id operation", e);
+                return failed;
+            } finally {
+                operationTx = null;
+                // read again by the next operation
+                words = null;
+                dirtyWords.clear();
+            }
+
+            try {
+                tx.commit().get();
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.error("Interrupted writing service path id bit array", e);
+                return failed;
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof OptimisticLockFailedException)) {
+                    LOG.error("Failed to write service path id bit array", e);
+                    return failed;
+                }
+                LOG.debug("Service path id bit array changed by another instance, attempt {}", attempt);
+            }
+        }
+        LOG.error("Service path id bit array kept changing, giving up after {} attempts", MAX_CONFLICT_RETRIES);
+        return failed;
+    }
+
+    /**
+     * Check if a path-id is free.
+     *
+     * @param pathId
+     *            the path-id to check
+     * @return true if the path-id is free, false if allocated or out of range
+     */
+    synchronized boolean isFree(long pathId) {
+        if (!isValid(pathId)) {
+            return false;
+        }
+        load();
+        return (usedBits(wordIndex(pathId)) & bitMask(pathId)) == 0;
+    }
+
+    /**
+     * Check if a path-id is allocated.
+     *
+     * @param pathId
+     *            the path-id to check
+     * @return true if the path-id is allocated, false otherwise
+     */
+    synchronized boolean isAllocated(long pathId) {
+        return isValid(pathId) && (load()[wordIndex(pathId)] & bitMask(pathId)) != 0;
+    }
+
+    /**
+     * Check if a path-id is reserved.
+     *
+     * @param pathId
+     *            the path-id to check
+     * @return true if the path-id is reserved, false otherwise
+     */
+    synchronized boolean isReserved(long pathId) {
+        if (!isValid(pathId)) {
+            return false;
+        }
+        load();
+        return (reservedBits(wordIndex(pathId)) & bitMask(pathId)) != 0;
+    }
+
+    /**
+     * Mark a path-id as allocated.
+     *
+     * @param pathId
+     *            the path-id to allocate
+     * @return true if the path-id is now allocated, false if out of range
+     */
+    synchronized boolean set(long pathId) {
+        if (!isValid(pathId)) {
+            return false;
+        }
+        load();
+        updateWord(wordIndex(pathId), bitMask(pathId), 0);
+        return true;
+    }
+
+    /**
+     * Allocate a path-id only if it is not allocated yet. Reserved path-ids
+     * can be allocated this way.
+     *
+     * @param pathId
+     *            the path-id to allocate
+     * @return true if allocated, false if already allocated or out of range
+     */
+    synchronized boolean setIfNotAllocated(long pathId) {
+        return !isAllocated(pathId) && set(pathId);
+    }
+
+    /**
+     * Mark several path-ids as allocated, updating each word only once.
+     *
+     * @param pathIds
+     *            the path-ids to allocate
+     * @return true if all the path-ids are now allocated, false if any of them
+     *         is out of range, in which case none is allocated
+     */
+    synchronized boolean set(Collection<Long> pathIds) {
+        Map<Integer, Long> masks = groupByWord(pathIds);
+        if (masks == null) {
+            return false;
+        }
+        load();
+        masks.forEach((index, mask) -> updateWord(index, mask, 0));
+        return true;
+    }
+
+    /**
+     * Mark several path-ids as free, updating each word only once.
+     *
+     * @param pathIds
+     *            the path-ids to free
+     * @return true if all the path-ids are now free, false if any of them is
+     *         out of range, in which case none is freed
+     */
+    synchronized boolean clear(Collection<Long> pathIds) {
+        Map<Integer, Long> masks = groupByWord(pathIds);
+        if (masks == null) {
+            return false;
+        }
+        load();
+        masks.forEach((index, mask) -> updateWord(index, 0, mask));
+        return true;
+    }
+
+    /**
+     * Reserve all the path-ids in the inclusive range [from, to], so that they
+     * are not used by the generation algorithms. The reservation is done only
+     * if none of the path-ids in the range is in use, one word at a time.
+     *
+     * @param from
+     *            first path-id of the range
+     * @param to
+     *            last path-id of the range
+     * @return true if the range was reserved, false otherwise
+     */
+    synchronized boolean reserve(long from, long to) {
+        if (!isValid(from) || !isValid(to) || from > to) {
+            return false;
+        }
+        load();
+        int firstWord = wordIndex(from);
+        int lastWord = wordIndex(to);
+        for (int index = firstWord; index <= lastWord; index++) {
+            if ((usedBits(index) & rangeBits(index, from, to)) != 0) {
+                return false;
+            }
+        }
+        for (int index = firstWord; index <= lastWord; index++) {
+            long reserved = reservedBits(index) | rangeBits(index, from, to);
+            reservedWords.put(index, reserved);
+            markDirty(index);
+        }
+        return true;
+    }
+
+    /**
+     * Release a path-id, freeing it and dropping any reservation of it.
+     *
+     * @param pathId
+     *            the path-id to release
+     * @return true if the path-id is now available, false if out of range
+     */
+    synchronized boolean release(long pathId) {
+        if (!isValid(pathId)) {
+            return false;
+        }
+        load();
+        int index = wordIndex(pathId);
+        long reserved = reservedBits(index) & ~bitMask(pathId);
+        if (reserved == 0) {
+            reservedWords.remove(index);
+        } else {
+            reservedWords.put(index, reserved);
+        }
+        updateWord(index, 0, bitMask(pathId));
+        // the reservation may be the only change to the written back word
+        markDirty(index);
+        return true;
+    }
+
+    /**
+     * Mark a path-id as free.
+     *
+     * @param pathId
+     *            the path-id to free
+     * @return true if the path-id is now free, false if out of range
+     */
+    synchronized boolean clear(long pathId) {
+        if (!isValid(pathId)) {
+            return false;
+        }
+        load();
+        updateWord(wordIndex(pathId), 0, bitMask(pathId));
+        return true;
+    }
+
+    /**
+     * Find the first free path-id in the inclusive range [from, to], scanning
+     * a whole 64 path-id word at a time.
+     *
+     * @param from
+     *            first path-id of the range
+     * @param to
+     *            last path-id of the range
+     * @return the first free path-id in the range, or -1 if there is none
+     */
+    synchronized long findFree(long from, long to) {
+        long first = Math.max(from, 0);
+        long last = Math.min(to, MAX_ALLOWED_PATH_ID);
+        if (first > last) {
+            return -1;
+        }
+        load();
+        int firstWord = wordIndex(first);
+        int lastWord = wordIndex(last);
+        for (int index = firstWord; index <= lastWord; index++) {
+            long free = ~usedBits(index) & rangeBits(index, first, last);
+            if (free != 0) {
+                return (long) index * Long.SIZE + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Count the free path-ids in the inclusive range [from, to].
+     *
+     * @param from
+     *            first path-id of the range
+     * @param to
+     *            last path-id of the range
+     * @return number of free path-ids in the range
+     */
+    synchronized long countFree(long from, long to) {
+        long first = Math.max(from, 0);
+        long last = Math.min(to, MAX_ALLOWED_PATH_ID);
+        if (first > last) {
+            return 0;
+        }
+        load();
+        long count = 0;
+        int firstWord = wordIndex(first);
+        int lastWord = wordIndex(last);
+        for (int index = firstWord; index <= lastWord; index++) {
+            count += Long.bitCount(~usedBits(index) & rangeBits(index, first, last));
+        }
+        return count;
+    }
+
+    /**
+     * Get the path-id generation algorithm, initializing it to the given
+     * default if it was never set.
+     *
+     * @param defaultAlgorithm
+     *            algorithm to use when none is stored
+     * @return the generation algorithm
+     */
+    synchronized GenerationAlgorithmEnum getGenerationAlgorithm(GenerationAlgorithmEnum defaultAlgorithm) {
+        load();
+        if (generationAlgorithm == null) {
+            setGenerationAlgorithm(defaultAlgorithm);
+        }
+        return generationAlgorithm;
+    }
+
+    /**
+     * Set the path-id generation algorithm, both in memory and in the
+     * operational data store.
+     *
+     * @param algorithm
+     *            the generation algorithm
+     * @return true if the data store write succeeded
+     */
+    synchronized boolean setGenerationAlgorithm(GenerationAlgorithmEnum algorithm) {
+        load();
+        generationAlgorithm = algorithm;
+        ServicePathIds servicePathIds = new ServicePathIdsBuilder().setGenerationAlgorithm(algorithm).build();
+        return SfcDataStoreAPI.writeMergeTransactionAPI(SPIDS_IID, servicePathIds, LogicalDatastoreType.OPERATIONAL);
+    }
+
+    @GuardedBy("this")
+    private long[] load() {
+        DataBroker dataBroker = SfcDataStoreAPI.getDataProvider();
+        if (words != null && loadedFrom == dataBroker) {
+            return words;
+        }
+
+        long[] bitmap = new long[NUM_WORDS];
+        generationAlgorithm = null;
+        reservedWords.clear();
+        dirtyWords.clear();
+        flushInProgress = false;
+        failedFlushes = 0;
+        generation++;
+
+        ServicePathIds servicePathIds = operationTx == null
+                ? SfcDataStoreAPI.readTransactionAPI(SPIDS_IID, LogicalDatastoreType.OPERATIONAL)
+                : readInOperation();
+        if (servicePathIds != null) {
+            generationAlgorithm = servicePathIds.getGenerationAlgorithm();
+            List<ServicePathId> servicePathIdList = servicePathIds.getServicePathId();
+            if (servicePathIdList != null) {
+                for (ServicePathId servicePathId : servicePathIdList) {
+                    long key = servicePathId.getPathIdKey();
+                    if (key < 0 || key >= NUM_WORDS) {
+                        continue;
+                    }
+                    Long bitArray = servicePathId.getPathIdBitarray();
+                    if (bitArray != null) {
+                        bitmap[(int) key] = fromDatastoreLayout(bitArray);
+                    }
+                    Long reservedBitArray = servicePathId.getPathIdReservedBitarray();
+                    if (reservedBitArray != null && reservedBitArray != 0) {
+                        reservedWords.put((int) key, fromDatastoreLayout(reservedBitArray));
+                    }
+                }
+            }
+        }
+
+        LOG.debug("Loaded service path id bit array from the operational data store");
+        words = bitmap;
+        loadedFrom = dataBroker;
+        return bitmap;
+    }
+
+    /*
+     * Read the bit array in the transaction of the operation, so that it is
+     * only written back if not changed meanwhile.
+     */
+    @GuardedBy("this")
+    private ServicePathIds readInOperation() {
+        try {
+            return operationTx.read(LogicalDatastoreType.OPERATIONAL, SPIDS_IID).get().orNull();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted reading service path id bit array", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to read service path id bit array", e);
+        }
+    }
+
+    @GuardedBy("this")
+    private void updateWord(int index, long setMask, long clearMask) {
+        long word = words[index] & ~clearMask | setMask;
+        if (word != words[index]) {
+            words[index] = word;
+            markDirty(index);
+        }
+    }
+
+    @GuardedBy("this")
+    private long reservedBits(int index) {
+        Long reserved = reservedWords.get(index);
+        return reserved == null ? 0 : reserved;
+    }
+
+    @GuardedBy("this")
+    private long usedBits(int index) {
+        return words[index] | reservedBits(index);
+    }
+
+    @GuardedBy("this")
+    private void markDirty(int index) {
+        dirtyWords.add(index);
+        // Non-owners write their changes back at the end of the operation
+        if (owner && !flushInProgress) {
+            flush();
+        }
+    }
+
+    /*
+     * Write all the dirty words in a single transaction. Words modified
+     * while the transaction is in flight are picked up by the next flush,
+     * which is chained from the completion of this one.
+     */
+    @GuardedBy("this")
+    private void flush() {
+        if (dirtyWords.isEmpty() || loadedFrom == null) {
+            flushInProgress = false;
+            return;
+        }
+
+        final long flushGeneration = generation;
+        final Map<InstanceIdentifier<ServicePathId>, ServicePathId> writes = dirtyWrites();
+        dirtyWords.clear();
+        flushInProgress = true;
+
+        SfcDataStoreAPI.writeMergeTransactionAsyncAPI(writes, LogicalDatastoreType.OPERATIONAL)
+                .addCallback(new FutureCallback<CommitInfo>() {
+                    @Override
+                    public void onSuccess(CommitInfo result) {
+                        flushDone(flushGeneration, null);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable throwable) {
+                        LOG.error("Failed to write service path id bit array", throwable);
+                        flushDone(flushGeneration, writes);
+                    }
+                }, MoreExecutors.directExecutor());
+    }
+
+    /*
+     * The data store entries of the dirty words.
+     */
+    @GuardedBy("this")
+    private Map<InstanceIdentifier<ServicePathId>, ServicePathId> dirtyWrites() {
+        Map<InstanceIdentifier<ServicePathId>, ServicePathId> writes = new HashMap<>();
+        for (Integer index : dirtyWords) {
+            ServicePathIdKey servicePathIdKey = new ServicePathIdKey((long) index);
+            InstanceIdentifier<ServicePathId> spIID = SPIDS_IID.child(ServicePathId.class, servicePathIdKey);
+            // Written even when empty, so that a merge drops the last reservation
+            writes.put(spIID, new ServicePathIdBuilder()
+                    .withKey(servicePathIdKey)
+                    .setPathIdBitarray(toDatastoreLayout(words[index]))
+                    .setPathIdReservedBitarray(toDatastoreLayout(reservedBits(index)))
+                    .build());
+        }
+        return writes;
+    }
+
+    private synchronized void flushDone(long flushGeneration,
+            Map<InstanceIdentifier<ServicePathId>, ServicePathId> failedWrites) {
+        if (flushGeneration != generation || loadedFrom == null) {
+            // reloaded meanwhile, nothing left to do for the previous copy
+            return;
+        }
+        if (failedWrites == null) {
+            failedFlushes = 0;
+        } else {
+            // keep them dirty so that they are written again
+            failedWrites.values().forEach(spid -> dirtyWords.add(spid.getPathIdKey().intValue()));
+            if (++failedFlushes > MAX_FLUSH_RETRIES) {
+                LOG.warn("Giving up writing {} service path id words until the next change", dirtyWords.size());
+                failedFlushes = 0;
+                flushInProgress = false;
+                return;
+            }
+        }
+        flush();
+    }
+
+    /*
+     * Bits of a word that fall in the inclusive range [first, last].
+     */
+    private static long rangeBits(int index, long first, long last) {
+        long bits = -1L;
+        if (index == wordIndex(first)) {
+            bits &= -1L << bitIndex(first);
+        }
+        if (index == wordIndex(last) && bitIndex(last) < Long.SIZE - 1) {
+            bits &= (1L << bitIndex(last) + 1) - 1;
+        }
+        return bits;
+    }
+
+    /*
+     * Combine path-ids into one bit mask per word, or null if any is invalid.
+     */
+    private static Map<Integer, Long> groupByWord(Collection<Long> pathIds) {
+        Map<Integer, Long> masks = new TreeMap<>();
+        for (Long pathId : pathIds) {
+            if (pathId == null || !isValid(pathId)) {
+                return null;
+            }
+            masks.merge(wordIndex(pathId), bitMask(pathId), (mask1, mask2) -> mask1 | mask2);
+        }
+        return masks;
+    }
+
+    private static boolean isValid(long pathId) {
+        return pathId >= 0 && pathId <= MAX_ALLOWED_PATH_ID;
+    }
+
+    private static int wordIndex(long pathId) {
+        return (int) (pathId / Long.SIZE);
+    }
+
+    private static int bitIndex(long pathId) {
+        return (int) (pathId % Long.SIZE);
+    }
+
+    private static long bitMask(long pathId) {
+        return 1L << bitIndex(pathId);
+    }
+
+    static long toDatastoreLayout(long word) {
+        return Long.reverse(Long.rotateRight(word, 1));
+    }
+
+    static long fromDatastoreLayout(long bitArray) {
+        return Long.rotateLeft(Long.reverse(bitArray), 1);
+    }
+}
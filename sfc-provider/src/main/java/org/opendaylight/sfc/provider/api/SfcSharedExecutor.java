@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import java.util.concurrent.ExecutorService;
+import javax.annotation.concurrent.GuardedBy;
+import org.opendaylight.infrautils.utils.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread pool shared by the SFC provider components, instead of each of them
+ * creating its own. The pool is created when first acquired, and shut down
+ * when released by all of its users.
+ *
+ * <p>
+ * Tasks run on the {@link #LISTENERS} pool may wait for tasks run on the
+ * {@link #WORKERS} pool, but not the other way around, so that the threads of
+ * a pool are never all waiting for tasks queued behind them.
+ */
+public final class SfcSharedExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcSharedExecutor.class);
+
+    /**
+     * Processes the changes received by the data tree change listeners.
+     */
+    public static final SfcSharedExecutor LISTENERS = new SfcSharedExecutor("sfc-listener", 4);
+
+    /**
+     * Runs the parallel parts of a job, such as scheduling or validating SFPs,
+     * which do not wait for other tasks.
+     */
+    public static final SfcSharedExecutor WORKERS = new SfcSharedExecutor("sfc-worker", 4);
+
+    private final String name;
+    private final int threads;
+
+    @GuardedBy("this")
+    private ExecutorService executor;
+
+    @GuardedBy("this")
+    private int users;
+
+    private SfcSharedExecutor(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    /**
+     * Get the number of threads of the pool.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Get the pool, creating it if it has no users yet. Each call must be
+     * followed by a call to {@link #release()} once the pool is no longer
+     * used.
+     *
+     * @return the pool, not to be shut down by its users
+     */
+    public synchronized ExecutorService acquire() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, name, LOG);
+        }
+        users++;
+        return executor;
+    }
+
+    /**
+     * Release the pool, shutting it down if it has no other users.
+     */
+    public synchronized void release() {
+        if (users == 0) {
+            LOG.warn("release: {} pool released more times than acquired", name);
+            return;
+        }
+        users--;
+        if (users == 0) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import org.eclipse.jdt.annotation.NonNull;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.DataObjectModification;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeChangeListener;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeIdentifier;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeModification;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.api.SfcSharedExecutor;
+import org.opendaylight.sfc.provider.listeners.SfcKeyedEventExecutor.Event;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Data tree change listener processing the changes off the notification
+ * thread, through a {@link SfcKeyedEventExecutor} keyed by the instance
+ * identifier of the changed object.
+ *
+ * <p>
+ * The changes of an object are handled in order, the changes of different
+ * objects in parallel on the pool shared by the listeners, and changes queued
+ * behind an earlier one are coalesced. The add, remove and update methods may also be called directly,
+ * they are then run in the calling thread.
+ *
+ * <p>
+ * Subclasses call {@link #register()} once constructed, the changes being
+ * processed in other threads.
+ *
+ * @param <T>
+ *            the type of the listened objects
+ */
+public abstract class AbstractCoalescingDataTreeChangeListener<T extends DataObject>
+        implements DataTreeChangeListener<T>, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractCoalescingDataTreeChangeListener.class);
+
+    private final String name;
+    private final DataBroker dataBroker;
+    private final DataTreeIdentifier<T> dataTreeIdentifier;
+    private final SfcKeyedEventExecutor<InstanceIdentifier<T>, T> eventExecutor;
+    private ListenerRegistration<AbstractCoalescingDataTreeChangeListener<T>> listenerRegistration;
+
+    protected AbstractCoalescingDataTreeChangeListener(DataBroker dataBroker, LogicalDatastoreType datastoreType,
+            InstanceIdentifier<T> instanceIdentifier, String name) {
+        this(dataBroker, datastoreType, instanceIdentifier, name, 1);
+    }
+
+    /**
+     * Create a listener, handling its changes in batches of changes to
+     * different objects.
+     *
+     * @param dataBroker
+     *            the data broker
+     * @param datastoreType
+     *            the listened data store
+     * @param instanceIdentifier
+     *            the listened objects
+     * @param name
+     *            the name of the listener
+     * @param maxBatchSize
+     *            the maximum number of changes given to {@link #process(List)}
+     */
+    protected AbstractCoalescingDataTreeChangeListener(DataBroker dataBroker, LogicalDatastoreType datastoreType,
+            InstanceIdentifier<T> instanceIdentifier, String name, int maxBatchSize) {
+        eventExecutor = new SfcKeyedEventExecutor<>(SfcSharedExecutor.LISTENERS.acquire(),
+                SfcSharedExecutor.LISTENERS.getThreads(), maxBatchSize, this::process);
+        this.name = name;
+        this.dataBroker = dataBroker;
+        this.dataTreeIdentifier = new DataTreeIdentifier<>(datastoreType, instanceIdentifier);
+    }
+
+    /**
+     * Start listening to the changes.
+     */
+    protected final void register() {
+        listenerRegistration = dataBroker.registerDataTreeChangeListener(dataTreeIdentifier, this);
+        LOG.debug("register: {} listening to {}", name, dataTreeIdentifier);
+    }
+
+    @Override
+    public void onDataTreeChanged(@NonNull Collection<DataTreeModification<T>> changes) {
+        for (DataTreeModification<T> change : changes) {
+            DataObjectModification<T> rootNode = change.getRootNode();
+            switch (rootNode.getModificationType()) {
+                case WRITE:
+                case SUBTREE_MODIFIED:
+                case DELETE:
+                    eventExecutor.submit(change.getRootPath().getRootIdentifier(), rootNode.getDataBefore(),
+                            rootNode.getDataAfter());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    public abstract void add(@NonNull InstanceIdentifier<T> instanceIdentifier, @NonNull T newDataObject);
+
+    public abstract void remove(@NonNull InstanceIdentifier<T> instanceIdentifier, @NonNull T removedDataObject);
+
+    public abstract void update(@NonNull InstanceIdentifier<T> instanceIdentifier, @NonNull T originalDataObject,
+            @NonNull T updatedDataObject);
+
+    /**
+     * Handle a batch of changes, of different objects. Handled one by one by
+     * default.
+     *
+     * @param events
+     *            the changes
+     */
+    protected void process(List<Event<InstanceIdentifier<T>, T>> events) {
+        events.forEach(this::dispatch);
+    }
+
+    /**
+     * Handle a change, a replaced object being removed then added.
+     *
+     * @param event
+     *            the change
+     */
+    protected final void dispatch(Event<InstanceIdentifier<T>, T> event) {
+        T dataBefore = event.getDataBefore();
+        T dataAfter = event.getDataAfter();
+        if (dataBefore == null) {
+            add(event.getKey(), dataAfter);
+        } else if (dataAfter == null) {
+            remove(event.getKey(), dataBefore);
+        } else if (event.isReplaced()) {
+            remove(event.getKey(), dataBefore);
+            add(event.getKey(), dataAfter);
+        } else {
+            update(event.getKey(), dataBefore, dataAfter);
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        if (listenerRegistration != null) {
+            listenerRegistration.close();
+        }
+        eventExecutor.close();
+        SfcSharedExecutor.LISTENERS.release();
+    }
+}
@@ -8,17 +8,25 @@
 
 package org.opendaylight.sfc.provider.listeners;
 
+import com.google.common.base.Optional;
 import java.util.Collections;
-
+import java.util.concurrent.ExecutionException;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.ReadOnlyTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
-import org.opendaylight.serviceutils.tools.mdsal.listener.AbstractSyncDataTreeChangeListener;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.Resource;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.ResourceLock;
+import org.opendaylight.sfc.provider.api.SfcPathDependencyIndex;
 import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServicePathAPI;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.RenderedServicePaths;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
@@ -31,16 +39,27 @@ import org.slf4j.LoggerFactory;
  * Service Paths (RSPs) in the Config data store, taking the appropriate
  * actions. As of the Oxygen release, RSPs are written to the config data
  * store when an SFP is created in the config data store.
+ *
+ * <p>
+ * The SFs, SFFs and SFP of each RSP are kept in the shared path dependency
+ * index. The index is enabled once the RSPs existing when this listener
+ * registered are indexed, read right after registering rather than waiting
+ * for the listener to replay them in the background.
  */
 @Singleton
-public class RenderedServicePathListener extends AbstractSyncDataTreeChangeListener<RenderedServicePath> {
+public class RenderedServicePathListener extends AbstractCoalescingDataTreeChangeListener<RenderedServicePath> {
 
     private static final Logger LOG = LoggerFactory.getLogger(RenderedServicePathListener.class);
 
+    private final SfcPathDependencyIndex dependencyIndex = SfcPathDependencyIndex.getShared();
+
     @Inject
     public RenderedServicePathListener(final DataBroker dataBroker) {
         super(dataBroker, LogicalDatastoreType.CONFIGURATION,
-              InstanceIdentifier.create(RenderedServicePaths.class).child(RenderedServicePath.class));
+              InstanceIdentifier.create(RenderedServicePaths.class).child(RenderedServicePath.class),
+              "sfc-rsp-listener");
+        register();
+        enableDependencyIndex(dataBroker);
     }
 
     @Override
@@ -54,6 +73,7 @@ public class RenderedServicePathListener extends AbstractSyncDataTreeChangeListe
         //   and will write the RSP in the Operational Data Store
 
         LOG.info("add: RSP: {}", renderedServicePath.getName().getValue());
+        dependencyIndex.updateRenderedServicePath(renderedServicePath);
 
         ServiceFunctionPath serviceFunctionPath = SfcProviderServicePathAPI
                 .readServiceFunctionPath(renderedServicePath.getParentServiceFunctionPath());
@@ -64,11 +84,14 @@ public class RenderedServicePathListener extends AbstractSyncDataTreeChangeListe
             return;
         }
 
-        RenderedServicePath newRenderedServicePath = SfcProviderRenderedPathAPI
-                .createRenderedServicePathAndState(serviceFunctionPath, renderedServicePath);
-        if (newRenderedServicePath == null) {
-            LOG.error("Failed to create Rendered Service Path {}", renderedServicePath.getName().getValue());
+        final long startNanos = SfcRenderingMetrics.startTimer();
+        try (ResourceLock rspLock = SfcConcurrencyAPI.lock(Resource.RSP, renderedServicePath.getName())) {
+            if (rspLock == null || SfcProviderRenderedPathAPI
+                    .createRenderedServicePathAndState(serviceFunctionPath, renderedServicePath) == null) {
+                LOG.error("Failed to create Rendered Service Path {}", renderedServicePath.getName().getValue());
+            }
         }
+        SfcRenderingMetrics.stopTimer(Stage.OPERATIONAL_RSP_WRITE, startNanos);
 
         // As mentioned above, no need to do anything here for Symmetric
         // RSPs, since that will be taken care of when an SFP is created.
@@ -78,6 +101,7 @@ public class RenderedServicePathListener extends AbstractSyncDataTreeChangeListe
     public void remove(@NonNull InstanceIdentifier<RenderedServicePath> instanceIdentifier,
                        @NonNull RenderedServicePath renderedServicePath) {
         LOG.info("remove: Deleting RSP {}", renderedServicePath.getName().getValue());
+        dependencyIndex.removeRenderedServicePath(renderedServicePath.getName());
         // It may be that someone deleted the Config RSP without first deleting
         // the SFP, but if we delete the SFP here, that could cause a race condition
         // if the SFP is deleted and immediately created.
@@ -88,8 +112,14 @@ public class RenderedServicePathListener extends AbstractSyncDataTreeChangeListe
         }
 
         // Now delete the Operational RSP
-        SfcProviderRenderedPathAPI.deleteRenderedServicePathsAndStates(
-                Collections.singletonList(renderedServicePath.getName()));
+        try (ResourceLock rspLock = SfcConcurrencyAPI.lock(Resource.RSP, renderedServicePath.getName())) {
+            if (rspLock == null) {
+                LOG.error("Failed to delete Rendered Service Path {}", renderedServicePath.getName().getValue());
+                return;
+            }
+            SfcProviderRenderedPathAPI.deleteRenderedServicePathsAndStates(
+                    Collections.singletonList(renderedServicePath.getName()));
+        }
     }
 
     @Override
@@ -99,4 +129,25 @@ public class RenderedServicePathListener extends AbstractSyncDataTreeChangeListe
         LOG.warn("Updating the RSP in config is not supported: {}",
                 updatedRenderedServicePath.getName().getValue());
     }
+
+    private void enableDependencyIndex(DataBroker dataBroker) {
+        ReadOnlyTransaction readTx = dataBroker.newReadOnlyTransaction();
+        try {
+            Optional<RenderedServicePaths> rsps = readTx.read(LogicalDatastoreType.CONFIGURATION,
+                    InstanceIdentifier.create(RenderedServicePaths.class)).get();
+            dependencyIndex.enable(rsps.isPresent() && rsps.get().getRenderedServicePath() != null
+                    ? rsps.get().getRenderedServicePath() : Collections.emptyList());
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.error("Failed to read the RSPs, the path dependency index is not used", e);
+        } finally {
+            readTx.close();
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        super.close();
+        dependencyIndex.disable();
+    }
 }
@@ -7,8 +7,6 @@
  */
 package org.opendaylight.sfc.provider.listeners;
 
-import java.util.ArrayList;
-import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -19,7 +17,6 @@ import org.opendaylight.serviceutils.tools.mdsal.listener.AbstractSyncDataTreeCh
 import org.opendaylight.sfc.provider.validators.util.SfcDatastoreCache;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.ServiceFunctionChains;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
-import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
 import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,19 +40,14 @@ public class ServiceFunctionChainListener extends AbstractSyncDataTreeChangeList
     public void add(@NonNull InstanceIdentifier<ServiceFunctionChain> instanceIdentifier,
                     @NonNull ServiceFunctionChain serviceFunctionChain) {
         LOG.debug("add:starting..(new sfc name: {})", serviceFunctionChain.getName());
-        List<String> serviceFunctionTypesForChain = new ArrayList<>();
-        for (SfcServiceFunction sfcSf : serviceFunctionChain.getSfcServiceFunction()) {
-            LOG.debug("add:new sfc sf found; name={}, type={})", sfcSf.getName(), sfcSf.getType().getValue());
-            serviceFunctionTypesForChain.add(sfcSf.getType().getValue());
-        }
-        SfcDatastoreCache.getSfChainToSfTypeList().put(serviceFunctionChain.getName(), serviceFunctionTypesForChain);
+        SfcDatastoreCache.getShared().updateServiceFunctionChain(serviceFunctionChain);
     }
 
     @Override
     public void remove(@NonNull InstanceIdentifier<ServiceFunctionChain> instanceIdentifier,
                        @NonNull ServiceFunctionChain serviceFunctionChain) {
         LOG.debug("remove: Deleting Service Function chain: {}", serviceFunctionChain.getName());
-        SfcDatastoreCache.getSfChainToSfTypeList().invalidate(serviceFunctionChain.getName());
+        SfcDatastoreCache.getShared().removeServiceFunctionChain(serviceFunctionChain.getName());
     }
 
     @Override
@@ -63,7 +55,6 @@ public class ServiceFunctionChainListener extends AbstractSyncDataTreeChangeList
                        @NonNull ServiceFunctionChain originalServiceFunctionChain,
                        @NonNull ServiceFunctionChain updatedServiceFunctionChain) {
         LOG.debug("update:Updating Service Function chain: {}", originalServiceFunctionChain.getName());
-        SfcDatastoreCache.getSfChainToSfTypeList().invalidate(originalServiceFunctionChain.getName());
-        add(updatedServiceFunctionChain);
+        SfcDatastoreCache.getShared().updateServiceFunctionChain(updatedServiceFunctionChain);
     }
 }
@@ -8,8 +8,10 @@
 package org.opendaylight.sfc.provider.listeners;
 
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -20,7 +22,7 @@ import javax.inject.Singleton;
 import org.eclipse.jdt.annotation.NonNull;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
-import org.opendaylight.serviceutils.tools.mdsal.listener.AbstractSyncDataTreeChangeListener;
+import org.opendaylight.sfc.provider.api.SfcPathDependencyIndex;
 import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceForwarderAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServicePathAPI;
@@ -28,6 +30,7 @@ import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev1
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffDataPlaneLocatorName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SnName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
@@ -45,23 +48,34 @@ import org.slf4j.LoggerFactory;
  * This class listens to changes (addition, update, removal) in Service Function
  * Forwarders taking the appropriate actions.
  *
+ * <p>
+ * Changes of an SFF queued behind an earlier one are coalesced, so that a
+ * flapping SFF does not delete its paths more than once.
+ *
  * @author David Suárez (david.suarez.fuentes@gmail.com)
  */
 @Singleton
-public class ServiceFunctionForwarderListener extends AbstractSyncDataTreeChangeListener<ServiceFunctionForwarder> {
+public class ServiceFunctionForwarderListener
+        extends AbstractCoalescingDataTreeChangeListener<ServiceFunctionForwarder> {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServiceFunctionForwarderListener.class);
 
+    private final SfcPathDependencyIndex dependencyIndex = SfcPathDependencyIndex.getShared();
+
     @Inject
     public ServiceFunctionForwarderListener(DataBroker dataBroker) {
         super(dataBroker, LogicalDatastoreType.CONFIGURATION,
-              InstanceIdentifier.create(ServiceFunctionForwarders.class).child(ServiceFunctionForwarder.class));
+              InstanceIdentifier.create(ServiceFunctionForwarders.class).child(ServiceFunctionForwarder.class),
+              "sfc-sff-listener");
+        register();
     }
 
     @Override
     public void add(@NonNull InstanceIdentifier<ServiceFunctionForwarder> instanceIdentifier,
                     @NonNull ServiceFunctionForwarder serviceFunctionForwarder) {
         LOG.info("Adding Service Function Forwarder: {}", serviceFunctionForwarder.getName());
+        dependencyIndex.updateServiceFunctionForwarder(serviceFunctionForwarder.getName(),
+                serviceFunctionForwarder.getServiceNode());
     }
 
     @Override
@@ -70,14 +84,11 @@ public class ServiceFunctionForwarderListener extends AbstractSyncDataTreeChange
         SffName sffName = serviceFunctionForwarder.getName();
         // Get RSPs of SFF
         LOG.info("Deleting Service Function Forwarder {}", sffName);
-        List<RspName> rspNames = SfcProviderServiceForwarderAPI.readRspNamesFromSffState(sffName);
+        dependencyIndex.removeServiceFunctionForwarder(sffName);
+        List<RspName> rspNames = readRspNames(sffName);
 
         LOG.info("Deleting Service Function Paths for RSPs {}", rspNames);
-        for (RspName rspName : rspNames) {
-            RenderedServicePath rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(rspName);
-            // This will in-turn delete the RSP from config and oper
-            SfcProviderServicePathAPI.deleteServiceFunctionPath(rsp.getParentServiceFunctionPath());
-        }
+        deleteServiceFunctionPaths(rspNames);
     }
 
     @Override
@@ -85,14 +96,49 @@ public class ServiceFunctionForwarderListener extends AbstractSyncDataTreeChange
                        @NonNull ServiceFunctionForwarder originalServiceFunctionForwarder,
                        @NonNull ServiceFunctionForwarder updatedServiceFunctionForwarder) {
         LOG.info("Updating Service Function Forwarder: {}", originalServiceFunctionForwarder.getName());
+        dependencyIndex.updateServiceFunctionForwarder(updatedServiceFunctionForwarder.getName(),
+                updatedServiceFunctionForwarder.getServiceNode());
         List<RspName> rspNames = findAffectedRsp(originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
 
         LOG.info("Deleting Service Function Paths for RSPs {}", rspNames);
+        deleteServiceFunctionPaths(rspNames);
+    }
+
+    /**
+     * Obtains the RSPs traversing an SFF, from the path dependency index when
+     * enabled.
+     *
+     * @param sffName the SFF name.
+     * @return a list of {@link RspName} of the RSPs.
+     */
+    private List<RspName> readRspNames(SffName sffName) {
+        if (dependencyIndex.isEnabled()) {
+            return new ArrayList<>(dependencyIndex.getRenderedServicePathsOfServiceFunctionForwarder(sffName));
+        }
+        return SfcProviderServiceForwarderAPI.readRspNamesFromSffState(sffName);
+    }
+
+    /**
+     * Deletes the SFPs of the given RSPs in a single transaction, without
+     * waiting for it to be committed. This will in-turn delete the RSPs from
+     * config and oper.
+     *
+     * @param rspNames the RSP names.
+     */
+    private void deleteServiceFunctionPaths(List<RspName> rspNames) {
+        Set<SfpName> sfpNames = new LinkedHashSet<>();
         for (RspName rspName : rspNames) {
-            RenderedServicePath rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(rspName);
-            LOG.info("Deleting SFP {}", rsp.getParentServiceFunctionPath().getValue());
-            // This will in-turn delete the RSP from config and oper
-            SfcProviderServicePathAPI.deleteServiceFunctionPath(rsp.getParentServiceFunctionPath());
+            SfpName sfpName = dependencyIndex.getServiceFunctionPath(rspName);
+            if (sfpName == null) {
+                RenderedServicePath rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(rspName);
+                sfpName = rsp == null ? null : rsp.getParentServiceFunctionPath();
+            }
+            if (sfpName != null) {
+                sfpNames.add(sfpName);
+            }
+        }
+        if (!sfpNames.isEmpty()) {
+            SfcProviderServicePathAPI.deleteServiceFunctionPathsAsync(sfpNames);
         }
     }
 
@@ -105,7 +151,7 @@ public class ServiceFunctionForwarderListener extends AbstractSyncDataTreeChange
      */
     private List<RspName> findAffectedRsp(ServiceFunctionForwarder originalSff, ServiceFunctionForwarder updatedSff) {
         SffName sffName = originalSff.getName();
-        List<RspName> rspNames = SfcProviderServiceForwarderAPI.readRspNamesFromSffState(sffName);
+        List<RspName> rspNames = readRspNames(sffName);
 
         // If service node changed, all RSPs are affected
         SnName originalSnName = originalSff.getServiceNode();
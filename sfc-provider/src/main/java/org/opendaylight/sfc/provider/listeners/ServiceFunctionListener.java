@@ -9,19 +9,30 @@ package org.opendaylight.sfc.provider.listeners;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
-import org.opendaylight.serviceutils.tools.mdsal.listener.AbstractSyncDataTreeChangeListener;
+import org.opendaylight.infrautils.utils.concurrent.Executors;
+import org.opendaylight.sfc.provider.api.SfcPathDependencyIndex;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceFunctionAPI;
-import org.opendaylight.sfc.provider.api.SfcProviderServicePathAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceTypeAPI;
+import org.opendaylight.sfc.provider.api.SfcServiceFunctionTypeIndex;
 import org.opendaylight.sfc.provider.validators.util.SfcDatastoreCache;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.function.base.SfDataPlaneLocator;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
@@ -34,17 +45,33 @@ import org.slf4j.LoggerFactory;
  * This class listens to changes (addition, update, removal) in Service
  * Functions taking the appropriate actions.
  *
+ * <p>
+ * The SFs of each type are kept in the shared SF type index, which is exported
+ * to the service function types in the data store in the background. Changes
+ * close in time are exported together in a single transaction.
+ *
  * @author David Suárez (david.suarez.fuentes@gmail.com)
  */
 @Singleton
-public class ServiceFunctionListener extends AbstractSyncDataTreeChangeListener<ServiceFunction> {
+public class ServiceFunctionListener extends AbstractCoalescingDataTreeChangeListener<ServiceFunction> {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServiceFunctionListener.class);
 
+    // Delay of an export, for the changes that follow to be exported with it
+    private static final long EXPORT_DELAY_MILLIS = 100;
+
+    private final SfcServiceFunctionTypeIndex typeIndex = SfcServiceFunctionTypeIndex.getShared();
+    private final ScheduledExecutorService exportExecutor = Executors
+            .newSingleThreadScheduledExecutor("SfcServiceFunctionTypeExport", LOG);
+    private final AtomicBoolean exportScheduled = new AtomicBoolean();
+
     @Inject
     public ServiceFunctionListener(DataBroker dataBroker) {
         super(dataBroker, LogicalDatastoreType.CONFIGURATION,
-              InstanceIdentifier.create(ServiceFunctions.class).child(ServiceFunction.class));
+              InstanceIdentifier.create(ServiceFunctions.class).child(ServiceFunction.class),
+              "sfc-sf-listener");
+        typeIndex.enable();
+        register();
     }
 
     @Override
@@ -52,10 +79,10 @@ public class ServiceFunctionListener extends AbstractSyncDataTreeChangeListener<
                     @NonNull ServiceFunction serviceFunction) {
         LOG.debug("add: storing name [{}] type [{}]", serviceFunction.getName().getValue(),
                   serviceFunction.getType().getValue());
-        SfcDatastoreCache.getSfToSfTypeCache().put(serviceFunction.getName(), serviceFunction.getType().getValue());
-        if (!SfcProviderServiceTypeAPI.createServiceFunctionTypeEntry(serviceFunction)) {
-            LOG.error("add:Failed to create Service Function: {}", serviceFunction.getName());
-        }
+        SfcDatastoreCache.getShared().updateServiceFunction(serviceFunction.getName(),
+                serviceFunction.getType().getValue());
+        typeIndex.updateServiceFunction(serviceFunction.getName(), serviceFunction.getType());
+        scheduleExport();
     }
 
     @Override
@@ -64,12 +91,11 @@ public class ServiceFunctionListener extends AbstractSyncDataTreeChangeListener<
         LOG.debug("remove: Deleting Service Function: {}", serviceFunction.getName());
 
         // delete cache
-        SfcDatastoreCache.getSfToSfTypeCache().invalidate(serviceFunction.getName());
+        SfcDatastoreCache.getShared().removeServiceFunction(serviceFunction.getName());
+        typeIndex.removeServiceFunction(serviceFunction.getName());
+        scheduleExport();
 
         deleteSfSfps(serviceFunction);
-        if (!SfcProviderServiceTypeAPI.deleteServiceFunctionTypeEntry(serviceFunction)) {
-            LOG.error("remove: Failed to delete Service Function: {}", serviceFunction.getName());
-        }
     }
 
     @Override
@@ -81,19 +107,55 @@ public class ServiceFunctionListener extends AbstractSyncDataTreeChangeListener<
         if (!compareSfs(originalServiceFunction, updatedServiceFunction)) {
             // We only update SF type entry if type has changed
             if (!updatedServiceFunction.getType().equals(originalServiceFunction.getType())) {
-                // We remove the original SF from SF type list
-                SfcDatastoreCache.getSfToSfTypeCache().invalidate(originalServiceFunction.getName());
-                SfcProviderServiceTypeAPI.deleteServiceFunctionTypeEntry(originalServiceFunction);
-                SfcDatastoreCache.getSfToSfTypeCache()
-                        .put(updatedServiceFunction.getName(), updatedServiceFunction.getType().getValue());
-                // We create a independent entry
-                SfcProviderServiceTypeAPI.createServiceFunctionTypeEntry(updatedServiceFunction);
+                // The SF is moved from the original SF type list to the
+                // updated one
+                SfcDatastoreCache.getShared().updateServiceFunction(updatedServiceFunction.getName(),
+                        updatedServiceFunction.getType().getValue());
+                typeIndex.updateServiceFunction(updatedServiceFunction.getName(), updatedServiceFunction.getType());
+                scheduleExport();
             }
 
             deleteSfSfps(originalServiceFunction);
         }
     }
 
+    /**
+     * Write the SF types changed since the last export to the data store.
+     * Normally run in the background shortly after the changes.
+     */
+    public synchronized void exportServiceFunctionTypes() {
+        exportScheduled.set(false);
+        Map<SftTypeName, List<SfName>> changedTypes = typeIndex.takeChangedTypes();
+        if (changedTypes.isEmpty()) {
+            return;
+        }
+        LOG.debug("exportServiceFunctionTypes: exporting types {}", changedTypes.keySet());
+        if (!SfcProviderServiceTypeAPI.putServiceFunctionTypes(changedTypes)) {
+            LOG.error("exportServiceFunctionTypes: Failed to export types {}, retrying", changedTypes.keySet());
+            typeIndex.markChanged(changedTypes.keySet());
+            scheduleExport();
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        super.close();
+        exportExecutor.shutdown();
+        exportServiceFunctionTypes();
+        typeIndex.disable();
+    }
+
+    private void scheduleExport() {
+        if (exportScheduled.compareAndSet(false, true)) {
+            try {
+                exportExecutor.schedule(this::exportServiceFunctionTypes, EXPORT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("scheduleExport: Listener closed, types are exported on close", e);
+            }
+        }
+    }
+
     private boolean compareSfs(@NonNull ServiceFunction originalServiceFunction,
                                @NonNull ServiceFunction serviceFunction) {
         // Compare SFF IP Mgmt Addresses
@@ -144,8 +206,9 @@ public class ServiceFunctionListener extends AbstractSyncDataTreeChangeListener<
     }
 
     /**
-     * Removes all the SFPs in which the Service Function is referenced.
-     * Removing the SFP will in-turn remove the RSP from config and oper
+     * Removes all the SFPs in which the Service Function is referenced,
+     * without waiting for the removal to be committed. Removing the SFP will
+     * in-turn remove the RSP from config and oper
      */
     private void deleteSfSfps(ServiceFunction serviceFunction) {
         /*
@@ -153,17 +216,20 @@ public class ServiceFunctionListener extends AbstractSyncDataTreeChangeListener<
          * all references in the SFF/SF operational trees
          */
         SfName sfName = serviceFunction.getName();
-        List<SfServicePath> sfServicePathList = SfcProviderServiceFunctionAPI.readServiceFunctionState(sfName);
-        if (sfServicePathList != null && !sfServicePathList.isEmpty()) {
-            if (!SfcProviderServiceFunctionAPI.deleteServiceFunctionState(sfName)) {
-                LOG.error("{}: Failed to delete SF {} operational state", Thread.currentThread().getStackTrace()[1],
-                          sfName);
-            }
-            for (SfServicePath sfServicePath : sfServicePathList) {
-                LOG.info("Deleting SFP [{}] on SF [{}]", sfServicePath.getName().getValue(), sfName);
-                SfcProviderServicePathAPI.deleteServiceFunctionPath(sfServicePath.getName());
+        Set<SfpName> sfpNames = new LinkedHashSet<>();
+        SfcPathDependencyIndex dependencyIndex = SfcPathDependencyIndex.getShared();
+        if (dependencyIndex.isEnabled()) {
+            sfpNames.addAll(dependencyIndex.getServiceFunctionPathsOfServiceFunction(sfName));
+        } else {
+            List<SfServicePath> sfServicePathList = SfcProviderServiceFunctionAPI.readServiceFunctionState(sfName);
+            if (sfServicePathList != null) {
+                sfServicePathList.forEach(sfServicePath -> sfpNames.add(sfServicePath.getName()));
             }
         }
+        if (!sfpNames.isEmpty()) {
+            LOG.info("Deleting SFPs {} on SF [{}]", sfpNames, sfName);
+            SfcProviderServiceFunctionAPI.deleteServiceFunctionStateAndPathsAsync(sfName, sfpNames);
+        }
 
         /*
          * We do not update the SFF dictionary. Since the user configured it in
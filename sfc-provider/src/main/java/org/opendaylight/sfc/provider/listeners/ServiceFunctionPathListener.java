@@ -8,17 +8,28 @@
 
 package org.opendaylight.sfc.provider.listeners;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
-import org.opendaylight.serviceutils.tools.mdsal.listener.AbstractSyncDataTreeChangeListener;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.Resource;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.ResourceLock;
 import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServicePathAPI;
+import org.opendaylight.sfc.provider.api.SfcSharedExecutor;
+import org.opendaylight.sfc.provider.listeners.SfcKeyedEventExecutor.Event;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.ServiceFunctionPaths;
@@ -32,29 +43,67 @@ import org.slf4j.LoggerFactory;
 /**
  * This class listens to changes (addition, update, removal) in Service
  * Function Paths, taking the appropriate actions.
+ *
+ * <p>
+ * The RSPs of SFPs added together are created together, scheduling the SFPs
+ * in parallel. The changes of different SFPs are processed in parallel, off
+ * the notification thread.
  */
 @Singleton
-public class ServiceFunctionPathListener extends AbstractSyncDataTreeChangeListener<ServiceFunctionPath> {
+public class ServiceFunctionPathListener extends AbstractCoalescingDataTreeChangeListener<ServiceFunctionPath> {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServiceFunctionPathListener.class);
 
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final ExecutorService schedulingExecutor;
+
     @Inject
     public ServiceFunctionPathListener(final DataBroker dataBroker) {
         super(dataBroker, LogicalDatastoreType.CONFIGURATION,
-              InstanceIdentifier.create(ServiceFunctionPaths.class).child(ServiceFunctionPath.class));
+              InstanceIdentifier.create(ServiceFunctionPaths.class).child(ServiceFunctionPath.class),
+              "sfc-sfp-listener", MAX_BATCH_SIZE);
+        schedulingExecutor = SfcSharedExecutor.WORKERS.acquire();
+        register();
+    }
+
+    @Override
+    protected void process(List<Event<InstanceIdentifier<ServiceFunctionPath>, ServiceFunctionPath>> events) {
+        // SFP additions are processed together as a batch, the events of a
+        // batch being all of different SFPs
+        List<ServiceFunctionPath> addedSfps = new ArrayList<>();
+        for (Event<InstanceIdentifier<ServiceFunctionPath>, ServiceFunctionPath> event : events) {
+            if (event.getDataBefore() == null) {
+                addedSfps.add(event.getDataAfter());
+            } else {
+                dispatch(event);
+            }
+        }
+        addAll(addedSfps);
     }
 
     @Override
     public void add(@NonNull InstanceIdentifier<ServiceFunctionPath> instanceIdentifier,
                     @NonNull ServiceFunctionPath serviceFunctionPath) {
-        LOG.info("add: SFP: {}", serviceFunctionPath.getName().getValue());
+        addAll(Collections.singletonList(serviceFunctionPath));
+    }
+
+    private void addAll(List<ServiceFunctionPath> addedSfps) {
+        if (addedSfps.isEmpty()) {
+            return;
+        }
+        addedSfps.forEach(sfp -> LOG.info("add: SFP: {}", sfp.getName().getValue()));
+        final long startNanos = SfcRenderingMetrics.startTimer();
 
-        // Internally, this will optionally create the symmetric RSP
-        RenderedServicePath newRenderedServicePath = SfcProviderRenderedPathAPI
-                 .createRenderedServicePathInConfig(serviceFunctionPath);
-        if (newRenderedServicePath == null) {
-            LOG.error("Failed to create Rendered Service Path {}", serviceFunctionPath.getName().getValue());
+        // Internally, this will optionally create the symmetric RSPs
+        Map<SfpName, RenderedServicePath> newRenderedServicePaths = SfcProviderRenderedPathAPI
+                .createRenderedServicePathsInConfig(addedSfps, schedulingExecutor);
+        for (ServiceFunctionPath serviceFunctionPath : addedSfps) {
+            if (!newRenderedServicePaths.containsKey(serviceFunctionPath.getName())) {
+                LOG.error("Failed to create Rendered Service Path {}", serviceFunctionPath.getName().getValue());
+            }
         }
+        SfcRenderingMetrics.stopTimer(Stage.SFP_LISTENER, startNanos);
     }
 
     @Override
@@ -65,13 +114,19 @@ public class ServiceFunctionPathListener extends AbstractSyncDataTreeChangeListe
 
         // Delete each RSP in config connected to this SFP
         // When the config RSP is deleted, it will delete the operational RSP
-        List<SfpRenderedServicePath> sfpRspList = SfcProviderServicePathAPI.readServicePathState(sfpName);
-        if (sfpRspList != null) {
-            sfpRspList.forEach(rsp ->
-                    SfcProviderRenderedPathAPI.deleteRenderedServicePath(
-                            rsp.getName(),
-                            LogicalDatastoreType.CONFIGURATION));
-            SfcProviderServicePathAPI.deleteServiceFunctionState(sfpName);
+        try (ResourceLock sfpLock = SfcConcurrencyAPI.lock(Resource.SFP, sfpName)) {
+            if (sfpLock == null) {
+                LOG.error("Failed to delete Rendered Service Paths of SFP {}", sfpName.getValue());
+                return;
+            }
+            List<SfpRenderedServicePath> sfpRspList = SfcProviderServicePathAPI.readServicePathState(sfpName);
+            if (sfpRspList != null) {
+                sfpRspList.forEach(rsp ->
+                        SfcProviderRenderedPathAPI.deleteRenderedServicePath(
+                                rsp.getName(),
+                                LogicalDatastoreType.CONFIGURATION));
+                SfcProviderServicePathAPI.deleteServiceFunctionState(sfpName);
+            }
         }
     }
 
@@ -81,4 +136,11 @@ public class ServiceFunctionPathListener extends AbstractSyncDataTreeChangeListe
                        @NonNull ServiceFunctionPath updatedServiceFunctionPath) {
         LOG.warn("Updating the SFP is not supported: {}", updatedServiceFunctionPath.getName().getValue());
     }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        super.close();
+        SfcSharedExecutor.WORKERS.release();
+    }
 }
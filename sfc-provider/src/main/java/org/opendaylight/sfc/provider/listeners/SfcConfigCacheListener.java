@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.eclipse.jdt.annotation.NonNull;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.DataObjectModification;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeChangeListener;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeIdentifier;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeModification;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.api.SfcConfigCache;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.RenderedServicePaths;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.ServiceFunctionForwarders;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfg.rev150214.ServiceFunctionGroups;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfg.rev150214.service.function.groups.ServiceFunctionGroup;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.ServiceFunctionTypes;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class keeps the configuration object caches up to date with the
+ * changes in the data store, including the RSP names by path id. The caches
+ * are enabled once the listeners are registered, and disabled when closed.
+ */
+@Singleton
+public class SfcConfigCacheListener implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcConfigCacheListener.class);
+
+    private final List<ListenerRegistration<?>> registrations = new ArrayList<>();
+
+    @Inject
+    public SfcConfigCacheListener(DataBroker dataBroker) {
+        register(dataBroker, InstanceIdentifier.create(ServiceFunctions.class).child(ServiceFunction.class),
+                SfcConfigCache.SERVICE_FUNCTIONS, ServiceFunction::getName);
+        register(dataBroker,
+                InstanceIdentifier.create(ServiceFunctionForwarders.class).child(ServiceFunctionForwarder.class),
+                SfcConfigCache.SERVICE_FUNCTION_FORWARDERS, ServiceFunctionForwarder::getName);
+        register(dataBroker, InstanceIdentifier.create(ServiceFunctionGroups.class).child(ServiceFunctionGroup.class),
+                SfcConfigCache.SERVICE_FUNCTION_GROUPS, ServiceFunctionGroup::getName);
+        register(dataBroker, InstanceIdentifier.create(ServiceFunctionTypes.class).child(ServiceFunctionType.class),
+                SfcConfigCache.SERVICE_FUNCTION_TYPES, ServiceFunctionType::getType);
+        register(dataBroker, InstanceIdentifier.create(RenderedServicePaths.class).child(RenderedServicePath.class),
+                SfcConfigCache.RENDERED_SERVICE_PATH_NAMES,
+                rsp -> rsp.getPathId() == null ? null : rsp.getPathId().toJava(), RenderedServicePath::getName);
+    }
+
+    private <K, V extends DataObject> void register(DataBroker dataBroker, InstanceIdentifier<V> path,
+            SfcConfigCache<K, V> cache, Function<V, K> keyOf) {
+        register(dataBroker, path, cache, keyOf, Function.identity());
+    }
+
+    private <K, T extends DataObject, V> void register(DataBroker dataBroker, InstanceIdentifier<T> path,
+            SfcConfigCache<K, V> cache, Function<T, K> keyOf, Function<T, V> valueOf) {
+        registrations.add(dataBroker.registerDataTreeChangeListener(
+                new DataTreeIdentifier<>(LogicalDatastoreType.CONFIGURATION, path),
+                new CacheUpdater<>(cache, keyOf, valueOf)));
+        cache.enable();
+        LOG.debug("register: caching {}", cache);
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        registrations.forEach(ListenerRegistration::close);
+        registrations.clear();
+        SfcConfigCache.SERVICE_FUNCTIONS.disable();
+        SfcConfigCache.SERVICE_FUNCTION_FORWARDERS.disable();
+        SfcConfigCache.SERVICE_FUNCTION_GROUPS.disable();
+        SfcConfigCache.SERVICE_FUNCTION_TYPES.disable();
+        SfcConfigCache.RENDERED_SERVICE_PATH_NAMES.disable();
+    }
+
+    private static final class CacheUpdater<K, T extends DataObject, V> implements DataTreeChangeListener<T> {
+        private final SfcConfigCache<K, V> cache;
+        private final Function<T, K> keyOf;
+        private final Function<T, V> valueOf;
+
+        CacheUpdater(SfcConfigCache<K, V> cache, Function<T, K> keyOf, Function<T, V> valueOf) {
+            this.cache = cache;
+            this.keyOf = keyOf;
+            this.valueOf = valueOf;
+        }
+
+        @Override
+        public void onDataTreeChanged(@NonNull Collection<DataTreeModification<T>> changes) {
+            for (DataTreeModification<T> change : changes) {
+                DataObjectModification<T> rootNode = change.getRootNode();
+                T dataBefore = rootNode.getDataBefore();
+                T dataAfter = rootNode.getDataAfter();
+                // The key may be a leaf other than the list key, which may
+                // change or be missing
+                K keyBefore = dataBefore == null ? null : keyOf.apply(dataBefore);
+                K keyAfter = dataAfter == null ? null : keyOf.apply(dataAfter);
+                if (keyBefore != null && !keyBefore.equals(keyAfter)) {
+                    cache.invalidate(keyBefore);
+                }
+                if (keyAfter != null) {
+                    cache.update(keyAfter, valueOf.apply(dataAfter));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import java.util.Collection;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.eclipse.jdt.annotation.NonNull;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.DataObjectModification;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeChangeListener;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeIdentifier;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeModification;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.topology.SfcHopDistanceIndex;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.ServiceFunctionForwarders;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+
+/**
+ * This class keeps the shared hop distance index up to date with the SFs and
+ * SFFs in the data store. The index is used by the schedulers once the
+ * listeners are registered, and no longer used when closed.
+ */
+@Singleton
+public class SfcHopDistanceIndexListener implements AutoCloseable {
+
+    private final SfcHopDistanceIndex hopDistanceIndex = SfcHopDistanceIndex.getShared();
+    private final ListenerRegistration<?> sfRegistration;
+    private final ListenerRegistration<?> sffRegistration;
+
+    @Inject
+    public SfcHopDistanceIndexListener(DataBroker dataBroker) {
+        sfRegistration = dataBroker.registerDataTreeChangeListener(
+                new DataTreeIdentifier<>(LogicalDatastoreType.CONFIGURATION,
+                        InstanceIdentifier.create(ServiceFunctions.class).child(ServiceFunction.class)),
+                (DataTreeChangeListener<ServiceFunction>) this::onServiceFunctionsChanged);
+        sffRegistration = dataBroker.registerDataTreeChangeListener(
+                new DataTreeIdentifier<>(LogicalDatastoreType.CONFIGURATION,
+                        InstanceIdentifier.create(ServiceFunctionForwarders.class)
+                                .child(ServiceFunctionForwarder.class)),
+                (DataTreeChangeListener<ServiceFunctionForwarder>) this::onServiceFunctionForwardersChanged);
+        hopDistanceIndex.enable();
+    }
+
+    private void onServiceFunctionsChanged(@NonNull Collection<DataTreeModification<ServiceFunction>> changes) {
+        for (DataTreeModification<ServiceFunction> change : changes) {
+            DataObjectModification<ServiceFunction> rootNode = change.getRootNode();
+            if (rootNode.getDataAfter() != null) {
+                hopDistanceIndex.updateServiceFunction(rootNode.getDataAfter().getName().getValue());
+            } else if (rootNode.getDataBefore() != null) {
+                hopDistanceIndex.removeServiceFunction(rootNode.getDataBefore().getName().getValue());
+            }
+        }
+    }
+
+    private void onServiceFunctionForwardersChanged(
+            @NonNull Collection<DataTreeModification<ServiceFunctionForwarder>> changes) {
+        for (DataTreeModification<ServiceFunctionForwarder> change : changes) {
+            DataObjectModification<ServiceFunctionForwarder> rootNode = change.getRootNode();
+            if (rootNode.getDataAfter() != null) {
+                hopDistanceIndex.updateServiceFunctionForwarder(rootNode.getDataAfter());
+            } else if (rootNode.getDataBefore() != null) {
+                hopDistanceIndex.removeServiceFunctionForwarder(rootNode.getDataBefore().getName().getValue());
+            }
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        sfRegistration.close();
+        sffRegistration.close();
+        hopDistanceIndex.disable();
+    }
+}
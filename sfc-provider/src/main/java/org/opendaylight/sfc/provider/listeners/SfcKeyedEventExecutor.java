@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor of data change events, keyed by the changed object.
+ *
+ * <p>
+ * The events of a key are processed one at a time, in order, while the events
+ * of different keys are processed in parallel on the given pool, which may be
+ * shared with other executors. Events of a
+ * key that arrive while an earlier one is still queued are coalesced with it
+ * into a single event, from the state before the first to the state after the
+ * last. Only an addition followed by a removal is dropped; any other change
+ * is handed over, even if it ends in the original state, since the
+ * listeners may rely on seeing a removed and re-added object.
+ *
+ * @param <K>
+ *            the type of the keys
+ * @param <T>
+ *            the type of the changed objects
+ */
+public final class SfcKeyedEventExecutor<K, T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcKeyedEventExecutor.class);
+
+    private final Executor executor;
+    private final int maxTasks;
+    private final int maxBatchSize;
+    private final Consumer<List<Event<K, T>>> handler;
+
+    // All guarded by this. The events of the keys being processed are kept
+    // queued until their previous event is done.
+    private final Map<K, Event<K, T>> queuedEvents = new LinkedHashMap<>();
+    private final Set<K> runningKeys = new HashSet<>();
+    private int runningTasks;
+    private long coalescedCount;
+    private boolean closed;
+
+    /**
+     * Create an executor.
+     *
+     * @param executor
+     *            the pool processing the events, not shut down on close
+     * @param maxTasks
+     *            the maximum number of batches processed in parallel
+     * @param maxBatchSize
+     *            the maximum number of events handled together, of different
+     *            keys
+     * @param handler
+     *            the handler of the events
+     */
+    public SfcKeyedEventExecutor(Executor executor, int maxTasks, int maxBatchSize,
+            Consumer<List<Event<K, T>>> handler) {
+        this.executor = executor;
+        this.maxTasks = maxTasks;
+        this.maxBatchSize = maxBatchSize;
+        this.handler = handler;
+    }
+
+    /**
+     * Queue a change of an object.
+     *
+     * @param key
+     *            the key of the object
+     * @param dataBefore
+     *            the object before the change, null if added
+     * @param dataAfter
+     *            the object after the change, null if removed
+     */
+    public void submit(K key, @Nullable T dataBefore, @Nullable T dataAfter) {
+        synchronized (this) {
+            if (closed) {
+                LOG.warn("submit: executor closed, change of {} dropped", key);
+                return;
+            }
+            Event<K, T> queued = queuedEvents.remove(key);
+            Event<K, T> event;
+            if (queued == null) {
+                event = new Event<>(key, dataBefore, dataAfter, false);
+            } else {
+                coalescedCount++;
+                event = new Event<>(key, queued.dataBefore, dataAfter,
+                        queued.replaced || (queued.dataAfter == null && dataAfter != null));
+            }
+            if (event.isNoop()) {
+                LOG.debug("submit: change of {} cancelled by a later change", key);
+                return;
+            }
+            queuedEvents.put(key, event);
+            if (runningKeys.contains(key) || runningTasks >= maxTasks) {
+                // picked up by a running task
+                return;
+            }
+            runningTasks++;
+        }
+        try {
+            executor.execute(this::processQueuedEvents);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("submit: executor shut down, change of {} dropped", key, e);
+            synchronized (this) {
+                runningTasks--;
+                queuedEvents.remove(key);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Get the number of events coalesced with a queued one since creation.
+     *
+     * @return the number of coalesced events
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Stop accepting events, and wait for the queued events to be processed.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try {
+            while (runningTasks > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    LOG.warn("close: events still being processed");
+                    return;
+                }
+                wait(remainingMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void processQueuedEvents() {
+        while (true) {
+            List<Event<K, T>> events = takeQueuedEvents();
+            if (events.isEmpty()) {
+                return;
+            }
+            try {
+                handler.accept(events);
+            } catch (RuntimeException e) {
+                LOG.error("processQueuedEvents: failed to process {}", events, e);
+            } finally {
+                synchronized (this) {
+                    events.forEach(event -> runningKeys.remove(event.key));
+                }
+            }
+        }
+    }
+
+    private synchronized List<Event<K, T>> takeQueuedEvents() {
+        List<Event<K, T>> events = new ArrayList<>();
+        Iterator<Event<K, T>> iterator = queuedEvents.values().iterator();
+        while (iterator.hasNext() && events.size() < maxBatchSize) {
+            Event<K, T> event = iterator.next();
+            if (runningKeys.add(event.key)) {
+                iterator.remove();
+                events.add(event);
+            }
+        }
+        if (events.isEmpty()) {
+            runningTasks--;
+            notifyAll();
+        }
+        return events;
+    }
+
+    /**
+     * A change of an object, possibly coalescing several ones.
+     */
+    public static final class Event<K, T> {
+        private final K key;
+        private final @Nullable T dataBefore;
+        private final @Nullable T dataAfter;
+        private final boolean replaced;
+
+        Event(K key, @Nullable T dataBefore, @Nullable T dataAfter, boolean replaced) {
+            this.key = key;
+            this.dataBefore = dataBefore;
+            this.dataAfter = dataAfter;
+            this.replaced = replaced;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public @Nullable T getDataBefore() {
+            return dataBefore;
+        }
+
+        public @Nullable T getDataAfter() {
+            return dataAfter;
+        }
+
+        /**
+         * Whether the object was removed and added again, to be handled as a
+         * removal followed by an addition rather than as an update.
+         *
+         * @return true if the object was replaced
+         */
+        public boolean isReplaced() {
+            return replaced;
+        }
+
+        boolean isNoop() {
+            // an object added then removed while queued
+            return dataBefore == null && dataAfter == null;
+        }
+
+        @Override
+        public String toString() {
+            String change;
+            if (dataBefore == null) {
+                change = "added";
+            } else if (dataAfter == null) {
+                change = "removed";
+            } else {
+                change = replaced ? "replaced" : "updated";
+            }
+            return "Event [" + key + ", " + change + "]";
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import java.util.Collection;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.eclipse.jdt.annotation.NonNull;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.DataObjectModification;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeChangeListener;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeIdentifier;
+import org.opendaylight.controller.md.sal.binding.api.DataTreeModification;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.api.SfcServiceFunctionLoadTable;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctionsState;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.state.ServiceFunctionState;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.state.ServiceFunctionStateKey;
+import org.opendaylight.yang.gen.v1.urn.intel.params.xml.ns.sf.desc.mon.rev141201.ServiceFunctionState1;
+import org.opendaylight.yangtools.concepts.ListenerRegistration;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+
+/**
+ * This class keeps the shared SF load table up to date with the SFs in the
+ * data store and the CPU utilization reported by their monitors. The table is
+ * used by the schedulers once the listeners are registered, and no longer
+ * used when closed.
+ */
+@Singleton
+public class SfcServiceFunctionLoadTableListener implements AutoCloseable {
+
+    private final SfcServiceFunctionLoadTable loadTable = SfcServiceFunctionLoadTable.getShared();
+    private final ListenerRegistration<?> sfRegistration;
+    private final ListenerRegistration<?> sfDescMonRegistration;
+
+    @Inject
+    public SfcServiceFunctionLoadTableListener(DataBroker dataBroker) {
+        sfRegistration = dataBroker.registerDataTreeChangeListener(
+                new DataTreeIdentifier<>(LogicalDatastoreType.CONFIGURATION,
+                        InstanceIdentifier.create(ServiceFunctions.class).child(ServiceFunction.class)),
+                (DataTreeChangeListener<ServiceFunction>) this::onServiceFunctionsChanged);
+        sfDescMonRegistration = dataBroker.registerDataTreeChangeListener(
+                new DataTreeIdentifier<>(LogicalDatastoreType.OPERATIONAL,
+                        InstanceIdentifier.create(ServiceFunctionsState.class).child(ServiceFunctionState.class)
+                                .augmentation(ServiceFunctionState1.class)),
+                (DataTreeChangeListener<ServiceFunctionState1>) this::onServiceFunctionMonitorsChanged);
+        loadTable.enable();
+    }
+
+    private void onServiceFunctionsChanged(@NonNull Collection<DataTreeModification<ServiceFunction>> changes) {
+        for (DataTreeModification<ServiceFunction> change : changes) {
+            DataObjectModification<ServiceFunction> rootNode = change.getRootNode();
+            ServiceFunction serviceFunction = rootNode.getDataAfter();
+            if (serviceFunction != null && serviceFunction.getType() != null) {
+                loadTable.updateServiceFunction(serviceFunction.getName(), serviceFunction.getType());
+            } else if (rootNode.getDataBefore() != null) {
+                loadTable.removeServiceFunction(rootNode.getDataBefore().getName());
+            }
+        }
+    }
+
+    private void onServiceFunctionMonitorsChanged(
+            @NonNull Collection<DataTreeModification<ServiceFunctionState1>> changes) {
+        for (DataTreeModification<ServiceFunctionState1> change : changes) {
+            ServiceFunctionStateKey stateKey = change.getRootPath().getRootIdentifier()
+                    .firstKeyOf(ServiceFunctionState.class);
+            if (stateKey == null) {
+                continue;
+            }
+            SfName sfName = stateKey.getName();
+            ServiceFunctionState1 sfState = change.getRootNode().getDataAfter();
+            loadTable.updateCpuUtilization(sfName,
+                    sfState == null ? null : SfcServiceFunctionLoadTable.getCpuUtilization(sfState.getSfcSfDescMon()));
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        sfRegistration.close();
+        sfDescMonRegistration.close();
+        loadTable.disable();
+    }
+}
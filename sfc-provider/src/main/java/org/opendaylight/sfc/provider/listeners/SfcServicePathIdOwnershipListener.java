@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.opendaylight.mdsal.eos.binding.api.Entity;
+import org.opendaylight.mdsal.eos.binding.api.EntityOwnershipCandidateRegistration;
+import org.opendaylight.mdsal.eos.binding.api.EntityOwnershipChange;
+import org.opendaylight.mdsal.eos.binding.api.EntityOwnershipListener;
+import org.opendaylight.mdsal.eos.binding.api.EntityOwnershipListenerRegistration;
+import org.opendaylight.mdsal.eos.binding.api.EntityOwnershipService;
+import org.opendaylight.mdsal.eos.common.api.CandidateAlreadyRegisteredException;
+import org.opendaylight.sfc.provider.api.SfcServicePathId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class tells the service path id allocation whether this controller
+ * instance owns it. The owner keeps the path-id bit array in memory, reloaded
+ * when ownership is gained so that the path-ids allocated by the previous
+ * owner are not handed out again. The other instances check every allocation
+ * against the bit array in the operational data store.
+ */
+@Singleton
+public class SfcServicePathIdOwnershipListener implements EntityOwnershipListener, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcServicePathIdOwnershipListener.class);
+
+    static final String ENTITY_TYPE = "sfc-service-path-id";
+    static final Entity ENTITY = new Entity(ENTITY_TYPE, "service-path-ids");
+
+    private final EntityOwnershipListenerRegistration listenerRegistration;
+    private EntityOwnershipCandidateRegistration candidateRegistration;
+
+    @Inject
+    public SfcServicePathIdOwnershipListener(EntityOwnershipService entityOwnershipService) {
+        // Not the owner until told otherwise
+        SfcServicePathId.setAllocationOwner(false);
+        listenerRegistration = entityOwnershipService.registerListener(ENTITY_TYPE, this);
+        try {
+            candidateRegistration = entityOwnershipService.registerCandidate(ENTITY);
+        } catch (CandidateAlreadyRegisteredException e) {
+            LOG.error("Service path id ownership candidate already registered", e);
+        }
+    }
+
+    @Override
+    public void ownershipChanged(EntityOwnershipChange ownershipChange) {
+        LOG.debug("Service path id ownership changed: {}", ownershipChange);
+        if (ownershipChange.getState().isOwner() != ownershipChange.getState().wasOwner()) {
+            SfcServicePathId.setAllocationOwner(ownershipChange.getState().isOwner());
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        if (candidateRegistration != null) {
+            candidateRegistration.close();
+        }
+        listenerRegistration.close();
+    }
+}
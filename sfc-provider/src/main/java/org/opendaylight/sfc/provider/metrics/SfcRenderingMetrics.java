@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.metrics;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Latencies and throughput of the stages an RSP goes through, from the
+ * creation of its SFP to the commit of its flows.
+ *
+ * <p>
+ * Each stage is timed by taking a timer when it starts and stopping it when
+ * it ends. The end to end time of an RSP is measured from the creation of its
+ * configuration RSP to the commit of the last batch of flows holding its
+ * flows, identifying the RSP by path id. The flows written per second are
+ * averaged over the last {@value #RATE_WINDOW_SECONDS} seconds.
+ *
+ * <p>
+ * Recording only takes a clock read and a few atomic increments, so the
+ * metrics are enabled by default.
+ */
+public final class SfcRenderingMetrics {
+
+    /**
+     * The stages timed, in the order an RSP goes through them.
+     */
+    public enum Stage {
+        SFP_LISTENER("sfp-listener"),
+        SCHEDULING("scheduling"),
+        PATH_ID_ALLOCATION("path-id-allocation"),
+        OPERATIONAL_RSP_WRITE("operational-rsp-write"),
+        RSP_LISTENER("rsp-listener"),
+        RSP_RENDERING("rsp-rendering"),
+        FLOW_COMMIT("flow-commit"),
+        LOCK_WAIT("lock-wait"),
+        END_TO_END("end-to-end");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // Returned instead of a start time when the metrics are disabled
+    private static final long DISABLED = Long.MIN_VALUE;
+
+    private static final long MAX_TRACKED_RSPS = 10000;
+    private static final long RSP_TRACKING_TIMEOUT_MINUTES = 10;
+
+    // Must be a power of two, greater than the window
+    private static final int RATE_SLOTS = 16;
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    private static final SfcLatencyHistogram[] HISTOGRAMS = new SfcLatencyHistogram[Stage.values().length];
+
+    // Start time of the RSPs whose flows are not committed yet, by path id.
+    // RSPs never rendered by a flow writer are forgotten after a while.
+    private static final Cache<Long, Long> RSP_START_NANOS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TRACKED_RSPS).expireAfterWrite(RSP_TRACKING_TIMEOUT_MINUTES, TimeUnit.MINUTES).build();
+
+    private static final LongAdder FLOWS_WRITTEN = new LongAdder();
+
+    // Flows written per second, over the last RATE_SLOTS seconds
+    private static final AtomicLongArray FLOW_RATE_SECONDS = new AtomicLongArray(RATE_SLOTS);
+    private static final AtomicLongArray FLOW_RATE_COUNTS = new AtomicLongArray(RATE_SLOTS);
+
+    private static volatile boolean enabled = true;
+    private static volatile IntSupplier flowWriterQueueDepth = () -> 0;
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new SfcLatencyHistogram();
+        }
+    }
+
+    private SfcRenderingMetrics() {
+    }
+
+    /**
+     * Start timing a stage.
+     *
+     * @return the start time, to be given back when the stage ends
+     */
+    public static long startTimer() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * Stop timing a stage, and record its latency.
+     *
+     * @param stage
+     *            the stage
+     * @param startNanos
+     *            the start time returned by {@link #startTimer()}
+     */
+    public static void stopTimer(Stage stage, long startNanos) {
+        if (startNanos != DISABLED) {
+            HISTOGRAMS[stage.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Record the latency of a stage timed elsewhere.
+     *
+     * @param stage
+     *            the stage
+     * @param nanos
+     *            the latency, in nanoseconds
+     */
+    public static void record(Stage stage, long nanos) {
+        if (enabled) {
+            HISTOGRAMS[stage.ordinal()].record(nanos);
+        }
+    }
+
+    /**
+     * Start measuring the end to end time of an RSP.
+     *
+     * @param pathId
+     *            the path id of the RSP
+     * @param startNanos
+     *            the start time returned by {@link #startTimer()}
+     */
+    public static void rspStarted(long pathId, long startNanos) {
+        if (startNanos != DISABLED) {
+            RSP_START_NANOS.put(pathId, startNanos);
+        }
+    }
+
+    /**
+     * Record the end to end time of an RSP, once its flows are committed. RSPs
+     * whose time is not being measured are ignored.
+     *
+     * @param pathId
+     *            the path id of the RSP
+     */
+    public static void rspFlowsCommitted(long pathId) {
+        Long startNanos = RSP_START_NANOS.asMap().remove(pathId);
+        if (startNanos != null) {
+            record(Stage.END_TO_END, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Count flows written to, or removed from, the data store.
+     *
+     * @param flows
+     *            the number of flows
+     */
+    public static void flowsWritten(int flows) {
+        if (!enabled) {
+            return;
+        }
+        FLOWS_WRITTEN.add(flows);
+        final long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        final int slot = (int) second & (RATE_SLOTS - 1);
+        final long slotSecond = FLOW_RATE_SECONDS.get(slot);
+        // The slot is reused once per RATE_SLOTS seconds. The flows counted
+        // by other threads while it is being reused may be lost.
+        if (slotSecond != second && FLOW_RATE_SECONDS.compareAndSet(slot, slotSecond, second)) {
+            FLOW_RATE_COUNTS.set(slot, 0);
+        }
+        FLOW_RATE_COUNTS.addAndGet(slot, flows);
+    }
+
+    /**
+     * Set where to get the number of flow operations waiting to be committed
+     * from.
+     *
+     * @param queueDepth
+     *            the supplier of the number of pending flow operations
+     */
+    public static void setFlowWriterQueueDepth(IntSupplier queueDepth) {
+        flowWriterQueueDepth = queueDepth;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+        if (!isEnabled) {
+            RSP_START_NANOS.invalidateAll();
+        }
+    }
+
+    public static List<StageLatency> getStageLatencies() {
+        List<StageLatency> latencies = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            latencies.add(new StageLatency(stage.getName(), HISTOGRAMS[stage.ordinal()].snapshot()));
+        }
+        return latencies;
+    }
+
+    public static long getFlowsWritten() {
+        return FLOWS_WRITTEN.sum();
+    }
+
+    public static double getFlowsPerSecond() {
+        final long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long flows = 0;
+        // The current second is not over yet, it is left out
+        for (long past = second - RATE_WINDOW_SECONDS; past < second; past++) {
+            int slot = (int) past & (RATE_SLOTS - 1);
+            if (FLOW_RATE_SECONDS.get(slot) == past) {
+                flows += FLOW_RATE_COUNTS.get(slot);
+            }
+        }
+        return (double) flows / RATE_WINDOW_SECONDS;
+    }
+
+    public static int getFlowWriterQueueDepth() {
+        return flowWriterQueueDepth.getAsInt();
+    }
+
+    public static long getTrackedRsps() {
+        return RSP_START_NANOS.size();
+    }
+
+    /**
+     * Forget all the latencies and flows recorded so far.
+     */
+    public static void reset() {
+        for (SfcLatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        RSP_START_NANOS.invalidateAll();
+        FLOWS_WRITTEN.reset();
+        for (int i = 0; i < RATE_SLOTS; i++) {
+            FLOW_RATE_COUNTS.set(i, 0);
+        }
+    }
+
+    /**
+     * Latency percentiles of a stage, in microseconds.
+     */
+    public static final class StageLatency {
+        private final String stage;
+        private final long count;
+        private final long meanMicros;
+        private final long medianMicros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        StageLatency(String stage, SfcLatencyHistogram.Snapshot snapshot) {
+            this.stage = stage;
+            this.count = snapshot.getCount();
+            this.meanMicros = TimeUnit.NANOSECONDS.toMicros(snapshot.getMeanNanos());
+            this.medianMicros = TimeUnit.NANOSECONDS.toMicros(snapshot.getPercentileNanos(50));
+            this.p99Micros = TimeUnit.NANOSECONDS.toMicros(snapshot.getPercentileNanos(99));
+            this.maxMicros = TimeUnit.NANOSECONDS.toMicros(snapshot.getMaxNanos());
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getMedianMicros() {
+            return medianMicros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "StageLatency [" + stage + ", count " + count + ", mean " + meanMicros + " us, median "
+                    + medianMicros + " us, p99 " + p99Micros + " us, max " + maxMicros + " us]";
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.metrics;
+
+import java.util.List;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.StageLatency;
+
+/**
+ * JMX view of the {@link SfcRenderingMetrics}.
+ */
+public interface SfcRenderingMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    List<StageLatency> getStageLatencies();
+
+    long getFlowsWritten();
+
+    double getFlowsPerSecond();
+
+    int getFlowWriterQueueDepth();
+
+    long getTrackedRsps();
+
+    long getLockAcquisitions();
+
+    long getContendedLockAcquisitions();
+
+    long getLockTimeouts();
+
+    void reset();
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.metrics;
+
+import java.util.List;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import org.opendaylight.controller.md.sal.common.util.jmx.AbstractMXBean;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.StageLatency;
+
+/**
+ * Registers the {@link SfcRenderingMetrics} with the platform MBean server,
+ * for as long as the SFC provider is running.
+ */
+@Singleton
+public class SfcRenderingMetricsMXBeanImpl extends AbstractMXBean implements SfcRenderingMetricsMXBean,
+        AutoCloseable {
+
+    private static final String JMX_BEAN_NAME = "SfcRenderingMetrics";
+    private static final String JMX_BEAN_TYPE = "RenderingMetrics";
+    private static final String JMX_BEAN_CATEGORY = "SFC";
+
+    public SfcRenderingMetricsMXBeanImpl() {
+        super(JMX_BEAN_NAME, JMX_BEAN_TYPE, JMX_BEAN_CATEGORY);
+        registerMBean();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return SfcRenderingMetrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        SfcRenderingMetrics.setEnabled(enabled);
+    }
+
+    @Override
+    public List<StageLatency> getStageLatencies() {
+        return SfcRenderingMetrics.getStageLatencies();
+    }
+
+    @Override
+    public long getFlowsWritten() {
+        return SfcRenderingMetrics.getFlowsWritten();
+    }
+
+    @Override
+    public double getFlowsPerSecond() {
+        return SfcRenderingMetrics.getFlowsPerSecond();
+    }
+
+    @Override
+    public int getFlowWriterQueueDepth() {
+        return SfcRenderingMetrics.getFlowWriterQueueDepth();
+    }
+
+    @Override
+    public long getTrackedRsps() {
+        return SfcRenderingMetrics.getTrackedRsps();
+    }
+
+    @Override
+    public long getLockAcquisitions() {
+        return SfcConcurrencyAPI.getLockAcquisitions();
+    }
+
+    @Override
+    public long getContendedLockAcquisitions() {
+        return SfcConcurrencyAPI.getContendedLockAcquisitions();
+    }
+
+    @Override
+    public long getLockTimeouts() {
+        return SfcConcurrencyAPI.getLockTimeouts();
+    }
+
+    @Override
+    public void reset() {
+        SfcRenderingMetrics.reset();
+        SfcConcurrencyAPI.resetLockStatistics();
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        unregisterMBean();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.topology;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ConnectedSffDictionary;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.service.function.forwarder.ServiceFunctionDictionary;
+
+/**
+ * Hop distances between the nodes of the topology graph made of SFs and SFFs,
+ * where SFs are connected to the SFFs they are attached to and SFFs to the
+ * SFFs they are connected to.
+ *
+ * <p>
+ * Changes to the SFs and SFFs are applied incrementally. The graph is then
+ * compacted into int indexed adjacency arrays the first time it is queried.
+ * The distances from a node to all the others are computed with a single BFS
+ * the first time they are needed, and kept until the topology changes. Most
+ * distance queries are then an array lookup.
+ */
+public final class SfcHopDistanceIndex {
+
+    public static final int UNREACHABLE = -1;
+
+    // Bounds the memory used by the distance rows, V ints each
+    private static final int MAX_CACHED_ROWS = 1024;
+
+    private static final SfcHopDistanceIndex SHARED = new SfcHopDistanceIndex();
+
+    // All guarded by this
+    private final Set<String> serviceFunctions = new HashSet<>();
+    private final Map<String, Set<String>> forwarderLinks = new HashMap<>();
+    private Graph graph;
+
+    private volatile boolean enabled;
+
+    /**
+     * Get the index shared by the whole process, kept up to date by a
+     * listener while enabled.
+     *
+     * @return the shared index
+     */
+    public static SfcHopDistanceIndex getShared() {
+        return SHARED;
+    }
+
+    public synchronized void updateServiceFunction(String sfName) {
+        if (serviceFunctions.add(sfName)) {
+            graph = null;
+        }
+    }
+
+    public synchronized void removeServiceFunction(String sfName) {
+        if (serviceFunctions.remove(sfName)) {
+            graph = null;
+        }
+    }
+
+    /**
+     * Set the nodes an SFF is linked to.
+     *
+     * @param sffName
+     *            the name of the SFF
+     * @param linkedNodeNames
+     *            the SFs attached to the SFF and the SFFs connected to it
+     */
+    public synchronized void updateServiceFunctionForwarder(String sffName, Collection<String> linkedNodeNames) {
+        Set<String> links = new HashSet<>(linkedNodeNames);
+        if (!links.equals(forwarderLinks.put(sffName, links))) {
+            graph = null;
+        }
+    }
+
+    /**
+     * Set the nodes an SFF is linked to from its SF and connected SFF
+     * dictionaries.
+     *
+     * @param serviceFunctionForwarder
+     *            the SFF
+     */
+    public void updateServiceFunctionForwarder(ServiceFunctionForwarder serviceFunctionForwarder) {
+        List<String> linkedNodeNames = new ArrayList<>();
+        List<ServiceFunctionDictionary> serviceFunctionDictionaryList = serviceFunctionForwarder
+                .getServiceFunctionDictionary();
+        if (serviceFunctionDictionaryList != null) {
+            serviceFunctionDictionaryList.forEach(
+                sfDictionary -> linkedNodeNames.add(sfDictionary.getName().getValue()));
+        }
+        List<ConnectedSffDictionary> connectedSffDictionaryList = serviceFunctionForwarder
+                .getConnectedSffDictionary();
+        if (connectedSffDictionaryList != null) {
+            connectedSffDictionaryList.forEach(
+                sffDictionary -> linkedNodeNames.add(sffDictionary.getName().getValue()));
+        }
+        updateServiceFunctionForwarder(serviceFunctionForwarder.getName().getValue(), linkedNodeNames);
+    }
+
+    public synchronized void removeServiceFunctionForwarder(String sffName) {
+        if (forwarderLinks.remove(sffName) != null) {
+            graph = null;
+        }
+    }
+
+    public synchronized void clear() {
+        serviceFunctions.clear();
+        forwarderLinks.clear();
+        graph = null;
+    }
+
+    public boolean hasNode(String nodeName) {
+        return getGraph().nodeIndexes.containsKey(nodeName);
+    }
+
+    /**
+     * Get the number of hops between two nodes.
+     *
+     * @param fromNodeName
+     *            the source node
+     * @param toNodeName
+     *            the destination node
+     * @return the number of hops, or {@link #UNREACHABLE} if there is no path
+     *         between the nodes or any of them does not exist
+     */
+    public int getHopCount(String fromNodeName, String toNodeName) {
+        Graph theGraph = getGraph();
+        Integer from = theGraph.nodeIndexes.get(fromNodeName);
+        Integer to = theGraph.nodeIndexes.get(toNodeName);
+        if (from == null || to == null) {
+            return UNREACHABLE;
+        }
+        return theGraph.getDistances(from)[to];
+    }
+
+    /**
+     * Start using the index to schedule. Only to be called once the index is
+     * kept up to date with the data store.
+     */
+    public void enable() {
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private synchronized Graph getGraph() {
+        if (graph == null) {
+            graph = new Graph(serviceFunctions, forwarderLinks);
+        }
+        return graph;
+    }
+
+    /**
+     * Immutable compacted graph, with its distance rows computed on demand.
+     */
+    private static final class Graph {
+        private final Map<String, Integer> nodeIndexes = new HashMap<>();
+        private final int[][] adjacency;
+        private final Cache<Integer, int[]> distanceRows = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_ROWS)
+                .build();
+
+        Graph(Set<String> serviceFunctions, Map<String, Set<String>> forwarderLinks) {
+            serviceFunctions.forEach(this::indexOf);
+            forwarderLinks.keySet().forEach(this::indexOf);
+
+            // links are undirected, and may be declared by both ends
+            Map<Integer, Set<Integer>> neighbors = new HashMap<>();
+            forwarderLinks.forEach((sffName, links) -> {
+                int sff = indexOf(sffName);
+                for (String linkedNodeName : links) {
+                    int linkedNode = indexOf(linkedNodeName);
+                    if (linkedNode != sff) {
+                        neighbors.computeIfAbsent(sff, node -> new HashSet<>()).add(linkedNode);
+                        neighbors.computeIfAbsent(linkedNode, node -> new HashSet<>()).add(sff);
+                    }
+                }
+            });
+
+            adjacency = new int[nodeIndexes.size()][];
+            for (int node = 0; node < adjacency.length; node++) {
+                Set<Integer> nodeNeighbors = neighbors.get(node);
+                adjacency[node] = nodeNeighbors == null ? new int[0]
+                        : nodeNeighbors.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        private int indexOf(String nodeName) {
+            return nodeIndexes.computeIfAbsent(nodeName, name -> nodeIndexes.size());
+        }
+
+        int[] getDistances(int from) {
+            try {
+                return distanceRows.get(from, () -> breadthFirstSearch(from));
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not compute the distances from node " + from, e);
+            }
+        }
+
+        private int[] breadthFirstSearch(int from) {
+            int[] distances = new int[adjacency.length];
+            Arrays.fill(distances, UNREACHABLE);
+            int[] queue = new int[adjacency.length];
+            int head = 0;
+            int tail = 0;
+            distances[from] = 0;
+            queue[tail++] = from;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int neighbor : adjacency[node]) {
+                    if (distances[neighbor] == UNREACHABLE) {
+                        distances[neighbor] = distances[node] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+}
@@ -9,21 +9,23 @@ package org.opendaylight.sfc.provider.validators;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.FluentFuture;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.List;
 import org.opendaylight.mdsal.binding.dom.codec.impl.BindingNormalizedNodeCodecRegistry;
 import org.opendaylight.mdsal.binding.generator.impl.ModuleInfoBackedContext;
 import org.opendaylight.mdsal.binding.generator.util.BindingRuntimeContext;
 import org.opendaylight.mdsal.binding.spec.reflect.BindingReflections;
-import org.opendaylight.mdsal.common.api.DataValidationFailedException;
 import org.opendaylight.mdsal.common.api.PostCanCommitStep;
 import org.opendaylight.mdsal.dom.api.DOMDataTreeCandidate;
 import org.opendaylight.mdsal.dom.api.DOMDataTreeCommitCohort;
+import org.opendaylight.sfc.provider.validators.util.DataValidationFailedWithMessageException;
 import org.opendaylight.sfc.provider.validators.util.ValidationConstants;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
 import org.opendaylight.yangtools.util.concurrent.FluentFutures;
 import org.opendaylight.yangtools.yang.binding.DataObject;
 import org.opendaylight.yangtools.yang.binding.YangModuleInfo;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.data.api.schema.tree.DataTreeCandidateNode;
@@ -57,6 +59,12 @@ public class ServiceFunctionPathCohort implements DOMDataTreeCommitCohort {
     public FluentFuture<PostCanCommitStep> canCommit(Object txId, SchemaContext ctx,
             Collection<DOMDataTreeCandidate> candidates) {
 
+        LOG.debug("canCommit:updating codec contexts");
+        moduleContext.addModuleInfos(infos);
+        bindingContext = BindingRuntimeContext.create(moduleContext, ctx);
+        codecRegistry.onBindingRuntimeContextUpdated(bindingContext);
+
+        List<ServiceFunctionPath> sfps = new ArrayList<>();
         for (DOMDataTreeCandidate candidate : candidates) {
             LOG.debug("canCommit:called! txId={}, candidate={}, context={} ", txId, candidate, ctx);
 
@@ -67,41 +75,28 @@ public class ServiceFunctionPathCohort implements DOMDataTreeCommitCohort {
                 continue;
             }
 
-            LOG.debug("canCommit:updating codec contexts");
-            moduleContext.addModuleInfos(infos);
-            bindingContext = BindingRuntimeContext.create(moduleContext, ctx);
-            codecRegistry.onBindingRuntimeContextUpdated(bindingContext);
-
-            LOG.debug("canCommit:Mapping service ready");
-
             LOG.debug("canCommit:before deserializing:  {}", nn);
             // (nn is an immutableMapNode). Contains an unmodifiable collection
             // reference of all this thing
             // https://wiki.opendaylight.org/view/OpenDaylight_Controller:MD-SAL:Design:Normalized_DOM_Model
-            Collection collection = (Collection<MapEntryNode>) nn.getValue();
-            LOG.debug("canCommit:collection containing the sfs:  {}", collection);
-            Iterator<MapEntryNode> menIter = collection.iterator();
-            while (menIter.hasNext()) {
-                MapEntryNode meNode = menIter.next();
+            Collection<MapEntryNode> collection = (Collection<MapEntryNode>) nn.getValue();
+            for (MapEntryNode meNode : collection) {
                 LOG.debug("canCommit:sfp to process: {}", meNode);
-                LOG.debug("canCommit:the first SF (as nn):  {}", meNode);
                 DataObject dobj = codecRegistry.fromNormalizedNode(ValidationConstants.SFP_PATH_YII, meNode)
                         .getValue();
-                LOG.debug("canCommit:registerValidationCohorts:the first SFP (as dataobject):  {}", dobj);
-                ServiceFunctionPath sfp = (ServiceFunctionPath) dobj;
-                LOG.debug("canCommit:registerValidationCohorts:the implemented interface: {}",
-                        dobj.implementedInterface());
-                LOG.debug("canCommit:the first SF (as binding representation):  {}", sfp);
-                try {
-                    if (!sfpv.validateServiceFunctionPath(sfp)) {
-                        return ValidationConstants.FAILED_CAN_COMMIT_SFP_FUTURE;
-                    }
-                } catch (DataValidationFailedException dvfe) {
-                    return FluentFutures.immediateFailedFluentFuture(dvfe);
-                }
+                sfps.add((ServiceFunctionPath) dobj);
             }
         }
 
-        return PostCanCommitStep.NOOP_SUCCESSFUL_FUTURE;
+        // all the SFPs of the transaction are validated together, and all
+        // their violations reported
+        List<String> violations = sfpv.validateServiceFunctionPaths(sfps);
+        if (violations.isEmpty()) {
+            return PostCanCommitStep.NOOP_SUCCESSFUL_FUTURE;
+        }
+        LOG.error("canCommit:txId={} failed validation: {}", txId, violations);
+        return FluentFutures.immediateFailedFluentFuture(new DataValidationFailedWithMessageException(
+                YangInstanceIdentifier.class, ValidationConstants.SFP_PATH_YII, violations,
+                ValidationConstants.SFC_VALIDATION_ERROR));
     }
 }
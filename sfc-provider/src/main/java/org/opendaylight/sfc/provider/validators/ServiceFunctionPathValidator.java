@@ -7,17 +7,31 @@
  */
 package org.opendaylight.sfc.provider.validators;
 
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.controller.md.sal.dom.api.DOMDataBroker;
 import org.opendaylight.mdsal.dom.api.DOMDataTreeCommitCohortRegistry;
-import org.opendaylight.sfc.provider.validators.util.DataValidationFailedWithMessageException;
+import org.opendaylight.sfc.provider.api.SfcProviderServiceFunctionAPI;
+import org.opendaylight.sfc.provider.api.SfcServiceFunctionTypeIndex;
+import org.opendaylight.sfc.provider.api.SfcSharedExecutor;
 import org.opendaylight.sfc.provider.validators.util.SfcDatastoreCache;
 import org.opendaylight.sfc.provider.validators.util.ValidationConstants;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.service.function.path.ServicePathHop;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,7 +46,12 @@ import org.slf4j.LoggerFactory;
 public class ServiceFunctionPathValidator {
     private static final Logger LOG = LoggerFactory.getLogger(ServiceFunctionPathValidator.class);
 
+    // SFPs validated by each task, SFPs of smaller transactions are
+    // validated in the calling thread
+    private static final int VALIDATION_CHUNK_SIZE = 256;
+
     private final DOMDataTreeCommitCohortRegistry registry;
+    private final ExecutorService validationExecutor = SfcSharedExecutor.WORKERS.acquire();
 
     @Inject
     public ServiceFunctionPathValidator(final DOMDataBroker domDataBroker) {
@@ -49,98 +68,178 @@ public class ServiceFunctionPathValidator {
         LOG.info("registerValidationCohorts:initialized. registered cohort: {}", myCohort);
     }
 
+    /**
+     * Performs validation of the service function paths of a transaction. The
+     * SFCs and SFs they reference are read at once, then the SFPs are
+     * validated in parallel.
+     *
+     * @param serviceFunctionPaths
+     *            the candidate SFPs that are being added / updated in a
+     *            currently open transaction
+     * @return the violations found in all the SFPs, empty when validation is
+     *         passed
+     */
+    public List<String> validateServiceFunctionPaths(List<ServiceFunctionPath> serviceFunctionPaths) {
+        prefetch(serviceFunctionPaths);
+        if (serviceFunctionPaths.size() <= VALIDATION_CHUNK_SIZE) {
+            return validateServiceFunctionPathChunk(serviceFunctionPaths);
+        }
+
+        List<Future<List<String>>> chunkViolations = new ArrayList<>();
+        for (List<ServiceFunctionPath> chunk : Lists.partition(serviceFunctionPaths, VALIDATION_CHUNK_SIZE)) {
+            chunkViolations.add(validationExecutor.submit(() -> validateServiceFunctionPathChunk(chunk)));
+        }
+        List<String> violations = new ArrayList<>();
+        for (Future<List<String>> future : chunkViolations) {
+            try {
+                violations.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.error("validateServiceFunctionPaths: Interrupted while validating SFPs", e);
+                violations.add("The SF Paths could not be validated");
+                break;
+            } catch (ExecutionException e) {
+                LOG.error("validateServiceFunctionPaths: Failed to validate SFPs", e);
+                violations.add("The SF Paths could not be validated");
+            }
+        }
+        return violations;
+    }
+
+    @PreDestroy
+    public void close() {
+        SfcSharedExecutor.WORKERS.release();
+    }
+
     /**
      * Performs validation of a service function path.
      *
      * @param serviceFunctionPath
      *            a candidate SFP that is being added / updated in a currently
      *            open transaction
-     * @return true when validation is passed (i.e. when the SFs contained in
-     *         the SFP are coherent (type-wise) with the type definitions in the
-     *         associated SFC; false afterwards)
-     * @throws DataValidationFailedWithMessageException
-     *             when validation cannot be performed because some of the
-     *             referenced SFs / SFCs do not exist
+     * @return null when validation is passed (i.e. when the SFs contained in
+     *         the SFP exist and are coherent (type-wise) with the type
+     *         definitions in the associated SFC); the violation otherwise
      */
-    @SuppressWarnings("checkstyle:AvoidHidingCauseException")
-    protected boolean validateServiceFunctionPath(ServiceFunctionPath serviceFunctionPath)
-            throws DataValidationFailedWithMessageException {
-        if (serviceFunctionPath != null) {
-            LOG.debug("ServiceFunctionPathListener:validateServiceFunctionPath:starting..(new sfc name: {})",
-                    serviceFunctionPath.getName());
+    protected @Nullable String validateServiceFunctionPath(ServiceFunctionPath serviceFunctionPath) {
+        LOG.debug("ServiceFunctionPathListener:validateServiceFunctionPath:starting..(new sfc name: {})",
+                serviceFunctionPath.getName());
+
+        if (serviceFunctionPath.getServicePathHop() == null) {
+            // no hops defined in SFP -> nothing to validate
+            LOG.debug("ServiceFunctionPathListener:validateServiceFunctionPath:"
+                    + "SFP without explicit hop definition -> validation not required");
+            return null;
+        }
 
-            if (serviceFunctionPath.getServicePathHop() == null) {
-                // no hops defined in SFP -> nothing to validate
-                LOG.info("ServiceFunctionPathListener:validateServiceFunctionPath:"
-                        + "SFP without explicit hop definition -> validation not required");
-                return true;
-            }
+        // 1. Get the size of the list of SF names in the SFP
+        int numberOfSpecifiedSFs = serviceFunctionPath.getServicePathHop().size();
 
-            // 1. Get the size of the list of SF names in the SFP
-            int numberOfSpecifiedSFs = serviceFunctionPath.getServicePathHop().size();
+        // 2. Get the SF types referenced in the chain (fail if can't find
+        // the chain)
+        List<String> sfChainTypes = SfcDatastoreCache.getShared()
+                .getServiceFunctionChainTypes(serviceFunctionPath.getServiceChainName());
 
-            // 2. Get the SF types referenced in the chain (fail if can't find
-            // the chain)
-            List<String> sfChainTypes;
-            try {
-                sfChainTypes = SfcDatastoreCache.getSfChainToSfTypeList()
-                        .get(serviceFunctionPath.getServiceChainName());
-            } catch (ExecutionException e) {
-                LOG.debug("validateServiceFunctionPath - getSfChainToSfTypeList failed", e);
-                throw ValidationConstants.SFP_FAILED_CAN_COMMIT_EXCEPTION_SFC_MISSING;
-            }
+        // 3. Referential integrity (SFC)
+        if (sfChainTypes == null || sfChainTypes.isEmpty()) {
+            LOG.error("validateServiceFunctionPath:: ERROR! (no sf chains defined!)");
+            return violation(serviceFunctionPath, "the SF chain " + serviceFunctionPath.getServiceChainName()
+                    + " referenced in the SF Path does not exist");
+        }
 
-            // 3. Referential integrity (SFC)
-            if (sfChainTypes == null || sfChainTypes.isEmpty()) {
-                LOG.error("validateServiceFunctionPath:: ERROR! (no sf chains defined!)");
-                throw ValidationConstants.SFP_FAILED_CAN_COMMIT_EXCEPTION_SFC_MISSING;
+        // 4. Correct number of values in SFC types, SFs in the SFP
+        LOG.debug(
+                "validateServiceFunctionPath:retrieved SFC {} for SFP {}); they have {}, {} elements respectively",
+                serviceFunctionPath.getServiceChainName().getValue(), serviceFunctionPath.getName().getValue(),
+                sfChainTypes.size(), numberOfSpecifiedSFs);
+
+        // A chain can have more elements than the list of service
+        // functions, but not the other way around
+        // (A SFP can choose to set all or only some of the SFs in the path)
+        if (sfChainTypes.size() < numberOfSpecifiedSFs) {
+            LOG.error("validateServiceFunctionPath: ERROR! (incorrect chain-path list sizes [chain={}, path={}])",
+                    sfChainTypes.size(), numberOfSpecifiedSFs);
+            return violation(serviceFunctionPath, "the SF Path has more hops than the SF chain");
+        }
+
+        // 5. SF type matching
+        for (int i = 0; i < numberOfSpecifiedSFs; i++) {
+            ServicePathHop servicePathHop = serviceFunctionPath.getServicePathHop().get(i);
+            SfName sfName = servicePathHop.getServiceFunctionName();
+            if (sfName == null) {
+                continue;
             }
+            int hopNumber = servicePathHop.getHopNumber().toJava();
+            if (hopNumber >= sfChainTypes.size()) {
+                return violation(serviceFunctionPath, "hop " + hopNumber + " is not in the SF chain");
+            }
+            String sfChainTypeName = sfChainTypes.get(hopNumber);
 
-            // 4. Correct number of values in SFC types, SFs in the SFP
-            LOG.debug(
-                    "validateServiceFunctionPath:retrieved SFC {} for SFP {}); they have {}, {} elements respectively",
-                    serviceFunctionPath.getServiceChainName().getValue(), serviceFunctionPath.getName().getValue(),
-                    sfChainTypes.size(), numberOfSpecifiedSFs);
+            String sfTypeNameFromSFP = getServiceFunctionType(sfName);
+            if (sfTypeNameFromSFP == null) {
+                return violation(serviceFunctionPath, "the SF " + sfName.getValue()
+                        + " referenced in the SF Path does not exist");
+            }
 
-            // A chain can have more elements than the list of service
-            // functions, but not the other way around
-            // (A SFP can choose to set all or only some of the SFs in the path)
-            if (sfChainTypes.size() < numberOfSpecifiedSFs) {
-                LOG.error("validateServiceFunctionPath: ERROR! (incorrect chain-path list sizes [chain={}, path={}])",
-                        sfChainTypes.size(), numberOfSpecifiedSFs);
-                return false;
+            if (!sfChainTypeName.equals(sfTypeNameFromSFP)) {
+                LOG.error("Error on SFP validation! element with index {} is not of the correct type [{}/{}]", i,
+                        sfChainTypeName, sfTypeNameFromSFP);
+                return violation(serviceFunctionPath, "the SF " + sfName.getValue() + " is of type "
+                        + sfTypeNameFromSFP + " instead of " + sfChainTypeName);
             }
+        }
+        LOG.debug("validateServiceFunctionPath:SFP validation passed!");
+        return null;
+    }
 
-            // 5. SF type matching
-            boolean errorFound = false;
-            for (int i = 0; i < numberOfSpecifiedSFs; i++) {
-                SfName sfName = serviceFunctionPath.getServicePathHop().get(i).getServiceFunctionName();
-                if (sfName == null) {
-                    continue;
-                }
-                String sfChainTypeName = sfChainTypes
-                        .get(serviceFunctionPath.getServicePathHop().get(i).getHopNumber().toJava());
-
-                String sfTypeNameFromSFP;
-                try {
-                    sfTypeNameFromSFP = SfcDatastoreCache.getSfToSfTypeCache().get(sfName);
-                } catch (ExecutionException e) {
-                    LOG.debug("validateServiceFunctionPath - getSfToSfTypeCache failed", e);
-                    throw ValidationConstants.SFP_FAILED_CAN_COMMIT_EXCEPTION_SF_MISSING;
-                }
+    private List<String> validateServiceFunctionPathChunk(List<ServiceFunctionPath> serviceFunctionPaths) {
+        List<String> violations = new ArrayList<>();
+        for (ServiceFunctionPath serviceFunctionPath : serviceFunctionPaths) {
+            String violation = validateServiceFunctionPath(serviceFunctionPath);
+            if (violation != null) {
+                violations.add(violation);
+            }
+        }
+        return violations;
+    }
 
-                if (!sfChainTypeName.equals(sfTypeNameFromSFP)) {
-                    LOG.error("Error on SFP validation! element with index {} is not of the correct type [{}/{}]", i,
-                            sfChainTypeName, sfTypeNameFromSFP);
-                    errorFound = true;
-                    break;
+    private static void prefetch(List<ServiceFunctionPath> serviceFunctionPaths) {
+        Set<SfcName> sfcNames = new HashSet<>();
+        Set<SfName> sfNames = new HashSet<>();
+        for (ServiceFunctionPath serviceFunctionPath : serviceFunctionPaths) {
+            if (serviceFunctionPath.getServicePathHop() == null) {
+                continue;
+            }
+            sfcNames.add(serviceFunctionPath.getServiceChainName());
+            for (ServicePathHop servicePathHop : serviceFunctionPath.getServicePathHop()) {
+                if (servicePathHop.getServiceFunctionName() != null) {
+                    sfNames.add(servicePathHop.getServiceFunctionName());
                 }
             }
-            if (!errorFound) {
-                LOG.info("validateServiceFunctionPath:SFP validation passed!");
-                return true;
+        }
+        sfcNames.remove(null);
+        SfcDatastoreCache.getShared().prefetchServiceFunctionChains(sfcNames);
+        if (!SfcServiceFunctionTypeIndex.getShared().isEnabled()) {
+            SfcDatastoreCache.getShared().prefetchServiceFunctions(sfNames);
+        }
+    }
+
+    private static @Nullable String getServiceFunctionType(SfName sfName) {
+        SfcServiceFunctionTypeIndex typeIndex = SfcServiceFunctionTypeIndex.getShared();
+        if (typeIndex.isEnabled()) {
+            SftTypeName sfType = typeIndex.getType(sfName);
+            if (sfType != null) {
+                return sfType.getValue();
             }
+            // The SF may be in the data store but not indexed yet, read it
+            // rather than relying on a cached miss
+            ServiceFunction serviceFunction = SfcProviderServiceFunctionAPI.readServiceFunction(sfName);
+            return serviceFunction == null ? null : serviceFunction.getType().getValue();
         }
-        return false;
+        return SfcDatastoreCache.getShared().getServiceFunctionType(sfName);
+    }
+
+    private static String violation(ServiceFunctionPath serviceFunctionPath, String message) {
+        return "SF Path " + serviceFunctionPath.getName().getValue() + ": " + message;
     }
 }
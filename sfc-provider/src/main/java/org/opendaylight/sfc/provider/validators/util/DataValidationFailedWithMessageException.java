@@ -32,6 +32,28 @@ public class DataValidationFailedWithMessageException extends DataValidationFail
                                                   path.toString(), null));
     }
 
+    /**
+     * Build an exception reporting several violations at once, one error per
+     * violation.
+     *
+     * @param pathType
+     *            the type of the path
+     * @param path
+     *            the path of the invalid data
+     * @param messages
+     *            the violations, at least one
+     * @param appTag
+     *            the application tag of the errors
+     */
+    public <P extends Path<P>> DataValidationFailedWithMessageException(final Class<P> pathType, final P path,
+            final List<String> messages, final String appTag) {
+        super(pathType, path, String.join("; ", messages));
+        for (String message : messages) {
+            myErrorList.add(RpcResultBuilder.newError(ErrorType.APPLICATION, "invalid-value", message, appTag,
+                                                      path.toString(), null));
+        }
+    }
+
     @Override
     public List<RpcError> getErrorList() {
         return myErrorList;
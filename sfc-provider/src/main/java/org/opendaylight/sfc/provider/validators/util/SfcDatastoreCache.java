@@ -7,16 +7,28 @@
  */
 package org.opendaylight.sfc.provider.validators.util;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceChainAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceFunctionAPI;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.ServiceFunctions;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.ServiceFunctionChains;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
 
@@ -25,55 +37,312 @@ import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev1407
  * validation of SF paths (during which the write transaction is kept open) to
  * be performed without datastore accesses in most cases
  *
+ * <p>
+ * The entries are kept up to date by the SF and SFC listeners. Entries not
+ * found are read from the data store and cached, including the SFs and SFCs
+ * that do not exist, unless they were changed by a listener while being read.
+ * The number of entries of each cache is bounded by the maximum size, set
+ * through the provider configuration. The entries needed to validate the SF
+ * paths of a transaction can be prefetched with a single read of each list.
+ *
  * @author Diego Granados (diego.jesus.granados.lopez@ericsson.com)
  */
 public final class SfcDatastoreCache {
 
+    public static final long DEFAULT_MAXIMUM_SIZE = 50000;
+
+    private static final SfcDatastoreCache SHARED = new SfcDatastoreCache(DEFAULT_MAXIMUM_SIZE,
+            SfcDatastoreCache::readServiceFunctionType, SfcDatastoreCache::readAllServiceFunctionTypes,
+            SfcDatastoreCache::readServiceFunctionChainTypes, SfcDatastoreCache::readAllServiceFunctionChainTypes);
+
+    private final Function<SfName, String> sfTypeLoader;
+    private final Supplier<Map<SfName, String>> sfTypeBulkLoader;
+    private final Function<SfcName, List<String>> sfChainTypesLoader;
+    private final Supplier<Map<SfcName, List<String>>> sfChainTypesBulkLoader;
+
     /**
      * This cache stores the relationship between SFs and SF types.
      */
-    private static final LoadingCache<SfName, String> SF_TO_SF_TYPE_CACHE = CacheBuilder.newBuilder().maximumSize(500)
-            .build(new CacheLoader<SfName, String>() {
-                @Override
-                public String load(SfName key) {
-                    ServiceFunction sf = SfcProviderServiceFunctionAPI.readServiceFunction(key);
-                    if (sf == null) {
-                        return null;
-                    }
-                    return sf.getType().getValue();
-                }
-            });
+    private volatile SnapshotCache<SfName, String> sfToSfTypeCache;
 
     /**
      * This cache holds the relation between SF chains and the list of SF types
      * for the chain.
      */
-    private static final LoadingCache<SfcName, List<String>> SF_CHAIN_TO_SF_TYPE_LIST
-            = CacheBuilder.newBuilder().maximumSize(500)
-            .build(new CacheLoader<SfcName, List<String>>() {
-                @Override
-                public List<String> load(SfcName key) {
-                    ServiceFunctionChain serviceFunctionChain = SfcProviderServiceChainAPI
-                            .readServiceFunctionChain(key);
-                    if (serviceFunctionChain == null) {
-                        return null;
-                    }
-                    List<String> serviceFunctionTypesForChain = new ArrayList<>();
-                    for (SfcServiceFunction sfcSf : serviceFunctionChain.getSfcServiceFunction()) {
-                        serviceFunctionTypesForChain.add(sfcSf.getType().getValue());
-                    }
-                    return serviceFunctionTypesForChain;
-                }
-            });
+    private volatile SnapshotCache<SfcName, List<String>> sfChainToSfTypeList;
+
+    SfcDatastoreCache(long maximumSize, Function<SfName, String> sfTypeLoader,
+            Supplier<Map<SfName, String>> sfTypeBulkLoader, Function<SfcName, List<String>> sfChainTypesLoader,
+            Supplier<Map<SfcName, List<String>>> sfChainTypesBulkLoader) {
+        this.sfTypeLoader = sfTypeLoader;
+        this.sfTypeBulkLoader = sfTypeBulkLoader;
+        this.sfChainTypesLoader = sfChainTypesLoader;
+        this.sfChainTypesBulkLoader = sfChainTypesBulkLoader;
+        setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Get the cache shared by the whole process.
+     *
+     * @return the shared cache
+     */
+    public static SfcDatastoreCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Set the maximum number of entries of each cache. The cached entries are
+     * dropped.
+     *
+     * @param maximumSize
+     *            the maximum number of entries
+     */
+    public synchronized void setMaximumSize(long maximumSize) {
+        sfToSfTypeCache = new SnapshotCache<>("sf-to-sf-type", maximumSize, sfTypeLoader, sfTypeBulkLoader);
+        sfChainToSfTypeList = new SnapshotCache<>("sf-chain-to-sf-type-list", maximumSize, sfChainTypesLoader,
+                sfChainTypesBulkLoader);
+    }
+
+    /**
+     * Get the type of an SF.
+     *
+     * @param sfName
+     *            the name of the SF
+     * @return the type, or null if the SF does not exist
+     */
+    public @Nullable String getServiceFunctionType(SfName sfName) {
+        return sfToSfTypeCache.get(sfName);
+    }
+
+    /**
+     * Cache the types of the given SFs, with a single read of all the SFs if
+     * any of them is not cached yet.
+     *
+     * @param sfNames
+     *            the names of the SFs
+     */
+    public void prefetchServiceFunctions(Collection<SfName> sfNames) {
+        sfToSfTypeCache.prefetch(sfNames);
+    }
+
+    public void updateServiceFunction(SfName sfName, String sfType) {
+        sfToSfTypeCache.update(sfName, sfType);
+    }
+
+    public void removeServiceFunction(SfName sfName) {
+        sfToSfTypeCache.update(sfName, null);
+    }
+
+    /**
+     * Get the SF types of the SFs of an SFC, in order.
+     *
+     * @param sfcName
+     *            the name of the SFC
+     * @return the SF types, or null if the SFC does not exist
+     */
+    public @Nullable List<String> getServiceFunctionChainTypes(SfcName sfcName) {
+        return sfChainToSfTypeList.get(sfcName);
+    }
+
+    /**
+     * Cache the SF types of the given SFCs, with a single read of all the SFCs
+     * if any of them is not cached yet.
+     *
+     * @param sfcNames
+     *            the names of the SFCs
+     */
+    public void prefetchServiceFunctionChains(Collection<SfcName> sfcNames) {
+        sfChainToSfTypeList.prefetch(sfcNames);
+    }
+
+    public void updateServiceFunctionChain(ServiceFunctionChain serviceFunctionChain) {
+        sfChainToSfTypeList.update(serviceFunctionChain.getName(), getServiceFunctionChainTypes(serviceFunctionChain));
+    }
+
+    public void removeServiceFunctionChain(SfcName sfcName) {
+        sfChainToSfTypeList.update(sfcName, null);
+    }
+
+    /**
+     * Get the metrics of the caches, to size them.
+     *
+     * @return the metrics of each cache
+     */
+    public List<Metrics> getMetrics() {
+        return Arrays.asList(sfToSfTypeCache.getMetrics(), sfChainToSfTypeList.getMetrics());
+    }
 
-    private SfcDatastoreCache() {
+    private static String readServiceFunctionType(SfName sfName) {
+        ServiceFunction sf = SfcProviderServiceFunctionAPI.readServiceFunction(sfName);
+        return sf == null ? null : sf.getType().getValue();
     }
 
-    public static LoadingCache<SfName, String> getSfToSfTypeCache() {
-        return SF_TO_SF_TYPE_CACHE;
+    private static Map<SfName, String> readAllServiceFunctionTypes() {
+        ServiceFunctions sfs = SfcProviderServiceFunctionAPI.readAllServiceFunctions();
+        Map<SfName, String> sfTypes = new HashMap<>();
+        if (sfs != null && sfs.getServiceFunction() != null) {
+            for (ServiceFunction sf : sfs.getServiceFunction()) {
+                sfTypes.put(sf.getName(), sf.getType().getValue());
+            }
+        }
+        return sfTypes;
     }
 
-    public static LoadingCache<SfcName, List<String>> getSfChainToSfTypeList() {
-        return SF_CHAIN_TO_SF_TYPE_LIST;
+    private static List<String> readServiceFunctionChainTypes(SfcName sfcName) {
+        ServiceFunctionChain serviceFunctionChain = SfcProviderServiceChainAPI.readServiceFunctionChain(sfcName);
+        return serviceFunctionChain == null ? null : getServiceFunctionChainTypes(serviceFunctionChain);
+    }
+
+    private static Map<SfcName, List<String>> readAllServiceFunctionChainTypes() {
+        ServiceFunctionChains sfcs = SfcProviderServiceChainAPI.readAllServiceFunctionChains();
+        Map<SfcName, List<String>> sfChainTypes = new HashMap<>();
+        if (sfcs != null && sfcs.getServiceFunctionChain() != null) {
+            for (ServiceFunctionChain sfc : sfcs.getServiceFunctionChain()) {
+                sfChainTypes.put(sfc.getName(), getServiceFunctionChainTypes(sfc));
+            }
+        }
+        return sfChainTypes;
+    }
+
+    private static List<String> getServiceFunctionChainTypes(ServiceFunctionChain serviceFunctionChain) {
+        List<String> serviceFunctionTypesForChain = new ArrayList<>();
+        for (SfcServiceFunction sfcSf : serviceFunctionChain.getSfcServiceFunction()) {
+            serviceFunctionTypesForChain.add(sfcSf.getType().getValue());
+        }
+        return Collections.unmodifiableList(serviceFunctionTypesForChain);
+    }
+
+    /**
+     * Bounded cache of values read from the data store, missing ones
+     * included. Values read while the cache is updated are not cached, since
+     * they may be older than the update. Prefetches read the whole list
+     * once, and cache the requested keys only.
+     */
+    private static final class SnapshotCache<K, V> {
+        private final String name;
+        private final Cache<K, Optional<V>> cache;
+        private final Function<K, V> loader;
+        private final Supplier<Map<K, V>> bulkLoader;
+        // Changed on every update, so that loads racing with updates are dropped
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicLong loadCount = new AtomicLong();
+        private final AtomicLong totalLoadTime = new AtomicLong();
+
+        SnapshotCache(String name, long maximumSize, Function<K, V> loader, Supplier<Map<K, V>> bulkLoader) {
+            this.name = name;
+            this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+            this.loader = loader;
+            this.bulkLoader = bulkLoader;
+        }
+
+        V get(K key) {
+            Optional<V> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return cached.orElse(null);
+            }
+
+            long loadVersion = version.get();
+            long loadStart = System.nanoTime();
+            V value = loader.apply(key);
+            totalLoadTime.addAndGet(System.nanoTime() - loadStart);
+            loadCount.incrementAndGet();
+
+            Optional<V> loaded = Optional.ofNullable(value);
+            cache.put(key, loaded);
+            if (version.get() != loadVersion) {
+                cache.asMap().remove(key, loaded);
+            }
+            return value;
+        }
+
+        void prefetch(Collection<K> keys) {
+            if (cache.asMap().keySet().containsAll(keys)) {
+                return;
+            }
+
+            long loadVersion = version.get();
+            long loadStart = System.nanoTime();
+            Map<K, V> values = bulkLoader.get();
+            totalLoadTime.addAndGet(System.nanoTime() - loadStart);
+            loadCount.incrementAndGet();
+
+            Map<K, Optional<V>> loaded = new HashMap<>();
+            for (K key : keys) {
+                loaded.put(key, Optional.ofNullable(values.get(key)));
+            }
+            cache.putAll(loaded);
+            if (version.get() != loadVersion) {
+                for (Map.Entry<K, Optional<V>> entry : loaded.entrySet()) {
+                    cache.asMap().remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        void update(K key, @Nullable V value) {
+            version.incrementAndGet();
+            cache.put(key, Optional.ofNullable(value));
+        }
+
+        Metrics getMetrics() {
+            long loads = loadCount.get();
+            return new Metrics(name, cache.size(), cache.stats(), loads,
+                    loads == 0 ? 0 : totalLoadTime.get() / loads);
+        }
+    }
+
+    /**
+     * Metrics of a cache.
+     */
+    public static final class Metrics {
+        private final String name;
+        private final long size;
+        private final double hitRatio;
+        private final long loadCount;
+        private final long averageLoadTime;
+        private final long evictionCount;
+
+        Metrics(String name, long size, CacheStats stats, long loadCount, long averageLoadTime) {
+            this.name = name;
+            this.size = size;
+            this.hitRatio = stats.hitRate();
+            this.loadCount = loadCount;
+            this.averageLoadTime = averageLoadTime;
+            this.evictionCount = stats.evictionCount();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public double getHitRatio() {
+            return hitRatio;
+        }
+
+        public long getLoadCount() {
+            return loadCount;
+        }
+
+        /**
+         * Get the average time of the data store reads.
+         *
+         * @return the average time, in nanoseconds
+         */
+        public long getAverageLoadTime() {
+            return averageLoadTime;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics [" + name + ", size " + size + ", hit ratio " + hitRatio + ", loads " + loadCount
+                    + ", average load time " + averageLoadTime + " ns, evictions " + evictionCount + "]";
+        }
     }
 }
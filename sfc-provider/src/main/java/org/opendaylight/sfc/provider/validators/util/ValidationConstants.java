@@ -19,7 +19,7 @@ import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 
 public final class ValidationConstants {
 
-    private static final String SFC_VALIDATION_ERROR = "SFC validation error";
+    public static final String SFC_VALIDATION_ERROR = "SFC validation error";
 
     /**
      * Yang instance identifiers.
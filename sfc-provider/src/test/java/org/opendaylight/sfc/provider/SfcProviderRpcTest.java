@@ -15,6 +15,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -28,6 +29,14 @@ import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceForwarderAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServiceFunctionAPI;
 import org.opendaylight.sfc.provider.api.SfcProviderServicePathAPI;
+import org.opendaylight.sfc.provider.api.SfcRenderedPathTracer;
+import org.opendaylight.sfc.provider.api.SfcServicePathId;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.AllocatePathIdInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.DeletePathIdInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.PathIdState;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReadPathIdInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReadPathIdOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ReservePathIdRangeInputBuilder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfDataPlaneLocatorName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
@@ -36,7 +45,11 @@ import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev1
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.ReadRenderedServicePathFirstHopInput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.ReadRenderedServicePathFirstHopInputBuilder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.ReadRenderedServicePathFirstHopOutput;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.TraceRenderedServicePathInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.TraceRenderedServicePathOutput;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.TraceHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.trace.hop.MatchedFlowBuilder;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.scf.rev140701.ServiceFunctionClassifiers;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.scf.rev140701.service.function.classifiers.ServiceFunctionClassifier;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.scf.rev140701.service.function.classifiers.ServiceFunctionClassifierBuilder;
@@ -154,6 +167,48 @@ public class SfcProviderRpcTest extends AbstractSfcRendererServicePathAPITest {
         assertFalse(result.get().getErrors().isEmpty());
     }
 
+    @Test
+    public void traceRenderedServicePathTest() throws Exception {
+        writeRSP();
+        RenderedServicePath rsp = SfcProviderRenderedPathAPI.readRenderedServicePath(RSP_NAME);
+        int hops = rsp.getRenderedServicePathHop().size();
+
+        // without a renderer, no flow is resolved
+        RpcResult<TraceRenderedServicePathOutput> result = sfcProviderRpc.traceRenderedServicePath(
+                new TraceRenderedServicePathInputBuilder().setName(RSP_NAME.getValue()).build()).get();
+        assertTrue(result.isSuccessful());
+        assertFalse(result.getResult().isResult());
+        assertEquals(hops, result.getResult().getTraceHop().size());
+
+        List<Long> labels = new ArrayList<>();
+        SfcRenderedPathTracer.setFlowResolver((sffName, pathId, serviceIndex, mplsLabel, vlanId) -> {
+            labels.add(mplsLabel);
+            return Collections.singletonList(new MatchedFlowBuilder().setTableId((short) 4)
+                    .setFlowId(sffName.getValue() + "-" + serviceIndex).setOwnerPathId(pathId).build());
+        });
+        try {
+            // the packet enters the path at the second hop, found by path-id
+            short secondIndex = (short) (rsp.getStartingIndex().toJava() - 1);
+            result = sfcProviderRpc.traceRenderedServicePath(new TraceRenderedServicePathInputBuilder()
+                    .setPathId(rsp.getPathId()).setServiceIndex(secondIndex).setMplsLabel(100L).build()).get();
+            assertTrue(result.isSuccessful());
+            assertTrue(result.getResult().isResult());
+            List<TraceHop> traceHops = result.getResult().getTraceHop();
+            assertEquals(hops - 1, traceHops.size());
+            assertEquals(secondIndex, traceHops.get(0).getServiceIndex().toJava().shortValue());
+            assertEquals(1, traceHops.get(0).getMatchedFlow().size());
+            assertEquals(Long.valueOf(100L), labels.get(0));
+            assertNull(labels.get(labels.size() - 1));
+        } finally {
+            SfcRenderedPathTracer.setFlowResolver(null);
+        }
+
+        assertFalse(sfcProviderRpc.traceRenderedServicePath(new TraceRenderedServicePathInputBuilder()
+                .setPathId(rsp.getPathId().toJava() + 1).build()).get().isSuccessful());
+        assertFalse(sfcProviderRpc.traceRenderedServicePath(new TraceRenderedServicePathInputBuilder().build()).get()
+                .isSuccessful());
+    }
+
     @Test
     public void putServiceFunctionChainsTest() {
         PutServiceFunctionChainsInputBuilder putServiceFunctionChainsInputBuilder =
@@ -188,6 +243,47 @@ public class SfcProviderRpcTest extends AbstractSfcRendererServicePathAPITest {
         assertNull(sfcProviderRpc.instantiateServiceFunctionChain(instantiateServiceFunctionChainInput.build()));
     }
 
+    @Test
+    public void pathIdRpcTest() throws Exception {
+        // reserve a range spanning several bit array entries
+        assertTrue(sfcProviderRpc.reservePathIdRange(new ReservePathIdRangeInputBuilder()
+                .setPathIdStart(100L).setPathIdEnd(399L).build()).get().getResult().isResult());
+        assertEquals(PathIdState.Reserved, readPathIdState(100L));
+        assertEquals(PathIdState.Reserved, readPathIdState(399L));
+        assertEquals(PathIdState.Available, readPathIdState(400L));
+
+        // overlapping ranges can not be reserved
+        assertFalse(sfcProviderRpc.reservePathIdRange(new ReservePathIdRangeInputBuilder()
+                .setPathIdStart(399L).setPathIdEnd(500L).build()).get().getResult().isResult());
+        assertEquals(PathIdState.Available, readPathIdState(400L));
+
+        // reserved path-ids are not generated, but can be explicitly allocated
+        assertFalse(SfcServicePathId.checkSuitablePathId(200L));
+        assertTrue(sfcProviderRpc.allocatePathId(new AllocatePathIdInputBuilder().setPathId(200L).build())
+                .get().getResult().isResult());
+        assertEquals(PathIdState.Allocated, readPathIdState(200L));
+        assertFalse(sfcProviderRpc.allocatePathId(new AllocatePathIdInputBuilder().setPathId(200L).build())
+                .get().getResult().isResult());
+
+        // deleting a path-id frees it and drops its reservation
+        assertTrue(sfcProviderRpc.deletePathId(new DeletePathIdInputBuilder().setPathId(200L).build())
+                .get().getResult().isResult());
+        assertEquals(PathIdState.Available, readPathIdState(200L));
+        assertTrue(sfcProviderRpc.deletePathId(new DeletePathIdInputBuilder().setPathId(201L).build())
+                .get().getResult().isResult());
+        assertEquals(PathIdState.Available, readPathIdState(201L));
+        assertEquals(PathIdState.Reserved, readPathIdState(202L));
+
+        assertFalse(sfcProviderRpc.readPathId(new ReadPathIdInputBuilder().build()).get().isSuccessful());
+    }
+
+    private PathIdState readPathIdState(long pathId) throws Exception {
+        RpcResult<ReadPathIdOutput> result = sfcProviderRpc.readPathId(
+                new ReadPathIdInputBuilder().setPathId(pathId).build()).get();
+        assertTrue(result.isSuccessful());
+        return result.getResult().getState();
+    }
+
     private void createRenderedServicePath(RspName pathName) {
         ServiceFunctionPath serviceFunctionPath = SfcProviderServicePathAPI.readServiceFunctionPath(SFP_NAME);
         RenderedServicePath configRsp = SfcProviderRenderedPathAPI.createRenderedServicePathInConfig(
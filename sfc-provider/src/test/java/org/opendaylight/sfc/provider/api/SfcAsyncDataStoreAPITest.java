@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.sfc.provider.AbstractDataStoreManager;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.ServiceFunctionChains;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChainBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChainKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunctionKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+
+public class SfcAsyncDataStoreAPITest extends AbstractDataStoreManager {
+
+    private static final int CHAIN_COUNT = 50;
+
+    @Before
+    public void before() {
+        setupSfc();
+    }
+
+    @After
+    public void after() throws Exception {
+        close();
+    }
+
+    @Test
+    public void readsOwnWrites() throws Exception {
+        for (int i = 0; i < CHAIN_COUNT; i++) {
+            SfcName sfcName = new SfcName("sfc" + i);
+            SfcAsyncDataStoreAPI.mergeAsync(chainIID(sfcName), new ServiceFunctionChainBuilder()
+                    .withKey(new ServiceFunctionChainKey(sfcName)).setName(sfcName).build(),
+                    LogicalDatastoreType.CONFIGURATION);
+        }
+        Optional<ServiceFunctionChains> chains = SfcAsyncDataStoreAPI.readAsync(
+                InstanceIdentifier.create(ServiceFunctionChains.class), LogicalDatastoreType.CONFIGURATION).get();
+        assertTrue(chains.isPresent());
+        assertEquals(CHAIN_COUNT, chains.get().getServiceFunctionChain().size());
+
+        SfcAsyncDataStoreAPI.deleteAsync(chainIID(new SfcName("sfc0")), LogicalDatastoreType.CONFIGURATION);
+        assertFalse(SfcAsyncDataStoreAPI.readAsync(chainIID(new SfcName("sfc0")), LogicalDatastoreType.CONFIGURATION)
+                .get().isPresent());
+    }
+
+    @Test
+    public void writesFailIndependently() throws Exception {
+        // the parent chain does not exist
+        SfcName missingSfcName = new SfcName("missing-sfc");
+        ListenableFuture<Void> failedWrite = SfcAsyncDataStoreAPI.submit(writeTx -> writeTx.put(
+                LogicalDatastoreType.CONFIGURATION, chainIID(missingSfcName).child(SfcServiceFunction.class,
+                        new SfcServiceFunctionKey("firewall")),
+                new SfcServiceFunctionBuilder().withKey(new SfcServiceFunctionKey("firewall")).setName("firewall")
+                        .build()));
+        SfcName sfcName = new SfcName("sfc");
+        ListenableFuture<Void> write = SfcAsyncDataStoreAPI.mergeAsync(chainIID(sfcName),
+                new ServiceFunctionChainBuilder().withKey(new ServiceFunctionChainKey(sfcName)).setName(sfcName)
+                        .build(), LogicalDatastoreType.CONFIGURATION);
+
+        try {
+            failedWrite.get();
+            fail("the write should have failed");
+        } catch (ExecutionException e) {
+            // expected
+        }
+        write.get();
+        assertTrue(SfcAsyncDataStoreAPI.readAsync(chainIID(sfcName), LogicalDatastoreType.CONFIGURATION).get()
+                .isPresent());
+        assertFalse(SfcAsyncDataStoreAPI.readAsync(chainIID(missingSfcName), LogicalDatastoreType.CONFIGURATION)
+                .get().isPresent());
+    }
+
+    private static InstanceIdentifier<ServiceFunctionChain> chainIID(SfcName sfcName) {
+        return InstanceIdentifier.builder(ServiceFunctionChains.class)
+                .child(ServiceFunctionChain.class, new ServiceFunctionChainKey(sfcName)).build();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.Resource;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.ResourceLock;
+
+public class SfcConcurrencyAPITest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        SfcConcurrencyAPI.resetLockStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        SfcConcurrencyAPI.setLockTimeout(2000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testLockIsExclusivePerResource() throws Exception {
+        SfcConcurrencyAPI.setLockTimeout(50, TimeUnit.MILLISECONDS);
+        try (ResourceLock lock = SfcConcurrencyAPI.lock(Resource.SFP, "sfp1")) {
+            assertNotNull(lock);
+
+            // reentrant for the owner thread
+            try (ResourceLock again = SfcConcurrencyAPI.lock(Resource.SFP, "sfp1")) {
+                assertNotNull(again);
+            }
+
+            // not available to other threads
+            assertFalse(lockInOtherThread(Resource.SFP, Collections.singleton("sfp1")));
+            assertEquals(1, SfcConcurrencyAPI.getLockTimeouts());
+            assertTrue(SfcConcurrencyAPI.getLockWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+
+            // same name, different kind of resource
+            assertTrue(lockInOtherThread(Resource.SFF, Collections.singleton("sfp1")));
+        }
+
+        // released on close
+        assertTrue(lockInOtherThread(Resource.SFP, Collections.singleton("sfp1")));
+        assertEquals(5, SfcConcurrencyAPI.getLockAcquisitions());
+    }
+
+    @Test
+    public void testMultiResourceLockIsAllOrNothing() throws Exception {
+        SfcConcurrencyAPI.setLockTimeout(50, TimeUnit.MILLISECONDS);
+        try (ResourceLock lock = SfcConcurrencyAPI.lock(Resource.SFF, "sff2")) {
+            assertNotNull(lock);
+            assertFalse(lockInOtherThread(Resource.SFF, Arrays.asList("sff1", "sff2")));
+        }
+
+        // sff1 was not left locked by the failed attempt
+        assertTrue(lockInOtherThread(Resource.SFF, Collections.singleton("sff1")));
+    }
+
+    @Test
+    public void testMultiResourceLockOrdering() throws Exception {
+        Future<Boolean> first = executor.submit(() -> lockRepeatedly("sff1", "sff2", "sff3"));
+        Future<Boolean> second = executor.submit(() -> lockRepeatedly("sff3", "sff2", "sff1"));
+        assertTrue(first.get(30, TimeUnit.SECONDS));
+        assertTrue(second.get(30, TimeUnit.SECONDS));
+        assertEquals(0, SfcConcurrencyAPI.getLockTimeouts());
+    }
+
+    private boolean lockInOtherThread(Resource resource, Collection<?> ids) throws Exception {
+        return executor.submit(() -> {
+            try (ResourceLock lock = SfcConcurrencyAPI.lock(resource, ids)) {
+                return lock != null;
+            }
+        }).get();
+    }
+
+    private static boolean lockRepeatedly(String... sffNames) {
+        for (int i = 0; i < 10000; i++) {
+            try (ResourceLock lock = SfcConcurrencyAPI.lock(Resource.SFF, Arrays.asList(sffNames))) {
+                if (lock == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunctionBuilder;
+
+public class SfcConfigCacheTest {
+    private static final SfName SF_NAME = new SfName("sf1");
+    private static final ServiceFunction SF = new ServiceFunctionBuilder().setName(SF_NAME).build();
+
+    private final SfcConfigCache<SfName, ServiceFunction> cache = SfcConfigCache.SERVICE_FUNCTIONS;
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @After
+    public void after() {
+        cache.disable();
+    }
+
+    private ServiceFunction read(SfName name) {
+        reads.incrementAndGet();
+        return SF;
+    }
+
+    @Test
+    public void disabledCacheReadsTheDatastore() {
+        cache.get(SF_NAME, this::read);
+        cache.get(SF_NAME, this::read);
+        assertEquals(2, reads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void enabledCacheReadsTheDatastoreOnce() {
+        cache.enable();
+        assertSame(SF, cache.get(SF_NAME, this::read));
+        assertSame(SF, cache.get(SF_NAME, this::read));
+        assertEquals(1, reads.get());
+
+        cache.invalidate(SF_NAME);
+        cache.get(SF_NAME, this::read);
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void missingObjectsAreNotCached() {
+        cache.enable();
+        assertNull(cache.get(SF_NAME, name -> null));
+        assertSame(SF, cache.get(SF_NAME, this::read));
+    }
+
+    @Test
+    public void objectReadWhileUpdatedIsNotCached() {
+        cache.enable();
+        ServiceFunction updatedSf = new ServiceFunctionBuilder(SF).setRestUri(null).build();
+        // the object is updated while being read, what was read may be stale
+        cache.get(SF_NAME, name -> {
+            cache.invalidate(SF_NAME);
+            return read(name);
+        });
+        assertEquals(0, cache.size());
+
+        cache.update(SF_NAME, updatedSf);
+        assertSame(updatedSf, cache.get(SF_NAME, this::read));
+        assertEquals(1, reads.get());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.RspName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SnName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHopBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHopKey;
+
+public class SfcPathDependencyIndexTest {
+    private static final SfName FW = new SfName("fw");
+    private static final SfName DPI = new SfName("dpi");
+    private static final SffName SFF_1 = new SffName("sff1");
+    private static final SffName SFF_2 = new SffName("sff2");
+    private static final SfpName SFP = new SfpName("sfp");
+    private static final RspName RSP = new RspName("sfp-Path-1");
+    private static final RspName REVERSE_RSP = new RspName("sfp-Path-1-Reverse");
+
+    private SfcPathDependencyIndex dependencyIndex;
+
+    @Before
+    public void setUp() {
+        dependencyIndex = new SfcPathDependencyIndex();
+        dependencyIndex.updateRenderedServicePath(buildRenderedServicePath(RSP, FW, DPI));
+        dependencyIndex.updateRenderedServicePath(buildRenderedServicePath(REVERSE_RSP, DPI, FW));
+    }
+
+    @Test
+    public void pathsOfServiceFunctionsAndForwarders() {
+        assertEquals(new ArrayList<>(Arrays.asList(RSP, REVERSE_RSP)),
+                new ArrayList<>(dependencyIndex.getRenderedServicePathsOfServiceFunction(FW)));
+        assertEquals(Collections.singleton(SFP), dependencyIndex.getServiceFunctionPathsOfServiceFunction(DPI));
+        assertEquals(Collections.singleton(SFP), dependencyIndex.getServiceFunctionPathsOfServiceFunctionForwarder(
+                SFF_2));
+        assertEquals(2, dependencyIndex.getRenderedServicePathsOfServiceFunctionPath(SFP).size());
+        assertEquals(SFP, dependencyIndex.getServiceFunctionPath(RSP));
+
+        dependencyIndex.removeRenderedServicePath(RSP);
+        dependencyIndex.removeRenderedServicePath(REVERSE_RSP);
+        assertTrue(dependencyIndex.getRenderedServicePathsOfServiceFunctionForwarder(SFF_1).isEmpty());
+        assertTrue(dependencyIndex.getServiceFunctionPathsOfServiceFunction(FW).isEmpty());
+        assertNull(dependencyIndex.getServiceFunctionPath(RSP));
+    }
+
+    @Test
+    public void enableKeepsTheChangesSeenByTheListener() {
+        RspName recent = new RspName("recent");
+        dependencyIndex.removeRenderedServicePath(REVERSE_RSP);
+        dependencyIndex.updateRenderedServicePath(buildRenderedServicePath(RSP, FW, FW));
+        assertFalse(dependencyIndex.isEnabled());
+
+        // Read before the listener saw the changes above
+        dependencyIndex.enable(Arrays.asList(buildRenderedServicePath(RSP, FW, DPI),
+                buildRenderedServicePath(REVERSE_RSP, DPI, FW), buildRenderedServicePath(recent, DPI, DPI)));
+        assertTrue(dependencyIndex.isEnabled());
+        assertEquals(new ArrayList<>(Arrays.asList(recent)),
+                new ArrayList<>(dependencyIndex.getRenderedServicePathsOfServiceFunction(DPI)));
+        assertNull(dependencyIndex.getServiceFunctionPath(REVERSE_RSP));
+
+        dependencyIndex.removeRenderedServicePath(recent);
+        dependencyIndex.disable();
+        dependencyIndex.enable(Collections.singletonList(buildRenderedServicePath(recent, DPI, DPI)));
+        assertEquals(SFP, dependencyIndex.getServiceFunctionPath(recent));
+    }
+
+    @Test
+    public void forwarderOfServiceNode() {
+        dependencyIndex.updateServiceFunctionForwarder(SFF_1, new SnName("node1"));
+        assertEquals(SFF_1, dependencyIndex.getServiceFunctionForwarder(new SnName("node1")));
+
+        dependencyIndex.updateServiceFunctionForwarder(SFF_1, new SnName("node2"));
+        assertNull(dependencyIndex.getServiceFunctionForwarder(new SnName("node1")));
+        assertEquals(SFF_1, dependencyIndex.getServiceFunctionForwarder(new SnName("node2")));
+
+        dependencyIndex.removeServiceFunctionForwarder(SFF_1);
+        assertNull(dependencyIndex.getServiceFunctionForwarder(new SnName("node2")));
+    }
+
+    private static RenderedServicePath buildRenderedServicePath(RspName rspName, SfName firstSf, SfName secondSf) {
+        List<RenderedServicePathHop> hops = new ArrayList<>();
+        hops.add(new RenderedServicePathHopBuilder().withKey(new RenderedServicePathHopKey((short) 0))
+                .setServiceFunctionName(firstSf).setServiceFunctionForwarder(SFF_1).build());
+        hops.add(new RenderedServicePathHopBuilder().withKey(new RenderedServicePathHopKey((short) 1))
+                .setServiceFunctionName(secondSf).setServiceFunctionForwarder(SFF_2).build());
+        return new RenderedServicePathBuilder().setName(rspName).setParentServiceFunctionPath(SFP)
+                .setRenderedServicePathHop(hops).build();
+    }
+}
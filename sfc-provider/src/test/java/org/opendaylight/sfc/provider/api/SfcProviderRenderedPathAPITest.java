@@ -9,21 +9,30 @@
 package org.opendaylight.sfc.provider.api;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.path.first.hop.info.RenderedServicePathFirstHop;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.rendered.service.path.RenderedServicePathHop;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPathKey;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.state.service.function.path.state.SfpRenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Mac;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Mpls;
@@ -182,8 +191,9 @@ public class SfcProviderRenderedPathAPITest extends AbstractSfcRendererServicePa
         RenderedServicePath configRsp = SfcProviderRenderedPathAPI
                 .createRenderedServicePathInConfig(serviceFunctionPath, RSP_NAME.getValue());
 
-        SfcProviderRenderedPathAPI
+        RenderedServicePath renderedServicePath = SfcProviderRenderedPathAPI
                 .createRenderedServicePathAndState(serviceFunctionPath, configRsp);
+        assertNotNull(renderedServicePath);
 
         // check if SFP oper contains RSP
         List<SfpRenderedServicePath> sfpRenderedServicePathList = SfcProviderServicePathAPI
@@ -191,6 +201,47 @@ public class SfcProviderRenderedPathAPITest extends AbstractSfcRendererServicePa
         assertNotNull(sfpRenderedServicePathList);
         assertNotNull(sfpRenderedServicePathList.get(0));
         assertEquals(sfpRenderedServicePathList.get(0).getName(), RSP_NAME);
+
+        // check if the SFF and SF oper of every hop contain the RSP, written along with it
+        for (RenderedServicePathHop hop : renderedServicePath.getRenderedServicePathHop()) {
+            assertTrue(SfcProviderServiceForwarderAPI.readRspNamesFromSffState(hop.getServiceFunctionForwarder())
+                    .contains(RSP_NAME));
+            assertNotNull(SfcProviderServiceFunctionAPI.readServiceFunctionState(hop.getServiceFunctionName()));
+        }
+    }
+
+    @Test
+    public void testCreateRenderedServicePathsInConfig() {
+        init();
+
+        ServiceFunctionPath serviceFunctionPath = SfcProviderServicePathAPI.readServiceFunctionPath(SFP_NAME);
+        assertNotNull("Must be not null", serviceFunctionPath);
+        SfpName sfpName2 = new SfpName("unittest-sfp-2");
+        ServiceFunctionPath serviceFunctionPath2 = new ServiceFunctionPathBuilder(serviceFunctionPath)
+                .setName(sfpName2).withKey(new ServiceFunctionPathKey(sfpName2)).build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Map<SfpName, RenderedServicePath> rsps;
+        try {
+            rsps = SfcProviderRenderedPathAPI.createRenderedServicePathsInConfig(
+                    Arrays.asList(serviceFunctionPath, serviceFunctionPath2), executor);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, rsps.size());
+        RenderedServicePath rsp = rsps.get(SFP_NAME);
+        RenderedServicePath rsp2 = rsps.get(sfpName2);
+        assertNotEquals(rsp.getPathId(), rsp2.getPathId());
+        for (RenderedServicePath renderedServicePath : rsps.values()) {
+            assertEquals(renderedServicePath, SfcProviderRenderedPathAPI
+                    .readRenderedServicePath(renderedServicePath.getName(), LogicalDatastoreType.CONFIGURATION));
+            // the SFP is symmetric, the reverse RSP is written along with it
+            assertNotNull(SfcProviderRenderedPathAPI.readRenderedServicePath(
+                    SfcProviderRenderedPathAPI.generateReversedPathName(renderedServicePath.getName()),
+                    LogicalDatastoreType.CONFIGURATION));
+            assertFalse(SfcServicePathId.checkSuitablePathId(renderedServicePath.getPathId().toJava()));
+        }
     }
 
     @SuppressWarnings("static-access")
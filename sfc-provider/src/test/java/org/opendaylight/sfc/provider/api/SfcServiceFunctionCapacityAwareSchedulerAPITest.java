@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.sfc.provider.AbstractDataStoreManager;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfDataPlaneLocatorName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfpName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.function.base.SfDataPlaneLocator;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunction;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sf.rev140701.service.functions.ServiceFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChain;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChainBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.ServiceFunctionChainKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunctionBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfc.rev140701.service.function.chain.grouping.service.function.chain.SfcServiceFunctionKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPath;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPathBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.ServiceFunctionPathKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.service.function.path.ServicePathHopBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sfp.rev140701.service.function.paths.service.function.path.ServicePathHopKey;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.VxlanGpe;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
+
+public class SfcServiceFunctionCapacityAwareSchedulerAPITest extends AbstractDataStoreManager {
+
+    private static final SftTypeName FIREWALL = new SftTypeName("firewall");
+    private static final SfName SMALL_FW = new SfName("capacity_fw_small");
+    private static final SfName BIG_FW = new SfName("capacity_fw_big");
+
+    private ServiceFunctionChain sfChain;
+    private ServiceFunctionPath sfPath;
+    private SfcServiceFunctionCapacityAwareSchedulerAPI scheduler;
+
+    @Before
+    public void before() {
+        setupSfc();
+
+        scheduler = new SfcServiceFunctionCapacityAwareSchedulerAPI();
+        SfcServiceFunctionCapacityAwareSchedulerAPI.forgetServiceFunction(SMALL_FW);
+        SfcServiceFunctionCapacityAwareSchedulerAPI.forgetServiceFunction(BIG_FW);
+
+        SfcName sfcName = new SfcName("capacity-unittest-chain-1");
+        sfChain = new ServiceFunctionChainBuilder().setName(sfcName).withKey(new ServiceFunctionChainKey(sfcName))
+                .setSfcServiceFunction(Collections.singletonList(new SfcServiceFunctionBuilder().setName("firewall")
+                        .withKey(new SfcServiceFunctionKey("firewall")).setType(FIREWALL).build()))
+                .build();
+        sfPath = new ServiceFunctionPathBuilder().withKey(new ServiceFunctionPathKey(new SfpName("key")))
+                .setServiceChainName(sfcName).setServicePathHop(new ArrayList<>()).build();
+
+        SfDataPlaneLocator sfDpl = SimpleTestEntityBuilder.buildSfDataPlaneLocator(
+                new SfDataPlaneLocatorName("capacity-5.5.5.5:555-vxlan"),
+                SimpleTestEntityBuilder.buildLocatorTypeIp(new IpAddress(new Ipv4Address("5.5.5.5")), 555),
+                new SffName("sff-capacity"), VxlanGpe.class);
+        writeServiceFunction(SMALL_FW, "192.168.100.101", sfDpl, 2L);
+        writeServiceFunction(BIG_FW, "192.168.100.102", sfDpl, 5L);
+    }
+
+    @Test
+    public void pathsAreSpreadByRemainingCapacity() {
+        Map<SfName, Integer> assignedPaths = new HashMap<>();
+        for (int i = 0; i < 7; i++) {
+            List<SfName> sfNames = scheduler.scheduleServiceFunctions(sfChain, 255, sfPath);
+            assertNotNull(sfNames);
+            assignedPaths.merge(sfNames.get(0), 1, Integer::sum);
+        }
+        assertEquals(Integer.valueOf(2), assignedPaths.get(SMALL_FW));
+        assertEquals(Integer.valueOf(5), assignedPaths.get(BIG_FW));
+
+        // a released path frees capacity on its SF
+        SfcServiceFunctionCapacityAwareSchedulerAPI.releaseServiceFunction(SMALL_FW);
+        assertEquals(SMALL_FW, scheduler.scheduleServiceFunctions(sfChain, 255, sfPath).get(0));
+
+        // SFs over capacity are still scheduled
+        assertNotNull(scheduler.scheduleServiceFunctions(sfChain, 255, sfPath));
+    }
+
+    @Test
+    public void serviceFunctionsAreReleasedWhenAPathCanNotBeScheduled() {
+        SfcName sfcName = new SfcName("capacity-unittest-chain-2");
+        ServiceFunctionChain chain = new ServiceFunctionChainBuilder().setName(sfcName)
+                .withKey(new ServiceFunctionChainKey(sfcName))
+                .setSfcServiceFunction(Arrays.asList(
+                        new SfcServiceFunctionBuilder().setName("firewall").withKey(new SfcServiceFunctionKey(
+                                "firewall")).setType(FIREWALL).build(),
+                        new SfcServiceFunctionBuilder().setName("dpi").withKey(new SfcServiceFunctionKey("dpi"))
+                                .setType(new SftTypeName("dpi")).build()))
+                .build();
+
+        // no SF of the second hop type
+        assertNull(scheduler.scheduleServiceFunctions(chain, 255, sfPath));
+        assertEquals(0, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(SMALL_FW).get());
+        assertEquals(0, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(BIG_FW).get());
+
+        // SFs scheduled for an RSP that could not be created
+        List<SfName> sfNames = scheduler.scheduleServiceFunctions(sfChain, 255, sfPath);
+        assertEquals(1, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(sfNames.get(0)).get());
+        scheduler.releaseServiceFunctions(sfPath, sfNames);
+        assertEquals(0, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(sfNames.get(0)).get());
+    }
+
+    @Test
+    public void pinnedAndReverseHopsAreCounted() {
+        ServiceFunctionPath pinnedPath = new ServiceFunctionPathBuilder(sfPath)
+                .setServicePathHop(Collections.singletonList(new ServicePathHopBuilder().setHopNumber((short) 0)
+                        .withKey(new ServicePathHopKey((short) 0)).setServiceFunctionName(SMALL_FW).build()))
+                .build();
+        List<SfName> sfNames = scheduler.scheduleServiceFunctions(sfChain, 255, pinnedPath);
+        assertEquals(Collections.singletonList(SMALL_FW), sfNames);
+        assertEquals(1, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(SMALL_FW).get());
+
+        scheduler.assignReverseServiceFunctions(sfNames);
+        assertEquals(2, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(SMALL_FW).get());
+
+        // Both RSPs removed from the SF operational state, and once more
+        SfcServiceFunctionCapacityAwareSchedulerAPI.releaseServiceFunction(SMALL_FW);
+        SfcServiceFunctionCapacityAwareSchedulerAPI.releaseServiceFunction(SMALL_FW);
+        SfcServiceFunctionCapacityAwareSchedulerAPI.releaseServiceFunction(SMALL_FW);
+        assertEquals(0, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(SMALL_FW).get());
+
+        scheduler.scheduleServiceFunctions(sfChain, 255, pinnedPath);
+        scheduler.releaseServiceFunctions(pinnedPath, sfNames);
+        assertEquals(0, SfcServiceFunctionCapacityAwareSchedulerAPI.getAssignedPaths(SMALL_FW).get());
+    }
+
+    private static void writeServiceFunction(SfName sfName, String ipMgmtAddress, SfDataPlaneLocator sfDpl,
+            long capacity) {
+        ServiceFunction serviceFunction = new ServiceFunctionBuilder(SimpleTestEntityBuilder.buildServiceFunction(
+                sfName, FIREWALL, new IpAddress(new Ipv4Address(ipMgmtAddress)), sfDpl, Boolean.FALSE))
+                .setCapacity(capacity).build();
+        SfcProviderServiceFunctionAPI.putServiceFunction(serviceFunction);
+        SfcProviderServiceTypeAPI.createServiceFunctionTypeEntry(serviceFunction);
+    }
+}
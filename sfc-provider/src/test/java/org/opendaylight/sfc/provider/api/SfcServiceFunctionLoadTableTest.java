@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+
+public class SfcServiceFunctionLoadTableTest {
+    private static final SftTypeName FIREWALL = new SftTypeName("firewall");
+    private static final SftTypeName DPI = new SftTypeName("dpi");
+    private static final SfName FW_1 = new SfName("fw_1");
+    private static final SfName FW_2 = new SfName("fw_2");
+    private static final SfName FW_3 = new SfName("fw_3");
+
+    private SfcServiceFunctionLoadTable loadTable;
+
+    @Before
+    public void setUp() {
+        loadTable = new SfcServiceFunctionLoadTable();
+        loadTable.updateServiceFunction(FW_1, FIREWALL);
+        loadTable.updateServiceFunction(FW_2, FIREWALL);
+        loadTable.updateCpuUtilization(FW_1, 20L);
+        loadTable.updateCpuUtilization(FW_2, 10L);
+    }
+
+    @Test
+    public void leastLoadedOfType() {
+        assertEquals(FW_2, loadTable.assignLeastLoaded(FIREWALL));
+        assertNull(loadTable.assignLeastLoaded(DPI));
+
+        loadTable.updateCpuUtilization(FW_2, 30L);
+        assertEquals(FW_1, loadTable.assignLeastLoaded(FIREWALL));
+    }
+
+    @Test
+    public void inFlightAssignmentsSpreadTheLoad() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FW_2, loadTable.assignLeastLoaded(FIREWALL));
+        }
+        assertEquals(20, loadTable.getLoad(FW_2));
+        // fw_1 is picked once fw_2 load, with its in-flight paths, is higher
+        assertEquals(FW_1, loadTable.assignLeastLoaded(FIREWALL));
+
+        // the next report accounts for the in-flight paths
+        loadTable.updateCpuUtilization(FW_2, 15L);
+        assertEquals(15, loadTable.getLoad(FW_2));
+        assertEquals(FW_2, loadTable.assignLeastLoaded(FIREWALL));
+    }
+
+    @Test
+    public void releasedAssignmentsNoLongerAddLoad() {
+        assertEquals(FW_2, loadTable.assignLeastLoaded(FIREWALL));
+        assertEquals(11, loadTable.getLoad(FW_2));
+        loadTable.release(FW_2);
+        assertEquals(10, loadTable.getLoad(FW_2));
+
+        // nothing left to release once the next report accounts for the path
+        assertEquals(FW_2, loadTable.assignLeastLoaded(FIREWALL));
+        loadTable.updateCpuUtilization(FW_2, 12L);
+        loadTable.release(FW_2);
+        assertEquals(12, loadTable.getLoad(FW_2));
+    }
+
+    @Test
+    public void serviceFunctionsWithoutReportAreRankedLast() {
+        loadTable.updateServiceFunction(FW_3, FIREWALL);
+        loadTable.updateCpuUtilization(FW_1, 90L);
+        loadTable.updateCpuUtilization(FW_2, 95L);
+        assertEquals(FW_1, loadTable.assignLeastLoaded(FIREWALL));
+
+        loadTable.updateCpuUtilization(FW_1, null);
+        loadTable.updateCpuUtilization(FW_2, null);
+        assertEquals(FW_1, loadTable.assignLeastLoaded(FIREWALL));
+        assertEquals(FW_2, loadTable.assignLeastLoaded(FIREWALL));
+        assertEquals(FW_3, loadTable.assignLeastLoaded(FIREWALL));
+    }
+
+    @Test
+    public void removedServiceFunctionsAreNotAssigned() {
+        loadTable.removeServiceFunction(FW_2);
+        assertEquals(SfcServiceFunctionLoadTable.NO_SERVICE_FUNCTION, loadTable.getLoad(FW_2));
+        assertEquals(FW_1, loadTable.assignLeastLoaded(FIREWALL));
+
+        // its report is kept in case it is configured again
+        loadTable.updateServiceFunction(FW_2, DPI);
+        assertEquals(10, loadTable.getLoad(FW_2));
+        assertEquals(FW_2, loadTable.assignLeastLoaded(DPI));
+        assertEquals(FW_1, loadTable.assignLeastLoaded(FIREWALL));
+    }
+}
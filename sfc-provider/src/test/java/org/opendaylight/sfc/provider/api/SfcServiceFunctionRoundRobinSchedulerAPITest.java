@@ -13,8 +13,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
@@ -92,13 +92,13 @@ public class SfcServiceFunctionRoundRobinSchedulerAPITest extends AbstractDataSt
      * returned as a string
      */
     @Test
-    public void testServiceFunctionRoundRobinScheduler1() throws IllegalAccessException {
+    public void testServiceFunctionRoundRobinScheduler1() {
 
         // before test, private static variable MAP_COUNT_ROUND_ROBIN has to be
         // restored to original
         // state
-        Whitebox.getField(SfcServiceFunctionRoundRobinSchedulerAPI.class, "MAP_COUNT_ROUND_ROBIN").set(HashMap.class,
-                new HashMap<>());
+        Whitebox.<Map<?, ?>>getInternalState(SfcServiceFunctionRoundRobinSchedulerAPI.class, "MAP_COUNT_ROUND_ROBIN")
+                .clear();
 
         SfcServiceFunctionRoundRobinSchedulerAPI scheduler = new SfcServiceFunctionRoundRobinSchedulerAPI();
 
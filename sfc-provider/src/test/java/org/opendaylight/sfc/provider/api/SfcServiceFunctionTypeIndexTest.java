@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sft.rev140701.service.function.types.ServiceFunctionType;
+
+public class SfcServiceFunctionTypeIndexTest {
+    private static final SftTypeName FIREWALL = new SftTypeName("firewall");
+    private static final SftTypeName DPI = new SftTypeName("dpi");
+    private static final SfName FW_1 = new SfName("fw_1");
+    private static final SfName FW_2 = new SfName("fw_2");
+
+    private SfcServiceFunctionTypeIndex typeIndex;
+
+    @Before
+    public void setUp() {
+        typeIndex = new SfcServiceFunctionTypeIndex();
+        typeIndex.updateServiceFunction(FW_1, FIREWALL);
+        typeIndex.updateServiceFunction(FW_2, FIREWALL);
+    }
+
+    @Test
+    public void liveServiceFunctionsOfType() {
+        assertEquals(Arrays.asList(FW_1, FW_2), typeIndex.getServiceFunctions(FIREWALL));
+        assertEquals(FIREWALL, typeIndex.getType(FW_1));
+        ServiceFunctionType serviceFunctionType = typeIndex.getServiceFunctionType(FIREWALL);
+        assertEquals(2, serviceFunctionType.getSftServiceFunctionName().size());
+        assertNull(typeIndex.getServiceFunctionType(DPI));
+
+        typeIndex.removeServiceFunction(FW_1);
+        assertEquals(Collections.singletonList(FW_2), typeIndex.getServiceFunctions(FIREWALL));
+        assertNull(typeIndex.getType(FW_1));
+
+        // a known type without SFs, even once exported
+        typeIndex.removeServiceFunction(FW_2);
+        typeIndex.takeChangedTypes();
+        assertTrue(typeIndex.getServiceFunctionType(FIREWALL).getSftServiceFunctionName().isEmpty());
+    }
+
+    @Test
+    public void changesAreCoalescedUntilTaken() {
+        Map<SftTypeName, ?> changedTypes = typeIndex.takeChangedTypes();
+        assertEquals(Collections.singletonMap(FIREWALL, Arrays.asList(FW_1, FW_2)), changedTypes);
+        assertFalse(typeIndex.hasChangedTypes());
+
+        typeIndex.updateServiceFunction(FW_1, DPI);
+        typeIndex.removeServiceFunction(FW_2);
+        typeIndex.updateServiceFunction(FW_2, DPI);
+        assertTrue(typeIndex.hasChangedTypes());
+        changedTypes = typeIndex.takeChangedTypes();
+        assertEquals(2, changedTypes.size());
+        assertEquals(Collections.emptyList(), changedTypes.get(FIREWALL));
+        assertEquals(Arrays.asList(FW_1, FW_2), changedTypes.get(DPI));
+
+        // the export failed
+        typeIndex.markChanged(changedTypes.keySet());
+        assertEquals(changedTypes, typeIndex.takeChangedTypes());
+    }
+}
@@ -11,14 +11,25 @@ package org.opendaylight.sfc.provider.api;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.GenerationAlgorithmEnum;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.PathIdState;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.ServicePathIds;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathId;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathIdBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.service.path.id.rev150804.service.path.ids.ServicePathIdKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
 
 /**
  * SfcServicePathId Tester.
@@ -90,6 +101,19 @@ public class SfcServicePathIdTest extends AbstractSfcRendererServicePathAPITest
         pathIdSet.clear();
     }
 
+    @Test
+    public void testCheckAndAllocatePathIds() throws Exception {
+        List<Long> pathIds = SfcServicePathId.checkAndAllocatePathIds(20);
+        assertEquals(20, new HashSet<>(pathIds).size());
+        for (Long pathId : pathIds) {
+            assertFalse(SfcServicePathId.checkSuitablePathId(pathId));
+        }
+        assertTrue(SfcServicePathId.freePathIds(pathIds));
+        for (Long pathId : pathIds) {
+            assertTrue(SfcServicePathId.checkSuitablePathId(pathId));
+        }
+    }
+
     @Test
     public void testAllocatePathId() throws Exception {
         for (Integer pathId : pathIdList) {
@@ -169,4 +193,134 @@ public class SfcServicePathIdTest extends AbstractSfcRendererServicePathAPITest
             assertTrue(SfcServicePathId.freePathId(pathId));
         }
     }
+
+    @Test
+    public void testSequentialGenerationAlgorithmPair() throws Exception {
+        SfcServicePathId.setGenerationAlgorithm(GenerationAlgorithmEnum.Sequential);
+        final long firstPathId = SfcServicePathId.checkAndAllocatePathId();
+
+        // The pathId and its symmetric pathId are allocated at once
+        long[] pathIds = SfcServicePathId.checkAndAllocatePathIdPair(null, true);
+        assertEquals(firstPathId + 1, pathIds[0]);
+        assertEquals(firstPathId + 2, pathIds[1]);
+        pathIds = SfcServicePathId.checkAndAllocatePathIdPair(null, false);
+        assertEquals(firstPathId + 3, pathIds[0]);
+        assertEquals(-1, pathIds[1]);
+        assertNull(SfcServicePathId.checkAndAllocatePathIdPair(firstPathId, true));
+
+        for (long pathId = firstPathId; pathId <= firstPathId + 3; ++pathId) {
+            assertTrue(SfcServicePathId.freePathId(pathId));
+        }
+    }
+
+    @Test
+    public void testBitArrayLayout() throws Exception {
+        // path-id N of a word is stored in bit (64 - N) mod 64 of the data store bit array
+        assertEquals(1L, SfcServicePathIdBitmap.toDatastoreLayout(1L));
+        assertEquals(1L << 63, SfcServicePathIdBitmap.toDatastoreLayout(1L << 1));
+        assertEquals(1L << 1, SfcServicePathIdBitmap.toDatastoreLayout(1L << 63));
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            long word = 1L << bit;
+            assertEquals(word,
+                    SfcServicePathIdBitmap.fromDatastoreLayout(SfcServicePathIdBitmap.toDatastoreLayout(word)));
+        }
+    }
+
+    @Test
+    public void testBitArrayPersisted() throws Exception {
+        for (Integer pathId : pathIdList) {
+            assertTrue(SfcServicePathId.allocatePathId(pathId));
+        }
+
+        // word 16, the last one modified, holds path-ids 1024 and 1025 and is written back asynchronously
+        InstanceIdentifier<ServicePathId> spIID = InstanceIdentifier.builder(ServicePathIds.class)
+                .child(ServicePathId.class, new ServicePathIdKey(16L)).build();
+        long expected = 1L | 1L << 63;
+        ServicePathId servicePathId = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            servicePathId = SfcDataStoreAPI.readTransactionAPI(spIID, LogicalDatastoreType.OPERATIONAL);
+            if (servicePathId != null && servicePathId.getPathIdBitarray() == expected) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        assertEquals(Long.valueOf(expected), servicePathId.getPathIdBitarray());
+
+        // a fresh load from the data store sees the same allocations
+        SfcServicePathId.reload();
+        for (Integer pathId : pathIdList) {
+            assertFalse(SfcServicePathId.checkSuitablePathId(pathId));
+        }
+        for (Integer pathId : pathIdList) {
+            assertTrue(SfcServicePathId.freePathId(pathId));
+        }
+    }
+
+    @Test
+    public void testNonOwnerChecksTheDataStore() throws Exception {
+        SfcServicePathId.setAllocationOwner(false);
+        try {
+            // the allocation is written back before returning
+            assertEquals(2000, SfcServicePathId.chechAndAllocatePathId(2000));
+            ServicePathId servicePathId = SfcDataStoreAPI.readTransactionAPI(pathIdWordIID(31),
+                    LogicalDatastoreType.OPERATIONAL);
+            assertEquals(Long.valueOf(SfcServicePathIdBitmap.toDatastoreLayout(1L << 16)),
+                    servicePathId.getPathIdBitarray());
+
+            // a path-id allocated by another instance is seen without reload
+            assertTrue(SfcServicePathId.checkSuitablePathId(3000));
+            assertTrue(SfcDataStoreAPI.writeMergeTransactionAPI(pathIdWordIID(46), new ServicePathIdBuilder()
+                    .withKey(new ServicePathIdKey(46L))
+                    .setPathIdBitarray(SfcServicePathIdBitmap.toDatastoreLayout(1L << 56)).build(),
+                    LogicalDatastoreType.OPERATIONAL));
+            assertFalse(SfcServicePathId.checkSuitablePathId(3000));
+            assertEquals(-1, SfcServicePathId.chechAndAllocatePathId(3000));
+
+            assertTrue(SfcServicePathId.freePathIds(Arrays.asList(2000L, 3000L)));
+        } finally {
+            SfcServicePathId.setAllocationOwner(true);
+        }
+        assertTrue(SfcServicePathId.checkSuitablePathId(2000));
+        assertTrue(SfcServicePathId.checkSuitablePathId(3000));
+    }
+
+    @Test
+    public void testReservationPersisted() throws Exception {
+        // non-owners write their changes back before returning
+        SfcServicePathId.setAllocationOwner(false);
+        try {
+            // word 7 holds path-ids 448 to 511
+            assertTrue(SfcServicePathId.reservePathIdRange(500, 510));
+            ServicePathId servicePathId = SfcDataStoreAPI.readTransactionAPI(pathIdWordIID(7),
+                    LogicalDatastoreType.OPERATIONAL);
+            assertEquals(Long.valueOf(SfcServicePathIdBitmap.toDatastoreLayout(0x7FFL << 52)),
+                    servicePathId.getPathIdReservedBitarray());
+            assertEquals(Long.valueOf(0), servicePathId.getPathIdBitarray());
+        } finally {
+            SfcServicePathId.setAllocationOwner(true);
+        }
+
+        // a fresh load from the data store sees the reservation, not an allocation
+        SfcServicePathId.reload();
+        assertEquals(PathIdState.Reserved, SfcServicePathId.readPathIdState(500));
+        assertEquals(PathIdState.Reserved, SfcServicePathId.readPathIdState(510));
+        assertEquals(PathIdState.Available, SfcServicePathId.readPathIdState(511));
+
+        SfcServicePathId.setAllocationOwner(false);
+        try {
+            for (long pathId = 500; pathId <= 510; pathId++) {
+                assertTrue(SfcServicePathId.releasePathId(pathId));
+            }
+        } finally {
+            SfcServicePathId.setAllocationOwner(true);
+        }
+        SfcServicePathId.reload();
+        assertEquals(PathIdState.Available, SfcServicePathId.readPathIdState(500));
+    }
+
+    private static InstanceIdentifier<ServicePathId> pathIdWordIID(long key) {
+        return InstanceIdentifier.builder(ServicePathIds.class)
+                .child(ServicePathId.class, new ServicePathIdKey(key)).build();
+    }
 }
@@ -25,6 +25,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.sfc.provider.AbstractDataStoreManager;
+import org.opendaylight.sfc.provider.api.SfcAsyncDataStoreAPI;
 import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
 import org.opendaylight.sfc.provider.api.SfcInstanceIdentifiers;
 import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
@@ -150,6 +151,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will remove the Service Function Forwarder Entry
         serviceFunctionForwarderListener.remove(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 serviceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         // Verify that SFP was removed
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
@@ -189,6 +191,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will remove the Original Service Function Forwarder Entry and associated RSPs
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
 
@@ -234,6 +237,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // Entry and associated RSPs
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
 
@@ -279,6 +283,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will NOT remove the RSP
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNotNull(SfcProviderRenderedPathAPI.readRenderedServicePath(renderedServicePath.getName()));
 
         // Verify that State was NOT removed
@@ -292,6 +297,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will NOT remove the RSP
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNotNull(SfcProviderRenderedPathAPI.readRenderedServicePath(renderedServicePath.getName()));
 
         // Verify that State was NOT removed
@@ -337,6 +343,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will remove the SFP
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
 
@@ -381,6 +388,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will remove the SFP
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
 
@@ -421,6 +429,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will NOT remove the RSP
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
 
         assertNotNull(SfcProviderRenderedPathAPI.readRenderedServicePath(renderedServicePath.getName()));
 
@@ -463,6 +472,7 @@ public class ServiceFunctionForwarderListenerTest extends AbstractDataStoreManag
         // The listener will remove the SFP
         serviceFunctionForwarderListener.update(InstanceIdentifier.create(ServiceFunctionForwarder.class),
                                                 originalServiceFunctionForwarder, updatedServiceFunctionForwarder);
+        SfcAsyncDataStoreAPI.flush().get();
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
 
@@ -20,6 +20,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.sfc.provider.AbstractDataStoreManager;
+import org.opendaylight.sfc.provider.api.SfcAsyncDataStoreAPI;
 import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
 import org.opendaylight.sfc.provider.api.SfcInstanceIdentifiers;
 import org.opendaylight.sfc.provider.api.SfcProviderRenderedPathAPI;
@@ -94,6 +95,7 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
 
     @After
     public void after() throws Exception {
+        serviceFunctionListener.close();
         close();
     }
 
@@ -106,6 +108,7 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         ServiceFunction serviceFunction = buildServiceFunction();
 
         serviceFunctionListener.add(InstanceIdentifier.create(ServiceFunction.class), serviceFunction);
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         SftServiceFunctionName sftServiceFunctionName = SfcProviderServiceTypeAPI
                 .readServiceFunctionTypeEntry(serviceFunction);
@@ -125,9 +128,13 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         ServiceFunction serviceFunction = buildServiceFunction();
 
         // First we create a Service Function Type Entry
-        assertTrue(SfcProviderServiceTypeAPI.createServiceFunctionTypeEntry(serviceFunction));
+        serviceFunctionListener.add(InstanceIdentifier.create(ServiceFunction.class), serviceFunction);
+        serviceFunctionListener.exportServiceFunctionTypes();
+        assertNotNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(serviceFunction));
 
         serviceFunctionListener.remove(InstanceIdentifier.create(ServiceFunction.class), serviceFunction);
+        SfcAsyncDataStoreAPI.flush().get();
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         assertNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(serviceFunction));
     }
@@ -145,6 +152,7 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         ServiceFunction originalServiceFunction = buildServiceFunction();
 
         assertTrue(SfcProviderServiceFunctionAPI.putServiceFunction(originalServiceFunction));
+        serviceFunctionListener.add(InstanceIdentifier.create(ServiceFunction.class), originalServiceFunction);
 
         // Now we prepare the updated data. We change mgmt address and type
         ServiceFunctionBuilder updatedServiceFunctionBuilder = new ServiceFunctionBuilder(originalServiceFunction);
@@ -157,6 +165,7 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         // create a new one with the new type
         serviceFunctionListener.update(InstanceIdentifier.create(ServiceFunction.class), originalServiceFunction,
                                        updatedServiceFunction);
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         assertNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(originalServiceFunction));
         assertNotNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(updatedServiceFunction));
@@ -188,6 +197,7 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
 
         // The listener will remove the Service Function Type Entry
         serviceFunctionListener.remove(InstanceIdentifier.create(ServiceFunction.class), serviceFunction);
+        SfcAsyncDataStoreAPI.flush().get();
 
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
                 renderedServicePath.getParentServiceFunctionPath()));
@@ -244,6 +254,8 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         // create a new one with the new type
         serviceFunctionListener.update(InstanceIdentifier.create(ServiceFunction.class), originalServiceFunction,
                                        updatedServiceFunction);
+        SfcAsyncDataStoreAPI.flush().get();
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         // The original SF type is only deleted if the SF type changes
         assertNotNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(originalServiceFunction));
@@ -298,6 +310,8 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         // create a new one with the new type
         serviceFunctionListener.update(InstanceIdentifier.create(ServiceFunction.class), originalServiceFunction,
                                        updatedServiceFunction);
+        SfcAsyncDataStoreAPI.flush().get();
+        serviceFunctionListener.exportServiceFunctionTypes();
         assertNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(originalServiceFunction));
         assertNotNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(updatedServiceFunction));
         assertNull(SfcProviderServicePathAPI.readServiceFunctionPath(
@@ -350,6 +364,8 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         // create a new one with the new type
         serviceFunctionListener.update(InstanceIdentifier.create(ServiceFunction.class), originalServiceFunction,
                                        updatedServiceFunction);
+        SfcAsyncDataStoreAPI.flush().get();
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         // The original SF type is only deleted if the SF type changes
         assertNotNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(originalServiceFunction));
@@ -403,6 +419,8 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
         // The listener will NOT remove anything
         serviceFunctionListener.update(InstanceIdentifier.create(ServiceFunction.class), originalServiceFunction,
                                        updatedServiceFunction);
+        SfcAsyncDataStoreAPI.flush().get();
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         // The original SF type is only deleted if the SF type changes
         assertNotNull(SfcProviderServiceTypeAPI.readServiceFunctionTypeEntry(originalServiceFunction));
@@ -630,8 +648,9 @@ public class ServiceFunctionListenerTest extends AbstractDataStoreManager {
 
         // Create ServiceFunctionTypeEntry for all ServiceFunctions
         for (ServiceFunction serviceFunction : sfList) {
-            assertTrue(SfcProviderServiceTypeAPI.createServiceFunctionTypeEntry(serviceFunction));
+            serviceFunctionListener.add(InstanceIdentifier.create(ServiceFunction.class), serviceFunction);
         }
+        serviceFunctionListener.exportServiceFunctionTypes();
 
         // Create Service Function Forwarders
         for (int i = 0; i < sffNames.size(); i++) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.listeners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.opendaylight.sfc.provider.listeners.SfcKeyedEventExecutor.Event;
+
+public class SfcKeyedEventExecutorTest {
+
+    @Test
+    public void queuedEventsAreCoalesced() throws InterruptedException {
+        List<Event<String, String>> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SfcKeyedEventExecutor<String, String> executor = new SfcKeyedEventExecutor<>(
+                Executors.newSingleThreadExecutor(), 1, 1, events -> {
+                    processed.addAll(events);
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        executor.submit("sfp1", null, "a");
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // queued while sfp1 is being added
+        executor.submit("sfp1", "a", "b");
+        executor.submit("sfp1", "b", "c");
+        executor.submit("sfp2", null, "x");
+        executor.submit("sfp2", "x", null);
+        executor.submit("sfp3", "y", null);
+        executor.submit("sfp3", null, "y");
+        executor.submit("sfp4", "z", null);
+        executor.submit("sfp4", null, "w");
+        executor.submit("sfp5", "p", "q");
+        executor.submit("sfp5", "q", "p");
+        release.countDown();
+        executor.close();
+
+        assertEquals(5, executor.getCoalescedCount());
+        assertEquals(5, processed.size());
+        assertNull(processed.get(0).getDataBefore());
+        Event<String, String> update = processed.get(1);
+        assertEquals("sfp1", update.getKey());
+        assertEquals("a", update.getDataBefore());
+        assertEquals("c", update.getDataAfter());
+        assertFalse(update.isReplaced());
+        // removed and added back, still handed over
+        Event<String, String> readd = processed.get(2);
+        assertEquals("sfp3", readd.getKey());
+        assertEquals("y", readd.getDataBefore());
+        assertEquals("y", readd.getDataAfter());
+        assertTrue(readd.isReplaced());
+        Event<String, String> replace = processed.get(3);
+        assertEquals("sfp4", replace.getKey());
+        assertEquals("w", replace.getDataAfter());
+        assertTrue(replace.isReplaced());
+        // updated back to the original state, still handed over
+        Event<String, String> revert = processed.get(4);
+        assertEquals("sfp5", revert.getKey());
+        assertEquals("p", revert.getDataBefore());
+        assertEquals("p", revert.getDataAfter());
+        assertFalse(revert.isReplaced());
+    }
+}
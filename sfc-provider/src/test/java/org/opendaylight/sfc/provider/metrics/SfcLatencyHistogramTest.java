@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.opendaylight.sfc.provider.metrics.SfcLatencyHistogram.Snapshot;
+
+public class SfcLatencyHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[] {0, 1, 3, 4, 7, 8, 9, 10, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = SfcLatencyHistogram.bucketOf(value);
+            assertTrue(value <= SfcLatencyHistogram.upperBoundOf(bucket));
+            // within 25% of the value
+            assertTrue(SfcLatencyHistogram.upperBoundOf(bucket) - value <= value / 4);
+            if (bucket > 0) {
+                assertTrue(value > SfcLatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, SfcLatencyHistogram.upperBoundOf(SfcLatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        SfcLatencyHistogram histogram = new SfcLatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500500, snapshot.getMeanNanos());
+        assertEquals(1000000, snapshot.getMaxNanos());
+        long median = snapshot.getPercentileNanos(50);
+        assertTrue(median >= 500000 && median <= 625000);
+        long p99 = snapshot.getPercentileNanos(99);
+        assertTrue(p99 >= 990000 && p99 <= 1000000);
+        assertEquals(1000000, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testReset() {
+        SfcLatencyHistogram histogram = new SfcLatencyHistogram();
+        histogram.record(42);
+        histogram.record(-1);
+        assertEquals(2, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentileNanos(50));
+
+        histogram.reset();
+        Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanNanos());
+        assertEquals(0, snapshot.getPercentileNanos(99));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.StageLatency;
+
+public class SfcRenderingMetricsTest {
+
+    @Before
+    public void setUp() {
+        SfcRenderingMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        SfcRenderingMetrics.setEnabled(true);
+        SfcRenderingMetrics.setFlowWriterQueueDepth(() -> 0);
+        SfcRenderingMetrics.reset();
+    }
+
+    @Test
+    public void testStageTimers() {
+        SfcRenderingMetrics.stopTimer(Stage.SCHEDULING, SfcRenderingMetrics.startTimer());
+        SfcRenderingMetrics.record(Stage.FLOW_COMMIT, 2000);
+
+        assertEquals(1, getStageLatency(Stage.SCHEDULING).getCount());
+        assertEquals(1, getStageLatency(Stage.FLOW_COMMIT).getCount());
+        assertEquals(2, getStageLatency(Stage.FLOW_COMMIT).getMaxMicros());
+        assertEquals(0, getStageLatency(Stage.RSP_RENDERING).getCount());
+    }
+
+    @Test
+    public void testEndToEnd() {
+        SfcRenderingMetrics.rspStarted(1L, SfcRenderingMetrics.startTimer());
+        SfcRenderingMetrics.rspStarted(2L, SfcRenderingMetrics.startTimer());
+        assertEquals(2, SfcRenderingMetrics.getTrackedRsps());
+
+        SfcRenderingMetrics.rspFlowsCommitted(1L);
+        // only the first commit of the flows of an RSP counts
+        SfcRenderingMetrics.rspFlowsCommitted(1L);
+        SfcRenderingMetrics.rspFlowsCommitted(3L);
+
+        assertEquals(1, getStageLatency(Stage.END_TO_END).getCount());
+        assertEquals(1, SfcRenderingMetrics.getTrackedRsps());
+    }
+
+    @Test
+    public void testFlows() {
+        SfcRenderingMetrics.flowsWritten(10);
+        SfcRenderingMetrics.flowsWritten(5);
+        SfcRenderingMetrics.setFlowWriterQueueDepth(() -> 7);
+
+        assertEquals(15, SfcRenderingMetrics.getFlowsWritten());
+        assertEquals(7, SfcRenderingMetrics.getFlowWriterQueueDepth());
+    }
+
+    @Test
+    public void testDisabled() {
+        SfcRenderingMetrics.setEnabled(false);
+        SfcRenderingMetrics.stopTimer(Stage.SCHEDULING, SfcRenderingMetrics.startTimer());
+        SfcRenderingMetrics.rspStarted(1L, SfcRenderingMetrics.startTimer());
+        SfcRenderingMetrics.flowsWritten(10);
+
+        assertEquals(0, getStageLatency(Stage.SCHEDULING).getCount());
+        assertEquals(0, SfcRenderingMetrics.getTrackedRsps());
+        assertEquals(0, SfcRenderingMetrics.getFlowsWritten());
+    }
+
+    private static StageLatency getStageLatency(Stage stage) {
+        return SfcRenderingMetrics.getStageLatencies().get(stage.ordinal());
+    }
+}
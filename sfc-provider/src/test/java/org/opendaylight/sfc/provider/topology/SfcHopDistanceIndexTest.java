@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.topology;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SfcHopDistanceIndexTest {
+
+    private SfcHopDistanceIndex index;
+
+    /*
+     * sf1 - sff1 - sff2 - sff3 - sf3
+     *         |
+     *        sf2
+     */
+    @Before
+    public void setUp() {
+        index = new SfcHopDistanceIndex();
+        index.updateServiceFunction("sf1");
+        index.updateServiceFunction("sf2");
+        index.updateServiceFunction("sf3");
+        index.updateServiceFunctionForwarder("sff1", Arrays.asList("sf1", "sf2", "sff2"));
+        index.updateServiceFunctionForwarder("sff2", Collections.singletonList("sff3"));
+        index.updateServiceFunctionForwarder("sff3", Arrays.asList("sf3", "sff2"));
+    }
+
+    @Test
+    public void hopCounts() {
+        assertEquals(0, index.getHopCount("sf1", "sf1"));
+        assertEquals(2, index.getHopCount("sf1", "sf2"));
+        assertEquals(4, index.getHopCount("sf1", "sf3"));
+        assertEquals(4, index.getHopCount("sf3", "sf1"));
+        assertEquals(1, index.getHopCount("sff2", "sff3"));
+    }
+
+    @Test
+    public void unknownNodesAreUnreachable() {
+        index.updateServiceFunction("sf4");
+        assertTrue(index.hasNode("sf4"));
+        assertFalse(index.hasNode("sf5"));
+        assertEquals(SfcHopDistanceIndex.UNREACHABLE, index.getHopCount("sf1", "sf4"));
+        assertEquals(SfcHopDistanceIndex.UNREACHABLE, index.getHopCount("sf1", "sf5"));
+    }
+
+    @Test
+    public void topologyChangesUpdateTheHopCounts() {
+        assertEquals(4, index.getHopCount("sf1", "sf3"));
+
+        index.updateServiceFunctionForwarder("sff1", Arrays.asList("sf1", "sf2", "sff2", "sf3"));
+        assertEquals(2, index.getHopCount("sf1", "sf3"));
+
+        index.removeServiceFunctionForwarder("sff1");
+        assertEquals(SfcHopDistanceIndex.UNREACHABLE, index.getHopCount("sf1", "sf3"));
+        assertEquals(2, index.getHopCount("sf3", "sff2"));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.provider.validators.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SfcName;
+
+public class SfcDatastoreCacheTest {
+    private static final SfName FW_1 = new SfName("fw_1");
+    private static final SfName FW_2 = new SfName("fw_2");
+    private static final SfcName CHAIN = new SfcName("chain");
+
+    private final Map<SfName, String> datastore = new HashMap<>();
+    private final AtomicInteger sfLoads = new AtomicInteger();
+    private final AtomicInteger sfBulkLoads = new AtomicInteger();
+    private SfcDatastoreCache cache;
+
+    @Before
+    public void setUp() {
+        datastore.put(FW_1, "firewall");
+        cache = new SfcDatastoreCache(1, sfName -> {
+            sfLoads.incrementAndGet();
+            return datastore.get(sfName);
+        }, () -> {
+            sfBulkLoads.incrementAndGet();
+            return new HashMap<>(datastore);
+        }, sfcName -> Collections.singletonList("firewall"), Collections::emptyMap);
+    }
+
+    @Test
+    public void missingEntriesAreCached() {
+        assertNull(cache.getServiceFunctionType(FW_2));
+        assertNull(cache.getServiceFunctionType(FW_2));
+        assertEquals(1, sfLoads.get());
+
+        cache.updateServiceFunction(FW_2, "dpi");
+        assertEquals("dpi", cache.getServiceFunctionType(FW_2));
+        cache.removeServiceFunction(FW_2);
+        assertNull(cache.getServiceFunctionType(FW_2));
+        assertEquals(1, sfLoads.get());
+    }
+
+    @Test
+    public void metricsAccountHitsLoadsAndEvictions() {
+        assertEquals("firewall", cache.getServiceFunctionType(FW_1));
+        assertEquals("firewall", cache.getServiceFunctionType(FW_1));
+        // evicts fw_1, the maximum size is 1
+        assertNull(cache.getServiceFunctionType(FW_2));
+        List<String> chainTypes = cache.getServiceFunctionChainTypes(CHAIN);
+        assertEquals(Collections.singletonList("firewall"), chainTypes);
+
+        SfcDatastoreCache.Metrics metrics = cache.getMetrics().get(0);
+        assertEquals(1, metrics.getSize());
+        assertEquals(2, metrics.getLoadCount());
+        assertEquals(1.0 / 3, metrics.getHitRatio(), 0.001);
+        assertEquals(1, metrics.getEvictionCount());
+
+        cache.setMaximumSize(10);
+        assertEquals(0, cache.getMetrics().get(0).getSize());
+    }
+
+    @Test
+    public void prefetchReadsAllEntriesOnce() {
+        cache.setMaximumSize(10);
+        cache.prefetchServiceFunctions(Arrays.asList(FW_1, FW_2));
+        cache.prefetchServiceFunctions(Arrays.asList(FW_1, FW_2));
+        assertEquals(1, sfBulkLoads.get());
+
+        assertEquals("firewall", cache.getServiceFunctionType(FW_1));
+        assertNull(cache.getServiceFunctionType(FW_2));
+        assertEquals(0, sfLoads.get());
+    }
+}
@@ -7,12 +7,19 @@
  */
 package org.opendaylight.sfc.renderers.openflow;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.controller.sal.binding.api.NotificationProviderService;
 import org.opendaylight.mdsal.binding.api.RpcConsumerRegistry;
+import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
+import org.opendaylight.sfc.provider.api.SfcRenderedPathTracer;
 import org.opendaylight.sfc.renderers.openflow.listeners.SfcOfRendererDataListener;
 import org.opendaylight.sfc.renderers.openflow.listeners.SfcOfRspDataListener;
 import org.opendaylight.sfc.renderers.openflow.listeners.SfcOfSfgDataListener;
@@ -21,10 +28,13 @@ import org.opendaylight.sfc.renderers.openflow.openflow.SfcOfFlowProgrammerImpl;
 import org.opendaylight.sfc.renderers.openflow.openflow.SfcOfFlowProgrammerInterface;
 import org.opendaylight.sfc.renderers.openflow.processors.SfcOfRspProcessor;
 import org.opendaylight.sfc.renderers.openflow.utils.SfcOfBaseProviderUtils;
+import org.opendaylight.sfc.renderers.openflow.utils.SfcOfFlowTraceResolver;
 import org.opendaylight.sfc.renderers.openflow.utils.SfcOfProviderUtils;
 import org.opendaylight.sfc.renderers.openflow.utils.SfcSynchronizer;
 import org.opendaylight.sfc.util.openflow.writer.SfcOfFlowWriterImpl;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.RenderedServicePaths;
 import org.opendaylight.yangtools.concepts.Registration;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,11 +45,15 @@ import org.slf4j.LoggerFactory;
 public final class SfcOfRenderer implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(SfcOfRenderer.class);
 
+    private final DataBroker dataBroker;
+    private final NotificationProviderService notificationService;
+    private final SfcOfFlowWriterImpl sfcOfFlowWriter;
+    private final SfcOfBaseProviderUtils sfcOfProviderUtils;
     private final SfcOfRspProcessor sfcOfRspProcessor;
     private final SfcOfFlowProgrammerInterface sfcOfFlowProgrammer;
-    private final Registration pktInRegistration;
     private final SfcSynchronizer sfcSynchronizer;
 
+    private Registration pktInRegistration;
     private SfcOfRspDataListener openflowRspDataListener;
     private SfcOfSfgDataListener sfcOfSfgDataListener;
     private SfcIpv4PacketInHandler packetInHandler;
@@ -50,17 +64,32 @@ public final class SfcOfRenderer implements AutoCloseable {
                          RpcConsumerRegistry rpcRegistry) {
         LOG.info("SfcOfRenderer starting the SfcOfRenderer plugin...");
 
+        this.dataBroker = dataBroker;
+        this.notificationService = notificationService;
         this.sfcSynchronizer = new SfcSynchronizer();
-        SfcOfFlowWriterImpl sfcofflowwriterimpl = new SfcOfFlowWriterImpl();
-        sfcofflowwriterimpl.setDataProvider(dataBroker);
-        this.sfcOfFlowProgrammer = new SfcOfFlowProgrammerImpl(sfcofflowwriterimpl);
-        SfcOfBaseProviderUtils sfcOfProviderUtils = new SfcOfProviderUtils();
+        this.sfcOfFlowWriter = new SfcOfFlowWriterImpl();
+        sfcOfFlowWriter.setDataProvider(dataBroker);
+        this.sfcOfFlowProgrammer = new SfcOfFlowProgrammerImpl(sfcOfFlowWriter);
+        this.sfcOfProviderUtils = new SfcOfProviderUtils();
         this.sfcOfRspProcessor = new SfcOfRspProcessor(sfcOfFlowProgrammer, sfcOfProviderUtils, sfcSynchronizer,
                 rpcRegistry, dataBroker);
+    }
+
+    /**
+     * Restore the ownership of the flows installed before a restart, then
+     * start listening. The flow ownership is restored first so that RSPs
+     * rendered again by the listeners replace their previous flows, and it
+     * is done here rather than in the constructor as it reads the data
+     * store.
+     */
+    @PostConstruct
+    public void init() {
+        sfcOfFlowWriter.restoreFlowOwnership(getRenderedServicePathIds());
 
         this.openflowRspDataListener = new SfcOfRspDataListener(dataBroker, sfcOfRspProcessor);
         this.sfcOfSfgDataListener = new SfcOfSfgDataListener(dataBroker, sfcOfFlowProgrammer, sfcOfProviderUtils);
         this.sfcOfRendererListener = new SfcOfRendererDataListener(dataBroker, sfcOfFlowProgrammer, sfcSynchronizer);
+        SfcRenderedPathTracer.setFlowResolver(new SfcOfFlowTraceResolver(sfcOfFlowWriter, sfcOfProviderUtils));
 
         this.packetInHandler = new SfcIpv4PacketInHandler((SfcOfFlowProgrammerImpl) sfcOfFlowProgrammer);
         this.pktInRegistration = notificationService.registerNotificationListener(packetInHandler);
@@ -68,6 +97,22 @@ public final class SfcOfRenderer implements AutoCloseable {
         LOG.info("SfcOfRenderer successfully started the SfcOfRenderer plugin");
     }
 
+    /**
+     * Get the path ids of the configured RSPs. The operational RSPs can not
+     * be used, after a restart they are only written again once the
+     * configured RSPs are processed, and the flows of every RSP would be
+     * considered stale.
+     */
+    private static Set<Long> getRenderedServicePathIds() {
+        RenderedServicePaths rsps = SfcDataStoreAPI.readTransactionAPI(
+                InstanceIdentifier.create(RenderedServicePaths.class), LogicalDatastoreType.CONFIGURATION);
+        if (rsps == null || rsps.getRenderedServicePath() == null) {
+            return Collections.emptySet();
+        }
+        return rsps.getRenderedServicePath().stream().filter(rsp -> rsp.getPathId() != null)
+                .map(rsp -> rsp.getPathId().toJava()).collect(Collectors.toSet());
+    }
+
     /**
      * Implemented from the AutoCloseable interface.
      */
@@ -76,13 +121,17 @@ public final class SfcOfRenderer implements AutoCloseable {
     public void close() throws Exception {
         LOG.info("SfcOfRenderer auto-closed");
         try {
+            SfcRenderedPathTracer.setFlowResolver(null);
             if (sfcOfFlowProgrammer != null) {
                 sfcOfFlowProgrammer.shutdown();
             }
             if (pktInRegistration != null) {
                 pktInRegistration.close();
             }
-            openflowRspDataListener.close();
+            if (openflowRspDataListener != null) {
+                openflowRspDataListener.close();
+            }
+            sfcOfRspProcessor.close();
         } finally {
             openflowRspDataListener = null;
         }
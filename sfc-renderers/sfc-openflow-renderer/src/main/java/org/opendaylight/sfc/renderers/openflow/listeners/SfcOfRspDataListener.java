@@ -8,7 +8,9 @@
 
 package org.opendaylight.sfc.renderers.openflow.listeners;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
@@ -18,6 +20,8 @@ import org.opendaylight.controller.md.sal.binding.api.DataTreeIdentifier;
 import org.opendaylight.controller.md.sal.binding.api.DataTreeModification;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.sfc.provider.api.SfcInstanceIdentifiers;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
 import org.opendaylight.sfc.renderers.openflow.processors.SfcOfRspProcessor;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yangtools.concepts.ListenerRegistration;
@@ -45,6 +49,10 @@ public class SfcOfRspDataListener implements DataTreeChangeListener<RenderedServ
 
     @Override
     public void onDataTreeChanged(@NonNull Collection<DataTreeModification<RenderedServicePath>> collection) {
+        final long startNanos = SfcRenderingMetrics.startTimer();
+        // Consecutive RSP creations are rendered together as a batch; the
+        // batch is processed before any other change to keep the ordering
+        List<RenderedServicePath> createdRsps = new ArrayList<>();
         for (DataTreeModification<RenderedServicePath> modification : collection) {
             DataObjectModification<RenderedServicePath> rootNode = modification.getRootNode();
 
@@ -53,18 +61,20 @@ public class SfcOfRspDataListener implements DataTreeChangeListener<RenderedServ
                 case SUBTREE_MODIFIED:
                     if (rootNode.getDataBefore() == null && rootNode.getDataAfter() != null) {
                         LOG.info("SfcOfRspDataListener.onDataTreeChanged create RSP {}", rootNode.getDataAfter());
-                        sfcOfRspProcessor.processRenderedServicePath(rootNode.getDataAfter());
+                        createdRsps.add(rootNode.getDataAfter());
                     } else if (rootNode.getDataAfter().equals(rootNode.getDataBefore())) {
                         LOG.info("SfcOfRspDataListener.onDataTreeChanged update RSP Before:{} After:{}",
                                 rootNode.getDataAfter(), rootNode.getDataBefore());
-                        // This clause supports re-rendering of unmodified RSPs
-                        sfcOfRspProcessor.deleteRenderedServicePath(rootNode.getDataBefore());
-                        sfcOfRspProcessor.processRenderedServicePath(rootNode.getDataAfter());
+                        // This clause supports re-rendering of unmodified RSPs.
+                        // Only the flows that changed are written again.
+                        processCreatedRsps(createdRsps);
+                        sfcOfRspProcessor.updateRenderedServicePath(rootNode.getDataAfter());
                     }
                     break;
                 case DELETE:
                     if (rootNode.getDataBefore() != null) {
                         LOG.info("SfcOfRspDataListener.onDataTreeChanged delete RSP {}", rootNode.getDataBefore());
+                        processCreatedRsps(createdRsps);
                         sfcOfRspProcessor.deleteRenderedServicePath(rootNode.getDataBefore());
                     }
                     break;
@@ -72,6 +82,17 @@ public class SfcOfRspDataListener implements DataTreeChangeListener<RenderedServ
                     break;
             }
         }
+        processCreatedRsps(createdRsps);
+        SfcRenderingMetrics.stopTimer(Stage.RSP_LISTENER, startNanos);
+    }
+
+    private void processCreatedRsps(List<RenderedServicePath> createdRsps) {
+        if (createdRsps.size() == 1) {
+            sfcOfRspProcessor.processRenderedServicePath(createdRsps.get(0));
+        } else if (!createdRsps.isEmpty()) {
+            sfcOfRspProcessor.processRenderedServicePaths(new ArrayList<>(createdRsps));
+        }
+        createdRsps.clear();
     }
 
     @Override
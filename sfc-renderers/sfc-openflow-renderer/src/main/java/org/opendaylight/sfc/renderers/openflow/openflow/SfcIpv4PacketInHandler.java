@@ -9,13 +9,9 @@
 package org.opendaylight.sfc.renderers.openflow.openflow;
 
 import java.math.BigInteger;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.Node;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.model.match.types.rev131026.match.Metadata;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.packet.service.rev130709.PacketProcessingListener;
@@ -38,6 +34,13 @@ import org.slf4j.LoggerFactory;
  * the SF will establish a connection with the client (send TCP SynAck to
  * client), and then establish a separate connection with the server (send TCP
  * Syn to server).
+ *
+ * <p>
+ * PacketIns are received concurrently from several notification threads. The
+ * source/dest IP addresses are read directly from the payload, and each pair
+ * is buffered under a single long. A pair is claimed atomically in the
+ * buffer, so that its flows are installed at most once per buffer time, by a
+ * single thread, whatever the number of PacketIns received for it meanwhile.
  */
 
 public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoCloseable {
@@ -47,22 +50,24 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
     private static final int PACKET_OFFSET_IP = 14;
     private static final int PACKET_OFFSET_IP_SRC = PACKET_OFFSET_IP + 12;
     private static final int PACKET_OFFSET_IP_DST = PACKET_OFFSET_IP + 16;
+    private static final int PACKET_MIN_LENGTH = PACKET_OFFSET_IP_DST + 4;
     public static final int ETHERTYPE_IPV4 = 0x0800;
-    private static final int DEFAULT_MAX_BUFFER_TIME = 60000; // 60 milliseconds
+    private static final int DEFAULT_MAX_BUFFER_TIME = 60000; // 60 seconds
     private static final int DEFAULT_PACKET_COUNT_PURGE = 100;
 
     private final SfcOfFlowProgrammerImpl flowProgrammer;
-    private final Map<String, Long> pktInBuffer;
-    private int maxBufferTime;
-    private int packetCountPurge;
-    private int packetCount;
+    // src/dst IP pair -> time the flows of the pair were last installed
+    private final ConcurrentMap<Long, Long> pktInBuffer;
+    private final AtomicLong lastPurgeMillis;
+    private volatile int maxBufferTime;
+    private volatile int packetCountPurge;
 
     public SfcIpv4PacketInHandler(SfcOfFlowProgrammerImpl flowProgrammer) {
         this.flowProgrammer = flowProgrammer;
-        pktInBuffer = new HashMap<>();
+        pktInBuffer = new ConcurrentHashMap<>();
+        lastPurgeMillis = new AtomicLong(System.currentTimeMillis());
         maxBufferTime = DEFAULT_MAX_BUFFER_TIME;
         packetCountPurge = DEFAULT_PACKET_COUNT_PURGE;
-        packetCount = 0;
     }
 
     public int getMaxBufferTime() {
@@ -77,6 +82,14 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
         return packetCountPurge;
     }
 
+    /**
+     * Set the number of src/dst IP pairs the PktIn buffer may hold before
+     * expired pairs are purged from it. Purges happen at most once per buffer
+     * time.
+     *
+     * @param packetCountPurge
+     *            the number of pairs
+     */
     public void setPacketCountPurge(int packetCountPurge) {
         this.packetCountPurge = packetCountPurge;
     }
@@ -97,11 +110,8 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
             return;
         }
 
-        ++packetCount;
-        if (packetCount > packetCountPurge) {
-            packetCount = 0;
-            purgePktInBuffer();
-        }
+        final long currentMillis = System.currentTimeMillis();
+        purgePktInBuffer(currentMillis);
 
         // Make sure the PacketIn is due to our Classification table pktInAction
         if (!this.flowProgrammer.compareClassificationTableCookie(packetIn.getFlowCookie())) {
@@ -113,6 +123,10 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
         // the packet for us
 
         final byte[] rawPacket = packetIn.getPayload();
+        if (rawPacket == null || rawPacket.length < PACKET_MIN_LENGTH) {
+            LOG.debug("SfcIpv4PacketInHandler discarding truncated packet");
+            return;
+        }
 
         // Get the EtherType and check that its an IP packet
         if (getEtherType(rawPacket) != ETHERTYPE_IPV4) {
@@ -121,26 +135,16 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
         }
 
         // Get the SrcIp and DstIp Addresses
-        String pktSrcIpStr = getSrcIpStr(rawPacket);
-        if (pktSrcIpStr == null) {
-            LOG.error("SfcIpv4PacketInHandler Cant get Src IP address, discarding packet");
-            return;
-        }
-
-        String pktDstIpStr = getDstIpStr(rawPacket);
-        if (pktDstIpStr == null) {
-            LOG.error("SfcIpv4PacketInHandler Cant get Src IP address, discarding packet");
-            return;
-        }
+        final int pktSrcIp = getInt(rawPacket, PACKET_OFFSET_IP_SRC);
+        final int pktDstIp = getInt(rawPacket, PACKET_OFFSET_IP_DST);
 
         // Since all packets sent to SF are PktIn, only need to handle the first
         // one
         // In OpenFlow 1.5 we'll be able to do the PktIn on TCP Syn only
-        if (bufferPktIn(pktSrcIpStr, pktDstIpStr)) {
-            LOG.info("SfcIpv4PacketInHandler PacketIn buffered");
+        if (bufferPktIn(pktSrcIp, pktDstIp, currentMillis)) {
+            LOG.debug("SfcIpv4PacketInHandler PacketIn buffered");
             return;
         }
-        LOG.info("SfcIpv4PacketInHandler PacketIn NOT buffered");
 
         // Get the metadata
         if (packetIn.getMatch() == null) {
@@ -159,6 +163,10 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
         // Assuming the RSP is symmetric
         short dlPathId = (short) (ulPathId + 1);
 
+        // The addresses are only formatted for the pairs whose flows are
+        // installed
+        final String pktSrcIpStr = toIpStr(pktSrcIp);
+        final String pktDstIpStr = toIpStr(pktDstIp);
         LOG.info("SfcIpv4PacketInHandler Src IP [{}] Dst IP [{}] ulPathId [{}] dlPathId [{}]", pktSrcIpStr, pktDstIpStr,
                 ulPathId, dlPathId);
 
@@ -191,112 +199,84 @@ public class SfcIpv4PacketInHandler implements PacketProcessingListener, AutoClo
      * @param rawPacket packet
      * @return etherType
      */
-    private short getEtherType(final byte[] rawPacket) {
-        final byte[] etherTypeBytes = Arrays.copyOfRange(rawPacket, PACKET_OFFSET_ETHERTYPE,
-                PACKET_OFFSET_ETHERTYPE + 2);
-        return packShort(etherTypeBytes);
+    private static int getEtherType(final byte[] rawPacket) {
+        return ((rawPacket[PACKET_OFFSET_ETHERTYPE] & 0xff) << 8) | (rawPacket[PACKET_OFFSET_ETHERTYPE + 1] & 0xff);
     }
 
     /**
-     * Given a raw packet, return the SrcIp.
+     * Read a 4-byte big endian integer from a raw packet, such as an IPv4
+     * address.
      *
      * @param rawPacket packet
-     * @return srcIp String
+     * @param offset offset of the integer in the packet
+     * @return the integer
      */
-    private String getSrcIpStr(final byte[] rawPacket) {
-        final byte[] ipSrcBytes = Arrays.copyOfRange(rawPacket, PACKET_OFFSET_IP_SRC, PACKET_OFFSET_IP_SRC + 4);
-        String pktSrcIpStr = null;
-        try {
-            pktSrcIpStr = InetAddress.getByAddress(ipSrcBytes).getHostAddress();
-        } catch (UnknownHostException e) {
-            LOG.error("Exception getting Src IP address ", e);
-        }
-        return pktSrcIpStr;
+    private static int getInt(final byte[] rawPacket, int offset) {
+        return ((rawPacket[offset] & 0xff) << 24) | ((rawPacket[offset + 1] & 0xff) << 16)
+                | ((rawPacket[offset + 2] & 0xff) << 8) | (rawPacket[offset + 3] & 0xff);
     }
 
     /**
-     * Given a raw packet, return the DstIp.
+     * Format an IPv4 address in dotted decimal notation.
      *
-     * @param rawPacket packet
-     * @return dstIp String
+     * @param ip the address
+     * @return the address String
      */
-    private String getDstIpStr(final byte[] rawPacket) {
-        final byte[] ipDstBytes = Arrays.copyOfRange(rawPacket, PACKET_OFFSET_IP_DST, PACKET_OFFSET_IP_DST + 4);
-        String pktDstIpStr = null;
-        try {
-            pktDstIpStr = InetAddress.getByAddress(ipDstBytes).getHostAddress();
-        } catch (UnknownHostException e) {
-            LOG.error("Exception getting Dst IP address ", e);
-        }
-        return pktDstIpStr;
-    }
-
-    /**
-     * Simple internal utility function to convert from a 2-byte array to a
-     * short.
-     *
-     * @param bytes byte array
-     * @return the bytes packed into a short
-     */
-    private short packShort(byte[] bytes) {
-        short val = (short) 0;
-        for (int i = 0; i < 2; i++) {
-            val <<= 8;
-            val |= bytes[i] & 0xff;
-        }
-
-        return val;
+    private static String toIpStr(int ip) {
+        return new StringBuilder(15).append(ip >>> 24).append('.').append((ip >>> 16) & 0xff).append('.')
+                .append((ip >>> 8) & 0xff).append('.').append(ip & 0xff).toString();
     }
 
     /**
      * Decide if packets with the same src/dst IP have already been processed.
      * If they haven't been processed, store the IPs so they will be considered
-     * processed.
+     * processed. When several threads get packets for the same src/dst IP at
+     * the same time, only one of them gets to process them.
      *
-     * @param srcIpStr source IP
-     * @param dstIpStr destination IP
+     * @param srcIp source IP
+     * @param dstIp destination IP
+     * @param currentMillis the time the packet is processed at
      * @return True if the src/dst IP has already been processed, False
      *         otherwise
      */
-    private boolean bufferPktIn(final String srcIpStr, final String dstIpStr) {
-        String key = srcIpStr + dstIpStr;
-        long currentMillis = System.currentTimeMillis();
+    private boolean bufferPktIn(final int srcIp, final int dstIp, final long currentMillis) {
+        final Long key = ((long) srcIp << 32) | (dstIp & 0xffffffffL);
 
         Long bufferedTime = pktInBuffer.get(key);
 
         // If the entry does not exist, add it and return false indicating the
-        // packet needs to be processed
+        // packet needs to be processed, unless another thread added it first
         if (bufferedTime == null) {
-            // Add the entry
-            pktInBuffer.put(key, currentMillis);
-            return false;
+            return pktInBuffer.putIfAbsent(key, currentMillis) != null;
         }
 
         // If the entry is old, update it and return false indicating the packet
-        // needs to be processed
+        // needs to be processed, unless another thread updated it first
         if (currentMillis - bufferedTime > maxBufferTime) {
-            // Update the entry
-            pktInBuffer.put(key, currentMillis);
-            return false;
+            return !pktInBuffer.replace(key, bufferedTime, currentMillis);
         }
 
         return true;
     }
 
     /**
-     * Purge packets that have been in the PktIn buffer too long.
+     * Purge packets that have been in the PktIn buffer too long, once the
+     * buffer grows past the purge count. The buffer is purged at most once
+     * per buffer time, by a single thread.
+     *
+     * @param currentMillis the current time
      */
-    private void purgePktInBuffer() {
-        long currentMillis = System.currentTimeMillis();
-        Iterator<Entry<String, Long>> iter = pktInBuffer.entrySet().iterator();
-        while (iter.hasNext()) {
-            Entry<String, Long> entry = iter.next();
-            Long bufferedTime = entry.getValue();
+    private void purgePktInBuffer(final long currentMillis) {
+        final long lastPurge = lastPurgeMillis.get();
+        if (currentMillis - lastPurge <= maxBufferTime || pktInBuffer.size() <= packetCountPurge
+                || !lastPurgeMillis.compareAndSet(lastPurge, currentMillis)) {
+            return;
+        }
+        // Pairs processed again in the meantime are kept
+        pktInBuffer.forEach((key, bufferedTime) -> {
             if (currentMillis - bufferedTime > maxBufferTime) {
-                // This also removes the entry from the pktInBuffer map and
-                // doesnt invalidate iteration
-                iter.remove();
+                pktInBuffer.remove(key, bufferedTime);
             }
-        }
+        });
     }
 }
@@ -131,24 +131,24 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
     private static final String LOCALHOST_IP = "127.0.0.1";
 
     // Instance variables
-    private short tableBase;
+    private volatile short tableBase;
     // Used for app-coexistence
-    private short tableEgress;
-    private Long flowRspId;
+    private volatile short tableEgress;
+    // The RSP being rendered and its table index mapper are kept per thread, so
+    // that different RSPs can be rendered concurrently by different threads
+    private final ThreadLocal<Long> flowRspId = ThreadLocal.withInitial(() -> 0L);
     private SfcOfFlowWriterInterface sfcOfFlowWriter = null;
 
-    private SfcTableIndexMapper tableIndexMapper = null;
+    private final ThreadLocal<SfcTableIndexMapper> tableIndexMapper = new ThreadLocal<>();
 
     public SfcOfFlowProgrammerImpl() {
         this.tableBase = APP_COEXISTENCE_NOT_SET;
         this.tableEgress = APP_COEXISTENCE_NOT_SET;
-        this.flowRspId = 0L;
     }
 
     public SfcOfFlowProgrammerImpl(SfcOfFlowWriterInterface sfcOfFlowWriter) {
         this.tableBase = APP_COEXISTENCE_NOT_SET;
         this.tableEgress = APP_COEXISTENCE_NOT_SET;
-        this.flowRspId = 0L;
         this.sfcOfFlowWriter = sfcOfFlowWriter;
     }
 
@@ -194,7 +194,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
     @Override
     public void setFlowRspId(Long rspId) {
-        this.flowRspId = rspId;
+        this.flowRspId.set(rspId);
     }
 
     @Override
@@ -205,6 +205,18 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         return nodes;
     }
 
+    @Override
+    public void updateRspFlows(final long rspId) {
+        sfcOfFlowWriter.updateRspFlows(rspId);
+    }
+
+    @Override
+    public Set<NodeId> deleteOrphanSffFlows() {
+        Set<NodeId> nodes = sfcOfFlowWriter.clearSffsIfNoRspExists();
+        sfcOfFlowWriter.deleteFlowSet();
+        return nodes;
+    }
+
     @Override
     public void flushFlows() {
         this.sfcOfFlowWriter.flushFlows();
@@ -215,6 +227,11 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         this.sfcOfFlowWriter.purgeFlows();
     }
 
+    @Override
+    public void purgeFlows(long rspId) {
+        this.sfcOfFlowWriter.purgeFlows(rspId);
+    }
+
     /**
      * Check if the given cookie belongs to the Classification table.
      *
@@ -256,7 +273,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder flowBuilder = configureTableMatchAnyFlow(getTableId(TABLE_INDEX_CLASSIFIER),
                 getTableId(TABLE_INDEX_TRANSPORT_INGRESS));
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -292,7 +309,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder classifierDpdkOutputFlow = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_CLASSIFIER),
                 OF_PRIORITY_CLASSIFIER, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, classifierDpdkOutputFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, classifierDpdkOutputFlow);
     }
 
     /**
@@ -327,7 +344,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder classifierDpdkInputFlow = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_CLASSIFIER),
                 OF_PRIORITY_CLASSIFIER, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, classifierDpdkInputFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, classifierDpdkInputFlow);
     }
 
     /**
@@ -344,7 +361,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         }
 
         FlowBuilder flowBuilder = configureTableMatchAnyDropFlow(getTableId(TABLE_INDEX_TRANSPORT_INGRESS));
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -364,7 +381,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder flowBuilder = configureTableMatchAnyFlowResubmit(getTableId(TABLE_INDEX_TRANSPORT_INGRESS),
                  nextTableId);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -378,7 +395,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
     public void configurePathMapperTableMatchAny(final String sffNodeName) {
         FlowBuilder flowBuilder = configureTableMatchAnyFlow(getTableId(TABLE_INDEX_PATH_MAPPER),
                 getTableId(TABLE_INDEX_PATH_MAPPER_ACL));
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -392,7 +409,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
     public void configurePathMapperAclTableMatchAny(final String sffNodeName) {
         FlowBuilder flowBuilder = configureTableMatchAnyFlow(getTableId(TABLE_INDEX_PATH_MAPPER_ACL),
                 getTableId(TABLE_INDEX_NEXT_HOP));
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -406,7 +423,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
     public void configureNextHopTableMatchAny(final String sffNodeName) {
         FlowBuilder flowBuilder = configureTableMatchAnyFlow(getTableId(TABLE_INDEX_NEXT_HOP),
                 getTableId(TABLE_INDEX_TRANSPORT_EGRESS));
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -420,7 +437,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         // This is the last table, can't set next table AND doDrop should be
         // false
         FlowBuilder flowBuilder = configureTableMatchAnyDropFlow(getTableId(TABLE_INDEX_TRANSPORT_EGRESS));
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     @Override
@@ -428,7 +445,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder flowBuilder = configureTableMatchAnyFlowResubmit(getTableId(TABLE_INDEX_TRANSPORT_EGRESS),
                 nextTableId);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, flowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, flowBuilder);
     }
 
     /**
@@ -537,11 +554,11 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
     public void configureIpv4TransportIngressFlow(final String sffNodeName) {
         FlowBuilder transportIngressFlowTcp = configureTransportIngressFlow(SfcOpenflowUtils.ETHERTYPE_IPV4,
                 SfcOpenflowUtils.IP_PROTOCOL_TCP, OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_TCP);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlowTcp);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlowTcp);
 
         FlowBuilder transportIngressFlowUdp = configureTransportIngressFlow(SfcOpenflowUtils.ETHERTYPE_IPV4,
                 SfcOpenflowUtils.IP_PROTOCOL_UDP, OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_UDP);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlowUdp);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlowUdp);
     }
 
     /**
@@ -564,7 +581,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportIngressFlow =
                 configureTransportIngressFlow(match, OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_VLAN);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlow);
     }
 
     /**
@@ -579,7 +596,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportIngressFlow =
                 configureTransportIngressFlow(match, OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_MAC);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlow);
     }
 
     /**
@@ -595,7 +612,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
                 (short) -1,
                 getTableId(TABLE_INDEX_NEXT_HOP),
                 OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_ETH_NSH);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlow);
     }
 
     /**
@@ -619,7 +636,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
                 getTableId(TABLE_INDEX_NEXT_HOP),
                 OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_NSH,
                 actionList);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlow);
     }
 
     /**
@@ -633,7 +650,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
     public void configureMplsTransportIngressFlow(final String sffNodeName) {
         FlowBuilder transportIngressFlow = configureTransportIngressFlow(
                 SfcOpenflowUtils.ETHERTYPE_MPLS_UCAST, OpenflowConstants.OF_NAME_TRANSPORT_INGRESS_MPLS);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportIngressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportIngressFlow);
     }
 
     /**
@@ -758,7 +775,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
                 getTableId(TABLE_INDEX_TRANSPORT_INGRESS), OF_PRIORITY_ARP_TRANSPORT_INGRESS,
                 flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, arpTransportIngressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, arpTransportIngressFlow);
     }
 
     @Override
@@ -786,7 +803,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder sfFlow = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_INGRESS),
                 OF_PRIORITY_ARP_TRANSPORT_INGRESS, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, sfFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, sfFlow);
     }
 
     @Override
@@ -813,7 +830,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder sfFlow = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_INGRESS),
                 OF_PRIORITY_ARP_TRANSPORT_INGRESS, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, sfFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, sfFlow);
     }
 
     //
@@ -847,7 +864,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         } else {
             pathMapperFlow = configurePathMapperFlow(pathId, match, actionList);
         }
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, pathMapperFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, pathMapperFlow);
     }
 
     /**
@@ -877,7 +894,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         } else {
             pathMapperFlow = configurePathMapperFlow(pathId, match, actionList);
         }
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, pathMapperFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, pathMapperFlow);
     }
 
     /**
@@ -986,7 +1003,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         // Set an idle timeout on this flow
         ingressFlow.setIdleTimeout(PKTIN_IDLE_TIMEOUT);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, ingressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, ingressFlow);
     }
 
     //
@@ -1032,7 +1049,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         flowName.add(OpenflowConstants.OF_NAME_NEXT_HOP).add(String.valueOf(pathId)).add(srcMac).add(dstMac);
 
         FlowBuilder nextHopFlow = configureNextHopFlow(match, actionList, flowPriority, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, nextHopFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, nextHopFlow);
     }
 
     /**
@@ -1077,7 +1094,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         flowName.add(OpenflowConstants.OF_NAME_NEXT_HOP).add(vmac).add(nextVMac).add(dstSfMac);
 
         FlowBuilder nextHopFlow = configureNextHopFlow(match, actionList, OF_PRIORITY_NEXT_HOP, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, nextHopFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, nextHopFlow);
     }
 
     /**
@@ -1118,7 +1135,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         flowName.add(OpenflowConstants.OF_NAME_NEXT_HOP).add(String.valueOf(nshNsi)).add(String.valueOf(nshNsp));
 
         FlowBuilder nextHopFlow = configureNextHopFlow(match, actionList, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, nextHopFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, nextHopFlow);
     }
 
     /**
@@ -1149,7 +1166,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         MatchBuilder match = SfcOpenflowUtils.getNshMatches(nsp, nsi);
 
         FlowBuilder nextHopFlow = configureNextHopFlow(match, actionList, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, nextHopFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, nextHopFlow);
     }
 
     /**
@@ -1218,7 +1235,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
                                                                        OF_PRIORITY_TRANSPORT_EGRESS,
                                                                        TRANSPORT_EGRESS_MAC_CHAINING_COOKIE,
                                                                        flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     @Override
@@ -1244,7 +1261,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureMacTransportEgressFlow(match, actionList, port, pathId, srcMac,
                 dstMac, TRANSPORT_EGRESS_VLAN_SF_COOKIE);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     /**
@@ -1335,7 +1352,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureMacTransportEgressFlow(match, actionList, port, pathId, srcMac,
                 dstMac, cookieStr);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     /**
@@ -1425,7 +1442,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureMacTransportEgressFlow(match, actionList, port, pathId, srcMac,
                 dstMac, cookieStr);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     /**
@@ -1493,7 +1510,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureTransportEgressFlow(match, actionList, theOutPortToSet, flowPriority,
                 TRANSPORT_EGRESS_NSH_VXGPE_LASTHOP_COOKIE, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     /**
@@ -1554,7 +1571,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder fb = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_EGRESS),
                 OF_PRIORITY_TRANSPORT_EGRESS_PIPELINE, cookie, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, fb);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, fb);
     }
 
     @Override
@@ -1643,7 +1660,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder fb = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_EGRESS),
                 OF_PRIORITY_TRANSPORT_EGRESS_TUNNEL_REMOTE, cookie, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, fb);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, fb);
     }
 
     /**
@@ -1711,7 +1728,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder fb = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_EGRESS),
                 OF_PRIORITY_TRANSPORT_EGRESS_TUNNEL_LOCAL, cookie, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, fb);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, fb);
     }
 
     /**
@@ -1765,7 +1782,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder fb = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_EGRESS),
                 OF_PRIORITY_TRANSPORT_EGRESS_NSH_LOCAL, cookie, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, fb);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, fb);
     }
 
     /**
@@ -1822,7 +1839,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         FlowBuilder fb = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_TRANSPORT_EGRESS),
                 OF_PRIORITY_TRANSPORT_EGRESS_NSH_REMOTE, cookie, flowName.toString(), match, isb);
 
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, fb);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, fb);
     }
 
     @Override
@@ -1877,7 +1894,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureTransportEgressFlow(match, actionList, theOutPortToSet, flowPriority,
                 TRANSPORT_EGRESS_NSH_VXGPE_COOKIE, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     /**
@@ -1915,7 +1932,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureTransportEgressFlow(match, actionList, port,
                 OF_PRIORITY_TRANSPORT_EGRESS + 10, TRANSPORT_EGRESS_NSH_VXGPE_NSC_COOKIE, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     @Override
@@ -1948,7 +1965,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlow = configureTransportEgressFlow(match, actionList, EMPTY_SWITCH_PORT,
                 OF_PRIORITY_TRANSPORT_EGRESS + 10, TRANSPORT_EGRESS_NSH_VXGPE_APPCOEXIST_COOKIE, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     /**
@@ -1975,7 +1992,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         List<Action> actionList = new ArrayList<>();
         FlowBuilder transportEgressFlow = configureTransportEgressFlow(match, actionList, port,
                 OF_PRIORITY_TRANSPORT_EGRESS, TRANSPORT_EGRESS_NSH_ETH_COOKIE, flowName.toString());
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, transportEgressFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, transportEgressFlow);
     }
 
     @Override
@@ -1988,7 +2005,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
     @Override
     public void setTableIndexMapper(SfcTableIndexMapper tableIndexMapper) {
-        this.tableIndexMapper = tableIndexMapper;
+        this.tableIndexMapper.set(tableIndexMapper);
     }
 
     /**
@@ -2086,7 +2103,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         FlowBuilder transportEgressFlowBuilder = SfcOpenflowUtils.createFlowBuilder(
                 getTableId(TABLE_INDEX_TRANSPORT_EGRESS), flowPriority, cookie, flowName, match, isb);
-        sfcOfFlowWriter.writeFlow(flowRspId, openflowName, transportEgressFlowBuilder);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), openflowName, transportEgressFlowBuilder);
     }
 
     @Override
@@ -2190,7 +2207,7 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
         // Create and configure the FlowBuilder
         FlowBuilder nextHopFlow = SfcOpenflowUtils.createFlowBuilder(getTableId(TABLE_INDEX_NEXT_HOP), flowPriority,
                 OpenflowConstants.OF_NAME_NEXT_HOP, match, isb);
-        sfcOfFlowWriter.writeFlow(flowRspId, sffNodeName, nextHopFlow);
+        sfcOfFlowWriter.writeFlow(flowRspId.get(), sffNodeName, nextHopFlow);
     }
 
     private static BigInteger getMetadataSFP(long sfpId) {
@@ -2211,8 +2228,9 @@ public class SfcOfFlowProgrammerImpl implements SfcOfFlowProgrammerInterface {
 
         // A transport processor can provide a table index mapper in order
         // to retrieve table positions
-        if (tableIndexMapper != null && tableIndexMapper.getTableIndex(tableIndex).isPresent()) {
-            return tableIndexMapper.getTableIndex(tableIndex).get();
+        SfcTableIndexMapper mapper = tableIndexMapper.get();
+        if (mapper != null && mapper.getTableIndex(tableIndex).isPresent()) {
+            return mapper.getTableIndex(tableIndex).get();
         }
 
         if (getTableBase() > APP_COEXISTENCE_NOT_SET) {
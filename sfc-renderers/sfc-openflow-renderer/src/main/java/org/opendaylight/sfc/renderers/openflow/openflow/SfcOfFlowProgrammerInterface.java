@@ -42,7 +42,8 @@ public interface SfcOfFlowProgrammerInterface {
 
     void setTableEgress(short tableEgress);
 
-    // Set the RSP Id that subsequent flow creations belong to
+    // Set the RSP Id that subsequent flow creations from the calling thread
+    // belong to
     void setFlowRspId(Long rspId);
 
     /**
@@ -56,6 +57,24 @@ public interface SfcOfFlowProgrammerInterface {
      */
     Set<NodeId> deleteRspFlows(long rspId);
 
+    /**
+     * Replaces the flows of a particular RSP with the flows created for it
+     * from now on. Only the flows that changed are written on the next flush,
+     * and the flows no longer created are deleted.
+     *
+     * @param rspId
+     *            the id of the RSP being updated
+     */
+    void updateRspFlows(long rspId);
+
+    /**
+     * Removes initialization flows from the SFFs no longer featured in any
+     * RSP.
+     *
+     * @return Node IDs from which initialization flows were removed.
+     */
+    Set<NodeId> deleteOrphanSffFlows();
+
     // Write any buffered flows to the data store
     void flushFlows();
 
@@ -63,6 +82,10 @@ public interface SfcOfFlowProgrammerInterface {
     // errors, when the remaining buffered flows should not be written.
     void purgeFlows();
 
+    // Purge the unwritten flows of the given RSP, leaving the flows of other
+    // RSPs being rendered concurrently untouched.
+    void purgeFlows(long rspId);
+
     // Set FlowWriter implementation
     void setFlowWriter(SfcOfFlowWriterInterface sfcOfFlowWriter);
 
@@ -240,7 +263,8 @@ public interface SfcOfFlowProgrammerInterface {
 
     /**
      * Setter for the table index mapper (class which provides the tables to use
-     * for Genius-based application coexistence).
+     * for Genius-based application coexistence) used for the flows created by
+     * the calling thread.
      *
      * @param tableIndexMapper
      *            The table index mapper
@@ -8,12 +8,23 @@
 
 package org.opendaylight.sfc.renderers.openflow.processors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
 import org.opendaylight.genius.mdsalutil.NwConstants;
@@ -21,6 +32,11 @@ import org.opendaylight.mdsal.binding.api.RpcConsumerRegistry;
 import org.opendaylight.sfc.genius.util.SfcGeniusDataUtils;
 import org.opendaylight.sfc.genius.util.SfcGeniusRpcClient;
 import org.opendaylight.sfc.ovs.provider.SfcOvsUtil;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.Resource;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI.ResourceLock;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
 import org.opendaylight.sfc.renderers.openflow.openflow.SfcOfFlowProgrammerInterface;
 import org.opendaylight.sfc.renderers.openflow.utils.SfcOfBaseProviderUtils;
 import org.opendaylight.sfc.renderers.openflow.utils.SfcSynchronizer;
@@ -49,15 +65,18 @@ import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.NodeId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SfcOfRspProcessor {
+public class SfcOfRspProcessor implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(SfcOfRspProcessor.class);
+    private static final int RENDERING_THREADS = Runtime.getRuntime().availableProcessors();
     private final SfcOfFlowProgrammerInterface sfcOfFlowProgrammer;
     private final SfcOfBaseProviderUtils sfcOfProviderUtils;
     private final SfcSynchronizer sfcSynchronizer;
     private final Map<NodeId, Boolean> sffInitialized;
     private final OperDsUpdateHandlerInterface operDsHandler;
-    private final Map<String, SfcRspTransportProcessorBase> rspTransportProcessors;
+    private final Map<String, Supplier<SfcRspTransportProcessorBase>> rspTransportProcessors;
     private final SfcGeniusRpcClient theGeniusRpcClient;
+    private final ExecutorService renderingExecutor;
+    private final Object batchLock = new Object();
     private static final String TRANSPORT_ENCAP_SEPARATOR_STRING = "//";
 
     /*
@@ -69,31 +88,55 @@ public class SfcOfRspProcessor {
     private static final String LOGICAL_SFF_TRANSPORT_PROCESSOR_KEY = LogicalInterface.class.getName()
             + TRANSPORT_ENCAP_SEPARATOR_STRING + Nsh.class.getName();
 
+    /**
+     * The state needed to finish the processing of an RSP once its flows have
+     * been created.
+     */
+    private static final class RspRenderingContext {
+        private final RenderedServicePath rsp;
+        private final SffGraph sffGraph;
+        private final SfcRspTransportProcessorBase transportProcessor;
+
+        RspRenderingContext(RenderedServicePath rsp, SffGraph sffGraph,
+                            SfcRspTransportProcessorBase transportProcessor) {
+            this.rsp = rsp;
+            this.sffGraph = sffGraph;
+            this.transportProcessor = transportProcessor;
+        }
+    }
+
     public SfcOfRspProcessor(SfcOfFlowProgrammerInterface sfcOfFlowProgrammer,
                              SfcOfBaseProviderUtils sfcOfProviderUtils, SfcSynchronizer sfcSynchronizer,
                              RpcConsumerRegistry rpcRegistry, DataBroker dataBroker) {
         this.sfcOfFlowProgrammer = sfcOfFlowProgrammer;
         this.sfcOfProviderUtils = sfcOfProviderUtils;
         this.sfcSynchronizer = sfcSynchronizer;
-        this.sffInitialized = new HashMap<>();
+        this.sffInitialized = Collections.synchronizedMap(new HashMap<>());
         this.theGeniusRpcClient = new SfcGeniusRpcClient(rpcRegistry);
         this.operDsHandler = new OperDsUpdateHandlerLSFFImpl(dataBroker);
         this.rspTransportProcessors = new HashMap<>();
+        this.renderingExecutor = Executors.newFixedThreadPool(RENDERING_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("sfc-of-rsp-renderer-%d").setDaemon(true).build());
 
+        // Transport processors hold the state of the RSP being processed, so
+        // a new one is created for every RSP
         this.rspTransportProcessors.put(getTransportEncapName(VxlanGpe.class.getName(), Nsh.class.getName()),
-                new SfcRspProcessorNshVxgpe());
+                SfcRspProcessorNshVxgpe::new);
         this.rspTransportProcessors.put(getTransportEncapName(Mac.class.getName(), Nsh.class.getName()),
-                new SfcRspProcessorNshEth());
+                SfcRspProcessorNshEth::new);
         this.rspTransportProcessors.put(getTransportEncapName(Mpls.class.getName(), Transport.class.getName()),
-                new SfcRspProcessorMpls());
+                SfcRspProcessorMpls::new);
         this.rspTransportProcessors.put(getTransportEncapName(Mac.class.getName(), Transport.class.getName()),
-                new SfcRspProcessorVlan());
+                SfcRspProcessorVlan::new);
         this.rspTransportProcessors.put(getTransportEncapName(Mac.class.getName(), MacChaining.class.getName()),
-                new SfcRspProcessorMacChaining());
+                SfcRspProcessorMacChaining::new);
         this.rspTransportProcessors.put(LOGICAL_SFF_TRANSPORT_PROCESSOR_KEY,
-                new SfcRspProcessorLogicalSff(getGeniusRpcClient(), getOperDsHandler()));
-        rspTransportProcessors.forEach((key, value) -> value.setFlowProgrammer(sfcOfFlowProgrammer));
-        rspTransportProcessors.forEach((key, value) -> value.setSfcProviderUtils(sfcOfProviderUtils));
+            () -> new SfcRspProcessorLogicalSff(getGeniusRpcClient(), getOperDsHandler()));
+    }
+
+    @Override
+    public void close() {
+        renderingExecutor.shutdownNow();
     }
 
     /**
@@ -104,68 +147,199 @@ public class SfcOfRspProcessor {
      *            - a newly created/updated Rendered Service Path
      */
     public void processRenderedServicePath(RenderedServicePath rsp) {
-        // if this method takes too long, consider launching it in a thread
+        processRenderedServicePaths(Collections.singletonList(rsp));
+    }
+
+    /**
+     * Process several RSPs at once. The flows of the different RSPs are
+     * created in parallel, and then written to the data store together.
+     *
+     * @param rsps
+     *            - newly created/updated Rendered Service Paths
+     */
+    public void processRenderedServicePaths(Collection<RenderedServicePath> rsps) {
+        // Batches are processed one at a time, since the flows pending to be
+        // written are purged when a batch completes
+        final long startNanos = SfcRenderingMetrics.startTimer();
+        synchronized (batchLock) {
+            processBatch(rsps, false);
+        }
+        SfcRenderingMetrics.stopTimer(Stage.RSP_RENDERING, startNanos);
+    }
+
+    /**
+     * Process an RSP that was already rendered. Only the flows that changed
+     * are written, and the flows the RSP no longer needs are deleted, instead
+     * of deleting all the flows and writing them again.
+     *
+     * @param rsp
+     *            - the updated Rendered Service Path
+     */
+    public void updateRenderedServicePath(RenderedServicePath rsp) {
+        final long startNanos = SfcRenderingMetrics.startTimer();
+        synchronized (batchLock) {
+            processBatch(Collections.singletonList(rsp), true);
+        }
+        SfcRenderingMetrics.stopTimer(Stage.RSP_RENDERING, startNanos);
+    }
+
+    private void processBatch(Collection<RenderedServicePath> rsps, boolean isUpdate) {
+        // The RSPs of a batch are rendered concurrently, but not concurrently
+        // with the deletion of RSPs or changes to the table offsets
+        sfcSynchronizer.lockShared();
+        List<RspRenderingContext> renderedRsps = new ArrayList<>();
         try {
-            // This call blocks until the lock is obtained
-            sfcSynchronizer.lock();
-
-            sfcOfProviderUtils.addRsp(rsp.getPathId().toJava());
-
-            //
-            // Populate the SFF Connection Graph
-            //
-            SffGraph sffGraph = populateSffGraph(rsp);
-            SfcRspTransportProcessorBase transportProcessor = getTransportProcessor(sffGraph, rsp);
-
-            //
-            // Populate the SFF ingress and egress DPLs from the sffGraph
-            //
-            transportProcessor.processSffDpls();
-
-            //
-            // Internally calculate and set the RSP transport values
-            //
-            transportProcessor.setRspTransports();
-
-            //
-            // Now process the entries in the SFF Graph and populate the flow
-            // tables
-            //
-            SffGraph.SffGraphEntry entry;
-            Iterator<SffGraph.SffGraphEntry> sffGraphIter = sffGraph.getGraphEntryIterator();
-            sfcOfFlowProgrammer.setTableIndexMapper(transportProcessor.getTableIndexMapper().isPresent()
-                    ? transportProcessor.getTableIndexMapper().get()
-                    : null);
-            while (sffGraphIter.hasNext()) {
-                entry = sffGraphIter.next();
-                LOG.debug("build flows of entry: {}", entry);
-                // The flows created by initializeSff dont belong to any
-                // particular RSP
-                sfcOfFlowProgrammer.setFlowRspId(OpenflowConstants.SFC_FLOWS);
-                initializeSff(entry, transportProcessor);
-                sfcOfFlowProgrammer.setFlowRspId(rsp.getPathId().toJava());
-                configureTransportIngressFlows(entry, sffGraph, transportProcessor);
-                configurePathMapperFlows(entry, sffGraph, transportProcessor);
-                configureNextHopFlows(entry, sffGraph, transportProcessor);
-                configureTransportEgressFlows(entry, sffGraph, transportProcessor);
+            if (rsps.size() == 1) {
+                // Not worth handing over a single RSP to the rendering threads
+                RspRenderingContext rendered = renderRenderedServicePath(rsps.iterator().next(), isUpdate);
+                if (rendered != null) {
+                    renderedRsps.add(rendered);
+                }
+            } else {
+                Map<RenderedServicePath, Future<RspRenderingContext>> renderingJobs = new LinkedHashMap<>();
+                rsps.forEach(rsp -> renderingJobs.put(rsp,
+                        renderingExecutor.submit(() -> renderRenderedServicePath(rsp, isUpdate))));
+                // Every job is waited for, none may be writing flows once the
+                // batch is flushed or purged
+                for (Map.Entry<RenderedServicePath, Future<RspRenderingContext>> renderingJob
+                        : renderingJobs.entrySet()) {
+                    RspRenderingContext rendered = waitForRendering(renderingJob.getKey(), renderingJob.getValue());
+                    if (rendered != null) {
+                        renderedRsps.add(rendered);
+                    }
+                }
             }
 
-            // Flush the flows to the data store
+            // Flush the flows of all the RSPs to the data store
             this.sfcOfFlowProgrammer.flushFlows();
 
-            // Update the operational datastore if necessary (without blocking)
-            transportProcessor.updateOperationalDSInfo(sffGraph, rsp);
-
-            LOG.info("Processing complete for RSP: name [{}] Id [{}]", rsp.getName(), rsp.getPathId());
+            // Updated RSPs may have left some SFFs. No other RSP is being
+            // rendered, batches are processed one at a time.
+            if (isUpdate) {
+                for (NodeId sffNodeId : sfcOfFlowProgrammer.deleteOrphanSffFlows()) {
+                    setSffInitialized(sffNodeId, false);
+                }
+            }
 
-        } catch (SfcRenderingException e) {
-            LOG.error("SfcRenderingException in processRenderedServicePath: ", e);
+            // Update the operational datastore if necessary (without blocking)
+            for (RspRenderingContext rendered : renderedRsps) {
+                rendered.transportProcessor.updateOperationalDSInfo(rendered.sffGraph, rendered.rsp);
+                LOG.info("Processing complete for RSP: name [{}] Id [{}]", rendered.rsp.getName(),
+                        rendered.rsp.getPathId());
+            }
         } finally {
             // If there were any errors, purge any remaining flows so they're
             // not written
             this.sfcOfFlowProgrammer.purgeFlows();
-            sfcSynchronizer.unlock();
-            sfcOfProviderUtils.removeRsp(rsp.getPathId().toJava());
+            sfcSynchronizer.unlockShared();
+            renderedRsps.forEach(rendered -> sfcOfProviderUtils.removeRsp(rendered.rsp.getPathId().toJava()));
+        }
+    }
+
+    /**
+     * Wait for the flows of an RSP rendered by the rendering threads to be
+     * created, even if interrupted. The flows of the RSP are dropped if they
+     * could not be created, leaving the other RSPs of the batch untouched.
+     *
+     * @param rsp
+     *            - the Rendered Service Path
+     * @param renderingJob
+     *            - the job creating the flows of the RSP
+     * @return the rendering context of the RSP, or null if the flows could
+     *         not be created
+     */
+    private RspRenderingContext waitForRendering(RenderedServicePath rsp, Future<RspRenderingContext> renderingJob) {
+        try {
+            return Uninterruptibles.getUninterruptibly(renderingJob);
+        } catch (ExecutionException e) {
+            LOG.error("Unexpected failure processing RSP {}", rsp.getName(), e);
+            final long pathId = rsp.getPathId().toJava();
+            this.sfcOfFlowProgrammer.purgeFlows(pathId);
+            sfcOfProviderUtils.removeRsp(pathId);
+            return null;
+        }
+    }
+
+    /**
+     * Create the flows of an RSP, without writing them to the data store.
+     *
+     * @param rsp
+     *            - a newly created/updated Rendered Service Path
+     * @param isUpdate
+     *            - whether the flows created replace the current flows of the
+     *            RSP
+     * @return the rendering context needed to finish the processing of the
+     *         RSP, or null if the flows could not be created
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private RspRenderingContext renderRenderedServicePath(RenderedServicePath rsp, boolean isUpdate) {
+        final long pathId = rsp.getPathId().toJava();
+        try (ResourceLock rspLock = SfcConcurrencyAPI.lock(Resource.RSP, pathId)) {
+            if (rspLock == null) {
+                LOG.error("Could not lock RSP {} to process it", rsp.getName());
+                return null;
+            }
+
+            sfcOfProviderUtils.addRsp(pathId);
+            if (isUpdate) {
+                sfcOfFlowProgrammer.updateRspFlows(pathId);
+            }
+            try {
+                //
+                // Populate the SFF Connection Graph
+                //
+                SffGraph sffGraph = populateSffGraph(rsp);
+                SfcRspTransportProcessorBase transportProcessor = getTransportProcessor(sffGraph, rsp);
+
+                //
+                // Populate the SFF ingress and egress DPLs from the sffGraph
+                //
+                transportProcessor.processSffDpls();
+
+                //
+                // Internally calculate and set the RSP transport values
+                //
+                transportProcessor.setRspTransports();
+
+                //
+                // Now process the entries in the SFF Graph and populate the flow
+                // tables
+                //
+                SffGraph.SffGraphEntry entry;
+                Iterator<SffGraph.SffGraphEntry> sffGraphIter = sffGraph.getGraphEntryIterator();
+                sfcOfFlowProgrammer.setTableIndexMapper(transportProcessor.getTableIndexMapper().isPresent()
+                        ? transportProcessor.getTableIndexMapper().get()
+                        : null);
+                while (sffGraphIter.hasNext()) {
+                    entry = sffGraphIter.next();
+                    LOG.debug("build flows of entry: {}", entry);
+                    // The flows created by initializeSff dont belong to any
+                    // particular RSP
+                    sfcOfFlowProgrammer.setFlowRspId(OpenflowConstants.SFC_FLOWS);
+                    initializeSff(entry, transportProcessor);
+                    sfcOfFlowProgrammer.setFlowRspId(pathId);
+                    configureTransportIngressFlows(entry, sffGraph, transportProcessor);
+                    configurePathMapperFlows(entry, sffGraph, transportProcessor);
+                    configureNextHopFlows(entry, sffGraph, transportProcessor);
+                    configureTransportEgressFlows(entry, sffGraph, transportProcessor);
+                }
+
+                return new RspRenderingContext(rsp, sffGraph, transportProcessor);
+
+            } catch (SfcRenderingException e) {
+                LOG.error("SfcRenderingException in processRenderedServicePath: ", e);
+                // Drop the flows of this RSP so they're not written
+                this.sfcOfFlowProgrammer.purgeFlows(pathId);
+                sfcOfProviderUtils.removeRsp(pathId);
+                return null;
+            } catch (RuntimeException e) {
+                // Other RSPs of the batch may be rendered, so this one is
+                // dropped alone
+                LOG.error("Unexpected failure in processRenderedServicePath: ", e);
+                this.sfcOfFlowProgrammer.purgeFlows(pathId);
+                sfcOfProviderUtils.removeRsp(pathId);
+                return null;
+            }
         }
     }
 
@@ -176,9 +350,16 @@ public class SfcOfRspProcessor {
      *            - the Rendered Service Path to delete
      */
     public void deleteRenderedServicePath(RenderedServicePath rsp) {
-        Set<NodeId> clearedSffNodeIDs = sfcOfFlowProgrammer.deleteRspFlows(rsp.getPathId().toJava());
-        for (NodeId sffNodeId : clearedSffNodeIDs) {
-            setSffInitialized(sffNodeId, false);
+        // Deleting the RSP may clear the initialization flows of its SFFs,
+        // so it cannot run concurrently with the rendering of other RSPs
+        sfcSynchronizer.lock();
+        try {
+            Set<NodeId> clearedSffNodeIDs = sfcOfFlowProgrammer.deleteRspFlows(rsp.getPathId().toJava());
+            for (NodeId sffNodeId : clearedSffNodeIDs) {
+                setSffInitialized(sffNodeId, false);
+            }
+        } finally {
+            sfcSynchronizer.unlock();
         }
 
         // not necessary to build a transport processor; simply update SFF state
@@ -193,8 +374,8 @@ public class SfcOfRspProcessor {
 
     /**
      * Given the RSP transport type + encapsulation (and the rsp graph, for
-     * lsff), return a RSP Transport Processor that will call the appropriate
-     * FlowProgrammer methods.
+     * lsff), return a new RSP Transport Processor that will call the
+     * appropriate FlowProgrammer methods.
      *
      * @param sffGraph
      *            - sffGraph generated for the RSP
@@ -206,11 +387,15 @@ public class SfcOfRspProcessor {
     private SfcRspTransportProcessorBase getReusableTransportProcessor(SffGraph sffGraph, RenderedServicePath rsp) {
         String transportProcessorKey = sffGraph.isUsingLogicalSFF() ? LOGICAL_SFF_TRANSPORT_PROCESSOR_KEY
                 : getTransportEncapName(rsp.getTransportType().getName(), rsp.getSfcEncapsulation().getName());
-        SfcRspTransportProcessorBase transportProcessor = rspTransportProcessors.get(transportProcessorKey);
-        if (transportProcessor == null) {
+        Supplier<SfcRspTransportProcessorBase> transportProcessorSupplier =
+                rspTransportProcessors.get(transportProcessorKey);
+        if (transportProcessorSupplier == null) {
             throw new SfcRenderingException("getTransportProcessor no processor for transport ["
                     + rsp.getTransportType().getName() + "] encap [" + rsp.getSfcEncapsulation() + "] ");
         }
+        SfcRspTransportProcessorBase transportProcessor = transportProcessorSupplier.get();
+        transportProcessor.setFlowProgrammer(sfcOfFlowProgrammer);
+        transportProcessor.setSfcProviderUtils(sfcOfProviderUtils);
         LOG.debug("getTransportProcessor :: transport [{}] encap [{} selected transport processor [{}]]",
                 rsp.getTransportType().getName(), rsp.getSfcEncapsulation(), transportProcessor.getClass());
         return transportProcessor;
@@ -534,7 +719,13 @@ public class SfcOfRspProcessor {
         }
 
         NodeId sffNodeId = new NodeId(sffNodeName);
-        if (!getSffInitialized(sffNodeId)) {
+        // RSPs sharing this SFF may be rendered concurrently, make sure only
+        // one of them writes the initialization flows
+        synchronized (sffInitialized) {
+            if (getSffInitialized(sffNodeId)) {
+                return;
+            }
+
             LOG.debug("Initializing SFF [{}] node [{}]", entry.getDstSff().getValue(), sffNodeName);
 
             /* For OVS DPDK, add default NORMAL action flows */
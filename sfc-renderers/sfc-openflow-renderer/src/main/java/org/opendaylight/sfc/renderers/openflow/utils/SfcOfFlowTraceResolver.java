@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.renderers.openflow.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.opendaylight.sfc.ovs.provider.SfcOvsUtil;
+import org.opendaylight.sfc.provider.api.SfcProviderServiceForwarderAPI;
+import org.opendaylight.sfc.provider.api.SfcRenderedPathTracer;
+import org.opendaylight.sfc.util.openflow.writer.FlowDetails;
+import org.opendaylight.sfc.util.openflow.writer.SfcOfFlowWriterImpl;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SffName;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.trace.hop.MatchedFlow;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.trace.rendered.service.path.output.trace.hop.MatchedFlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sff.rev140701.service.function.forwarders.ServiceFunctionForwarder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the flows that would match a packet on an SFF, from the flows the
+ * OpenFlow renderer installed, for the trace-rendered-service-path RPC.
+ */
+public class SfcOfFlowTraceResolver implements SfcRenderedPathTracer.FlowResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SfcOfFlowTraceResolver.class);
+
+    private final SfcOfFlowWriterImpl sfcOfFlowWriter;
+    private final SfcOfBaseProviderUtils sfcOfProviderUtils;
+
+    public SfcOfFlowTraceResolver(SfcOfFlowWriterImpl sfcOfFlowWriter, SfcOfBaseProviderUtils sfcOfProviderUtils) {
+        this.sfcOfFlowWriter = sfcOfFlowWriter;
+        this.sfcOfProviderUtils = sfcOfProviderUtils;
+    }
+
+    @Override
+    public List<MatchedFlow> resolveFlows(SffName sffName, long pathId, short serviceIndex, Long mplsLabel,
+            Integer vlanId) {
+        ServiceFunctionForwarder sff = SfcProviderServiceForwarderAPI.readServiceFunctionForwarder(sffName);
+        String sffNodeName = sff == null ? null
+                : sfcOfProviderUtils.getSffOpenFlowNodeName(SfcOvsUtil.augmentSffWithOpenFlowNodeId(sff));
+        if (sffNodeName == null) {
+            LOG.warn("resolveFlows: no OpenFlow node found for SFF {}", sffName);
+            return Collections.emptyList();
+        }
+
+        List<MatchedFlow> matchedFlows = new ArrayList<>();
+        for (FlowDetails flowDetails : sfcOfFlowWriter.matchFlows(sffNodeName, pathId, serviceIndex, mplsLabel,
+                vlanId)) {
+            matchedFlows.add(new MatchedFlowBuilder().setTableId(flowDetails.getTableKey().getId())
+                    .setFlowId(flowDetails.getFlowKey().getId().getValue())
+                    .setPriority(flowDetails.getFlow().getPriority()).setOwnerPathId(flowDetails.getRspId())
+                    .build());
+        }
+        return matchedFlows;
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.sfc.ovs.provider.SfcOvsUtil;
 import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
@@ -69,7 +70,8 @@ public class SfcOfProviderUtils extends SfcOfBaseProviderUtils {
     private final Map<Long, RspContext> rspIdToContext;
 
     public SfcOfProviderUtils() {
-        rspIdToContext = new HashMap<>();
+        // RSPs may be rendered concurrently
+        rspIdToContext = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -8,42 +8,61 @@
 
 package org.opendaylight.sfc.renderers.openflow.utils;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * A simple synchronization class used to synchronize different events in SFC.
- * Encapsulates the usage of a ReentrantLock.
+ * Encapsulates the usage of a ReentrantReadWriteLock: events that can run
+ * concurrently with each other, like rendering different RSPs, take the lock
+ * in shared mode, while events affecting all of them, like changing the
+ * table offsets, take it in exclusive mode.
  *
  * @author ebrjohn
  *
  */
 public class SfcSynchronizer {
-    private final ReentrantLock lock;
+    private final ReentrantReadWriteLock lock;
 
     public SfcSynchronizer() {
-        lock = new ReentrantLock();
+        lock = new ReentrantReadWriteLock();
     }
 
     /**
-     * To be called by threads that need to lock. This is a blocking call.
+     * To be called by threads that need to lock exclusively. This is a
+     * blocking call.
      */
     public void lock() {
-        lock.lock();
+        lock.writeLock().lock();
+    }
+
+    /**
+     * To be called by threads that need to lock, but can run concurrently
+     * with other threads locking in shared mode. This is a blocking call.
+     */
+    public void lockShared() {
+        lock.readLock().lock();
     }
 
     /**
      * Query if the lock is available.
      *
-     * @return true if no threads are waiting on the lock, false otherwise
+     * @return true if the lock is held in either mode, false otherwise
      */
     public boolean isLocked() {
-        return lock.isLocked();
+        return lock.isWriteLocked() || lock.getReadLockCount() > 0;
     }
 
     /**
-     * Release the lock.
+     * Release the exclusive lock.
      */
     public void unlock() {
-        lock.unlock();
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * Release the shared lock.
+     */
+    public void unlockShared() {
+        lock.readLock().unlock();
     }
 }
@@ -21,6 +21,12 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import org.opendaylight.sfc.renderers.openflow.openflow.SfcIpv4PacketInHandler;
 import org.opendaylight.sfc.renderers.openflow.openflow.SfcOfFlowProgrammerImpl;
@@ -141,6 +147,53 @@ public class SfcIpv4PacketInHandlerTest {
         assertEquals(this.pktInHandler.getBufferSize(), 1);
     }
 
+    @Test
+    public void pktInTruncated() {
+        PacketReceived pkt = createPacket();
+        when(pkt.getPayload()).thenReturn(hexStringToByteArray("a1a1a1a1a1a1b2b2b2b2b2b20800"));
+
+        this.pktInHandler.onPacketReceived(pkt);
+        verify(this.flowProgrammerMock, times(1)).compareClassificationTableCookie((FlowCookie) anyObject());
+        verifyNoMoreInteractions(this.flowProgrammerMock);
+        assertEquals(this.pktInHandler.getBufferSize(), 0);
+    }
+
+    @Test
+    public void pktInConcurrentBuffering() throws Exception {
+        this.pktInHandler.setMaxBufferTime(10000); // 10 seconds
+        PacketReceived pkt = createPacket();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 100; j++) {
+                        this.pktInHandler.onPacketReceived(pkt);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The flows of the pair are only installed once
+        verify(this.flowProgrammerMock, times(2)).configurePathMapperAclFlow(anyString(), anyString(), anyString(),
+                anyShort());
+        verify(this.flowProgrammerMock).configurePathMapperAclFlow("openflow:1", "10.10.0.1", "11.11.0.1",
+                (short) 100);
+        verify(this.flowProgrammerMock).configurePathMapperAclFlow("openflow:1", "11.11.0.1", "10.10.0.1",
+                (short) 101);
+        assertEquals(this.pktInHandler.getBufferSize(), 1);
+    }
+
     // When we want to reset the method call counters,
     // it also resets the stubs, so do both together
     private void resetFlowProgrammerMock() {
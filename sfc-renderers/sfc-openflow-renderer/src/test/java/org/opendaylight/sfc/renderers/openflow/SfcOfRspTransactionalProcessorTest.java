@@ -43,7 +43,6 @@ import org.opendaylight.sfc.renderers.openflow.utils.SfcSynchronizer;
 import org.opendaylight.sfc.util.openflow.OpenflowConstants;
 import org.opendaylight.sfc.util.openflow.writer.FlowDetails;
 import org.opendaylight.sfc.util.openflow.writer.SfcOfFlowWriterImpl;
-import org.opendaylight.sfc.util.openflow.writer.SfcOfFlowWriterInterface;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.common.rev151017.SftTypeName;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.rsp.rev140701.rendered.service.paths.RenderedServicePath;
 import org.opendaylight.yang.gen.v1.urn.cisco.params.xml.ns.yang.sfc.sl.rev140701.Nsh;
@@ -87,7 +86,7 @@ public class SfcOfRspTransactionalProcessorTest {
     private final List<SftTypeName> serviceFunctionChain2;
     private RenderedServicePath nshRsp;
     private RenderedServicePath nshRsp2;
-    private final SfcOfFlowWriterInterface sfcFlowWriterTestMock;
+    private final SfcOfFlowWriterImpl sfcFlowWriterTestMock;
     private final DataBroker dataBroker;
 
     public SfcOfRspTransactionalProcessorTest() {
@@ -136,10 +135,11 @@ public class SfcOfRspTransactionalProcessorTest {
      * @return true if all SFFs are free of initialization flows, false
      *         otherwise
      */
-    private boolean areSffsFreeOfInitializationFlows(Map<Long, Map<String, List<FlowDetails>>> theMap) {
-        Predicate<Map.Entry<String, List<FlowDetails>>> emptySff = theInputEntry -> theInputEntry.getValue()
+    private boolean areSffsFreeOfInitializationFlows(Map<Long, Map<String, Set<FlowDetails>>> theMap) {
+        Predicate<Map.Entry<String, Set<FlowDetails>>> emptySff = theInputEntry -> theInputEntry.getValue()
                 .isEmpty();
-        return theMap.get(OpenflowConstants.SFC_FLOWS).entrySet().stream().allMatch(emptySff);
+        return theMap.getOrDefault(OpenflowConstants.SFC_FLOWS, Collections.emptyMap()).entrySet().stream()
+                .allMatch(emptySff);
     }
 
     /**
@@ -185,13 +185,12 @@ public class SfcOfRspTransactionalProcessorTest {
         Set<FlowDetails> deletedFlows = Whitebox.getInternalState(sfcFlowWriterTestMock, "setOfFlowsToDelete");
 
         // fetch the flow cache
-        Map<Long, Map<String, List<FlowDetails>>> theMap = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> theMap = sfcFlowWriterTestMock.getRspFlows();
 
         // all the initialization flows belong to a dummy RSP - check
         // SfcOfRspProcessor SFC_FLOWS constant
-        // we won't delete this entry from the cache
-        assertThat(theMap.entrySet().size(), is(1));
+        // it is gone together with the flows of the last RSP
+        assertThat(theMap.entrySet().size(), is(0));
 
         // get all the current flows
         Set<FlowDetails> currentFlows = theMap.entrySet().stream()
@@ -227,13 +226,12 @@ public class SfcOfRspTransactionalProcessorTest {
         this.sfcOfRspProcessor.processRenderedServicePath(nshRsp);
 
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap1 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap1 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock).flushFlows();
 
         Set<FlowDetails> allFlowsAfterRsp1 = new HashSet<>();
 
-        for (Map<String, List<FlowDetails>> flowsInRsp : rspToFlowsMap1.values()) {
+        for (Map<String, Set<FlowDetails>> flowsInRsp : rspToFlowsMap1.values()) {
             flowsInRsp.values().forEach(theFlows -> {
                 allFlowsAfterRsp1.addAll(theFlows);
             });
@@ -250,12 +248,11 @@ public class SfcOfRspTransactionalProcessorTest {
         // ---------------------
         this.sfcOfRspProcessor.processRenderedServicePath(nshRsp2);
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap2 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap2 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock, times(2)).flushFlows();
 
         Set<FlowDetails> allFlowsAfterRsp2 = new HashSet<>();
-        for (Map<String, List<FlowDetails>> flowsInRsp : rspToFlowsMap2.values()) {
+        for (Map<String, Set<FlowDetails>> flowsInRsp : rspToFlowsMap2.values()) {
             flowsInRsp.values().forEach(theFlows -> {
                 allFlowsAfterRsp2.addAll(theFlows);
             });
@@ -274,8 +271,7 @@ public class SfcOfRspTransactionalProcessorTest {
         this.sfcOfRspProcessor.deleteRenderedServicePath(nshRsp2);
 
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap3 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap3 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock).deleteFlowSet();
 
         Set<FlowDetails> deletedFlowsRsp2 = Whitebox.getInternalState(sfcFlowWriterTestMock, "setOfFlowsToDelete");
@@ -295,8 +291,7 @@ public class SfcOfRspTransactionalProcessorTest {
         this.sfcOfRspProcessor.deleteRenderedServicePath(nshRsp);
 
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap4 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap4 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock, times(2)).deleteFlowSet();
 
         // get the list of deleted flows belonging to RSP1
@@ -338,13 +333,12 @@ public class SfcOfRspTransactionalProcessorTest {
         // with the set of flows after C:RSP1-C:RSP2-D:RSP1 (end of Step 3)
         // ---------------------------------------------------------------------------------------------------------
         this.sfcOfRspProcessor.processRenderedServicePath(nshRsp2);
-        Map<Long, Map<String, List<FlowDetails>>> currentRspCache = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> currentRspCache = sfcFlowWriterTestMock.getRspFlows();
 
-        Map<Long, Map<String, List<FlowDetails>>> theRspToFlowsMapWithRSP2Only = new HashMap<>(currentRspCache);
+        Map<Long, Map<String, Set<FlowDetails>>> theRspToFlowsMapWithRSP2Only = new HashMap<>(currentRspCache);
 
         Set<FlowDetails> allFlowsAfterCreatingRSP2Only = new HashSet<>();
-        for (Map<String, List<FlowDetails>> flowsInRsp : theRspToFlowsMapWithRSP2Only.values()) {
+        for (Map<String, Set<FlowDetails>> flowsInRsp : theRspToFlowsMapWithRSP2Only.values()) {
             flowsInRsp.values().forEach(theFlows -> {
                 allFlowsAfterCreatingRSP2Only.addAll(theFlows);
             });
@@ -358,7 +352,6 @@ public class SfcOfRspTransactionalProcessorTest {
 
         // got to reset the internal buffer of the writer
         sfcFlowWriterTestMock.purgeFlows();
-        currentRspCache.clear();
 
         // ---------------------
         // Step 1. Create RSP 1
@@ -366,13 +359,12 @@ public class SfcOfRspTransactionalProcessorTest {
         this.sfcOfRspProcessor.processRenderedServicePath(nshRsp);
 
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap1 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap1 = sfcFlowWriterTestMock.getRspFlows();
 
         verify(sfcFlowWriterTestMock, times(2)).flushFlows();
 
         Set<FlowDetails> allFlowsAfterRsp1 = new HashSet<>();
-        for (Map<String, List<FlowDetails>> flowsInRsp : rspToFlowsMap1.values()) {
+        for (Map<String, Set<FlowDetails>> flowsInRsp : rspToFlowsMap1.values()) {
             flowsInRsp.values().forEach(theFlows -> {
                 allFlowsAfterRsp1.addAll(theFlows);
             });
@@ -388,16 +380,15 @@ public class SfcOfRspTransactionalProcessorTest {
         // ---------------------
         this.sfcOfRspProcessor.processRenderedServicePath(nshRsp2);
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap2 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap2 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock, times(3)).flushFlows();
 
         Set<FlowDetails> allFlowsAfterRsp2 = new HashSet<>();
-        for (Map<String, List<FlowDetails>> flowsInRsp : rspToFlowsMap1.values()) {
+        for (Map<String, Set<FlowDetails>> flowsInRsp : rspToFlowsMap2.values()) {
             flowsInRsp.values().forEach(theFlows -> {
                 allFlowsAfterRsp2.addAll(theFlows);
             });
-            LOG.debug("  Step 1: added {} flows to flow list", flowsInRsp.size());
+            LOG.debug("  Step 2: added {} flows to flow list", flowsInRsp.size());
         }
 
         LOG.debug(
@@ -412,8 +403,7 @@ public class SfcOfRspTransactionalProcessorTest {
         this.sfcOfRspProcessor.deleteRenderedServicePath(nshRsp);
 
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap3 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap3 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock, times(2)).deleteFlowSet();
 
         Set<FlowDetails> deletedFlowsRsp1 = Whitebox.getInternalState(sfcFlowWriterTestMock, "setOfFlowsToDelete");
@@ -425,7 +415,7 @@ public class SfcOfRspTransactionalProcessorTest {
 
         // Flows after C:RSP1-C:RSP2-D-RSP1 should be the same than after C:RSP2
         Assert.assertEquals(2, rspToFlowsMap3.size());
-        Assert.assertEquals(rspToFlowsMap3, rspToFlowsMap1);
+        Assert.assertEquals(rspToFlowsMap3, theRspToFlowsMapWithRSP2Only);
         Assert.assertEquals(allFlowsAfterCreatingRSP2Only.size(), allFlowsAfterRsp2.size() - deletedFlowsRsp1.size());
 
         LOG.debug(
@@ -439,8 +429,7 @@ public class SfcOfRspTransactionalProcessorTest {
         this.sfcOfRspProcessor.deleteRenderedServicePath(nshRsp2);
 
         // Store the list of flows created at this point
-        Map<Long, Map<String, List<FlowDetails>>> rspToFlowsMap4 = Whitebox.getInternalState(sfcFlowWriterTestMock,
-                "rspNameToFlowsMap");
+        Map<Long, Map<String, Set<FlowDetails>>> rspToFlowsMap4 = sfcFlowWriterTestMock.getRspFlows();
         verify(sfcFlowWriterTestMock, times(3)).deleteFlowSet();
 
         Set<FlowDetails> deleteAllFlows = Whitebox.getInternalState(sfcFlowWriterTestMock, "setOfFlowsToDelete");
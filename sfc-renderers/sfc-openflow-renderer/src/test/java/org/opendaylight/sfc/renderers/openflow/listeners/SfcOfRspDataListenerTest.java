@@ -8,16 +8,21 @@
 
 package org.opendaylight.sfc.renderers.openflow.listeners;
 
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
@@ -70,8 +75,34 @@ public class SfcOfRspDataListenerTest {
         when(dataObjectModificationRsp.getDataAfter()).thenReturn(rerenderRsp);
         when(dataObjectModificationRsp.getDataBefore()).thenReturn(rerenderRsp);
         sfcOfRspDataListener.onDataTreeChanged(rspModifications);
-        verify(sfcOfRspProcessor).processRenderedServicePath(same(rerenderRsp));
-        verify(sfcOfRspProcessor).deleteRenderedServicePath(same(rerenderRsp));
+        verify(sfcOfRspProcessor).updateRenderedServicePath(same(rerenderRsp));
+        verifyNoMoreInteractions(sfcOfRspProcessor);
+    }
+
+    @Test
+    public void onDataTreeChangedAddSeveral() throws Exception {
+        RenderedServicePath addedRsp1 = new RenderedServicePathBuilder().setName(new RspName("RSP1")).build();
+        RenderedServicePath addedRsp2 = new RenderedServicePathBuilder().setName(new RspName("RSP2")).build();
+        when(dataObjectModificationRsp.getModificationType()).thenReturn(DataObjectModification.ModificationType.WRITE);
+        when(dataObjectModificationRsp.getDataAfter()).thenReturn(addedRsp1);
+        DataTreeModification<RenderedServicePath> dataTreeModificationRsp2 = mockRspModification(addedRsp2);
+        sfcOfRspDataListener.onDataTreeChanged(Arrays.asList(dataTreeModificationRsp, dataTreeModificationRsp2));
+        verify(sfcOfRspProcessor).processRenderedServicePaths(eq(Arrays.asList(addedRsp1, addedRsp2)));
+        verifyNoMoreInteractions(sfcOfRspProcessor);
+    }
+
+    @Test
+    public void onDataTreeChangedAddThenDelete() throws Exception {
+        RenderedServicePath addedRsp = new RenderedServicePathBuilder().setName(new RspName("RSP1")).build();
+        RenderedServicePath oldRsp = new RenderedServicePathBuilder().setName(new RspName("RSP2")).build();
+        when(dataObjectModificationRsp.getModificationType())
+                .thenReturn(DataObjectModification.ModificationType.DELETE);
+        when(dataObjectModificationRsp.getDataBefore()).thenReturn(oldRsp);
+        DataTreeModification<RenderedServicePath> dataTreeModificationAdd = mockRspModification(addedRsp);
+        sfcOfRspDataListener.onDataTreeChanged(Arrays.asList(dataTreeModificationAdd, dataTreeModificationRsp));
+        InOrder inOrder = inOrder(sfcOfRspProcessor);
+        inOrder.verify(sfcOfRspProcessor).processRenderedServicePath(same(addedRsp));
+        inOrder.verify(sfcOfRspProcessor).deleteRenderedServicePath(same(oldRsp));
         verifyNoMoreInteractions(sfcOfRspProcessor);
     }
 
@@ -96,4 +127,14 @@ public class SfcOfRspDataListenerTest {
         verify(sfcOfRspProcessor).deleteRenderedServicePath(same(oldRsp));
         verifyNoMoreInteractions(sfcOfRspProcessor);
     }
+
+    @SuppressWarnings("unchecked")
+    private static DataTreeModification<RenderedServicePath> mockRspModification(RenderedServicePath addedRsp) {
+        DataTreeModification<RenderedServicePath> treeModification = mock(DataTreeModification.class);
+        DataObjectModification<RenderedServicePath> objectModification = mock(DataObjectModification.class);
+        when(treeModification.getRootNode()).thenReturn(objectModification);
+        when(objectModification.getModificationType()).thenReturn(DataObjectModification.ModificationType.WRITE);
+        when(objectModification.getDataAfter()).thenReturn(addedRsp);
+        return treeModification;
+    }
 }
@@ -17,12 +17,15 @@ import static org.mockito.Matchers.anyShort;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import org.junit.Before;
@@ -504,4 +507,22 @@ public class SfcOfRspProcessorTest {
 
         verifyNoMoreInteractions(this.flowProgrammerTestMoc);
     }
+
+    @Test
+    public void testFailedRspIsDroppedAloneFromBatch() {
+        LOG.info("SfcOfRspProcessorTest testFailedRspIsDroppedAloneFromBatch");
+
+        RenderedServicePath vlanRsp = rspBuilder.createRspFromSfTypes(this.sfTypes, Mac.class, Transport.class);
+        RenderedServicePath mplsRsp = rspBuilder.createRspFromSfTypes(this.sfTypes, Mpls.class, Transport.class);
+        doThrow(new IllegalStateException("rendering failure")).when(this.flowProgrammerTestMoc)
+                .configureMplsTransportIngressFlow(anyString());
+
+        this.sfcOfRspProcessor.processRenderedServicePaths(Arrays.asList(vlanRsp, mplsRsp));
+
+        // only the flows of the failed RSP are purged, the others are flushed
+        verify(this.flowProgrammerTestMoc).purgeFlows(mplsRsp.getPathId().toJava());
+        verify(this.flowProgrammerTestMoc, never()).purgeFlows(vlanRsp.getPathId().toJava());
+        verify(this.flowProgrammerTestMoc).flushFlows();
+        verify(this.flowProgrammerTestMoc).purgeFlows();
+    }
 }
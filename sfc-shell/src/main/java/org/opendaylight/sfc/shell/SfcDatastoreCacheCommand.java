@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.shell;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.apache.karaf.shell.support.table.Col;
+import org.apache.karaf.shell.support.table.ShellTable;
+import org.opendaylight.sfc.provider.validators.util.SfcDatastoreCache;
+
+/**
+ * Karaf CLI command to show the metrics of the caches used to validate the
+ * Service Function Paths, in order to size them.
+ */
+@Service
+@Command(scope = "sfc",
+        name = "datastore-cache", description = "Show the metrics of the SFP validation caches")
+public class SfcDatastoreCacheCommand extends AbstractCommand {
+
+    private final ShellTable table;
+
+    public SfcDatastoreCacheCommand() {
+        table = new ShellTable();
+        table.column(new Col("Cache"));
+        table.column(new Col("Size"));
+        table.column(new Col("Hit ratio"));
+        table.column(new Col("Loads"));
+        table.column(new Col("Average load (us)"));
+        table.column(new Col("Evictions"));
+    }
+
+    @Override
+    public Object execute() {
+        for (SfcDatastoreCache.Metrics metrics : SfcDatastoreCache.getShared().getMetrics()) {
+            table.addRow().addContent(metrics.getName(), metrics.getSize(),
+                    String.format("%.3f", metrics.getHitRatio()), metrics.getLoadCount(),
+                    TimeUnit.NANOSECONDS.toMicros(metrics.getAverageLoadTime()), metrics.getEvictionCount());
+        }
+        table.print(getConsole());
+        return null;
+    }
+}
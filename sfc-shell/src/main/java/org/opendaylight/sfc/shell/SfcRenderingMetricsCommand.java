@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.shell;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.apache.karaf.shell.support.table.Col;
+import org.apache.karaf.shell.support.table.ShellTable;
+import org.opendaylight.sfc.provider.api.SfcConcurrencyAPI;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.StageLatency;
+
+/**
+ * Karaf CLI command to show the latency of each stage of the RSP rendering,
+ * from the SFP listener to the commit of the flows, along with the flow
+ * writing throughput.
+ */
+@Service
+@Command(scope = "sfc",
+        name = "rendering-metrics", description = "Show the latency and throughput of the RSP rendering")
+public class SfcRenderingMetricsCommand extends AbstractCommand {
+
+    @Option(name = "-reset", aliases = {"--reset"}, description = "Reset the metrics after showing them")
+    private boolean reset;
+
+    private final ShellTable table;
+
+    public SfcRenderingMetricsCommand() {
+        table = new ShellTable();
+        table.column(new Col("Stage"));
+        table.column(new Col("Count"));
+        table.column(new Col("Mean (us)"));
+        table.column(new Col("Median (us)"));
+        table.column(new Col("99th (us)"));
+        table.column(new Col("Max (us)"));
+    }
+
+    @Override
+    public Object execute() {
+        PrintStream console = getConsole();
+        if (!SfcRenderingMetrics.isEnabled()) {
+            console.println("Rendering metrics are disabled");
+        }
+
+        for (StageLatency latency : SfcRenderingMetrics.getStageLatencies()) {
+            table.addRow().addContent(latency.getStage(), latency.getCount(), latency.getMeanMicros(),
+                    latency.getMedianMicros(), latency.getP99Micros(), latency.getMaxMicros());
+        }
+        table.print(console);
+
+        console.println();
+        console.println("Flows written: " + SfcRenderingMetrics.getFlowsWritten() + String.format(" (%.1f/s)",
+                SfcRenderingMetrics.getFlowsPerSecond()));
+        console.println("Flow operations pending: " + SfcRenderingMetrics.getFlowWriterQueueDepth());
+        console.println("RSPs being rendered: " + SfcRenderingMetrics.getTrackedRsps());
+        console.println("Lock acquisitions: " + SfcConcurrencyAPI.getLockAcquisitions() + ", contended "
+                + SfcConcurrencyAPI.getContendedLockAcquisitions() + ", timed out "
+                + SfcConcurrencyAPI.getLockTimeouts() + ", max wait "
+                + TimeUnit.NANOSECONDS.toMicros(SfcConcurrencyAPI.getMaxLockWaitNanos()) + " us");
+
+        if (reset) {
+            SfcRenderingMetrics.reset();
+            SfcConcurrencyAPI.resetLockStatistics();
+        }
+        return null;
+    }
+}
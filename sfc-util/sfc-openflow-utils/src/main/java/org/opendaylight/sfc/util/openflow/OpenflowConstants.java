@@ -55,6 +55,10 @@ public final class OpenflowConstants {
     public static final String OF_NAME_SF_LOOPBACK_INGRESS = "sfLoopbackIngress";
     public static final String OF_NAME_SF_LOOPBACK_EGRESS = "sfLoopbackEgress";
 
+    // Flows written on behalf of an RSP carry its path id in the flow
+    // container name, which is only kept in the config data store
+    public static final String OF_CONTAINER_NAME_RSP_PREFIX = "sfcRsp" + OF_NAME_DELIMITER;
+
     private OpenflowConstants() {
     }
 }
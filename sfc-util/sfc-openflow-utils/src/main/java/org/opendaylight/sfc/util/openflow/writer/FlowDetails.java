@@ -84,6 +84,15 @@ public class FlowDetails {
         return rspId;
     }
 
+    /**
+     * Whether the flow belongs to an RSP. Flows to be deleted may not.
+     *
+     * @return true if the RSP id is known
+     */
+    public final boolean hasRspId() {
+        return rspId != null;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(sffNodeName, flowKey, tableKey, flow, rspId);
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.util.openflow.writer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.types.rev131026.flow.Match;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflowplugin.extension.general.rev140714.GeneralAugMatchNodesNodeTableFlow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflowplugin.extension.general.rev140714.general.extension.list.grouping.ExtensionList;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflowplugin.extension.nicira.match.rev140714.NxAugMatchNodesNodeTableFlow;
+
+/**
+ * Index of the installed flows by the SFC fields they match on: NSP, MPLS
+ * label, VLAN id and path id metadata. It allows resolving the flows that
+ * would match a packet on an SFF without going through all the flows of the
+ * SFF.
+ *
+ * <p>
+ * Only the SFC fields are checked when matching a packet, the other fields
+ * (ports, MAC addresses, ether type) are considered wildcards. Flows matching
+ * on none of the SFC fields, such as the table-miss flows, are candidates for
+ * every packet. Not thread safe, the owner of the index synchronizes access.
+ */
+final class FlowMatchIndex {
+
+    // The field matched is kept in the high byte of the index keys
+    private static final int FIELD_SHIFT = 56;
+    private static final long VALUE_MASK = (1L << FIELD_SHIFT) - 1;
+    private static final long WILDCARD = 0;
+    private static final long NSP = 1L << FIELD_SHIFT;
+    private static final long MPLS_LABEL = 2L << FIELD_SHIFT;
+    private static final long VLAN_ID = 3L << FIELD_SHIFT;
+    private static final long METADATA = 4L << FIELD_SHIFT;
+    // Flows matching on a label, by the RSP they belong to, for packets
+    // whose label is not known
+    private static final long LABELLED_RSP = 5L << FIELD_SHIFT;
+
+    // SFF -> index key -> flows
+    private final Map<String, Map<Long, Map<FlowDetails, IndexedFlow>>> flowsPerSff = new HashMap<>();
+
+    // flow -> the SFC fields it was indexed with
+    private final Map<FlowDetails, IndexedFlow> indexedFlows = new HashMap<>();
+
+    /**
+     * Index a flow, replacing the content it was indexed with, if any. Flows
+     * without content can not be indexed, and are ignored.
+     *
+     * @param flowDetails
+     *            - the SFF, table, flow key and owner RSP of the flow
+     * @param flow
+     *            - the content of the flow
+     */
+    void add(FlowDetails flowDetails, Flow flow) {
+        if (flow != null) {
+            add(new IndexedFlow(flowDetails, flow));
+        }
+    }
+
+    /**
+     * Index a flow again, with the SFC fields it was removed with.
+     *
+     * @param indexedFlow
+     *            - the flow, as returned when removed from the index
+     */
+    void add(IndexedFlow indexedFlow) {
+        FlowDetails flowDetails = indexedFlow.flowDetails;
+        remove(flowDetails);
+        indexedFlows.put(flowDetails, indexedFlow);
+        Map<Long, Map<FlowDetails, IndexedFlow>> index =
+                flowsPerSff.computeIfAbsent(flowDetails.getSffNodeName(), sff -> new HashMap<>());
+        for (long key : indexedFlow.keys()) {
+            index.computeIfAbsent(key, k -> new HashMap<>()).put(flowDetails, indexedFlow);
+        }
+    }
+
+    /**
+     * Remove a flow from the index.
+     *
+     * @param flowDetails
+     *            - the SFF, table, flow key and owner RSP of the flow
+     * @return the SFC fields the flow was indexed with, or null if the flow
+     *         was not indexed
+     */
+    IndexedFlow remove(FlowDetails flowDetails) {
+        IndexedFlow indexedFlow = indexedFlows.remove(flowDetails);
+        if (indexedFlow == null) {
+            return null;
+        }
+        Map<Long, Map<FlowDetails, IndexedFlow>> index = flowsPerSff.get(flowDetails.getSffNodeName());
+        for (long key : indexedFlow.keys()) {
+            Map<FlowDetails, IndexedFlow> flows = index.get(key);
+            if (flows != null && flows.remove(flowDetails) != null && flows.isEmpty()) {
+                index.remove(key);
+            }
+        }
+        if (index.isEmpty()) {
+            flowsPerSff.remove(flowDetails.getSffNodeName());
+        }
+        return indexedFlow;
+    }
+
+    /**
+     * Resolve the flows that would match a packet on an SFF.
+     *
+     * @param sffNodeName
+     *            - the SFF the packet goes through
+     * @param pathId
+     *            - the path id of the packet
+     * @param serviceIndex
+     *            - the service index of the packet
+     * @param mplsLabel
+     *            - the MPLS label of the packet, or null to match the labels
+     *            of the path
+     * @param vlanId
+     *            - the VLAN id of the packet, or null to match the VLAN ids of
+     *            the path
+     * @return the highest priority flow matching the packet in each table, in
+     *         table order. The content of the flows only holds their key,
+     *         table and priority.
+     */
+    List<FlowDetails> match(String sffNodeName, long pathId, short serviceIndex, Long mplsLabel, Integer vlanId) {
+        Map<Long, Map<FlowDetails, IndexedFlow>> index = flowsPerSff.get(sffNodeName);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+
+        List<Map<FlowDetails, IndexedFlow>> candidates = new ArrayList<>();
+        addCandidates(candidates, index, WILDCARD);
+        addCandidates(candidates, index, NSP | pathId);
+        addCandidates(candidates, index, METADATA | pathId);
+        if (mplsLabel != null) {
+            addCandidates(candidates, index, MPLS_LABEL | mplsLabel);
+        }
+        if (vlanId != null) {
+            addCandidates(candidates, index, VLAN_ID | vlanId);
+        }
+        if (mplsLabel == null || vlanId == null) {
+            addCandidates(candidates, index, LABELLED_RSP | (pathId & VALUE_MASK));
+        }
+
+        // table -> highest priority flow matching the packet
+        Map<Short, IndexedFlow> matches = new TreeMap<>();
+        for (Map<FlowDetails, IndexedFlow> flows : candidates) {
+            for (IndexedFlow flow : flows.values()) {
+                if (flow.matches(pathId, serviceIndex, mplsLabel, vlanId)) {
+                    matches.merge(flow.tableId, flow, (one, other) -> one.priority >= other.priority ? one : other);
+                }
+            }
+        }
+
+        List<FlowDetails> matchedFlows = new ArrayList<>(matches.size());
+        matches.values().forEach(flow -> matchedFlows.add(flow.toFlowDetails()));
+        return matchedFlows;
+    }
+
+    private static void addCandidates(List<Map<FlowDetails, IndexedFlow>> candidates,
+            Map<Long, Map<FlowDetails, IndexedFlow>> index, long key) {
+        Map<FlowDetails, IndexedFlow> flows = index.get(key);
+        if (flows != null) {
+            candidates.add(flows);
+        }
+    }
+
+    /**
+     * The SFC fields a flow matches on, null when not matched on. The content
+     * of the flow is not kept, only a hash of it to tell whether the flow
+     * changed.
+     */
+    static final class IndexedFlow {
+        private final FlowDetails flowDetails;
+        private final short tableId;
+        private final int priority;
+        private final int contentHash;
+        private Long nsp;
+        private Short nsi;
+        private Long mplsLabel;
+        private Integer vlanId;
+        private Long metadata;
+
+        IndexedFlow(FlowDetails flowDetails, Flow flow) {
+            this.flowDetails = flowDetails;
+            this.tableId = flowDetails.getTableKey().getId().toJava();
+            this.priority = flow.getPriority() == null ? 0 : flow.getPriority().toJava();
+            this.contentHash = flow.hashCode();
+
+            Match match = flow.getMatch();
+            if (match == null) {
+                return;
+            }
+            if (match.getProtocolMatchFields() != null && match.getProtocolMatchFields().getMplsLabel() != null) {
+                mplsLabel = match.getProtocolMatchFields().getMplsLabel().toJava();
+            }
+            if (match.getVlanMatch() != null && match.getVlanMatch().getVlanId() != null
+                    && match.getVlanMatch().getVlanId().getVlanId() != null) {
+                vlanId = match.getVlanMatch().getVlanId().getVlanId().getValue().intValue();
+            }
+            if (match.getMetadata() != null && match.getMetadata().getMetadata() != null) {
+                metadata = match.getMetadata().getMetadata().longValue();
+            }
+
+            GeneralAugMatchNodesNodeTableFlow extensions = match.augmentation(GeneralAugMatchNodesNodeTableFlow.class);
+            if (extensions == null || extensions.getExtensionList() == null) {
+                return;
+            }
+            for (ExtensionList extension : extensions.getExtensionList()) {
+                NxAugMatchNodesNodeTableFlow nxMatch = extension.getExtension() == null ? null
+                        : extension.getExtension().augmentation(NxAugMatchNodesNodeTableFlow.class);
+                if (nxMatch == null) {
+                    continue;
+                }
+                if (nxMatch.getNxmNxNsp() != null && nxMatch.getNxmNxNsp().getValue() != null) {
+                    nsp = nxMatch.getNxmNxNsp().getValue().toJava();
+                }
+                if (nxMatch.getNxmNxNsi() != null && nxMatch.getNxmNxNsi().getNsi() != null) {
+                    nsi = nxMatch.getNxmNxNsi().getNsi().toJava();
+                }
+            }
+        }
+
+        /**
+         * Whether a flow has the same content as the flow indexed, as far as
+         * the hash of the content tells.
+         *
+         * @param flow
+         *            - the content of the flow, or null if unknown
+         * @return true if the flow is known to have the same content
+         */
+        boolean hasSameContent(Flow flow) {
+            return flow != null && contentHash == flow.hashCode();
+        }
+
+        List<Long> keys() {
+            List<Long> keys = new ArrayList<>(2);
+            if (nsp != null) {
+                keys.add(NSP | nsp);
+            } else if (mplsLabel != null) {
+                keys.add(MPLS_LABEL | mplsLabel);
+            } else if (vlanId != null) {
+                keys.add(VLAN_ID | vlanId);
+            } else if (metadata != null) {
+                keys.add(METADATA | (metadata & VALUE_MASK));
+            } else {
+                keys.add(WILDCARD);
+            }
+            if (mplsLabel != null || vlanId != null) {
+                keys.add(LABELLED_RSP | (flowDetails.getRspId() & VALUE_MASK));
+            }
+            return keys;
+        }
+
+        boolean matches(long pathId, short serviceIndex, Long packetMplsLabel, Integer packetVlanId) {
+            boolean ownedByPath = flowDetails.getRspId() == pathId;
+            return (nsp == null || nsp == pathId)
+                    && (nsi == null || nsi == serviceIndex)
+                    && (metadata == null || metadata == pathId)
+                    && (mplsLabel == null || (packetMplsLabel == null ? ownedByPath
+                            : mplsLabel.equals(packetMplsLabel)))
+                    && (vlanId == null || (packetVlanId == null ? ownedByPath : vlanId.equals(packetVlanId)));
+        }
+
+        FlowDetails toFlowDetails() {
+            Flow flow = new FlowBuilder().withKey(flowDetails.getFlowKey()).setTableId(tableId).setPriority(priority)
+                    .build();
+            return new FlowDetails(flowDetails.getSffNodeName(), flowDetails.getFlowKey(), flowDetails.getTableKey(),
+                    flow, flowDetails.getRspId());
+        }
+    }
+}
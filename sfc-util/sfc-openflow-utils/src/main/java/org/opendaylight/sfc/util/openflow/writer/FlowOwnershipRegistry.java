@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.util.openflow.writer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.opendaylight.sfc.util.openflow.writer.FlowMatchIndex.IndexedFlow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.TableKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowKey;
+
+/**
+ * Keeps track of the flows installed on behalf of each RSP, per SFF, so that
+ * they can be deleted later on. Only the keys of the flows are kept, with a
+ * hash of their content, not the content itself.
+ *
+ * <p>
+ * For each SFF, the number of RSPs with flows on it is also kept. That way,
+ * SFFs which are only featured in the initialization flows (orphan SFFs) are
+ * found by checking the SFFs whose count dropped to one, instead of checking
+ * every SFF against every RSP. Both registering and deleting the flows of an
+ * RSP take time proportional to the flows of that RSP.
+ *
+ * <p>
+ * The flows are also indexed by the SFC fields they match on, to resolve the
+ * flows that would match a packet when tracing an RSP.
+ */
+final class FlowOwnershipRegistry {
+
+    // Table keys are interned, there are only that many tables
+    private static final TableKey[] TABLE_KEYS = new TableKey[256];
+
+    static {
+        for (short i = 0; i < TABLE_KEYS.length; i++) {
+            TABLE_KEYS[i] = new TableKey(i);
+        }
+    }
+
+    // rsp id -> SFF -> flows of the RSP on the SFF
+    private final Map<Long, Map<String, Set<FlowDetails>>> rspFlows = new HashMap<>();
+
+    // SFF -> number of RSPs with flows on the SFF
+    private final Map<String, Integer> sffRspCount = new HashMap<>();
+
+    // SFFs featured in a single RSP, which may be the initialization flows
+    private final Set<String> orphanSffCandidates = new HashSet<>();
+
+    private final FlowMatchIndex matchIndex = new FlowMatchIndex();
+
+    /**
+     * Register a flow installed on behalf of an RSP. Registering the same
+     * flow again only updates the content it is indexed with.
+     *
+     * @param rspId
+     *            - the RSP the flow belongs to
+     * @param sffNodeName
+     *            - the SFF the flow is written to
+     * @param flowKey
+     *            - the flow key of the flow
+     * @param tableId
+     *            - the table the flow is written to
+     * @param flow
+     *            - the content of the flow, or null if unknown
+     */
+    synchronized void addFlow(long rspId, String sffNodeName, FlowKey flowKey, short tableId, Flow flow) {
+        FlowDetails flowDetails = new FlowDetails(sffNodeName, flowKey, TABLE_KEYS[tableId & 0xff], rspId);
+        addFlowKey(flowDetails);
+        matchIndex.add(flowDetails, flow);
+    }
+
+    /**
+     * Register again flows detached from an RSP, as they were indexed.
+     *
+     * @param flows
+     *            - the flows, as returned by {@link #detachRsp(long)}
+     */
+    synchronized void attachFlows(Map<FlowDetails, IndexedFlow> flows) {
+        flows.forEach((flowDetails, indexedFlow) -> {
+            addFlowKey(flowDetails);
+            if (indexedFlow != null) {
+                matchIndex.add(indexedFlow);
+            }
+        });
+    }
+
+    private void addFlowKey(FlowDetails flowDetails) {
+        String sffNodeName = flowDetails.getSffNodeName();
+        Map<String, Set<FlowDetails>> flowsPerSff =
+                rspFlows.computeIfAbsent(flowDetails.getRspId(), id -> new HashMap<>());
+        Set<FlowDetails> flows = flowsPerSff.get(sffNodeName);
+        if (flows == null) {
+            flows = new HashSet<>();
+            flowsPerSff.put(sffNodeName, flows);
+            if (sffRspCount.merge(sffNodeName, 1, Integer::sum) == 1) {
+                orphanSffCandidates.add(sffNodeName);
+            } else {
+                orphanSffCandidates.remove(sffNodeName);
+            }
+        }
+        flows.add(flowDetails);
+    }
+
+    /**
+     * Forget about the flows of an RSP.
+     *
+     * @param rspId
+     *            - the RSP whose flows are removed
+     * @return the flows of the RSP, or null if the RSP has no flows registered
+     */
+    synchronized List<FlowDetails> removeRsp(long rspId) {
+        Map<FlowDetails, IndexedFlow> flows = detachRsp(rspId);
+        return flows == null ? null : new ArrayList<>(flows.keySet());
+    }
+
+    /**
+     * Forget about the flows of an RSP, keeping the SFC fields they were
+     * indexed with so that they can be attached again.
+     *
+     * @param rspId
+     *            - the RSP whose flows are removed
+     * @return the flows of the RSP, with the SFC fields they were indexed with
+     *         or null if not indexed, or null if the RSP has no flows
+     *         registered
+     */
+    synchronized Map<FlowDetails, IndexedFlow> detachRsp(long rspId) {
+        Map<String, Set<FlowDetails>> flowsPerSff = rspFlows.remove(rspId);
+        if (flowsPerSff == null) {
+            return null;
+        }
+
+        Map<FlowDetails, IndexedFlow> flows = new HashMap<>();
+        flowsPerSff.forEach((sffNodeName, sffFlows) -> {
+            sffFlows.forEach(flowDetails -> flows.put(flowDetails, matchIndex.remove(flowDetails)));
+            releaseSff(sffNodeName);
+        });
+        return flows;
+    }
+
+    /**
+     * Forget about the flows of the given RSP on the SFFs which are not
+     * featured in any other RSP.
+     *
+     * @param rspId
+     *            - the RSP holding the initialization flows
+     * @return the flows removed, per SFF
+     */
+    synchronized Map<String, Set<FlowDetails>> removeOrphanSffs(long rspId) {
+        Map<String, Set<FlowDetails>> flowsPerSff = rspFlows.get(rspId);
+        if (flowsPerSff == null) {
+            orphanSffCandidates.clear();
+            return Collections.emptyMap();
+        }
+
+        Map<String, Set<FlowDetails>> orphanSffs = new HashMap<>();
+        for (String sffNodeName : orphanSffCandidates) {
+            if (sffRspCount.getOrDefault(sffNodeName, 0) == 1 && flowsPerSff.containsKey(sffNodeName)) {
+                Set<FlowDetails> sffFlows = flowsPerSff.remove(sffNodeName);
+                sffFlows.forEach(matchIndex::remove);
+                orphanSffs.put(sffNodeName, sffFlows);
+                sffRspCount.remove(sffNodeName);
+            }
+        }
+        orphanSffCandidates.clear();
+
+        if (flowsPerSff.isEmpty()) {
+            rspFlows.remove(rspId);
+        }
+        return orphanSffs;
+    }
+
+    private void releaseSff(String sffNodeName) {
+        int count = sffRspCount.merge(sffNodeName, -1, Integer::sum);
+        if (count <= 0) {
+            sffRspCount.remove(sffNodeName);
+            orphanSffCandidates.remove(sffNodeName);
+        } else if (count == 1) {
+            orphanSffCandidates.add(sffNodeName);
+        }
+    }
+
+    /**
+     * Resolve the flows that would match a packet on an SFF.
+     *
+     * @param sffNodeName
+     *            - the SFF the packet goes through
+     * @param pathId
+     *            - the path id of the packet
+     * @param serviceIndex
+     *            - the service index of the packet
+     * @param mplsLabel
+     *            - the MPLS label of the packet, or null to match the labels
+     *            of the path
+     * @param vlanId
+     *            - the VLAN id of the packet, or null to match the VLAN ids of
+     *            the path
+     * @return the highest priority flow matching the packet in each table, in
+     *         table order. The content of the flows only holds their key,
+     *         table and priority.
+     */
+    synchronized List<FlowDetails> matchFlows(String sffNodeName, long pathId, short serviceIndex, Long mplsLabel,
+            Integer vlanId) {
+        return matchIndex.match(sffNodeName, pathId, serviceIndex, mplsLabel, vlanId);
+    }
+
+    synchronized boolean containsRsp(long rspId) {
+        return rspFlows.containsKey(rspId);
+    }
+
+    synchronized Set<Long> getRspIds() {
+        return new HashSet<>(rspFlows.keySet());
+    }
+
+    /**
+     * Get a copy of the registered flows.
+     *
+     * @return the flows per SFF, per RSP
+     */
+    synchronized Map<Long, Map<String, Set<FlowDetails>>> getRspFlows() {
+        Map<Long, Map<String, Set<FlowDetails>>> copy = new HashMap<>();
+        rspFlows.forEach((rspId, flowsPerSff) -> {
+            Map<String, Set<FlowDetails>> flowsPerSffCopy = new HashMap<>();
+            flowsPerSff.forEach((sffNodeName, flows) -> flowsPerSffCopy.put(sffNodeName, new HashSet<>(flows)));
+            copy.put(rspId, flowsPerSffCopy);
+        });
+        return copy;
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.util.openflow.writer;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics.Stage;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowCapableNode;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.Table;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.groups.Group;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.NodeId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.Nodes;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.Node;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.NodeKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes and removes flows to/from the config data store in batches.
+ *
+ * <p>
+ * Flows handed over to the batcher are kept pending for up to the linger
+ * time, or until the maximum batch size is reached, and then written
+ * together. Only the last operation on a flow within a batch is performed:
+ * a flow added and then removed is only removed, and a flow removed and then
+ * added again is only written. Up to the maximum number of concurrent commits
+ * may be in flight at the same time. Transactions are always submitted from
+ * the same thread, in the order the flows were handed over, so the data
+ * store applies them in that order.
+ *
+ * <p>
+ * Groups are written and removed along with the flows: the groups written go
+ * in the first transaction of a batch and the groups removed in the last one,
+ * so that a group is in the data store before the flows handed over after it
+ * and is removed after the flows handed over before it.
+ *
+ * <p>
+ * Transactions shared with other parties, which may hold other changes, can
+ * be handed over too. They are submitted as part of the next batch.
+ */
+final class FlowWriteBatcher {
+    static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    static final long DEFAULT_LINGER_MILLIS = 10;
+    static final int DEFAULT_MAX_CONCURRENT_COMMITS = 4;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowWriteBatcher.class);
+
+    private final Supplier<WriteTransaction> transactionSupplier;
+    private final ScheduledExecutorService dispatcher;
+
+    // All guarded by this. A group removal is pending as a null group.
+    private final Map<InstanceIdentifier<Flow>, FlowDetails> pendingFlows = new LinkedHashMap<>();
+    private final Map<InstanceIdentifier<Group>, Group> pendingGroups = new LinkedHashMap<>();
+    private final Deque<WriteTransaction> pendingTransactions = new ArrayDeque<>();
+    private boolean dispatchScheduled;
+
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile long lingerMillis = DEFAULT_LINGER_MILLIS;
+    // Resized in place, as permits may be held while reconfigured
+    private final ResizableSemaphore commitPermits = new ResizableSemaphore(DEFAULT_MAX_CONCURRENT_COMMITS);
+    private volatile int maxConcurrentCommits = DEFAULT_MAX_CONCURRENT_COMMITS;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder failedCommits = new LongAdder();
+    private final LongAdder commitLatencyNanos = new LongAdder();
+    private final AtomicLong maxCommitLatencyNanos = new AtomicLong();
+    private final LongAdder cancelledFlowOperations = new LongAdder();
+
+    FlowWriteBatcher(Supplier<WriteTransaction> transactionSupplier) {
+        this.transactionSupplier = transactionSupplier;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("sfc-of-flow-writer-%d").setDaemon(true).build());
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.dispatcher = executor;
+    }
+
+    /**
+     * Change the batching parameters. Batches already dispatched are not
+     * affected.
+     *
+     * @param theMaxBatchSize
+     *            - the maximum number of flow operations per transaction
+     * @param theLingerMillis
+     *            - the maximum time a flow operation is kept pending
+     * @param theMaxConcurrentCommits
+     *            - the maximum number of transactions being committed at the
+     *            same time
+     */
+    void configure(int theMaxBatchSize, long theLingerMillis, int theMaxConcurrentCommits) {
+        if (theMaxBatchSize <= 0 || theLingerMillis < 0 || theMaxConcurrentCommits <= 0) {
+            throw new IllegalArgumentException("Invalid flow batching parameters: batch size " + theMaxBatchSize
+                    + ", linger " + theLingerMillis + " ms, concurrent commits " + theMaxConcurrentCommits);
+        }
+        maxBatchSize = theMaxBatchSize;
+        lingerMillis = theLingerMillis;
+        synchronized (commitPermits) {
+            int delta = theMaxConcurrentCommits - maxConcurrentCommits;
+            if (delta > 0) {
+                commitPermits.release(delta);
+            } else if (delta < 0) {
+                // commits in flight beyond the new maximum give their permit back when done
+                commitPermits.reducePermits(-delta);
+            }
+            maxConcurrentCommits = theMaxConcurrentCommits;
+        }
+    }
+
+    void write(Collection<FlowDetails> flows) {
+        enqueue(flows, false, null);
+    }
+
+    void remove(Collection<FlowDetails> flows) {
+        enqueue(flows, true, null);
+    }
+
+    synchronized void writeGroup(InstanceIdentifier<Group> iid, Group group) {
+        pendingGroups.put(iid, group);
+        scheduleDispatch();
+    }
+
+    synchronized void removeGroup(InstanceIdentifier<Group> iid) {
+        pendingGroups.put(iid, null);
+        scheduleDispatch();
+    }
+
+    /**
+     * Hand over a transaction shared with other parties, to be submitted with
+     * the next batch.
+     *
+     * @param tx
+     *            - the shared transaction
+     */
+    void submitWithNextBatch(WriteTransaction tx) {
+        enqueue(null, false, tx);
+    }
+
+    private synchronized void enqueue(Collection<FlowDetails> flows, boolean isRemoval, WriteTransaction tx) {
+        if (flows != null) {
+            for (FlowDetails flow : flows) {
+                // a removal is recorded as flow details without a flow
+                FlowDetails operation = isRemoval && flow.getFlow() != null
+                        ? new FlowDetails(flow.getSffNodeName(), flow.getFlowKey(), flow.getTableKey()) : flow;
+                InstanceIdentifier<Flow> iid = flowIid(flow);
+                if (pendingFlows.remove(iid) != null) {
+                    cancelledFlowOperations.increment();
+                }
+                pendingFlows.put(iid, operation);
+            }
+        }
+        if (tx != null) {
+            pendingTransactions.add(tx);
+        }
+        scheduleDispatch();
+    }
+
+    // Called holding this
+    private void scheduleDispatch() {
+        if (pendingFlows.size() >= maxBatchSize) {
+            dispatcher.execute(this::dispatch);
+            dispatchScheduled = true;
+        } else if (!dispatchScheduled) {
+            dispatcher.schedule(this::dispatch, lingerMillis, TimeUnit.MILLISECONDS);
+            dispatchScheduled = true;
+        }
+    }
+
+    private void dispatch() {
+        List<FlowDetails> flows;
+        List<WriteTransaction> sharedTransactions;
+        Map<InstanceIdentifier<Group>, Group> groups;
+        synchronized (this) {
+            dispatchScheduled = false;
+            flows = new ArrayList<>(pendingFlows.values());
+            pendingFlows.clear();
+            sharedTransactions = new ArrayList<>(pendingTransactions);
+            pendingTransactions.clear();
+            groups = new LinkedHashMap<>(pendingGroups);
+            pendingGroups.clear();
+        }
+
+        if (flows.isEmpty() && sharedTransactions.isEmpty() && groups.isEmpty()) {
+            return;
+        }
+        LOG.debug("dispatch: committing {} flow operations, {} group operations and {} shared transactions",
+                flows.size(), groups.size(), sharedTransactions.size());
+
+        // The flows go in the last shared transaction, if any, so that the
+        // changes in the shared transactions and the flows are applied in the
+        // same order they were handed over
+        Map<Long, Integer> lastFlowOfRsps = SfcRenderingMetrics.isEnabled() ? lastFlowOfRsps(flows)
+                : Collections.emptyMap();
+        Iterator<FlowDetails> flowIter = flows.iterator();
+        Iterator<WriteTransaction> sharedIter = sharedTransactions.iterator();
+        int flowIndex = 0;
+        boolean firstTransaction = true;
+        while (firstTransaction || flowIter.hasNext() || sharedIter.hasNext()) {
+            WriteTransaction tx = sharedIter.hasNext() ? sharedIter.next() : transactionSupplier.get();
+            if (firstTransaction) {
+                addGroupsToTransaction(tx, groups, false);
+                firstTransaction = false;
+            }
+            // Only the last shared transaction takes flows
+            int flowCount = sharedIter.hasNext() ? 0 : addFlowsToTransaction(tx, flowIter);
+            if (!flowIter.hasNext() && !sharedIter.hasNext()) {
+                addGroupsToTransaction(tx, groups, true);
+            }
+            List<Long> completedRspIds = new ArrayList<>();
+            for (int i = flowIndex; i < flowIndex + flowCount && !lastFlowOfRsps.isEmpty(); i++) {
+                // removals may not know the RSP they belong to
+                FlowDetails flow = flows.get(i);
+                if (flow.hasRspId() && Integer.valueOf(i).equals(lastFlowOfRsps.get(flow.getRspId()))) {
+                    completedRspIds.add(flow.getRspId());
+                }
+            }
+            flowIndex += flowCount;
+            commit(tx, flowCount, completedRspIds);
+        }
+    }
+
+    /**
+     * Find the last flow written for each RSP, to know which transaction
+     * completes the writing of its flows.
+     *
+     * @param flows
+     *            - the flow operations about to be committed
+     * @return the index of the last flow of each RSP, by RSP id
+     */
+    private static Map<Long, Integer> lastFlowOfRsps(List<FlowDetails> flows) {
+        Map<Long, Integer> lastFlowOfRsps = new HashMap<>();
+        for (int i = 0; i < flows.size(); i++) {
+            FlowDetails flow = flows.get(i);
+            if (flow.getFlow() != null && flow.hasRspId()) {
+                lastFlowOfRsps.put(flow.getRspId(), i);
+            }
+        }
+        return lastFlowOfRsps;
+    }
+
+    private int addFlowsToTransaction(WriteTransaction tx, Iterator<FlowDetails> flowIter) {
+        int flowCount = 0;
+        while (flowCount < maxBatchSize && flowIter.hasNext()) {
+            FlowDetails flow = flowIter.next();
+            if (flow.getFlow() == null) {
+                tx.delete(LogicalDatastoreType.CONFIGURATION, flowIid(flow));
+            } else {
+                tx.put(LogicalDatastoreType.CONFIGURATION, flowIid(flow), flow.getFlow(), true);
+            }
+            flowCount++;
+        }
+        return flowCount;
+    }
+
+    private static void addGroupsToTransaction(WriteTransaction tx, Map<InstanceIdentifier<Group>, Group> groups,
+            boolean removals) {
+        groups.forEach((iid, group) -> {
+            if (group == null && removals) {
+                tx.delete(LogicalDatastoreType.CONFIGURATION, iid);
+            } else if (group != null && !removals) {
+                tx.merge(LogicalDatastoreType.CONFIGURATION, iid, group, true);
+            }
+        });
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void commit(WriteTransaction tx, int flowCount, List<Long> completedRspIds) {
+        try {
+            commitPermits.acquire();
+        } catch (InterruptedException e) {
+            LOG.error("commit: interrupted while waiting to commit flows", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            Futures.addCallback(tx.commit(), new FutureCallback<CommitInfo>() {
+                @Override
+                public void onSuccess(CommitInfo result) {
+                    commitDone(start);
+                    SfcRenderingMetrics.flowsWritten(flowCount);
+                    completedRspIds.forEach(SfcRenderingMetrics::rspFlowsCommitted);
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    LOG.error("commit: flow transaction failed", throwable);
+                    failedCommits.increment();
+                    commitDone(start);
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (RuntimeException e) {
+            LOG.error("commit: flow transaction could not be submitted", e);
+            failedCommits.increment();
+            commitPermits.release();
+        }
+    }
+
+    private void commitDone(long start) {
+        long latency = System.nanoTime() - start;
+        commits.increment();
+        commitLatencyNanos.add(latency);
+        maxCommitLatencyNanos.accumulateAndGet(latency, Math::max);
+        SfcRenderingMetrics.record(Stage.FLOW_COMMIT, latency);
+        commitPermits.release();
+    }
+
+    /**
+     * Commit any pending flows and wait for the in flight commits to finish.
+     *
+     * @param timeout
+     *            - the maximum time to wait
+     * @param unit
+     *            - the time unit of the timeout
+     * @return true if all the commits finished in time
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        dispatcher.execute(this::dispatch);
+        dispatcher.shutdown();
+        if (!dispatcher.awaitTermination(timeout, unit)) {
+            dispatcher.shutdownNow();
+            return false;
+        }
+        return commitPermits.tryAcquire(maxConcurrentCommits, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private static InstanceIdentifier<Flow> flowIid(FlowDetails flow) {
+        NodeKey nodeKey = new NodeKey(new NodeId(flow.getSffNodeName()));
+        return InstanceIdentifier.builder(Nodes.class).child(Node.class, nodeKey).augmentation(FlowCapableNode.class)
+                .child(Table.class, flow.getTableKey()).child(Flow.class, flow.getFlowKey()).build();
+    }
+
+    synchronized int getPendingFlowOperations() {
+        return pendingFlows.size();
+    }
+
+    int getCommitsInFlight() {
+        return maxConcurrentCommits - commitPermits.availablePermits();
+    }
+
+    long getCommits() {
+        return commits.sum();
+    }
+
+    long getFailedCommits() {
+        return failedCommits.sum();
+    }
+
+    long getCommitLatencyNanos() {
+        return commitLatencyNanos.sum();
+    }
+
+    long getMaxCommitLatencyNanos() {
+        return maxCommitLatencyNanos.get();
+    }
+
+    long getCancelledFlowOperations() {
+        return cancelledFlowOperations.sum();
+    }
+
+    /**
+     * Semaphore whose number of permits can be reduced while they are held.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -11,26 +11,25 @@ package org.opendaylight.sfc.util.openflow.writer;
 import com.google.common.eventbus.EventBus;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import org.opendaylight.controller.md.sal.binding.api.DataBroker;
 import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
 import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
 import org.opendaylight.sfc.provider.api.SfcDataStoreAPI;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
 import org.opendaylight.sfc.util.openflow.OpenflowConstants;
+import org.opendaylight.sfc.util.openflow.writer.FlowMatchIndex.IndexedFlow;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowCapableNode;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.Table;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.TableKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowBuilder;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowKey;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.groups.Group;
@@ -57,36 +56,47 @@ import org.slf4j.LoggerFactory;
 
 public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
     private static final long SHUTDOWN_TIME = 5;
-    private static final String LOGSTR_THREAD_EXCEPTION = "Exception executing Thread: {}";
     private static final Logger LOG = LoggerFactory.getLogger(SfcOfFlowWriterImpl.class);
 
-    private final ExecutorService threadPoolExecutorService;
+    // Flows are written to, and removed from, the data store in batches
+    private final FlowWriteBatcher flowWriteBatcher;
 
-    private FlowBuilder flowBuilder;
+    // Last flow builder written by each thread, as RSPs are rendered
+    // concurrently
+    private final ThreadLocal<FlowBuilder> lastFlowBuilder = new ThreadLocal<>();
 
     // Store all flows associated w/ each rendered service path,
     // indexed by the corresponding SFFs
-    private final Map<Long, Map<String, List<FlowDetails>>> rspNameToFlowsMap;
+    private final FlowOwnershipRegistry flowOwnership;
 
     // temporary list of flows to be deleted. All of them will be deleted when
     // deleteFlowSet() is called
     private final Set<FlowDetails> setOfFlowsToDelete;
     // temporary list of flows to be added. All of them will be deleted when
-    // flushFlows() is called
+    // flushFlows() is called. Several RSPs may be rendered concurrently, so
+    // flows may be added from different threads.
     private final Set<FlowDetails> setOfFlowsToAdd;
 
+    // flows of the RSPs being updated, as they were before the update. The
+    // flows the RSPs no longer have are deleted on the next flush.
+    private final Map<Long, Map<FlowDetails, IndexedFlow>> rspFlowsBeforeUpdate;
+
     private DataBroker dataProvider;
 
     private WriteTransaction tx;
 
+    // Whether other parties may add their own changes to the transaction
+    private volatile boolean transactionShared;
+
     private final EventBus eventBus;
 
     public SfcOfFlowWriterImpl() {
-        this.threadPoolExecutorService = Executors.newSingleThreadExecutor();
-        this.rspNameToFlowsMap = new ConcurrentHashMap<>();
-        this.flowBuilder = null;
-        this.setOfFlowsToDelete = new HashSet<>();
-        this.setOfFlowsToAdd = new HashSet<>();
+        this.flowWriteBatcher = new FlowWriteBatcher(() -> dataProvider.newWriteOnlyTransaction());
+        SfcRenderingMetrics.setFlowWriterQueueDepth(flowWriteBatcher::getPendingFlowOperations);
+        this.flowOwnership = new FlowOwnershipRegistry();
+        this.setOfFlowsToDelete = ConcurrentHashMap.newKeySet();
+        this.setOfFlowsToAdd = ConcurrentHashMap.newKeySet();
+        this.rspFlowsBeforeUpdate = new ConcurrentHashMap<>();
         eventBus = new EventBus();
     }
 
@@ -100,14 +110,34 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
         dataProvider = dataBroker;
     }
 
+    /**
+     * Configure how flows are batched before being written to, or removed
+     * from, the data store.
+     *
+     * @param maxBatchSize
+     *            - the maximum number of flows written or removed in a single
+     *            transaction
+     * @param lingerMillis
+     *            - the maximum time flows are kept waiting for other flows to
+     *            be batched with
+     * @param maxConcurrentCommits
+     *            - the maximum number of transactions being committed at the
+     *            same time
+     */
+    public void setFlowBatching(int maxBatchSize, long lingerMillis, int maxConcurrentCommits) {
+        flowWriteBatcher.configure(maxBatchSize, lingerMillis, maxConcurrentCommits);
+    }
+
     @Override
     public void injectTransaction(WriteTransaction theTx) {
+        transactionShared = true;
         tx = theTx;
         eventBus.post(tx);
     }
 
     /**
-     * Shutdown the thread pool.
+     * Write any flows pending to be written and wait for them to be
+     * committed.
      *
      * @throws ExecutionException
      *             thrown when attempting to retrieve the result of an aborted
@@ -119,17 +149,14 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
     @Override
     public void shutdown() throws ExecutionException, InterruptedException {
         // When we close this service we need to shutdown our executor!
-        threadPoolExecutorService.shutdown();
-        if (!threadPoolExecutorService.awaitTermination(SHUTDOWN_TIME, TimeUnit.SECONDS)) {
-            LOG.error("SfcOfFlowProgrammerImpl Executor did not terminate in the specified time.");
-            List<Runnable> droppedTasks = threadPoolExecutorService.shutdownNow();
-            LOG.error("SfcOfFlowProgrammerImpl Executor was abruptly shut down. [{}] tasks will not be executed.",
-                    droppedTasks.size());
+        if (!flowWriteBatcher.shutdown(SHUTDOWN_TIME, TimeUnit.SECONDS)) {
+            LOG.error("SfcOfFlowWriterImpl pending flows were not committed in the specified time.");
         }
     }
 
     @Override
     public void registerTransactionListener(Object interestedParty) {
+        transactionShared = true;
         eventBus.register(interestedParty);
     }
 
@@ -150,20 +177,22 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
      */
     @Override
     public void writeFlow(Long rspId, String sffNodeName, FlowBuilder flow) {
-        this.flowBuilder = flow;
+        lastFlowBuilder.set(flow);
 
         LOG.debug("writeFlow storing flow to Node {}, table {}", sffNodeName, flow.getTableId());
 
         // Add the flow to the set of flows to be added in a single transaction
+        Flow builtFlow = withOwnerRsp(flow.build(), rspId);
         setOfFlowsToAdd.add(new FlowDetails(sffNodeName, flow.key(), new TableKey(flow.getTableId()),
-                flowBuilder.build(), rspId));
+                builtFlow, rspId));
 
         // This will store the flow info and rspId for removal later
-        storeFlowDetails(rspId, sffNodeName, flow.key(), flow.getTableId().toJava());
+        storeFlowDetails(rspId, sffNodeName, flow.key(), flow.getTableId().toJava(), builtFlow);
     }
 
     @Override
-    public void writeFlow(FlowDetails theFlowData) {
+    public void writeFlow(FlowDetails flowData) {
+        FlowDetails theFlowData = withOwnerRsp(flowData);
         LOG.debug("writeFlow storing flow to Node {}, table {}", theFlowData.getSffNodeName(),
                 theFlowData.getFlow().getTableId());
 
@@ -171,16 +200,43 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
         setOfFlowsToAdd.add(theFlowData);
 
         storeFlowDetails(theFlowData.getRspId(), theFlowData.getSffNodeName(), theFlowData.getFlowKey(),
-                theFlowData.getTableKey().getId().toJava());
+                theFlowData.getTableKey().getId().toJava(), theFlowData.getFlow());
     }
 
     @Override
-    public boolean writeFlows(Collection<FlowDetails> theFlows) {
-        theFlows.forEach(flow -> storeFlowDetails(flow.getRspId(), flow.getSffNodeName(), flow.getFlowKey(),
-                flow.getTableKey().getId().toJava()));
+    public boolean writeFlows(Collection<FlowDetails> flows) {
+        List<FlowDetails> theFlows = new ArrayList<>(flows.size());
+        for (FlowDetails flowData : flows) {
+            FlowDetails flow = withOwnerRsp(flowData);
+            storeFlowDetails(flow.getRspId(), flow.getSffNodeName(), flow.getFlowKey(),
+                    flow.getTableKey().getId().toJava(), flow.getFlow());
+            theFlows.add(flow);
+        }
         return setOfFlowsToAdd.addAll(theFlows);
     }
 
+    /*
+     * Record the owner RSP in a copy of the flow, so that the flow ownership
+     * can be restored after a restart. The caller's flow is left untouched.
+     */
+    private static FlowDetails withOwnerRsp(FlowDetails flowData) {
+        if (!flowData.hasRspId() || flowData.getFlow() == null) {
+            return flowData;
+        }
+        Flow flow = withOwnerRsp(flowData.getFlow(), flowData.getRspId());
+        return flow == flowData.getFlow() ? flowData
+                : new FlowDetails(flowData.getSffNodeName(), flowData.getFlowKey(), flowData.getTableKey(), flow,
+                        flowData.getRspId());
+    }
+
+    private static Flow withOwnerRsp(Flow flow, Long rspId) {
+        String containerName = OpenflowConstants.OF_CONTAINER_NAME_RSP_PREFIX + rspId;
+        if (containerName.equals(flow.getContainerName())) {
+            return flow;
+        }
+        return new FlowBuilder(flow).setContainerName(containerName).build();
+    }
+
     @Override
     public void removeFlow(String sffNodeName, FlowKey flowKey, TableKey tableKey) {
         LOG.debug("removeFlow: removing flow with key {} from table {} in sff {}", flowKey, tableKey, sffNodeName);
@@ -205,29 +261,88 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
 
     /**
      * From previous calls to writeFlowToConfig(), flows were stored per table
-     * and per SFF. Now the flows will be written, one table at at time per SFF.
+     * and per SFF. Now the flows will be handed over to be written, batched
+     * with other flows written or removed around the same time.
      */
     @Override
-    @SuppressWarnings("checkstyle:IllegalCatch")
     public void flushFlows() {
-        LOG.info("flushFlows: creating flowWriter task, writing [{}] flows.", setOfFlowsToAdd.size());
+        // Flows added while flushing are left for the next flush
+        Set<FlowDetails> flowsToAdd = new HashSet<>(setOfFlowsToAdd);
+        setOfFlowsToAdd.removeAll(flowsToAdd);
 
-        if (setOfFlowsToAdd.isEmpty()) {
+        // Flows of updated RSPs are only written if they changed, and the
+        // flows the RSPs no longer have are deleted
+        List<FlowDetails> flowsToDelete = diffUpdatedRspFlows(flowsToAdd);
+        LOG.info("flushFlows: writing [{}] flows, deleting [{}] flows.", flowsToAdd.size(), flowsToDelete.size());
+
+        if (flowsToAdd.isEmpty() && flowsToDelete.isEmpty()) {
             return;
         }
 
-        FlowSetWriterTask writerThread = tx == null ? new FlowSetWriterTask(dataProvider, setOfFlowsToAdd)
-                : new FlowSetWriterTask(setOfFlowsToAdd, tx);
+        // The flows to delete go first, in case another RSP writes them
+        flowWriteBatcher.remove(flowsToDelete);
+        flowWriteBatcher.write(flowsToAdd);
+        handOverTransaction();
+    }
 
-        try {
-            threadPoolExecutorService.execute(writerThread);
-        } catch (Exception ex) {
-            LOG.error(LOGSTR_THREAD_EXCEPTION, ex.toString(), ex);
-        } finally {
-            updateTransactionObject();
+    /**
+     * The flows of the RSP created from now on replace its current flows.
+     * When the flows are flushed, only the flows that changed are written, and
+     * only the flows the RSP no longer has are deleted.
+     *
+     * @param rspId
+     *            - the rspId of the RSP being updated
+     */
+    @Override
+    public void updateRspFlows(Long rspId) {
+        Map<FlowDetails, IndexedFlow> currentFlows = flowOwnership.detachRsp(rspId);
+        if (currentFlows == null) {
+            LOG.debug("updateRspFlows() RSP [{}] has no flows, it will be fully written", rspId);
+            return;
         }
-        // Clear the entries
-        setOfFlowsToAdd.clear();
+        rspFlowsBeforeUpdate.merge(rspId, currentFlows, (flows, moreFlows) -> {
+            flows.putAll(moreFlows);
+            return flows;
+        });
+    }
+
+    /**
+     * Compare the flows of the RSPs being updated with the flows they had
+     * before the update, by key and content. The flows whose content did not
+     * change are not written again.
+     *
+     * @param flowsToAdd
+     *            - the flows about to be written, the unchanged flows are
+     *            removed from it
+     * @return the flows the updated RSPs no longer have
+     */
+    private List<FlowDetails> diffUpdatedRspFlows(Set<FlowDetails> flowsToAdd) {
+        List<FlowDetails> flowsToDelete = new ArrayList<>();
+        if (rspFlowsBeforeUpdate.isEmpty()) {
+            return flowsToDelete;
+        }
+
+        int unchangedFlows = 0;
+        for (Long rspId : rspFlowsBeforeUpdate.keySet()) {
+            Map<FlowDetails, IndexedFlow> previousFlows = rspFlowsBeforeUpdate.remove(rspId);
+            Iterator<FlowDetails> flowIter = flowsToAdd.iterator();
+            while (flowIter.hasNext()) {
+                FlowDetails flow = flowIter.next();
+                if (!flow.hasRspId() || flow.getRspId() != rspId) {
+                    continue;
+                }
+                IndexedFlow previousFlow = previousFlows.remove(new FlowDetails(flow.getSffNodeName(),
+                        flow.getFlowKey(), flow.getTableKey(), rspId));
+                if (previousFlow != null && previousFlow.hasSameContent(flow.getFlow())) {
+                    flowIter.remove();
+                    unchangedFlows++;
+                }
+            }
+            flowsToDelete.addAll(previousFlows.keySet());
+        }
+        LOG.debug("diffUpdatedRspFlows: {} flows unchanged, {} flows no longer used", unchangedFlows,
+                flowsToDelete.size());
+        return flowsToDelete;
     }
 
     /**
@@ -238,6 +353,32 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
     public void purgeFlows() {
         setOfFlowsToAdd.clear();
         setOfFlowsToDelete.clear();
+
+        // The flows of the RSPs being updated are left as they were
+        for (Long rspId : rspFlowsBeforeUpdate.keySet()) {
+            Map<FlowDetails, IndexedFlow> previousFlows = rspFlowsBeforeUpdate.remove(rspId);
+            flowOwnership.removeRsp(rspId);
+            flowOwnership.attachFlows(previousFlows);
+        }
+    }
+
+    /**
+     * Purge the flows of the given RSP not written yet, and forget about them.
+     * If the RSP was being updated, it is left with the flows it had before
+     * the update. This should be called upon errors rendering an RSP, when
+     * other RSPs may be rendered at the same time.
+     *
+     * @param rspId
+     *            - the rspId to purge flows for
+     */
+    @Override
+    public void purgeFlows(Long rspId) {
+        setOfFlowsToAdd.removeIf(flow -> flow.getRspId() == rspId);
+        flowOwnership.removeRsp(rspId);
+        Map<FlowDetails, IndexedFlow> previousFlows = rspFlowsBeforeUpdate.remove(rspId);
+        if (previousFlows != null) {
+            flowOwnership.attachFlows(previousFlows);
+        }
     }
 
     /**
@@ -250,19 +391,13 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
      *            - the flow key of the new flow
      * @param tableId
      *            - the table the flow was written to
+     * @param flow
+     *            - the content of the flow
      */
-    private void storeFlowDetails(final Long rspId, final String sffNodeName, FlowKey flowKey, short tableId) {
+    private void storeFlowDetails(final Long rspId, final String sffNodeName, FlowKey flowKey, short tableId,
+            Flow flow) {
         LOG.debug("storeFlowDetails - gonna store rspId: {}, sffName: {}", rspId, sffNodeName);
-        if (!rspNameToFlowsMap.containsKey(rspId)) {
-            rspNameToFlowsMap.put(rspId, new HashMap<>());
-        }
-
-        if (!rspNameToFlowsMap.get(rspId).containsKey(sffNodeName)) {
-            rspNameToFlowsMap.get(rspId).put(sffNodeName, new ArrayList<>());
-        }
-
-        rspNameToFlowsMap.get(rspId).get(sffNodeName)
-                .add(new FlowDetails(sffNodeName, flowKey, new TableKey(tableId), rspId));
+        flowOwnership.addFlow(rspId, sffNodeName, flowKey, tableId, flow);
     }
 
     @Override
@@ -275,23 +410,22 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
 
         Group group = gb.build();
         LOG.debug("about to write group to data store \nID: {}\nGroup: {}", groupIID, group);
+        // Written in the same batches as the flows, ahead of the flows
+        // handed over after it and removed after the flows handed over before
         if (isAdd) {
-            if (!SfcDataStoreAPI.writeMergeTransactionAPI(groupIID, group, LogicalDatastoreType.CONFIGURATION)) {
-                LOG.warn("Failed to write group to data store");
-            }
+            flowWriteBatcher.writeGroup(groupIID, group);
         } else {
-            if (!SfcDataStoreAPI.deleteTransactionAPI(groupIID, LogicalDatastoreType.CONFIGURATION)) {
-                LOG.warn("Failed to remove group from data store");
-            }
+            flowWriteBatcher.removeGroup(groupIID);
         }
     }
 
     /**
-     * Return the last flow builder Used mainly in Unit Testing.
+     * Return the last flow builder written by the calling thread. Used mainly
+     * in Unit Testing.
      */
     @Override
     public FlowBuilder getFlowBuilder() {
-        return this.flowBuilder;
+        return lastFlowBuilder.get();
     }
 
     /**
@@ -304,48 +438,174 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
      */
     @Override
     public void deleteRspFlows(final Long rspId) {
-        if (!rspNameToFlowsMap.containsKey(rspId)) {
+        List<FlowDetails> flowDetailsList = flowOwnership.removeRsp(rspId);
+        if (flowDetailsList == null) {
             LOG.warn("deleteRspFlows() Attempting to delete RSP [{}], and it does not exist", rspId);
             return;
         }
 
-        List<FlowDetails> flowDetailsList = new ArrayList<>();
-        rspNameToFlowsMap.get(rspId).forEach((sffName, flowsPerSff) -> {
-            flowDetailsList.addAll(flowsPerSff);
-            flowsPerSff.clear();
-        });
+        setOfFlowsToDelete.addAll(flowDetailsList);
+        LOG.debug("deleteRspFlows() added {} flows to the delete list", setOfFlowsToDelete.size());
+    }
 
-        if (flowDetailsList.isEmpty()) {
-            LOG.warn("deleteRspFlows() no flows exist for RSP [{}]", rspId);
+    /**
+     * Restore the flow ownership from the flows in the config data store,
+     * which record the RSP they were written for. This is done in a single
+     * pass over the config flows, instead of rendering all the RSPs again.
+     * The flows of RSPs that were deleted in the meantime are deleted.
+     *
+     * @param existingRspIds
+     *            - the path ids of the RSPs that currently exist
+     */
+    public void restoreFlowOwnership(Set<Long> existingRspIds) {
+        Nodes nodes = SfcDataStoreAPI.readTransactionAPI(InstanceIdentifier.create(Nodes.class),
+                LogicalDatastoreType.CONFIGURATION);
+        if (nodes == null || nodes.getNode() == null) {
+            LOG.info("restoreFlowOwnership: no flows to restore");
             return;
         }
 
-        rspNameToFlowsMap.remove(rspId);
-        setOfFlowsToDelete.addAll(flowDetailsList);
-        LOG.debug("deleteRspFlows() added {} flows to the delete list", setOfFlowsToDelete.size());
+        int restoredFlows = 0;
+        for (Node node : nodes.getNode()) {
+            FlowCapableNode flowCapableNode = node.augmentation(FlowCapableNode.class);
+            if (flowCapableNode == null || flowCapableNode.getTable() == null) {
+                continue;
+            }
+            for (Table table : flowCapableNode.getTable()) {
+                if (table.getFlow() == null) {
+                    continue;
+                }
+                for (Flow flow : table.getFlow()) {
+                    Long rspId = getOwnerRspId(flow);
+                    if (rspId != null) {
+                        storeFlowDetails(rspId, node.getId().getValue(), flow.key(), table.getId().toJava(), flow);
+                        restoredFlows++;
+                    }
+                }
+            }
+        }
+
+        Set<Long> staleRspIds = flowOwnership.getRspIds();
+        staleRspIds.removeAll(existingRspIds);
+        staleRspIds.remove(OpenflowConstants.SFC_FLOWS);
+        LOG.info("restoreFlowOwnership: restored {} flows, deleting the flows of {} stale RSPs", restoredFlows,
+                staleRspIds.size());
+
+        if (!staleRspIds.isEmpty()) {
+            staleRspIds.forEach(this::deleteRspFlows);
+            clearSffsIfNoRspExists();
+            deleteFlowSet();
+        }
+    }
+
+    private static Long getOwnerRspId(Flow flow) {
+        String containerName = flow.getContainerName();
+        if (containerName == null || !containerName.startsWith(OpenflowConstants.OF_CONTAINER_NAME_RSP_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(containerName.substring(OpenflowConstants.OF_CONTAINER_NAME_RSP_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            LOG.warn("getOwnerRspId: flow {} has an invalid owner {}", flow.getId(), containerName);
+            return null;
+        }
+    }
+
+    /**
+     * Get the flows installed on behalf of each RSP. Used mainly in Unit
+     * Testing.
+     *
+     * @return a copy of the installed flows per SFF, per RSP
+     */
+    public Map<Long, Map<String, Set<FlowDetails>>> getRspFlows() {
+        return flowOwnership.getRspFlows();
+    }
+
+    /**
+     * Resolve the installed flows that would match a packet on an SFF, from
+     * an index of the flows by the SFC fields they match on. Used to trace
+     * RSPs without reading the SFF tables.
+     *
+     * @param sffNodeName
+     *            - the OpenFlow node name of the SFF
+     * @param pathId
+     *            - the path id of the packet
+     * @param serviceIndex
+     *            - the service index of the packet
+     * @param mplsLabel
+     *            - the MPLS label of the packet, or null to match the labels
+     *            of the path
+     * @param vlanId
+     *            - the VLAN id of the packet, or null to match the VLAN ids of
+     *            the path
+     * @return the highest priority flow matching the packet in each table, in
+     *         table order. The content of the flows only holds their key,
+     *         table and priority.
+     */
+    public List<FlowDetails> matchFlows(String sffNodeName, long pathId, short serviceIndex, Long mplsLabel,
+            Integer vlanId) {
+        return flowOwnership.matchFlows(sffNodeName, pathId, serviceIndex, mplsLabel, vlanId);
     }
 
     @Override
-    @SuppressWarnings("checkstyle:IllegalCatch")
     public void deleteFlowSet() {
-        LOG.info("deleteFlowSet: deleting {} flows", setOfFlowsToDelete.size());
+        // Flows removed while deleting are left for the next deletion
+        Set<FlowDetails> flowsToDelete = new HashSet<>(setOfFlowsToDelete);
+        LOG.info("deleteFlowSet: deleting {} flows", flowsToDelete.size());
 
-        if (setOfFlowsToDelete.isEmpty()) {
+        if (flowsToDelete.isEmpty()) {
             return;
         }
-        FlowSetRemoverTask fsrt = tx == null ? new FlowSetRemoverTask(dataProvider, setOfFlowsToDelete)
-                : new FlowSetRemoverTask(setOfFlowsToDelete, tx);
 
-        try {
-            threadPoolExecutorService.execute(fsrt);
-        } catch (Exception ex) {
-            LOG.error(LOGSTR_THREAD_EXCEPTION, ex.toString(), ex);
-        } finally {
-            updateTransactionObject();
-        }
+        flowWriteBatcher.remove(flowsToDelete);
+        handOverTransaction();
 
         // Clear the entries
-        setOfFlowsToDelete.clear();
+        setOfFlowsToDelete.removeAll(flowsToDelete);
+    }
+
+    /**
+     * The changes other parties made in the current transaction are committed
+     * together with the flows just handed over. A new transaction is then
+     * made available to them.
+     */
+    private void handOverTransaction() {
+        if (tx != null) {
+            if (transactionShared) {
+                flowWriteBatcher.submitWithNextBatch(tx);
+            } else {
+                tx.cancel();
+            }
+        }
+        updateTransactionObject();
+    }
+
+    public int getPendingFlowOperations() {
+        return flowWriteBatcher.getPendingFlowOperations();
+    }
+
+    public int getCommitsInFlight() {
+        return flowWriteBatcher.getCommitsInFlight();
+    }
+
+    public long getCommits() {
+        return flowWriteBatcher.getCommits();
+    }
+
+    public long getFailedCommits() {
+        return flowWriteBatcher.getFailedCommits();
+    }
+
+    public long getCommitLatencyNanos() {
+        return flowWriteBatcher.getCommitLatencyNanos();
+    }
+
+    public long getMaxCommitLatencyNanos() {
+        return flowWriteBatcher.getMaxCommitLatencyNanos();
+    }
+
+    public long getCancelledFlowOperations() {
+        return flowWriteBatcher.getCancelledFlowOperations();
     }
 
     /**
@@ -358,45 +618,22 @@ public class SfcOfFlowWriterImpl implements SfcOfFlowWriterInterface {
     public Set<NodeId> clearSffsIfNoRspExists() {
         Set<NodeId> sffNodeIDs = new HashSet<>();
 
-        if (!rspNameToFlowsMap.containsKey(OpenflowConstants.SFC_FLOWS)) {
+        if (!flowOwnership.containsRsp(OpenflowConstants.SFC_FLOWS)) {
             LOG.warn("clearSffsIfNoRspExists() - Attempting to delete initialization flows, and they do not exist");
             return sffNodeIDs;
         }
 
-        Map<String, List<FlowDetails>> theInitializationFlows = rspNameToFlowsMap.get(OpenflowConstants.SFC_FLOWS);
-
         // an orphan SFF is a forwarder not featured in any RSP
-        Predicate<String> isOrphanSff = sffName -> this.timesFeaturedInRsps(sffName) == 1;
-
-        Set<String> orphanSffs = theInitializationFlows.entrySet().stream().map(Entry::getKey).filter(isOrphanSff)
-                .collect(Collectors.toSet());
-
-        orphanSffs.forEach(sffName -> {
+        flowOwnership.removeOrphanSffs(OpenflowConstants.SFC_FLOWS).forEach((sffName, initializationFlows) -> {
             // mark this SFF as orphan
             sffNodeIDs.add(new NodeId(sffName));
             // mark the set of flows to remove from the switches
-            setOfFlowsToDelete.addAll(theInitializationFlows.get(sffName));
-            // delete the cache of initialization flows of orphan SFFs
-            theInitializationFlows.remove(sffName);
+            setOfFlowsToDelete.addAll(initializationFlows);
         });
 
         return sffNodeIDs;
     }
 
-    /**
-     * Given the name of an sff, returns the number of times that SFF is
-     * featured in RSPs.
-     *
-     * @param sffName
-     *            the name of a service function forwarder
-     * @return the number of times that SFF is featured in RSPs
-     */
-    private long timesFeaturedInRsps(String sffName) {
-        Predicate<Entry<Long, Map<String, List<FlowDetails>>>> isSffFeatured = theInputEntry -> theInputEntry.getValue()
-                .containsKey(sffName);
-        return rspNameToFlowsMap.entrySet().stream().filter(isSffFeatured).count();
-    }
-
     /**
      * Update the inner transaction object, and notify all transaction listeners
      * through the {@link EventBus}.
@@ -63,6 +63,15 @@ public interface SfcOfFlowWriterInterface {
      */
     void deleteRspFlows(Long rspId);
 
+    /**
+     * Replace the flows of a particular RSP with the flows created for it from
+     * now on. Only the differences are written when the flows are flushed.
+     *
+     * @param rspId
+     *            the ID of the RSP
+     */
+    void updateRspFlows(Long rspId);
+
     /**
      * Delete initialization flows from SFFs whenever they're no longer featured
      * in a RenderedServicePath.
@@ -85,6 +94,10 @@ public interface SfcOfFlowWriterInterface {
     // yet
     void purgeFlows();
 
+    // Purge the flows of a particular RSP that havent been written to the data
+    // store yet
+    void purgeFlows(Long rspId);
+
     // If the impl uses threads, shut it down
     void shutdown() throws ExecutionException, InterruptedException;
 }
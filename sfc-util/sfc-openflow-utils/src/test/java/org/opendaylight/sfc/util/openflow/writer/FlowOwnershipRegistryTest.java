@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.util.openflow.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.sfc.util.openflow.SfcOpenflowUtils;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.types.rev131026.flow.InstructionsBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.types.rev131026.flow.MatchBuilder;
+
+public class FlowOwnershipRegistryTest {
+    private static final long INIT_RSP_ID = 0;
+    private static final String SFF1 = "openflow:1";
+    private static final String SFF2 = "openflow:2";
+
+    private FlowOwnershipRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new FlowOwnershipRegistry();
+        registry.addFlow(INIT_RSP_ID, SFF1, flowKey("init1"), (short) 0, null);
+        registry.addFlow(INIT_RSP_ID, SFF2, flowKey("init2"), (short) 0, null);
+        // RSP 1 on both SFFs, RSP 2 on SFF2 only
+        registry.addFlow(1, SFF1, flowKey("rsp1-sff1"), (short) 1, null);
+        registry.addFlow(1, SFF2, flowKey("rsp1-sff2"), (short) 1, null);
+        registry.addFlow(2, SFF2, flowKey("rsp2-sff2"), (short) 1, null);
+    }
+
+    @Test
+    public void testFlowsAreDeduplicated() {
+        registry.addFlow(1, SFF1, flowKey("rsp1-sff1"), (short) 1, null);
+        assertEquals(2, registry.removeRsp(1).size());
+        assertNull(registry.removeRsp(1));
+    }
+
+    @Test
+    public void testOrphanSffsAreRemoved() {
+        registry.removeRsp(1);
+        Map<String, Set<FlowDetails>> orphanSffs = registry.removeOrphanSffs(INIT_RSP_ID);
+        assertEquals(Collections.singleton(SFF1), orphanSffs.keySet());
+        assertEquals(1, orphanSffs.get(SFF1).size());
+        assertTrue(registry.containsRsp(INIT_RSP_ID));
+
+        registry.removeRsp(2);
+        orphanSffs = registry.removeOrphanSffs(INIT_RSP_ID);
+        assertEquals(Collections.singleton(SFF2), orphanSffs.keySet());
+        assertFalse(registry.containsRsp(INIT_RSP_ID));
+        assertTrue(registry.getRspFlows().isEmpty());
+    }
+
+    @Test
+    public void testSffWithRspsIsNotOrphan() {
+        registry.removeRsp(2);
+        assertTrue(registry.removeOrphanSffs(INIT_RSP_ID).isEmpty());
+        assertEquals(2, registry.getRspFlows().get(INIT_RSP_ID).size());
+    }
+
+    @Test
+    public void testMatchFlows() {
+        registry.addFlow(INIT_RSP_ID, SFF1, flowKey("miss"), (short) 4, flow(4, 5, "miss", new MatchBuilder()));
+        registry.addFlow(1, SFF1, flowKey("nsh-1-255"), (short) 4,
+                flow(4, 550, "nsh-1-255", SfcOpenflowUtils.getNshMatches(1, (short) 255)));
+        registry.addFlow(1, SFF1, flowKey("nsh-1-254"), (short) 4,
+                flow(4, 550, "nsh-1-254", SfcOpenflowUtils.getNshMatches(1, (short) 254)));
+        MatchBuilder mplsMatch = new MatchBuilder();
+        SfcOpenflowUtils.addMatchMplsLabel(mplsMatch, 100);
+        registry.addFlow(1, SFF1, flowKey("mpls-100"), (short) 2, flow(2, 350, "mpls-100", mplsMatch));
+
+        List<FlowDetails> flows = registry.matchFlows(SFF1, 1, (short) 254, 100L, null);
+        assertEquals(2, flows.size());
+        assertEquals("mpls-100", flows.get(0).getFlowKey().getId().getValue());
+        assertEquals("nsh-1-254", flows.get(1).getFlowKey().getId().getValue());
+
+        // Unknown labels are the ones of the path, a different label is not
+        assertEquals(2, registry.matchFlows(SFF1, 1, (short) 255, null, null).size());
+        flows = registry.matchFlows(SFF1, 1, (short) 255, 200L, null);
+        assertEquals(1, flows.size());
+        assertEquals("nsh-1-255", flows.get(0).getFlowKey().getId().getValue());
+
+        // Other paths only match the table-miss flow
+        flows = registry.matchFlows(SFF1, 2, (short) 255, null, null);
+        assertEquals(1, flows.size());
+        assertEquals("miss", flows.get(0).getFlowKey().getId().getValue());
+
+        registry.removeRsp(1);
+        assertEquals(1, registry.matchFlows(SFF1, 1, (short) 255, 100L, null).size());
+        assertTrue(registry.matchFlows(SFF2, 1, (short) 255, null, null).isEmpty());
+    }
+
+    @Test
+    public void testDetachedFlowsAreIndexedWhenAttached() {
+        registry.addFlow(1, SFF1, flowKey("nsh-1-255"), (short) 4,
+                flow(4, 550, "nsh-1-255", SfcOpenflowUtils.getNshMatches(1, (short) 255)));
+
+        Map<FlowDetails, FlowMatchIndex.IndexedFlow> flows = registry.detachRsp(1);
+        assertEquals(3, flows.size());
+        assertFalse(registry.containsRsp(1));
+        assertTrue(registry.matchFlows(SFF1, 1, (short) 255, null, null).isEmpty());
+
+        registry.attachFlows(flows);
+        assertEquals(2, registry.getRspFlows().get(1L).size());
+        List<FlowDetails> matchedFlows = registry.matchFlows(SFF1, 1, (short) 255, null, null);
+        assertEquals(1, matchedFlows.size());
+        assertEquals(550, matchedFlows.get(0).getFlow().getPriority().intValue());
+    }
+
+    private static Flow flow(int tableId, int priority, String flowId, MatchBuilder match) {
+        return SfcOpenflowUtils.createFlowBuilder((short) tableId, priority, flowId, match, new InstructionsBuilder())
+                .build();
+    }
+
+    private static FlowKey flowKey(String flowId) {
+        return new FlowKey(new FlowId(flowId));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.util.openflow.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.mockito.InOrder;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.sfc.provider.metrics.SfcRenderingMetrics;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowCapableNode;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.Table;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.TableKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.GroupId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.groups.Group;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.groups.GroupBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.group.types.rev131018.groups.GroupKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.NodeId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.Nodes;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.Node;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.NodeKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+
+public class FlowWriteBatcherTest {
+    private static final String SFF_NODE_NAME = "openflow:1";
+    private static final long LONG_LINGER_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private WriteTransaction tx;
+    private AtomicInteger transactions;
+    private FlowWriteBatcher batcher;
+
+    @Before
+    public void setUp() {
+        tx = mock(WriteTransaction.class);
+        doReturn(CommitInfo.emptyFluentFuture()).when(tx).commit();
+        transactions = new AtomicInteger();
+        batcher = new FlowWriteBatcher(() -> {
+            transactions.incrementAndGet();
+            return tx;
+        });
+    }
+
+    @Test
+    public void testLastOperationOnAFlowWins() throws Exception {
+        batcher.configure(FlowWriteBatcher.DEFAULT_MAX_BATCH_SIZE, LONG_LINGER_MILLIS, 1);
+        batcher.write(Arrays.asList(flow("removed"), flow("readded")));
+        batcher.remove(Arrays.asList(flow("removed"), flow("readded")));
+        batcher.write(Collections.singletonList(flow("readded")));
+        assertEquals(2, batcher.getPendingFlowOperations());
+
+        assertTrue(batcher.shutdown(5, TimeUnit.SECONDS));
+        verify(tx, never()).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("removed")), any(Flow.class),
+                anyBoolean());
+        verify(tx).delete(LogicalDatastoreType.CONFIGURATION, flowIid("removed"));
+        verify(tx).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("readded")), any(Flow.class), eq(true));
+        verify(tx, never()).delete(LogicalDatastoreType.CONFIGURATION, flowIid("readded"));
+        verify(tx, times(1)).commit();
+        assertEquals(3, batcher.getCancelledFlowOperations());
+        assertEquals(1, batcher.getCommits());
+    }
+
+    @Test
+    public void testBatchSizeIsBounded() throws Exception {
+        batcher.configure(2, LONG_LINGER_MILLIS, 1);
+        batcher.write(Arrays.asList(flow("1"), flow("2"), flow("3"), flow("4"), flow("5")));
+
+        assertTrue(batcher.shutdown(5, TimeUnit.SECONDS));
+        verify(tx, times(5)).put(eq(LogicalDatastoreType.CONFIGURATION), any(), any(Flow.class), eq(true));
+        verify(tx, times(3)).commit();
+        assertEquals(3, transactions.get());
+        assertEquals(0, batcher.getCommitsInFlight());
+    }
+
+    @Test
+    public void testFlowsAreWrittenInSharedTransaction() throws Exception {
+        WriteTransaction sharedTx = mock(WriteTransaction.class);
+        doReturn(CommitInfo.emptyFluentFuture()).when(sharedTx).commit();
+        batcher.configure(FlowWriteBatcher.DEFAULT_MAX_BATCH_SIZE, LONG_LINGER_MILLIS, 1);
+        batcher.write(Collections.singletonList(flow("1")));
+        batcher.submitWithNextBatch(sharedTx);
+
+        assertTrue(batcher.shutdown(5, TimeUnit.SECONDS));
+        verify(sharedTx).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("1")), any(Flow.class), eq(true));
+        verify(sharedTx).commit();
+        assertEquals(0, transactions.get());
+    }
+
+    @Test
+    public void testGroupsAreWrittenFirstAndRemovedLast() throws Exception {
+        batcher.configure(1, LONG_LINGER_MILLIS, 1);
+        Group group = new GroupBuilder().withKey(new GroupKey(new GroupId(1L))).setGroupId(new GroupId(1L)).build();
+        batcher.writeGroup(groupIid(1L), group);
+        batcher.removeGroup(groupIid(2L));
+        batcher.write(Arrays.asList(flow("1"), flow("2")));
+
+        assertTrue(batcher.shutdown(5, TimeUnit.SECONDS));
+        InOrder inOrder = inOrder(tx);
+        inOrder.verify(tx).merge(LogicalDatastoreType.CONFIGURATION, groupIid(1L), group, true);
+        inOrder.verify(tx).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("1")), any(Flow.class), eq(true));
+        inOrder.verify(tx).commit();
+        inOrder.verify(tx).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("2")), any(Flow.class), eq(true));
+        inOrder.verify(tx).delete(LogicalDatastoreType.CONFIGURATION, groupIid(2L));
+        inOrder.verify(tx).commit();
+        assertEquals(2, transactions.get());
+    }
+
+    @Test
+    public void testRemovalsWithoutRspAreCommittedWithRspFlows() throws Exception {
+        SfcRenderingMetrics.setEnabled(true);
+        batcher.configure(FlowWriteBatcher.DEFAULT_MAX_BATCH_SIZE, LONG_LINGER_MILLIS, 1);
+        batcher.remove(Collections.singletonList(new FlowDetails(SFF_NODE_NAME, new FlowKey(new FlowId("removed")),
+                new TableKey((short) 0))));
+        batcher.write(Arrays.asList(flow("1"), flow("2")));
+        batcher.remove(Collections.singletonList(flow("1")));
+
+        assertTrue(batcher.shutdown(5, TimeUnit.SECONDS));
+        verify(tx).delete(LogicalDatastoreType.CONFIGURATION, flowIid("removed"));
+        verify(tx).delete(LogicalDatastoreType.CONFIGURATION, flowIid("1"));
+        verify(tx).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("2")), any(Flow.class), eq(true));
+        verify(tx, times(1)).commit();
+        assertEquals(1, batcher.getCommits());
+        assertEquals(0, batcher.getFailedCommits());
+    }
+
+    @Test
+    public void testConcurrentCommitsAreResizedWhileInFlight() throws Exception {
+        SettableFuture<CommitInfo> commitFuture = SettableFuture.create();
+        doReturn(FluentFuture.from(commitFuture)).when(tx).commit();
+        batcher.configure(1, LONG_LINGER_MILLIS, 2);
+        batcher.write(Collections.singletonList(flow("1")));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batcher.getCommitsInFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, batcher.getCommitsInFlight());
+
+        // the permit of the commit in flight is given back to the resized permits
+        batcher.configure(1, LONG_LINGER_MILLIS, 1);
+        assertEquals(1, batcher.getCommitsInFlight());
+        commitFuture.set(CommitInfo.empty());
+        assertEquals(0, batcher.getCommitsInFlight());
+
+        assertTrue(batcher.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(1, batcher.getCommits());
+    }
+
+    private static FlowDetails flow(String flowId) {
+        FlowKey flowKey = new FlowKey(new FlowId(flowId));
+        Flow flow = new FlowBuilder().withKey(flowKey).setTableId((short) 0).build();
+        return new FlowDetails(SFF_NODE_NAME, flowKey, new TableKey((short) 0), flow, 1L);
+    }
+
+    private static InstanceIdentifier<Group> groupIid(long groupId) {
+        return InstanceIdentifier.builder(Nodes.class).child(Node.class, new NodeKey(new NodeId(SFF_NODE_NAME)))
+                .augmentation(FlowCapableNode.class).child(Group.class, new GroupKey(new GroupId(groupId))).build();
+    }
+
+    private static InstanceIdentifier<Flow> flowIid(String flowId) {
+        return InstanceIdentifier.builder(Nodes.class).child(Node.class, new NodeKey(new NodeId(SFF_NODE_NAME)))
+                .augmentation(FlowCapableNode.class).child(Table.class, new TableKey((short) 0))
+                .child(Flow.class, new FlowKey(new FlowId(flowId))).build();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018 Ericsson Inc. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.opendaylight.sfc.util.openflow.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.md.sal.binding.api.DataBroker;
+import org.opendaylight.controller.md.sal.binding.api.WriteTransaction;
+import org.opendaylight.controller.md.sal.common.api.data.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.sfc.util.openflow.OpenflowConstants;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowCapableNode;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.FlowId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.Table;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.TableKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.Flow;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.flow.inventory.rev130819.tables.table.FlowKey;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.NodeId;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.Nodes;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.Node;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.inventory.rev130819.nodes.NodeKey;
+import org.opendaylight.yangtools.yang.binding.InstanceIdentifier;
+
+public class SfcOfFlowWriterImplTest {
+    private static final String SFF_NODE_NAME = "openflow:1";
+    private static final long RSP_ID = 1L;
+
+    private WriteTransaction tx;
+    private SfcOfFlowWriterImpl flowWriter;
+
+    @Before
+    public void setUp() {
+        tx = mock(WriteTransaction.class);
+        doReturn(CommitInfo.emptyFluentFuture()).when(tx).commit();
+        DataBroker dataBroker = mock(DataBroker.class);
+        when(dataBroker.newWriteOnlyTransaction()).thenReturn(tx);
+        flowWriter = new SfcOfFlowWriterImpl(dataBroker);
+        // keep all the flow operations pending until shutdown
+        flowWriter.setFlowBatching(1000, TimeUnit.MINUTES.toMillis(1), 1);
+    }
+
+    @Test
+    public void testRspUpdateOnlyWritesTheDifferences() throws Exception {
+        flowWriter.writeFlows(Arrays.asList(flow("unchanged", 10), flow("changed", 10), flow("removed", 10)));
+        flowWriter.flushFlows();
+
+        flowWriter.updateRspFlows(RSP_ID);
+        flowWriter.writeFlows(Arrays.asList(flow("unchanged", 10), flow("changed", 20)));
+        flowWriter.flushFlows();
+
+        // the changed flow is written again and the removed flow is deleted,
+        // superseding the pending writes of the first flush
+        assertEquals(2, flowWriter.getCancelledFlowOperations());
+        assertEquals(3, flowWriter.getPendingFlowOperations());
+        assertEquals(2, flowWriter.getRspFlows().get(RSP_ID).get(SFF_NODE_NAME).size());
+
+        flowWriter.shutdown();
+        verify(tx).put(LogicalDatastoreType.CONFIGURATION, flowIid("unchanged"), writtenFlow("unchanged", 10),
+                true);
+        verify(tx).put(LogicalDatastoreType.CONFIGURATION, flowIid("changed"), writtenFlow("changed", 20), true);
+        verify(tx).delete(LogicalDatastoreType.CONFIGURATION, flowIid("removed"));
+        verify(tx, never()).put(eq(LogicalDatastoreType.CONFIGURATION), eq(flowIid("removed")), any(Flow.class),
+                anyBoolean());
+    }
+
+    @Test
+    public void testPurgedRspUpdateKeepsTheFlows() {
+        flowWriter.writeFlows(Arrays.asList(flow("first", 10), flow("second", 10)));
+        flowWriter.flushFlows();
+
+        flowWriter.updateRspFlows(RSP_ID);
+        flowWriter.writeFlows(Arrays.asList(flow("first", 20)));
+        flowWriter.purgeFlows();
+
+        assertEquals(2, flowWriter.getRspFlows().get(RSP_ID).get(SFF_NODE_NAME).size());
+        assertEquals(0, flowWriter.getCancelledFlowOperations());
+    }
+
+    @Test
+    public void testWrittenFlowsAreTaggedWithTheOwnerRsp() {
+        FlowBuilder flowBuilder = new FlowBuilder().withKey(new FlowKey(new FlowId("builder"))).setTableId((short) 0)
+                .setPriority(10);
+        flowWriter.writeFlow(RSP_ID, SFF_NODE_NAME, flowBuilder);
+        FlowDetails flowDetails = flow("details", 10);
+        flowWriter.writeFlow(flowDetails);
+        flowWriter.writeFlows(Arrays.asList(flow("collection", 10)));
+
+        // the caller's flows are left untouched
+        assertNull(flowBuilder.getContainerName());
+        assertNull(flowDetails.getFlow().getContainerName());
+
+        flowWriter.flushFlows();
+        flowWriter.shutdown();
+        verify(tx).put(LogicalDatastoreType.CONFIGURATION, flowIid("builder"), writtenFlow("builder", 10), true);
+        verify(tx).put(LogicalDatastoreType.CONFIGURATION, flowIid("details"), writtenFlow("details", 10), true);
+        verify(tx).put(LogicalDatastoreType.CONFIGURATION, flowIid("collection"), writtenFlow("collection", 10),
+                true);
+    }
+
+    private static FlowDetails flow(String flowId, int priority) {
+        FlowKey flowKey = new FlowKey(new FlowId(flowId));
+        Flow flow = new FlowBuilder().withKey(flowKey).setTableId((short) 0).setPriority(priority).build();
+        return new FlowDetails(SFF_NODE_NAME, flowKey, new TableKey((short) 0), flow, RSP_ID);
+    }
+
+    private static Flow writtenFlow(String flowId, int priority) {
+        return new FlowBuilder(flow(flowId, priority).getFlow())
+                .setContainerName(OpenflowConstants.OF_CONTAINER_NAME_RSP_PREFIX + RSP_ID).build();
+    }
+
+    private static InstanceIdentifier<Flow> flowIid(String flowId) {
+        return InstanceIdentifier.builder(Nodes.class).child(Node.class, new NodeKey(new NodeId(SFF_NODE_NAME)))
+                .augmentation(FlowCapableNode.class).child(Table.class, new TableKey((short) 0))
+                .child(Flow.class, new FlowKey(new FlowId(flowId))).build();
+    }
+}